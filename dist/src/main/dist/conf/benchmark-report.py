@@ -24,6 +24,7 @@ import os
 import re
 import subprocess
 import shutil
+import struct
 from collections import Counter
 import base64
 
@@ -471,7 +472,7 @@ class HdrAnalyzer:
 
             file_name = os.path.splitext(file_name)[0]
             file_path = os.path.join(self.directory, file_name)
-            name = file_name.split('-')[1]
+            name = file_name.split('-', 1)[1]
 
             handles.append(
                 SeriesHandle("latency", "latency_interval_25_" + name, "Interval 25%", "Latency (μs)",
@@ -835,6 +836,7 @@ class ThroughputAnalyzer:
 
     def __load_throughput(self):
         performance_csv = os.path.join(self.worker_dir, "performance.csv")
+        performance_bin = os.path.join(self.worker_dir, "performance.bin")
         result = []
         if os.path.exists(performance_csv):
             with open(performance_csv) as csvfile:
@@ -843,9 +845,41 @@ class ThroughputAnalyzer:
                 next(csvreader)
                 for row in csvreader:
                     result.append(KeyValue(row[0], row[4]))
+        elif os.path.exists(performance_bin):
+            for record in load_binary_performance_log(performance_bin):
+                result.append(KeyValue(str(record[0] / 1000.0), str(record[3])))
         return result
 
 
+# The layout of the binary performance log written by the workers (see BinaryPerformanceLog):
+# a header with a magic int and a version byte, followed by fixed size big endian records of
+# epoch(ms), operations, operations-delta, operations/second, target-operations/second,
+# latency-p50(us), latency-p99(us), latency-p99.9(us) and latency-max(us).
+BINARY_PERFORMANCE_LOG_MAGIC = 0x53505246
+BINARY_PERFORMANCE_LOG_VERSION = 1
+BINARY_PERFORMANCE_LOG_HEADER = struct.Struct(">iB")
+BINARY_PERFORMANCE_LOG_RECORD = struct.Struct(">qqqddiiii")
+
+
+# Loads the records of a binary performance log as tuples.
+def load_binary_performance_log(path):
+    result = []
+    with open(path, "rb") as f:
+        header = f.read(BINARY_PERFORMANCE_LOG_HEADER.size)
+        if len(header) < BINARY_PERFORMANCE_LOG_HEADER.size:
+            return result
+        magic, version = BINARY_PERFORMANCE_LOG_HEADER.unpack(header)
+        if magic != BINARY_PERFORMANCE_LOG_MAGIC or version != BINARY_PERFORMANCE_LOG_VERSION:
+            print("Skipping " + path + "; not a binary performance log")
+            return result
+        while True:
+            data = f.read(BINARY_PERFORMANCE_LOG_RECORD.size)
+            if len(data) < BINARY_PERFORMANCE_LOG_RECORD.size:
+                break
+            result.append(BINARY_PERFORMANCE_LOG_RECORD.unpack(data))
+    return result
+
+
 class Worker:
     name = ""
     worker_dir = ""
@@ -14,82 +14,27 @@ hdr_target_dir_name=$3
 time_start_millis=$4
 time_end_millis=$5
 
-worker_dir_names=($(ls ${session_dir}))
-# copy all the hdr files
-for worker_dir_name in "${worker_dir_names[@]}"
-do
-    worker_dir=$session_dir/$worker_dir_name
-    if [ -d "${worker_dir}" ] ; then
-        # check if there are any .hdr files in the worker? Covering the case when latency is measured on clients, not on members
-        hdr_worker_files=(`find  $session_dir/$worker_dir_name -maxdepth 1 -name "*.hdr"`)
-        if [ ${#hdr_worker_files[@]} -gt 0 ]; then
-          mkdir -p $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name
-          cp $session_dir/$worker_dir_name/*.hdr $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name/ || true
-        fi
-    fi
-done
-
-hdr_files=($(find "${report_dir}/tmp/$hdr_target_dir_name" -name *.hdr))
-for hdr_file in "${hdr_files[@]}"
-do
-    echo "trimmig $hdr_file"
-    java -cp "${SIMULATOR_HOME}/lib/*"  com.hazelcast.simulator.utils.HistogramTrimmer $hdr_file $time_start_millis $time_end_millis
-done
-
-# merge all hdr files of each driver into a hdr file which gets stored in the target_directory
-probes=($(ls -R ${report_dir}/tmp/$hdr_target_dir_name | grep .hdr | sort | uniq))
-for probe in "${probes[@]}"
-do
-    echo "Merging probe $probe"
+# trims the hdr files of all workers, merges them per probe and creates the hgrm and csv files
+# for the workers and the merged probes; all in a single JVM
+java -cp "${SIMULATOR_HOME}/lib/*" com.hazelcast.simulator.utils.HistogramReportProcessor \
+        $session_dir $report_dir/tmp/$hdr_target_dir_name $time_start_millis $time_end_millis
 
+if [ -d "${report_dir}/tmp/$hdr_target_dir_name" ] ; then
     worker_dir_names=($(ls ${report_dir}/tmp/$hdr_target_dir_name))
-    hdr_files=()
-    for worker_dir_name in "${worker_dir_names[@]}"
-    do
-        hdr_file="${report_dir}/tmp/$hdr_target_dir_name/${worker_dir_name}/${probe}"
-        if [ -f $hdr_file ] ; then
-            echo "found hdr_file: $hdr_file"
-            hdr_files+=("$hdr_file")
-        fi
-    done
-    echo "${hdr_files[@]}"
-
-    java -cp "${SIMULATOR_HOME}/lib/*" com.hazelcast.simulator.utils.HistogramLogMerger \
-             "${report_dir}/tmp/$hdr_target_dir_name/${probe}" "${hdr_files[@]}" 2>/dev/null
-done
-
-# convert all hdr files to hgrm files so they can easily be plot using
-# http://hdrhistogram.github.io/HdrHistogram/plotFiles.html
-hdr_files=($(find "${report_dir}/tmp/$hdr_target_dir_name" -name *.hdr))
-echo HDR Files $hdr_files
-for hdr_file in "${hdr_files[@]}"
-do
-    file_name="${hdr_file%.*}"
-    java -cp "${SIMULATOR_HOME}/lib/*"  com.hazelcast.simulator.utils.SimulatorHistogramLogProcessor \
-            -i ${hdr_file} \
-            -o ${file_name} \
-            -outputValueUnitRatio 1000
-
-    mv "${file_name}.hgrm" "${file_name}.hgrm.bak"
-
-    java -cp "${SIMULATOR_HOME}/lib/*"  com.hazelcast.simulator.utils.SimulatorHistogramLogProcessor \
-            -csv \
-            -i ${hdr_file} \
-            -o ${file_name} \
-            -outputValueUnitRatio 1000
-
-    echo "[INFO]          $hdr_file"
-
-    mv "${file_name}.hgrm.bak" "${file_name}.hgrm"
-done
+else
+    worker_dir_names=($(ls ${session_dir}))
+fi
 
-# copy performance.csv files
+# copy performance.csv files, the optional binary performance logs, the allocation and the cpu logs
 for worker_dir_name in "${worker_dir_names[@]}"
 do
     worker_dir=$session_dir/$worker_dir_name
     if [ -d "${worker_dir}" ] ; then
          mkdir -p $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name
          cp $session_dir/$worker_dir_name/performance*.csv $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name/ || true
+         cp $session_dir/$worker_dir_name/performance*.bin $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name/ 2>/dev/null || true
+         cp $session_dir/$worker_dir_name/allocation*.csv $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name/ 2>/dev/null || true
+         cp $session_dir/$worker_dir_name/cpu*.csv $report_dir/tmp/$hdr_target_dir_name/$worker_dir_name/ 2>/dev/null || true
     fi
 done
 
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.memcached;
+
+import com.hazelcast.simulator.test.AsyncResultAdapter;
+import net.spy.memcached.internal.OperationFuture;
+import net.spy.memcached.ops.OperationStatus;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Lets timestep methods return a spymemcached {@link OperationFuture}; the latency is recorded when the operation completes.
+ */
+public class OperationFutureAdapter implements AsyncResultAdapter<OperationFuture> {
+
+    @Override
+    public Class<OperationFuture> resultType() {
+        return OperationFuture.class;
+    }
+
+    @Override
+    public void onComplete(OperationFuture result, BiConsumer<Object, Throwable> callback) {
+        result.addListener(future -> {
+            OperationStatus status = future.getStatus();
+            if (status.isSuccess()) {
+                callback.accept(status, null);
+            } else {
+                callback.accept(null, new IllegalStateException(status.getMessage()));
+            }
+        });
+    }
+}
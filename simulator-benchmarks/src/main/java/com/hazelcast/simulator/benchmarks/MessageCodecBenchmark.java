@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.protocol.MessageCodec;
+import com.hazelcast.simulator.protocol.MessageCodecs;
+import com.hazelcast.simulator.protocol.operation.OperationCodec;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import com.hazelcast.simulator.utils.FastRandom;
+import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding the {@link PerformanceStatsOperation}, which every Worker sends in every performance
+ * monitor interval, with the {@link OperationCodec} and the {@link MessageCodec}s.
+ *
+ * The messages are created without a broker, so only the codec itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    private static final int VALUES_PER_HISTOGRAM = 10000;
+    private static final long MAX_LATENCY_NANOS = 10000000;
+
+    @Param({"json", "binary"})
+    public String codecName;
+
+    @Param({"1", "10"})
+    public int testCount;
+
+    private MessageCodec codec;
+    private Session session;
+    private List<SimulatorOperation> operations;
+    private String json;
+
+    @Setup
+    public void setup() {
+        codec = MessageCodecs.getCodec(codecName);
+        session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class[]{Session.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "createMessage":
+                            return new ActiveMQMessage();
+                        case "createBytesMessage":
+                            return new ActiveMQBytesMessage();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        FastRandom random = new FastRandom(1);
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        for (int i = 0; i < testCount; i++) {
+            HdrProbe probe = new HdrProbe(false);
+            for (int k = 0; k < VALUES_PER_HISTOGRAM; k++) {
+                probe.recordValue(1 + (long) (random.nextDouble() * MAX_LATENCY_NANOS));
+            }
+            op.addPerformanceStats("test" + i, new PerformanceStats(
+                    VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, probe.getIntervalHistogram()));
+        }
+        operations = Collections.singletonList(op);
+        json = OperationCodec.toJson(op);
+    }
+
+    @Benchmark
+    public Message encode() throws JMSException {
+        return codec.encode(session, operations);
+    }
+
+    @Benchmark
+    public List<SimulatorOperation> encodeAndDecode() throws JMSException {
+        Message message = codec.encode(session, operations);
+        if (message instanceof ActiveMQBytesMessage) {
+            // makes the message readable, like sending does
+            ((ActiveMQBytesMessage) message).reset();
+        }
+        return codec.decode(message);
+    }
+
+    @Benchmark
+    public String operationCodec_toJson() {
+        return OperationCodec.toJson(operations.get(0));
+    }
+
+    @Benchmark
+    public SimulatorOperation operationCodec_fromJson() {
+        return OperationCodec.fromJson(json, PerformanceStatsOperation.class);
+    }
+}
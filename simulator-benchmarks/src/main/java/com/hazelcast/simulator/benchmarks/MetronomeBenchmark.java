@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.metronome.BusySpinningMetronome;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
+import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.PoissonMetronome;
+import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Metronome#waitForNext()}.
+ *
+ * With an interval of 1ns the metronome is always behind schedule, so it never waits and the pure bookkeeping overhead is
+ * measured. With a longer interval the average time per call should be equal to the interval; any excess is the
+ * overshoot of the wake-up, which shows up as additional latency in the measurements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetronomeBenchmark {
+
+    @Param({"empty", "sleeping", "busySpinning", "poisson"})
+    public String metronomeType;
+
+    @Param({"1", "10000"})
+    public long intervalNanos;
+
+    private Metronome metronome;
+
+    @Setup
+    public void setup() {
+        PropertyBinding binding = new PropertyBinding(new TestCase("metronome"));
+        switch (metronomeType) {
+            case "empty":
+                metronome = EmptyMetronome.INSTANCE;
+                break;
+            case "sleeping":
+                metronome = new SleepingMetronome(intervalNanos, 1, binding, "");
+                break;
+            case "busySpinning":
+                metronome = new BusySpinningMetronome(intervalNanos, 1, binding, "");
+                break;
+            case "poisson":
+                metronome = new PoissonMetronome(intervalNanos, 1, binding, "");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown metronomeType: " + metronomeType);
+        }
+    }
+
+    @Benchmark
+    public long waitForNext() {
+        return metronome.waitForNext();
+    }
+}
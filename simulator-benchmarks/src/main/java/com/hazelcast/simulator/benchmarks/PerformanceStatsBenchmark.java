@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.utils.FastRandom;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregation of {@link PerformanceStats}, which is done for every test in every performance monitor interval.
+ *
+ * The 'create' benchmark measures a Worker creating the PerformanceStats of an interval, which derives the latency values
+ * from the histogram. The 'aggregate' benchmark measures combining the PerformanceStats of all Workers, which merges their
+ * histograms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PerformanceStatsBenchmark {
+
+    private static final int VALUES_PER_HISTOGRAM = 100000;
+    // a log-normal latency distribution with a median of about 100us and a long tail
+    private static final double MEDIAN_NANOS = 100000;
+    private static final double SIGMA = 1.5;
+
+    @Param({"1", "10", "100"})
+    public int workerCount;
+
+    private Histogram histogram;
+    private PerformanceStats[] stats;
+
+    @Setup
+    public void setup() {
+        FastRandom random = new FastRandom(1);
+        stats = new PerformanceStats[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            HdrProbe probe = new HdrProbe(false);
+            for (int k = 0; k < VALUES_PER_HISTOGRAM; k++) {
+                probe.recordValue((long) (MEDIAN_NANOS * Math.exp(SIGMA * random.nextGaussian())));
+            }
+            histogram = probe.getIntervalHistogram();
+            stats[i] = new PerformanceStats(VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, histogram);
+        }
+    }
+
+    @Benchmark
+    public PerformanceStats create() {
+        return new PerformanceStats(VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, VALUES_PER_HISTOGRAM, histogram);
+    }
+
+    @Benchmark
+    public PerformanceStats aggregate() {
+        return PerformanceStats.aggregateAll(stats);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of recording a latency in a probe.
+ *
+ * The 'shared' benchmark records into the {@link HdrProbe} all threads share; the 'perThread' benchmark records into a
+ * thread probe created by {@link HdrProbe#newThreadProbe()}, like the TimeStepRunner does for synchronous timestep methods.
+ * Run with multiple threads, e.g. '-t 4', to see the effect of contention on the shared probe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProbeBenchmark {
+
+    // spreads the recorded values over a realistic range of sub millisecond buckets
+    private static final long VALUE_MASK = 0xFFFFF;
+
+    @State(Scope.Benchmark)
+    public static class SharedProbe {
+
+        final HdrProbe probe = new HdrProbe(false);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadProbe {
+
+        Probe probe;
+        long value;
+
+        @Setup
+        public void setup(SharedProbe sharedProbe) {
+            probe = sharedProbe.probe.newThreadProbe();
+        }
+    }
+
+    @Benchmark
+    public void shared(SharedProbe sharedProbe, ThreadProbe threadProbe) {
+        sharedProbe.probe.recordValue(threadProbe.value++ & VALUE_MASK);
+    }
+
+    @Benchmark
+    public void perThread(ThreadProbe threadProbe) {
+        threadProbe.probe.recordValue(threadProbe.value++ & VALUE_MASK);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.protocol.ConnectionFactory;
+import com.hazelcast.simulator.protocol.MessageCodec;
+import com.hazelcast.simulator.protocol.MessageCodecs;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
+import com.hazelcast.simulator.protocol.operation.LogOperation;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.command.ActiveMQTopic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jms.Connection;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the number of operations per second a {@link Server} can send to the Coordinator, from
+ * {@link Server#sendCoordinator(SimulatorOperation)} through the send thread.
+ *
+ * It compares sending every operation in its own message (maxBatchSize=1) with batching the operations. The Server runs
+ * without a broker: the JMS session and producer are stubs, so only the send path of the Server and the encoding of the
+ * operations are measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerSendBenchmark {
+
+    private static final int OPERATION_COUNT = 1000;
+
+    @Param({"1", "64"})
+    public int maxBatchSize;
+
+    private final AtomicLong encoded = new AtomicLong();
+    private SimulatorOperation operation;
+    private Server server;
+
+    @Setup
+    public void setup() {
+        operation = new LogOperation("message");
+        server = new Server("workers")
+                .setConnectionFactory(new StubConnectionFactory())
+                .setSelfAddress(SimulatorAddress.fromString("A1_W1"))
+                .setProcessor((op, source, promise) -> {
+                })
+                .setMessageCodec(new CountingMessageCodec(MessageCodecs.defaultCodec(), encoded))
+                .setMaxBatchSize(maxBatchSize)
+                .start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATION_COUNT)
+    public void sendCoordinator() {
+        long expected = encoded.get() + OPERATION_COUNT;
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            server.sendCoordinator(operation);
+        }
+        // waits for the send thread, so the measurement includes sending the operations
+        while (encoded.get() < expected) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Counts the operations which are encoded by the send thread of the Server.
+     */
+    private static final class CountingMessageCodec implements MessageCodec {
+
+        private final MessageCodec codec;
+        private final AtomicLong encoded;
+
+        private CountingMessageCodec(MessageCodec codec, AtomicLong encoded) {
+            this.codec = codec;
+            this.encoded = encoded;
+        }
+
+        @Override
+        public String getName() {
+            return codec.getName();
+        }
+
+        @Override
+        public Message encode(Session session, List<SimulatorOperation> operations) throws JMSException {
+            Message message = codec.encode(session, operations);
+            encoded.addAndGet(operations.size());
+            return message;
+        }
+
+        @Override
+        public List<SimulatorOperation> decode(Message message) throws JMSException {
+            return codec.decode(message);
+        }
+    }
+
+    /**
+     * Creates a {@link Connection} which doesn't connect to a broker; the messages which are send are discarded and
+     * nothing is received.
+     */
+    private static final class StubConnectionFactory extends ConnectionFactory {
+
+        @Override
+        public Connection newConnection(String brokerURL, ExceptionListener exceptionListener) {
+            MessageConsumer consumer = stub(MessageConsumer.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "receive":
+                        // blocks the server thread until the Server is closed
+                        try {
+                            Thread.sleep(Long.MAX_VALUE);
+                        } catch (InterruptedException e) {
+                            throw new JMSException("interrupted");
+                        }
+                        return null;
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            MessageProducer producer = stub(MessageProducer.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "send":
+                    case "setTimeToLive":
+                    case "setDeliveryMode":
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            Session session = stub(Session.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createTopic":
+                        return new ActiveMQTopic((String) args[0]);
+                    case "createConsumer":
+                        return consumer;
+                    case "createProducer":
+                        return producer;
+                    case "createMessage":
+                        return new ActiveMQMessage();
+                    case "createBytesMessage":
+                        return new ActiveMQBytesMessage();
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            return stub(Connection.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createSession":
+                        return session;
+                    case "setExceptionListener":
+                    case "start":
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private static <T> T stub(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.worker.testcontainer.TestContainer;
+import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+
+/**
+ * Measures the overhead per iteration of the TimeStepRunner loop, i.e. waiting for the metronome, selecting the timestep
+ * method, calling it and recording its latency in the probe.
+ *
+ * Every invocation runs a test with empty timestep methods on a single timestep thread for {@value #ITERATIONS} iterations;
+ * the cost of starting the thread is spread over the iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeStepLoopBenchmark {
+
+    static final int ITERATIONS = 1000000;
+
+    @Param({"1", "4"})
+    public int timeStepMethods;
+
+    @Param({"generated", "methodHandle"})
+    public String runnerType;
+
+    private TestContainer container;
+
+    @Setup(Level.Invocation)
+    public void setup() throws Exception {
+        Object testInstance = timeStepMethods == 1 ? new SingleTimeStepTest() : new FourTimeStepTest();
+        TestCase testCase = new TestCase("loop")
+                .setProperty("class", testInstance.getClass())
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", ITERATIONS)
+                .setProperty("runnerType", runnerType);
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", null);
+        container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public long loop() throws Exception {
+        container.invoke(RUN);
+        return container.iteration();
+    }
+
+    public static class SingleTimeStepTest {
+
+        @TimeStep
+        public void timeStep() {
+        }
+    }
+
+    public static class FourTimeStepTest {
+
+        @TimeStep(prob = 0.1)
+        public void timeStep1() {
+        }
+
+        @TimeStep(prob = 0.2)
+        public void timeStep2() {
+        }
+
+        @TimeStep(prob = 0.3)
+        public void timeStep3() {
+        }
+
+        @TimeStep(prob = 0.4)
+        public void timeStep4() {
+        }
+    }
+}
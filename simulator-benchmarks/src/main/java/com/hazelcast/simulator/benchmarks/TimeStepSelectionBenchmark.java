@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.benchmarks;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import com.hazelcast.simulator.worker.testcontainer.AliasTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.simulator.worker.testcontainer.Probability.methodProbabilitiesToMethodRatios;
+import static com.hazelcast.simulator.worker.testcontainer.Probability.ratiosToMethodProbabilityArray;
+
+/**
+ * Compares the selection of a timestep method by the generated TimeStepRunner loop.
+ *
+ * The 'byteArray' benchmarks use the former lookup array with a slot per unit of probability, the 'aliasTable' benchmarks
+ * the {@link AliasTable} the runner uses now. Both are measured with a {@link Random} and a {@link FastRandom}, so the
+ * effect of the random generator and of the selection method can be told apart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeStepSelectionBenchmark {
+
+    /**
+     * The probabilities of the timestep methods; the fine grained probabilities need a large lookup array.
+     */
+    @Param({"0.5,0.5", "0.1,0.2,0.3,0.4", "0.0001,0.2999,0.7"})
+    public String probabilities;
+
+    private byte[] byteArray;
+    private AliasTable aliasTable;
+    private Random random;
+    private FastRandom fastRandom;
+
+    @Setup
+    public void setup() {
+        String[] items = probabilities.split(",");
+        double[] weights = new double[items.length];
+        for (int i = 0; i < items.length; i++) {
+            weights[i] = Double.parseDouble(items[i]);
+        }
+
+        byteArray = ratiosToMethodProbabilityArray(methodProbabilitiesToMethodRatios(weights));
+        aliasTable = new AliasTable(weights);
+        random = new Random();
+        fastRandom = new FastRandom();
+    }
+
+    @Benchmark
+    public int byteArray_random() {
+        return byteArray[random.nextInt(byteArray.length)];
+    }
+
+    @Benchmark
+    public int byteArray_fastRandom() {
+        return byteArray[fastRandom.nextInt(byteArray.length)];
+    }
+
+    @Benchmark
+    public int aliasTable_random() {
+        return aliasTable.select(random.nextLong());
+    }
+
+    @Benchmark
+    public int aliasTable_fastRandom() {
+        return aliasTable.select(fastRandom.nextLong());
+    }
+}
@@ -21,6 +21,7 @@ import com.hazelcast.simulator.agent.workerprocess.WorkerProcessManager;
 import com.hazelcast.simulator.common.ProcessSuicideThread;
 import com.hazelcast.simulator.common.ShutdownThread;
 import com.hazelcast.simulator.protocol.Broker;
+import com.hazelcast.simulator.protocol.MessageCodec;
 import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.worker.ExitingExceptionListener;
@@ -82,6 +83,18 @@ public class Agent implements Closeable {
         return publicAddress;
     }
 
+    /**
+     * Sets the {@link MessageCodec} configured with the OPERATION_CODEC property, so the agent can decode the operations
+     * encoded with a custom codec.
+     *
+     * @param codec the MessageCodec
+     * @return this
+     */
+    public Agent setMessageCodec(MessageCodec codec) {
+        server.setMessageCodec(codec);
+        return this;
+    }
+
     public WorkerProcessManager getProcessManager() {
         return processManager;
     }
@@ -24,6 +24,7 @@ import org.apache.log4j.Logger;
 
 import static com.hazelcast.simulator.common.GitInfo.getBuildTime;
 import static com.hazelcast.simulator.common.GitInfo.getCommitIdAbbrev;
+import static com.hazelcast.simulator.protocol.MessageCodecs.getCodec;
 import static com.hazelcast.simulator.utils.CommonUtils.exitWithError;
 import static com.hazelcast.simulator.utils.CommonUtils.getSimulatorVersion;
 import static com.hazelcast.simulator.utils.FileUtils.getSimulatorHome;
@@ -59,6 +60,10 @@ public final class AgentCli {
                     + "Only makes sense to be used for local instance.")
             .withRequiredArg().ofType(String.class);
 
+    private final OptionSpec<String> operationCodecSpec = parser.accepts("operationCodec",
+            "The codec used to encode operations, see the OPERATION_CODEC property in the simulator.properties.")
+            .withRequiredArg().ofType(String.class);
+
     private final OptionSet options;
 
     AgentCli(String[] args) {
@@ -82,7 +87,8 @@ public final class AgentCli {
         int port = options.valueOf(portSpec);
         int workerLastSeenTimeoutSeconds = options.valueOf(workerLastSeenTimeoutSecondsSpec);
         String parentPid = options.valueOf(parentPidSpec);
-        this.agent = new Agent(addressIndex, publicAddress, port, workerLastSeenTimeoutSeconds, parentPid);
+        this.agent = new Agent(addressIndex, publicAddress, port, workerLastSeenTimeoutSeconds, parentPid)
+                .setMessageCodec(getCodec(options.valueOf(operationCodecSpec)));
     }
 
     private static void logHeader() {
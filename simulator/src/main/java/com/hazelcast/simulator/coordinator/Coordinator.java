@@ -34,6 +34,8 @@ import com.hazelcast.simulator.coordinator.tasks.PrepareSessionTask;
 import com.hazelcast.simulator.coordinator.tasks.RunTestSuiteTask;
 import com.hazelcast.simulator.coordinator.tasks.StartWorkersTask;
 import com.hazelcast.simulator.coordinator.tasks.TerminateWorkersTask;
+import com.hazelcast.simulator.metrics.JvmMetrics;
+import com.hazelcast.simulator.metrics.MetricsServer;
 import com.hazelcast.simulator.protocol.CoordinatorClient;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.utils.BashCommand;
@@ -60,6 +62,8 @@ import java.util.concurrent.Future;
 import static com.hazelcast.simulator.coordinator.AgentUtils.startAgents;
 import static com.hazelcast.simulator.coordinator.AgentUtils.stopAgents;
 import static com.hazelcast.simulator.coordinator.registry.AgentData.publicAddresses;
+import static com.hazelcast.simulator.protocol.MessageCodecs.OPERATION_CODEC_PROPERTY;
+import static com.hazelcast.simulator.protocol.MessageCodecs.getCodec;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepSeconds;
 import static com.hazelcast.simulator.utils.FileUtils.getConfigurationFile;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
@@ -83,6 +87,7 @@ public class Coordinator implements Closeable {
     private final int testCompletionTimeoutSeconds;
     private final CoordinatorClient client;
     private CoordinatorRemoteImpl coordinatorRemote;
+    private MetricsServer metricsServer;
 
     public Coordinator(Registry registry, CoordinatorParameters parameters) {
         this.registry = registry;
@@ -93,6 +98,7 @@ public class Coordinator implements Closeable {
 
         this.client = new CoordinatorClient()
                 .setAgentBrokerPort(properties.getAgentPort())
+                .setMessageCodec(getCodec(properties.get(OPERATION_CODEC_PROPERTY)))
                 .setProcessor(new CoordinatorOperationProcessor(failureCollector, performanceStatsCollector))
                 .setFailureCollector(failureCollector);
     }
@@ -124,6 +130,8 @@ public class Coordinator implements Closeable {
 
         initCoordinatorRemote();
 
+        initMetricsServer();
+
         log("Coordinator started...");
     }
 
@@ -139,6 +147,13 @@ public class Coordinator implements Closeable {
         }
     }
 
+    private void initMetricsServer() {
+        int metricsPort = properties.getCoordinatorMetricsPort();
+        if (metricsPort > 0) {
+            metricsServer = new MetricsServer(metricsPort, performanceStatsCollector, new JvmMetrics()).start();
+        }
+    }
+
     private void registerShutdownHook() {
         if (parameters.skipShutdownHook()) {
             return;
@@ -169,6 +184,10 @@ public class Coordinator implements Closeable {
         if (properties.getCoordinatorPort() > 0) {
             log("Coordinator remote enabled on port " + properties.getCoordinatorPort());
         }
+
+        if (properties.getCoordinatorMetricsPort() > 0) {
+            log("Coordinator metrics enabled on port " + properties.getCoordinatorMetricsPort());
+        }
     }
 
     @Override
@@ -179,6 +198,8 @@ public class Coordinator implements Closeable {
 
         client.close();
 
+        CommonUtils.closeQuietly(metricsServer);
+
         stopAgents(properties, registry);
 
         if (!parameters.skipDownload()) {
@@ -24,6 +24,7 @@ import com.hazelcast.simulator.coordinator.tasks.ArtifactCleanTask;
 import com.hazelcast.simulator.coordinator.tasks.DownloadTask;
 import com.hazelcast.simulator.drivers.Driver;
 import com.hazelcast.simulator.utils.CommandLineExitException;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -47,6 +48,7 @@ import static com.hazelcast.simulator.utils.FileUtils.getSimulatorHome;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.SimulatorUtils.loadComponentRegister;
 import static com.hazelcast.simulator.utils.SimulatorUtils.loadSimulatorProperties;
+import static com.hazelcast.simulator.worker.testcontainer.MetronomeSupplier.parseInterval;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -145,6 +147,27 @@ final class CoordinatorCli {
                     + " List of defined test phases: %s", TestPhase.getLastTestPhase(), TestPhase.getIdsAsString()))
             .withRequiredArg().ofType(TestPhase.class).defaultsTo(TestPhase.getLastTestPhase());
 
+    private final OptionSpec<String> throughputSearchSpec = parser.accepts("throughputSearch",
+            "Searches the maximum sustainable throughput between the given minimum and maximum rate (operations/second of all "
+                    + "workers combined), e.g. 1000..200000. Instead of running at a fixed rate, the rate of the test is "
+                    + "changed while running and a binary search is done for the highest rate that meets the --latencySlo. "
+                    + "The result is written to throughput-search-<testId>.csv in the session directory. The test needs "
+                    + "to be a timestep based test. The search is aborted when the --duration has passed.")
+            .withRequiredArg().ofType(String.class);
+
+    private final OptionSpec<String> latencySloSpec = parser.accepts("latencySlo",
+            "The latency SLO for the --throughputSearch as <percentile>=<latency>, e.g. 99.9=10ms.")
+            .withRequiredArg().ofType(String.class).defaultsTo("99=10ms");
+
+    private final OptionSpec<String> searchStepDurationSpec = parser.accepts("searchStepDuration",
+            "The amount of time each rate of the --throughputSearch is measured, e.g. 30s or 1m.")
+            .withRequiredArg().ofType(String.class).defaultsTo("30s");
+
+    private final OptionSpec<Double> searchAccuracySpec = parser.accepts("searchAccuracy",
+            "The relative accuracy of the --throughputSearch. With 0.05 the search completes when the maximum "
+                    + "sustainable throughput is known within 5%.")
+            .withRequiredArg().ofType(Double.class).defaultsTo(0.05);
+
     private final OptionSpec<String> memberArgsSpec = parser.accepts("memberArgs",
             "Member Worker JVM options (quotes can be used). ")
             .withRequiredArg().ofType(String.class).defaultsTo("-XX:+HeapDumpOnOutOfMemoryError");
@@ -263,6 +286,11 @@ final class CoordinatorCli {
         }
 
         int durationSeconds = getDurationSeconds(options, durationSpec);
+        if (options.has(throughputSearchSpec)) {
+            checkNoFixedRate(testSuite);
+            testSuite.setThroughputSearchSettings(loadThroughputSearchSettings());
+        }
+
         testSuite.setDurationSeconds(durationSeconds)
                 .setFailFast(options.valueOf(failFastSpec))
                 .setVerifyEnabled(options.valueOf(verifyEnabledSpec))
@@ -279,6 +307,63 @@ final class CoordinatorCli {
         return testSuite;
     }
 
+    private ThroughputSearchSettings loadThroughputSearchSettings() {
+        if (coordinatorParameters.getSimulatorProperties().getInt("WORKER_PERFORMANCE_MONITOR_INTERVAL_SECONDS") == 0) {
+            throw new CommandLineExitException("--throughputSearch requires WORKER_PERFORMANCE_MONITOR_INTERVAL_SECONDS > 0");
+        }
+
+        String range = options.valueOf(throughputSearchSpec);
+        String[] rates = range.split("\\.\\.");
+        String latencySlo = options.valueOf(latencySloSpec);
+        String[] slo = latencySlo.split("=");
+        if (rates.length != 2) {
+            throw new CommandLineExitException(format("--throughputSearch [%s] should be formatted as <min>..<max>", range));
+        }
+        if (slo.length != 2) {
+            throw new CommandLineExitException(format("--latencySlo [%s] should be formatted as <percentile>=<latency>",
+                    latencySlo));
+        }
+
+        ThroughputSearchSettings settings = new ThroughputSearchSettings()
+                .setStepSeconds(getDurationSeconds(options, searchStepDurationSpec))
+                .setAccuracy(options.valueOf(searchAccuracySpec));
+        try {
+            settings.setMinRatePerSecond(Double.parseDouble(rates[0]))
+                    .setMaxRatePerSecond(Double.parseDouble(rates[1]))
+                    .setLatencyPercentile(Double.parseDouble(slo[0]))
+                    .setMaxLatencyNanos(parseInterval("latencySlo", slo[1]));
+        } catch (NumberFormatException | IllegalTestException e) {
+            throw new CommandLineExitException(format("Failed to parse --throughputSearch [%s] --latencySlo [%s]",
+                    range, latencySlo), e);
+        }
+        return checkThroughputSearchSettings(settings, range);
+    }
+
+    private static ThroughputSearchSettings checkThroughputSearchSettings(ThroughputSearchSettings settings, String range) {
+        if (settings.getMinRatePerSecond() <= 0 || settings.getMaxRatePerSecond() <= settings.getMinRatePerSecond()) {
+            throw new CommandLineExitException(format("--throughputSearch [%s] needs 0 < min < max", range));
+        }
+        if (settings.getAccuracy() <= 0 || settings.getAccuracy() >= 1) {
+            throw new CommandLineExitException("--searchAccuracy needs 0 < accuracy < 1");
+        }
+        if (settings.getStepSeconds() <= 0) {
+            throw new CommandLineExitException("--searchStepDuration needs to be larger than 0");
+        }
+        return settings;
+    }
+
+    // the throughput search controls the rate itself, so a configured rate would silently be overwritten
+    private static void checkNoFixedRate(TestSuite testSuite) {
+        for (TestCase testCase : testSuite.getTestCaseList()) {
+            for (String property : testCase.getProperties().keySet()) {
+                if (property.equals("ratePerSecond") || property.equals("interval") || property.endsWith("RatePerSecond")) {
+                    throw new CommandLineExitException(format("--throughputSearch can't be combined with the fixed rate "
+                            + "property [%s] of test [%s]", property, testCase.getId()));
+                }
+            }
+        }
+    }
+
     private TestSuite loadRawTestSuite() {
         String content;
         List testsuiteFiles = options.nonOptionArguments();
@@ -15,15 +15,20 @@
  */
 package com.hazelcast.simulator.coordinator;
 
+import com.hazelcast.simulator.metrics.MetricsSource;
+import com.hazelcast.simulator.metrics.PrometheusWriter;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
 
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -41,14 +46,23 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Responsible for storing and formatting performance metrics from Simulator workers.
+ * <p>
+ * The latency histograms send by the workers are merged per test, so the reported latency percentiles are true
+ * aggregated percentiles over all workers. The same numbers are exposed as metrics using {@link #collect(PrometheusWriter)}.
  */
-public class PerformanceStatsCollector {
+public class PerformanceStatsCollector implements MetricsSource {
 
     public static final int OPERATION_COUNT_FORMAT_LENGTH = 14;
     public static final int THROUGHPUT_FORMAT_LENGTH = 12;
     public static final int LATENCY_FORMAT_LENGTH = 10;
 
     private static final long DISPLAY_LATENCY_AS_MICROS_MAX_VALUE = MILLISECONDS.toMicros(10);
+    private static final double MEDIAN_PERCENTILE = 50;
+    private static final double HIGH_PERCENTILE = 99;
+    private static final double[] REPORTED_PERCENTILES = {MEDIAN_PERCENTILE, 90, HIGH_PERCENTILE, 99.9, 99.99};
+    private static final double[] METRICS_QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double PERCENTILE_FACTOR = 100;
+    private static final double NANOS_PER_SECOND = SECONDS.toNanos(1);
 
     // holds a map per Worker SimulatorAddress which contains the lastDelta PerformanceStats per testCaseId
     private final ConcurrentMap<SimulatorAddress, WorkerPerformance> workerPerformanceInfoMap
@@ -71,30 +85,37 @@ public class PerformanceStatsCollector {
             return "";
         }
 
-        String latencyUnit = "µs";
-        long latencyAvg = NANOSECONDS.toMicros(round(latest.getIntervalLatencyAvgNanos()));
-        long latency999Percentile = NANOSECONDS.toMicros(latest.getIntervalLatency999PercentileNanos());
-        long latencyMax = NANOSECONDS.toMicros(latest.getIntervalLatencyMaxNanos());
+        boolean displayAsMillis = NANOSECONDS.toMicros(round(latest.getIntervalLatencyAvgNanos()))
+                > DISPLAY_LATENCY_AS_MICROS_MAX_VALUE;
+        String latencyUnit = displayAsMillis ? "ms" : "µs";
 
-        if (latencyAvg > DISPLAY_LATENCY_AS_MICROS_MAX_VALUE) {
-            latencyUnit = "ms";
-            latencyAvg = MICROSECONDS.toMillis(latencyAvg);
-            latency999Percentile = MICROSECONDS.toMillis(latency999Percentile);
-            latencyMax = MICROSECONDS.toMillis(latencyMax);
-        }
-
-        return format("%s ops %s ops/s %s %s (avg) %s %s (%sth) %s %s (max)",
+        String result = format("%s ops %s ops/s %s %s (avg)",
                 formatLong(latest.getOperationCount(), OPERATION_COUNT_FORMAT_LENGTH),
                 formatDouble(latest.getIntervalThroughput(), THROUGHPUT_FORMAT_LENGTH),
-                formatLong(latencyAvg, LATENCY_FORMAT_LENGTH),
-                latencyUnit,
-                formatLong(latency999Percentile, LATENCY_FORMAT_LENGTH),
+                formatLatency(round(latest.getIntervalLatencyAvgNanos()), displayAsMillis),
+                latencyUnit);
+
+        if (latest.getLatencyHistogram() != null) {
+            result += format(" %s %s (50th) %s %s (99th)",
+                    formatLatency(latest.getLatencyPercentileNanos(MEDIAN_PERCENTILE), displayAsMillis),
+                    latencyUnit,
+                    formatLatency(latest.getLatencyPercentileNanos(HIGH_PERCENTILE), displayAsMillis),
+                    latencyUnit);
+        }
+
+        return result + format(" %s %s (%sth) %s %s (max)",
+                formatLatency(latest.getIntervalLatency999PercentileNanos(), displayAsMillis),
                 latencyUnit,
                 INTERVAL_LATENCY_PERCENTILE,
-                formatLong(latencyMax, LATENCY_FORMAT_LENGTH),
+                formatLatency(latest.getIntervalLatencyMaxNanos(), displayAsMillis),
                 latencyUnit);
     }
 
+    private static String formatLatency(long latencyNanos, boolean displayAsMillis) {
+        long latencyMicros = NANOSECONDS.toMicros(latencyNanos);
+        return formatLong(displayAsMillis ? MICROSECONDS.toMillis(latencyMicros) : latencyMicros, LATENCY_FORMAT_LENGTH);
+    }
+
     PerformanceStats get(String testCaseId, boolean aggregated) {
         // aggregate the PerformanceStats instances from all Workers by adding values (since from different Workers)
         PerformanceStats result = new PerformanceStats();
@@ -141,6 +162,22 @@ public class PerformanceStatsCollector {
                     formatLong(operationCount, OPERATION_COUNT_FORMAT_LENGTH),
                     formatDouble(operationCount / runningTimeSeconds, THROUGHPUT_FORMAT_LENGTH)));
         }
+
+        Histogram latencyHistogram = totalPerformanceStats.getLatencyHistogram();
+        if (latencyHistogram != null && latencyHistogram.getTotalCount() > 0) {
+            sb.append("Total latency (all workers)\n");
+            for (double percentile : REPORTED_PERCENTILES) {
+                sb.append(format("  %-21s %s µs\n", percentile + "th",
+                        formatLatency(latencyHistogram.getValueAtPercentile(percentile), false)));
+            }
+            sb.append(format("  %-21s %s µs\n", "max", formatLatency(latencyHistogram.getMaxValue(), false)));
+        }
+
+        double cpuTimeNanosPerOperation = totalPerformanceStats.getCpuTimeNanosPerOperation();
+        if (cpuTimeNanosPerOperation >= 0) {
+            sb.append(format("Total CPU time per op   %s ns (measured execution groups)\n",
+                    formatDouble(cpuTimeNanosPerOperation, LATENCY_FORMAT_LENGTH)));
+        }
         return sb.toString();
     }
 
@@ -166,6 +203,84 @@ public class PerformanceStatsCollector {
         }
     }
 
+    @Override
+    public void collect(PrometheusWriter writer) {
+        // the exposition format requires the samples of a family to be contiguous, so the tests are iterated per family
+        Map<String, PerformanceStats> latestPerTest = new LinkedHashMap<>();
+        for (String testId : testIds()) {
+            latestPerTest.put(testId, get(testId, false));
+        }
+
+        writer.counter("simulator_test_operations_total", "Number of operations of the test over all workers");
+        for (Map.Entry<String, PerformanceStats> entry : latestPerTest.entrySet()) {
+            writer.sample("simulator_test_operations_total", entry.getValue().getOperationCount(), "test", entry.getKey());
+        }
+
+        writer.gauge("simulator_test_throughput", "Operations per second in the last interval over all workers");
+        for (Map.Entry<String, PerformanceStats> entry : latestPerTest.entrySet()) {
+            writer.sample("simulator_test_throughput", entry.getValue().getIntervalThroughput(), "test", entry.getKey());
+        }
+
+        writer.gauge("simulator_test_latency_seconds", "Merged latency percentiles of the test in the last interval");
+        for (Map.Entry<String, PerformanceStats> entry : latestPerTest.entrySet()) {
+            writeLatencies(writer, entry.getKey(), entry.getValue().getLatencyHistogram());
+        }
+
+        writeWorkerThroughputAndCpuTime(writer, latestPerTest);
+    }
+
+    private void writeWorkerThroughputAndCpuTime(PrometheusWriter writer, Map<String, PerformanceStats> latestPerTest) {
+        writer.gauge("simulator_worker_test_throughput", "Operations per second of the test in the last interval per worker");
+        for (String testId : latestPerTest.keySet()) {
+            writeWorkerThroughput(writer, testId);
+        }
+
+        writer.gauge("simulator_test_cpu_seconds_per_operation",
+                "CPU time per operation of the execution groups which measure the CPU time");
+        for (Map.Entry<String, PerformanceStats> entry : latestPerTest.entrySet()) {
+            writeCpuTime(writer, entry.getKey(), entry.getValue().getCpuTimeNanosPerOperation());
+        }
+    }
+
+    private static void writeCpuTime(PrometheusWriter writer, String testId, double cpuTimeNanosPerOperation) {
+        if (cpuTimeNanosPerOperation >= 0) {
+            writer.sample("simulator_test_cpu_seconds_per_operation", cpuTimeNanosPerOperation / NANOS_PER_SECOND,
+                    "test", testId);
+        }
+    }
+
+    private static void writeLatencies(PrometheusWriter writer, String testId, Histogram histogram) {
+        if (histogram == null || histogram.getTotalCount() == 0) {
+            return;
+        }
+
+        for (double quantile : METRICS_QUANTILES) {
+            writer.sample("simulator_test_latency_seconds",
+                    histogram.getValueAtPercentile(quantile * PERCENTILE_FACTOR) / NANOS_PER_SECOND,
+                    "test", testId, "quantile", Double.toString(quantile));
+        }
+        writer.sample("simulator_test_latency_seconds", histogram.getMaxValue() / NANOS_PER_SECOND,
+                "test", testId, "quantile", "1.0");
+    }
+
+    private void writeWorkerThroughput(PrometheusWriter writer, String testId) {
+        for (Map.Entry<SimulatorAddress, WorkerPerformance> entry : workerPerformanceInfoMap.entrySet()) {
+            TestPerformance testPerformance = entry.getValue().testPerformanceMap.get(testId);
+            if (testPerformance != null) {
+                writer.sample("simulator_worker_test_throughput", testPerformance.lastDelta.getIntervalThroughput(),
+                        "test", testId, "worker", entry.getKey().toString());
+            }
+        }
+    }
+
+    private Set<String> testIds() {
+        Set<String> testIds = new TreeSet<>();
+        for (WorkerPerformance workerPerformance : workerPerformanceInfoMap.values()) {
+            testIds.addAll(workerPerformance.testPerformanceMap.keySet());
+        }
+        return testIds;
+    }
+
     private List<SimulatorAddress> sort(Set<SimulatorAddress> addresses) {
         List<SimulatorAddress> list = new LinkedList<>(addresses);
         list.sort(Comparator.comparing(SimulatorAddress::toString));
@@ -187,19 +302,14 @@ public class PerformanceStatsCollector {
         }
 
         private void update(String testId, PerformanceStats delta) {
-            for (; ; ) {
-                TestPerformance current = testPerformanceMap.get(testId);
-                if (current == null) {
-                    if (testPerformanceMap.putIfAbsent(testId, new TestPerformance(delta, delta)) == null) {
-                        return;
-                    }
-                } else {
-                    TestPerformance update = current.update(delta);
-                    if (testPerformanceMap.replace(testId, current, update)) {
-                        return;
-                    }
-                }
+            TestPerformance testPerformance = testPerformanceMap.get(testId);
+            if (testPerformance == null) {
+                TestPerformance newPerformance = new TestPerformance();
+                TestPerformance foundPerformance = testPerformanceMap.putIfAbsent(testId, newPerformance);
+                testPerformance = foundPerformance == null ? newPerformance : foundPerformance;
             }
+
+            testPerformance.update(delta);
         }
 
         private PerformanceStats get(String testId, boolean aggregated) {
@@ -207,26 +317,27 @@ public class PerformanceStatsCollector {
             if (testPerformance == null) {
                 return new PerformanceStats();
             }
-            return aggregated ? testPerformance.aggregated : testPerformance.lastDelta;
+            return aggregated ? testPerformance.getAggregated() : testPerformance.lastDelta;
         }
     }
 
     /**
      * Contains the latest and aggregated performance info.
+     *
+     * The aggregated histogram is large, so it is updated in place under a lock and only copied when it is read, instead of
+     * copying it on every update.
      */
-    private final class TestPerformance {
-        private final PerformanceStats aggregated;
-        private final PerformanceStats lastDelta;
+    private static final class TestPerformance {
+        private final PerformanceStats aggregated = new PerformanceStats();
+        private volatile PerformanceStats lastDelta = new PerformanceStats();
 
-        private TestPerformance(PerformanceStats aggregated, PerformanceStats lastDelta) {
-            this.aggregated = aggregated;
-            this.lastDelta = lastDelta;
+        private synchronized void update(PerformanceStats delta) {
+            aggregated.add(delta, false);
+            lastDelta = delta;
         }
 
-        private TestPerformance update(PerformanceStats delta) {
-            PerformanceStats newAggregated = new PerformanceStats(aggregated);
-            newAggregated.add(delta, false);
-            return new TestPerformance(newAggregated, delta);
+        private synchronized PerformanceStats getAggregated() {
+            return new PerformanceStats(aggregated);
         }
     }
 }
@@ -24,17 +24,22 @@ import com.hazelcast.simulator.protocol.CoordinatorClient;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
 import com.hazelcast.simulator.worker.operations.CreateTestOperation;
+import com.hazelcast.simulator.worker.operations.SetRateOperation;
 import com.hazelcast.simulator.worker.operations.StartPhaseOperation;
 import com.hazelcast.simulator.worker.operations.StopRunOperation;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
 import org.apache.log4j.Logger;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 import static com.hazelcast.simulator.common.TestPhase.GLOBAL_PREPARE;
 import static com.hazelcast.simulator.common.TestPhase.GLOBAL_TEARDOWN;
@@ -44,13 +49,15 @@ import static com.hazelcast.simulator.common.TestPhase.LOCAL_TEARDOWN;
 import static com.hazelcast.simulator.common.TestPhase.LOCAL_VERIFY;
 import static com.hazelcast.simulator.common.TestPhase.RUN;
 import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.coordinator.PerformanceStatsCollector.THROUGHPUT_FORMAT_LENGTH;
 import static com.hazelcast.simulator.coordinator.registry.TestData.CompletedStatus.FAILED;
 import static com.hazelcast.simulator.coordinator.registry.TestData.CompletedStatus.SUCCESS;
 import static com.hazelcast.simulator.utils.CommonUtils.await;
 import static com.hazelcast.simulator.utils.CommonUtils.getElapsedSeconds;
 import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepSeconds;
-import static com.hazelcast.simulator.utils.CommonUtils.sleepUntilMs;
+import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static com.hazelcast.simulator.utils.FormatUtils.formatDouble;
 import static com.hazelcast.simulator.utils.FormatUtils.formatPercentage;
 import static com.hazelcast.simulator.utils.FormatUtils.padRight;
 import static com.hazelcast.simulator.utils.FormatUtils.secondsToHuman;
@@ -70,12 +77,14 @@ public final class TestCaseRunner {
     private static final int RUN_PHASE_LOG_INTERVAL_SECONDS = 30;
     private static final int WAIT_FOR_PHASE_COMPLETION_LOG_INTERVAL_SECONDS = 30;
     private static final int WAIT_FOR_PHASE_COMPLETION_LOG_VERBOSE_DELAY_SECONDS = 300;
+    private static final int THROUGHPUT_SEARCH_SETTLE_INTERVALS = 2;
     private static final Logger LOGGER = Logger.getLogger(TestCaseRunner.class);
 
     private final TestData test;
     private final TestCase testCase;
     private final TestSuite testSuite;
     private final CoordinatorClient client;
+    private final CoordinatorParameters coordinatorParameters;
     private final FailureCollector failureCollector;
     private final PerformanceStatsCollector performanceStatsCollector;
     private final String prefix;
@@ -87,6 +96,7 @@ public final class TestCaseRunner {
     private final int logRunPhaseIntervalSeconds;
     private final List<WorkerData> targets;
     private final WorkerData globalTarget;
+    private final ThroughputSearchSettings throughputSearchSettings;
 
     @SuppressWarnings("checkstyle:parameternumber")
     public TestCaseRunner(TestData test,
@@ -101,6 +111,7 @@ public final class TestCaseRunner {
         this.testCase = test.getTestCase();
         this.testSuite = test.getTestSuite();
         this.client = client;
+        this.coordinatorParameters = coordinatorParameters;
         this.failureCollector = failureCollector;
         this.performanceStatsCollector = performanceStatsCollector;
         this.prefix = padRight(testCase.getId(), testSuite.getMaxTestCaseIdLength() + 1);
@@ -108,6 +119,7 @@ public final class TestCaseRunner {
         this.targets = targets;
         this.globalTarget = targets.iterator().next();
         this.isVerifyEnabled = testSuite.isVerifyEnabled();
+        this.throughputSearchSettings = testSuite.getThroughputSearchSettings();
         this.targetType = testSuite.getWorkerQuery().getTargetType().resolvePreferClient(registry.hasClientWorkers());
         this.targetCount = targets.size();
         this.performanceMonitorIntervalSeconds
@@ -143,6 +155,11 @@ public final class TestCaseRunner {
     }
 
     private void run0() {
+        if (throughputSearchSettings != null) {
+            // the rate is changed while running, starting at the minimum rate
+            testCase.setProperty("ratePerSecond", "live:" + throughputSearchSettings.getMinRatePerSecond() / targetCount);
+        }
+
         createTest();
 
         LOGGER.info(format("Worker for global test phases will be %s (%s)",
@@ -174,19 +191,19 @@ public final class TestCaseRunner {
     }
 
     private void invokeOnTargets(SimulatorOperation op) {
-        Map<WorkerData, Future> futures = submitToTargets(false, op);
+        Map<WorkerData, CompletableFuture<String>> futures = submitToTargets(false, op);
         awaitCompletion(futures);
     }
 
-    private Map<WorkerData, Future> submitToTargets(boolean singleTarget, SimulatorOperation op) {
-        Map<WorkerData, Future> futures = new HashMap<>();
+    private Map<WorkerData, CompletableFuture<String>> submitToTargets(boolean singleTarget, SimulatorOperation op) {
+        Map<WorkerData, CompletableFuture<String>> futures = new HashMap<>();
 
         if (singleTarget) {
-            Future f = client.submit(globalTarget.getAddress(), op);
+            CompletableFuture<String> f = client.submit(globalTarget.getAddress(), op);
             futures.put(globalTarget, f);
         } else {
             for (WorkerData worker : targets) {
-                Future f = client.submit(worker.getAddress(), op);
+                CompletableFuture<String> f = client.submit(worker.getAddress(), op);
                 futures.put(worker, f);
             }
         }
@@ -194,9 +211,9 @@ public final class TestCaseRunner {
         return futures;
     }
 
-    private void awaitCompletion(Map<WorkerData, Future> futures) {
-        for (Map.Entry<WorkerData, Future> entry : futures.entrySet()) {
-            Future f = entry.getValue();
+    private void awaitCompletion(Map<WorkerData, CompletableFuture<String>> futures) {
+        for (Map.Entry<WorkerData, CompletableFuture<String>> entry : futures.entrySet()) {
+            CompletableFuture<String> f = entry.getValue();
             try {
                 f.get();
             } catch (InterruptedException e) {
@@ -215,7 +232,7 @@ public final class TestCaseRunner {
         log("Starting Test " + phase.desc());
         test.setTestPhase(phase);
 
-        Map<WorkerData, Future> futures = submitToTargets(
+        Map<WorkerData, CompletableFuture<String>> futures = submitToTargets(
                 phase.isGlobal(), new StartPhaseOperation(phase, testCase.getId()));
 
         waitForPhaseCompletion(phase, futures);
@@ -231,7 +248,7 @@ public final class TestCaseRunner {
         }
 
         test.setTestPhase(RUN);
-        Map<WorkerData, Future> futures = startRun();
+        Map<WorkerData, CompletableFuture<String>> futures = startRun();
 
         long startMs = currentTimeMillis();
 
@@ -248,11 +265,29 @@ public final class TestCaseRunner {
             timeoutMs = startMs + durationMs;
         }
 
+        CompletableFuture<Void> runCompleted = allOf(futures);
+        if (throughputSearchSettings == null) {
+            waitForRunCompletion(runCompleted, startMs, durationMs, timeoutMs);
+        } else {
+            searchThroughput(runCompleted, timeoutMs);
+        }
+
+        stopRun();
+
+        waitForPhaseCompletion(RUN, futures);
+
+        logFinalPerformanceInfo(startMs);
+
+        waitForGlobalTestPhaseCompletion(RUN);
+    }
+
+    private void waitForRunCompletion(CompletableFuture<Void> runCompleted, long startMs, long durationMs, long timeoutMs) {
         long nextSleepUntilMs = startMs;
         int iteration = 0;
         for (; ; ) {
             nextSleepUntilMs += SECONDS.toMillis(1);
-            sleepUntilMs(nextSleepUntilMs);
+            // returns as soon as all workers have completed the run
+            boolean allDone = awaitAll(runCompleted, nextSleepUntilMs - currentTimeMillis());
 
             if (hasFailure()) {
                 log("Critical failure detected, aborting RUN phase");
@@ -260,7 +295,7 @@ public final class TestCaseRunner {
             }
 
             long nowMs = currentTimeMillis();
-            if (nowMs > timeoutMs || isAllDone(futures) || test.isStopRequested()) {
+            if (nowMs > timeoutMs || allDone || test.isStopRequested()) {
                 log("Test finished run");
                 break;
             }
@@ -270,23 +305,99 @@ public final class TestCaseRunner {
                 logProgress(nowMs - startMs, durationMs);
             }
         }
+    }
 
-        stopRun();
+    private void searchThroughput(CompletableFuture<Void> runCompleted, long timeoutMs) {
+        log("Searching maximum sustainable throughput using " + throughputSearchSettings);
 
-        waitForPhaseCompletion(RUN, futures);
+        ThroughputSearch search = new ThroughputSearch(throughputSearchSettings);
+        double maxRatePerSecond = search.run(ratePerSecond -> measureRate(search, ratePerSecond, runCompleted, timeoutMs));
 
-        logFinalPerformanceInfo(startMs);
+        File reportFile = new File(coordinatorParameters.getOutputDirectory(),
+                "throughput-search-" + testCase.getId() + ".csv");
+        search.writeReport(reportFile);
+        log(format("Maximum sustainable throughput %s ops/s, report written to %s",
+                formatDouble(maxRatePerSecond, THROUGHPUT_FORMAT_LENGTH).trim(), reportFile.getAbsolutePath()));
+    }
 
-        waitForGlobalTestPhaseCompletion(RUN);
+    private ThroughputSearch.Step measureRate(ThroughputSearch search, double ratePerSecond,
+                                              CompletableFuture<Void> runCompleted, long timeoutMs) {
+        log(format("Measuring rate %s ops/s", formatDouble(ratePerSecond, THROUGHPUT_FORMAT_LENGTH).trim()));
+        invokeOnTargets(new SetRateOperation(testCase.getId(), ratePerSecond / targetCount));
+
+        // give the workers time to get used to the new rate and to report the performance of the previous rate
+        if (!sleepDuringRun(THROUGHPUT_SEARCH_SETTLE_INTERVALS * performanceMonitorIntervalSeconds, runCompleted, timeoutMs)) {
+            return null;
+        }
+        PerformanceStats before = performanceStatsCollector.get(testCase.getId(), true);
+        long startMs = currentTimeMillis();
+
+        if (!sleepDuringRun(throughputSearchSettings.getStepSeconds(), runCompleted, timeoutMs)) {
+            return null;
+        }
+        PerformanceStats after = performanceStatsCollector.get(testCase.getId(), true);
+        long durationMs = currentTimeMillis() - startMs;
+
+        double achievedRatePerSecond = (after.getOperationCount() - before.getOperationCount())
+                * (double) SECONDS.toMillis(1) / durationMs;
+
+        // the stats contain the histogram since the start of the run; so we subtract to get the histogram of the step
+        Histogram latencyHistogram = after.getLatencyHistogram();
+        if (latencyHistogram != null) {
+            latencyHistogram = latencyHistogram.copy();
+            if (before.getLatencyHistogram() != null) {
+                latencyHistogram.subtract(before.getLatencyHistogram());
+            }
+        }
+        return search.newStep(ratePerSecond, achievedRatePerSecond, latencyHistogram);
     }
 
-    private boolean isAllDone(Map<WorkerData, Future> futures) {
-        for (Future f : futures.values()) {
-            if (!f.isDone()) {
+    /**
+     * Sleeps during the run phase.
+     *
+     * @return true if the sleep completed, false if the run phase should be ended.
+     */
+    private boolean sleepDuringRun(long seconds, CompletableFuture<Void> runCompleted, long timeoutMs) {
+        for (long i = 0; i < seconds; i++) {
+            boolean allDone = awaitAll(runCompleted, SECONDS.toMillis(1));
+
+            if (hasFailure()) {
+                log("Critical failure detected, aborting RUN phase");
+                return false;
+            }
+
+            if (currentTimeMillis() > timeoutMs || allDone || test.isStopRequested()) {
+                log("Test finished run");
                 return false;
             }
         }
+        return true;
+    }
 
+    private static CompletableFuture<Void> allOf(Map<WorkerData, CompletableFuture<String>> futures) {
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Waits until the given future is completed (normally or exceptionally) or the timeout expires.
+     *
+     * @return true if the future is completed, false otherwise.
+     */
+    private static boolean awaitAll(CompletableFuture<Void> allFutures, long timeoutMs) {
+        if (timeoutMs <= 0) {
+            return allFutures.isDone();
+        }
+
+        try {
+            allFutures.get(timeoutMs, MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            ignore(e);
+        } catch (InterruptedException e) {
+            ignore(e);
+            return allFutures.isDone();
+        }
         return true;
     }
 
@@ -312,7 +423,7 @@ public final class TestCaseRunner {
      * Starts running the test. This call is asynchronous. It will not wait for the running to complete. It will
      * return a map of futures (one for each target worker) that can be used to sync on completion.
      */
-    private Map<WorkerData, Future> startRun() {
+    private Map<WorkerData, CompletableFuture<String>> startRun() {
         log(format("Starting run on %s workers", targetType.toString(targetCount)));
         log(format("Test run using workers %s", WorkerData.toAddressString(targets)));
         return submitToTargets(false, new StartPhaseOperation(RUN, testCase.getId()));
@@ -321,7 +432,7 @@ public final class TestCaseRunner {
     private void stopRun() {
         log("Stopping test");
 
-        Map<WorkerData, Future> futures = submitToTargets(false, new StopRunOperation(testCase.getId()));
+        Map<WorkerData, CompletableFuture<String>> futures = submitToTargets(false, new StopRunOperation(testCase.getId()));
 
         try {
             waitForPhaseCompletion(RUN, futures);
@@ -348,50 +459,48 @@ public final class TestCaseRunner {
         LOGGER.info(prefix + msg);
     }
 
-    private void waitForPhaseCompletion(TestPhase testPhase, Map<WorkerData, Future> futures) {
-        int completedWorkers = 0;
-        int expectedWorkers = futures.size();
-
+    private void waitForPhaseCompletion(TestPhase testPhase, Map<WorkerData, CompletableFuture<String>> futures) {
+        // a single wait on the combined future; it wakes up periodically to check for failures and to log progress
+        CompletableFuture<Void> phaseCompleted = allOf(futures);
         long started = System.nanoTime();
-        while (completedWorkers < expectedWorkers) {
-            sleepSeconds(1);
+        long nextLogSeconds = WAIT_FOR_PHASE_COMPLETION_LOG_INTERVAL_SECONDS;
+        for (; ; ) {
+            boolean allDone = awaitAll(phaseCompleted, SECONDS.toMillis(1));
 
             if (hasFailure()) {
                 throw new TestCaseAbortedException(
                         format("Waiting for %s completion aborted (critical failure)", testPhase.desc()), testPhase);
             }
 
-            completedWorkers = 0;
-            for (Future f : futures.values()) {
-                if (f.isDone()) {
-                    completedWorkers++;
-                }
+            if (allDone) {
+                return;
             }
 
-            logMissingWorkers(testPhase, completedWorkers, expectedWorkers, started, futures);
+            long elapsed = getElapsedSeconds(started);
+            if (elapsed >= nextLogSeconds) {
+                nextLogSeconds = elapsed + WAIT_FOR_PHASE_COMPLETION_LOG_INTERVAL_SECONDS;
+                logMissingWorkers(testPhase, elapsed, futures);
+            }
         }
     }
 
-    private void logMissingWorkers(TestPhase testPhase, int completedWorkers, int expectedWorkers,
-                                   long started, Map<WorkerData, Future> futures) {
-        long elapsed = getElapsedSeconds(started);
-        if (elapsed % WAIT_FOR_PHASE_COMPLETION_LOG_INTERVAL_SECONDS != 0) {
-            return;
+    private void logMissingWorkers(TestPhase testPhase, long elapsed, Map<WorkerData, CompletableFuture<String>> futures) {
+        int expectedWorkers = futures.size();
+        List<SimulatorAddress> missingWorkers = new ArrayList<>();
+        for (Map.Entry<WorkerData, CompletableFuture<String>> entry : futures.entrySet()) {
+            if (!entry.getValue().isDone()) {
+                missingWorkers.add(entry.getKey().getAddress());
+            }
         }
+        int completedWorkers = expectedWorkers - missingWorkers.size();
 
-        if (elapsed < WAIT_FOR_PHASE_COMPLETION_LOG_VERBOSE_DELAY_SECONDS || completedWorkers == expectedWorkers) {
+        if (elapsed < WAIT_FOR_PHASE_COMPLETION_LOG_VERBOSE_DELAY_SECONDS) {
             log(format("Waiting %s for %s completion (%d/%d workers)", secondsToHuman(elapsed), testPhase.desc(),
                     completedWorkers, expectedWorkers));
             return;
         }
 
         // verbose logging of missing workers
-        List<SimulatorAddress> missingWorkers = new ArrayList<>();
-        for (Map.Entry<WorkerData, Future> entry : futures.entrySet()) {
-            if (!entry.getValue().isDone()) {
-                missingWorkers.add(entry.getKey().getAddress());
-            }
-        }
         log(format("Waiting %s for %s completion (%d/%d workers) (missing workers: %s)", secondsToHuman(elapsed),
                 testPhase.desc(), completedWorkers, expectedWorkers, missingWorkers));
     }
@@ -49,6 +49,7 @@ public class TestSuite implements Serializable {
     // a 'select all' workerQuery by default
     private WorkerQuery workerQuery = new WorkerQuery();
     private boolean verifyEnabled;
+    private ThroughputSearchSettings throughputSearchSettings;
 
     public TestSuite() {
     }
@@ -140,6 +141,20 @@ public class TestSuite implements Serializable {
         return this;
     }
 
+    /**
+     * Returns the settings for searching the maximum sustainable throughput.
+     *
+     * @return the settings or null if no search should be done.
+     */
+    public ThroughputSearchSettings getThroughputSearchSettings() {
+        return throughputSearchSettings;
+    }
+
+    public TestSuite setThroughputSearchSettings(ThroughputSearchSettings throughputSearchSettings) {
+        this.throughputSearchSettings = throughputSearchSettings;
+        return this;
+    }
+
     public List<TestCase> getTestCaseList() {
         return testCaseList;
     }
@@ -203,6 +218,7 @@ public class TestSuite implements Serializable {
                 + ", parallel=" + parallel
                 + ", verifyEnabled=" + verifyEnabled
                 + ", workerQuery=" + workerQuery
+                + ", throughputSearchSettings=" + throughputSearchSettings
                 + ", testCaseList=" + testCaseList
                 + '}';
     }
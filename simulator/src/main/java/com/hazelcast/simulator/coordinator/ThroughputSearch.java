@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import org.HdrHistogram.Histogram;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Searches the maximum sustainable throughput of a test: the highest rate where the latency at the configured percentile
+ * stays within the latency SLO and where the achieved rate is close enough to the target rate.
+ *
+ * The search is a binary search between the configured minimum and maximum rate. Every rate is measured using a
+ * {@link RateMeasurement}; the coordinator changes the rate of the running test instead of restarting the workers.
+ *
+ * All measured rates are written to a report, so the rate vs latency curve can be plotted.
+ */
+final class ThroughputSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(ThroughputSearch.class);
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ThroughputSearchSettings settings;
+    private final List<Step> steps = new ArrayList<>();
+    private final DecimalFormat decimalFormat = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.ENGLISH));
+    private double maxSustainableRatePerSecond;
+
+    ThroughputSearch(ThroughputSearchSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Measures a single rate.
+     */
+    interface RateMeasurement {
+
+        /**
+         * Runs the test at the given rate and measures the result.
+         *
+         * @param ratePerSecond the target rate per second of all workers combined
+         * @return the measured step or null if the search needs to be aborted
+         */
+        Step measure(double ratePerSecond);
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @param measurement the RateMeasurement used to measure a rate
+     * @return the maximum sustainable rate or 0 if even the minimum rate isn't sustainable
+     */
+    double run(RateMeasurement measurement) {
+        double low = settings.getMinRatePerSecond();
+        double high = settings.getMaxRatePerSecond();
+
+        Step step = measure(measurement, low);
+        if (step == null || !step.isSustainable()) {
+            return maxSustainableRatePerSecond;
+        }
+        maxSustainableRatePerSecond = low;
+
+        step = measure(measurement, high);
+        if (step == null) {
+            return maxSustainableRatePerSecond;
+        } else if (step.isSustainable()) {
+            maxSustainableRatePerSecond = high;
+            return maxSustainableRatePerSecond;
+        }
+
+        while (high - low > settings.getAccuracy() * high) {
+            double mid = (low + high) / 2;
+            step = measure(measurement, mid);
+            if (step == null) {
+                break;
+            } else if (step.isSustainable()) {
+                low = mid;
+                maxSustainableRatePerSecond = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return maxSustainableRatePerSecond;
+    }
+
+    private Step measure(RateMeasurement measurement, double ratePerSecond) {
+        Step step = measurement.measure(ratePerSecond);
+        if (step != null) {
+            steps.add(step);
+            LOGGER.info(format("Rate %s ops/s achieved %s ops/s with p%s latency %s µs: %s",
+                    decimalFormat.format(step.targetRatePerSecond),
+                    decimalFormat.format(step.achievedRatePerSecond),
+                    settings.getLatencyPercentile(),
+                    step.latencyHistogram == null ? "n/a"
+                            : NANOSECONDS.toMicros(step.latencyHistogram.getValueAtPercentile(settings.getLatencyPercentile())),
+                    step.isSustainable() ? "sustainable" : "not sustainable"));
+        }
+        return step;
+    }
+
+    /**
+     * Creates a Step for a measured rate and determines if the rate is sustainable.
+     *
+     * @param targetRatePerSecond   the target rate
+     * @param achievedRatePerSecond the achieved rate
+     * @param latencyHistogram      the latency histogram of the measurement or null if no latency was recorded
+     * @return the created Step
+     */
+    Step newStep(double targetRatePerSecond, double achievedRatePerSecond, Histogram latencyHistogram) {
+        boolean sustainable = latencyHistogram != null
+                && latencyHistogram.getTotalCount() > 0
+                && achievedRatePerSecond >= targetRatePerSecond * settings.getMinAchievedRatio()
+                && latencyHistogram.getValueAtPercentile(settings.getLatencyPercentile()) <= settings.getMaxLatencyNanos();
+        return new Step(targetRatePerSecond, achievedRatePerSecond, latencyHistogram, sustainable);
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    double getMaxSustainableRatePerSecond() {
+        return maxSustainableRatePerSecond;
+    }
+
+    /**
+     * Writes the report with all measured rates, ordered by rate, in csv format.
+     *
+     * @param file the file to write the report to
+     */
+    void writeReport(File file) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(settings).append('\n');
+        sb.append("# max sustainable operations/second: ").append(decimalFormat.format(maxSustainableRatePerSecond)).append('\n');
+        sb.append("target-operations/second,operations/second");
+        for (double percentile : REPORTED_PERCENTILES) {
+            sb.append(",latency-p").append(decimalFormat.format(percentile)).append("(us)");
+        }
+        sb.append(",latency-max(us),sustainable\n");
+
+        List<Step> sortedSteps = new ArrayList<>(steps);
+        sortedSteps.sort(Comparator.comparingDouble(step -> step.targetRatePerSecond));
+        for (Step step : sortedSteps) {
+            sb.append(decimalFormat.format(step.targetRatePerSecond));
+            sb.append(',').append(decimalFormat.format(step.achievedRatePerSecond));
+            Histogram histogram = step.latencyHistogram;
+            for (double percentile : REPORTED_PERCENTILES) {
+                sb.append(',').append(histogram == null ? "" : NANOSECONDS.toMicros(histogram.getValueAtPercentile(percentile)));
+            }
+            sb.append(',').append(histogram == null ? "" : NANOSECONDS.toMicros(histogram.getMaxValue()));
+            sb.append(',').append(step.isSustainable()).append('\n');
+        }
+        writeText(sb.toString(), file);
+    }
+
+    /**
+     * The result of measuring a single rate.
+     */
+    static final class Step {
+        private final double targetRatePerSecond;
+        private final double achievedRatePerSecond;
+        private final Histogram latencyHistogram;
+        private final boolean sustainable;
+
+        private Step(double targetRatePerSecond, double achievedRatePerSecond, Histogram latencyHistogram,
+                     boolean sustainable) {
+            this.targetRatePerSecond = targetRatePerSecond;
+            this.achievedRatePerSecond = achievedRatePerSecond;
+            this.latencyHistogram = latencyHistogram;
+            this.sustainable = sustainable;
+        }
+
+        double getTargetRatePerSecond() {
+            return targetRatePerSecond;
+        }
+
+        boolean isSustainable() {
+            return sustainable;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import java.io.Serializable;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Settings for searching the maximum sustainable throughput of a test; see {@link ThroughputSearch}.
+ */
+public class ThroughputSearchSettings implements Serializable {
+
+    private static final double DEFAULT_ACCURACY = 0.05;
+    private static final double DEFAULT_MIN_ACHIEVED_RATIO = 0.95;
+    private static final int DEFAULT_STEP_SECONDS = 30;
+
+    private double minRatePerSecond;
+    private double maxRatePerSecond;
+    private double latencyPercentile;
+    private long maxLatencyNanos;
+    private int stepSeconds = DEFAULT_STEP_SECONDS;
+    private double accuracy = DEFAULT_ACCURACY;
+    private double minAchievedRatio = DEFAULT_MIN_ACHIEVED_RATIO;
+
+    public double getMinRatePerSecond() {
+        return minRatePerSecond;
+    }
+
+    public ThroughputSearchSettings setMinRatePerSecond(double minRatePerSecond) {
+        this.minRatePerSecond = minRatePerSecond;
+        return this;
+    }
+
+    public double getMaxRatePerSecond() {
+        return maxRatePerSecond;
+    }
+
+    public ThroughputSearchSettings setMaxRatePerSecond(double maxRatePerSecond) {
+        this.maxRatePerSecond = maxRatePerSecond;
+        return this;
+    }
+
+    /**
+     * Returns the percentile of the latency SLO, e.g. 99.9.
+     *
+     * @return the percentile
+     */
+    public double getLatencyPercentile() {
+        return latencyPercentile;
+    }
+
+    public ThroughputSearchSettings setLatencyPercentile(double latencyPercentile) {
+        this.latencyPercentile = latencyPercentile;
+        return this;
+    }
+
+    /**
+     * Returns the maximum latency at the {@link #getLatencyPercentile()} of the latency SLO.
+     *
+     * @return the maximum latency in nanos
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public ThroughputSearchSettings setMaxLatencyNanos(long maxLatencyNanos) {
+        this.maxLatencyNanos = maxLatencyNanos;
+        return this;
+    }
+
+    /**
+     * Returns the time each rate is measured.
+     *
+     * @return the step duration in seconds
+     */
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public ThroughputSearchSettings setStepSeconds(int stepSeconds) {
+        this.stepSeconds = stepSeconds;
+        return this;
+    }
+
+    /**
+     * Returns the relative accuracy of the search. The search completes when the distance between the highest passing and the
+     * lowest failing rate is smaller than accuracy * the lowest failing rate.
+     *
+     * @return the accuracy
+     */
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public ThroughputSearchSettings setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+        return this;
+    }
+
+    /**
+     * Returns the minimal fraction of the target rate that needs to be achieved for a rate to be sustainable.
+     *
+     * @return the minimal achieved ratio
+     */
+    public double getMinAchievedRatio() {
+        return minAchievedRatio;
+    }
+
+    public ThroughputSearchSettings setMinAchievedRatio(double minAchievedRatio) {
+        this.minAchievedRatio = minAchievedRatio;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ThroughputSearchSettings{"
+                + "minRatePerSecond=" + minRatePerSecond
+                + ", maxRatePerSecond=" + maxRatePerSecond
+                + ", latencySlo=p" + latencyPercentile + "<=" + NANOSECONDS.toMicros(maxLatencyNanos) + "us"
+                + ", stepSeconds=" + stepSeconds
+                + ", accuracy=" + accuracy
+                + ", minAchievedRatio=" + minAchievedRatio
+                + '}';
+    }
+}
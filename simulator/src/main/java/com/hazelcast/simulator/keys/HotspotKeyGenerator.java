@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+import java.util.Random;
+
+import static com.hazelcast.simulator.keys.UniformKeyGenerator.nextLong;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#HOTSPOT} distribution.
+ *
+ * The hot set are the keys in the range {@code [0, hotKeyCount)}, the cold set are the remaining keys.
+ */
+final class HotspotKeyGenerator implements KeyGenerator {
+
+    private final Random random;
+    private final long hotKeyCount;
+    private final long coldKeyCount;
+    private final double hotOperationFraction;
+
+    HotspotKeyGenerator(Random random, long keyCount, long hotKeyCount, double hotOperationFraction) {
+        this.random = random;
+        this.hotKeyCount = hotKeyCount;
+        this.coldKeyCount = keyCount - hotKeyCount;
+        this.hotOperationFraction = coldKeyCount == 0 ? 1 : hotOperationFraction;
+    }
+
+    @Override
+    public long next() {
+        if (random.nextDouble() < hotOperationFraction) {
+            return nextLong(random, hotKeyCount);
+        }
+        return hotKeyCount + nextLong(random, coldKeyCount);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+/**
+ * The distributions of the keys generated by a {@link KeyGenerator}.
+ *
+ * The distribution is configured by its name in the test properties, e.g. {@code keys.distribution=zipfian}.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key has the same probability.
+     */
+    UNIFORM,
+
+    /**
+     * The keys follow a zipfian distribution; key 0 is the most popular key, key 1 the second most popular key etc.
+     */
+    ZIPFIAN,
+
+    /**
+     * The keys follow a zipfian distribution, but the popular keys are scattered over the key space by hashing them.
+     * This prevents the popular keys from being clustered, e.g. on the same partition.
+     */
+    SCRAMBLED_ZIPFIAN,
+
+    /**
+     * A fraction of the operations is spread uniformly over a hot set of keys, the other operations are spread uniformly
+     * over the remaining keys.
+     */
+    HOTSPOT,
+
+    /**
+     * The most recently inserted keys are the most popular keys, following a zipfian distribution.
+     */
+    LATEST,
+
+    /**
+     * The keys are generated in order, wrapping around at the end of the key space.
+     */
+    SEQUENTIAL
+}
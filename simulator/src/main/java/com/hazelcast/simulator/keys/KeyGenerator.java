@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+/**
+ * Generates a stream of keys in the range {@code [0, keyCount)} according to a {@link KeyDistribution}.
+ *
+ * A KeyGenerator is not thread-safe; every thread should create its own instance using
+ * {@link KeyGeneratorSettings#newGenerator(java.util.Random)}. Generating a key doesn't allocate any objects, so it can
+ * be called in the hot loop of a timestep method.
+ */
+public interface KeyGenerator {
+
+    /**
+     * Returns the next key.
+     *
+     * @return the next key
+     */
+    long next();
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.utils.FastRandom;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.keys.UniformKeyGenerator.nextLong;
+import static java.lang.String.format;
+
+/**
+ * Settings of a {@link KeyGenerator}, which can be bound directly from the test properties.
+ *
+ * A test declares the settings as a public field and creates a generator per thread:
+ * <pre>
+ * public KeyGeneratorSettings keys = new KeyGeneratorSettings();
+ *
+ * public class ThreadState extends BaseThreadState {
+ *     private final KeyGenerator keyGenerator = keys.newGenerator(random);
+ * }
+ *
+ * &#64;TimeStep
+ * public void get(ThreadState state) {
+ *     map.get(state.keyGenerator.next());
+ * }
+ * </pre>
+ * The settings are then configured in the test properties, e.g.:
+ * <pre>
+ * keys.distribution=zipfian
+ * keys.keyCount=1000000
+ * keys.zipfianConstant=0.99
+ * </pre>
+ * The zeta constant of the zipfian based distributions is calculated once and shared by the generators of all threads.
+ */
+@SuppressWarnings("checkstyle:visibilitymodifier")
+public class KeyGeneratorSettings {
+
+    /**
+     * The zipfian constant used by YCSB.
+     */
+    public static final double DEFAULT_ZIPFIAN_CONSTANT = 0.99;
+    public static final double DEFAULT_HOTSET_FRACTION = 0.2;
+    public static final double DEFAULT_HOT_OPERATION_FRACTION = 0.8;
+    public static final long DEFAULT_KEY_COUNT = 1000;
+
+    // the maximum number of inserted keys which can be waiting for an acknowledgement, like the window of YCSB
+    private static final int ACKNOWLEDGE_WINDOW_SIZE = 1048576;
+    private static final int ACKNOWLEDGE_WINDOW_MASK = ACKNOWLEDGE_WINDOW_SIZE - 1;
+
+    public KeyDistribution distribution = KeyDistribution.UNIFORM;
+
+    /**
+     * The number of keys; the keys are in the range {@code [0, keyCount)}.
+     */
+    public long keyCount = DEFAULT_KEY_COUNT;
+
+    /**
+     * The skew of the {@link KeyDistribution#ZIPFIAN}, {@link KeyDistribution#SCRAMBLED_ZIPFIAN} and
+     * {@link KeyDistribution#LATEST} distributions, in the range {@code (0, 1)}. The larger the constant, the more skewed
+     * the distribution.
+     */
+    public double zipfianConstant = DEFAULT_ZIPFIAN_CONSTANT;
+
+    /**
+     * The fraction of the keys in the hot set of the {@link KeyDistribution#HOTSPOT} distribution.
+     */
+    public double hotsetFraction = DEFAULT_HOTSET_FRACTION;
+
+    /**
+     * The fraction of the operations accessing the hot set of the {@link KeyDistribution#HOTSPOT} distribution.
+     */
+    public double hotOperationFraction = DEFAULT_HOT_OPERATION_FRACTION;
+
+    private final AtomicLong insertedKeys = new AtomicLong();
+    private final Object acknowledgeLock = new Object();
+    // the number of inserted keys acknowledged without gaps; only written while holding the acknowledgeLock
+    private volatile long acknowledgedKeys;
+    private boolean[] acknowledgeWindow;
+
+    private long zetaKeyCount;
+    private double zetaTheta;
+    private double zeta;
+
+    /**
+     * Creates a {@link KeyGenerator} with its own {@link FastRandom}.
+     *
+     * @return the created KeyGenerator
+     * @throws IllegalArgumentException if the settings are not valid
+     */
+    public KeyGenerator newGenerator() {
+        return newGenerator(new FastRandom());
+    }
+
+    /**
+     * Creates a {@link KeyGenerator} for the thread owning the given {@link Random}, e.g. the
+     * {@link com.hazelcast.simulator.test.BaseThreadState#random}.
+     *
+     * @param random the Random to use; it is not shared with other threads, so it doesn't need to be thread-safe
+     * @return the created KeyGenerator
+     * @throws IllegalArgumentException if the settings are not valid
+     */
+    public KeyGenerator newGenerator(Random random) {
+        validate();
+        switch (distribution) {
+            case UNIFORM:
+                return new UniformKeyGenerator(random, keyCount);
+            case ZIPFIAN:
+                return newZipfian(random);
+            case SCRAMBLED_ZIPFIAN:
+                return new ScrambledZipfianKeyGenerator(newZipfian(random));
+            case HOTSPOT:
+                long hotKeyCount = Math.max(1, (long) (keyCount * hotsetFraction));
+                return new HotspotKeyGenerator(random, keyCount, hotKeyCount, hotOperationFraction);
+            case LATEST:
+                return new LatestKeyGenerator(this, newZipfian(random));
+            case SEQUENTIAL:
+                return new SequentialKeyGenerator(keyCount, nextLong(random, keyCount));
+            default:
+                throw new IllegalArgumentException("Unknown key distribution: " + distribution);
+        }
+    }
+
+    /**
+     * Returns a new key beyond the current key space. Once the insert of the key has completed, it needs to be passed to
+     * {@link #acknowledgeInsert(long)}, so it is picked up as the most popular key by the generators of the
+     * {@link KeyDistribution#LATEST} distribution. This method is thread-safe.
+     *
+     * @return the new key
+     */
+    public long nextInsertKey() {
+        return keyCount + insertedKeys.getAndIncrement();
+    }
+
+    /**
+     * Acknowledges that the insert of a key returned by {@link #nextInsertKey()} has completed.
+     *
+     * The generators of the {@link KeyDistribution#LATEST} distribution only return keys up to the first inserted key
+     * which isn't acknowledged yet, so they never return a key whose insert is still in progress, or which would be
+     * inserted after an insert that is still in progress. This method is thread-safe.
+     *
+     * @param key the inserted key
+     * @throws IllegalArgumentException if the key wasn't returned by {@link #nextInsertKey()} or was already acknowledged
+     * @throws IllegalStateException    if too many inserted keys before this key are not acknowledged
+     */
+    public void acknowledgeInsert(long key) {
+        long index = key - keyCount;
+        if (index < 0 || index >= insertedKeys.get()) {
+            throw new IllegalArgumentException(format("Key %d wasn't returned by nextInsertKey()", key));
+        }
+
+        synchronized (acknowledgeLock) {
+            long acknowledged = acknowledgedKeys;
+            if (index < acknowledged) {
+                throw new IllegalArgumentException(format("Key %d is already acknowledged", key));
+            }
+            if (index - acknowledged >= ACKNOWLEDGE_WINDOW_SIZE) {
+                throw new IllegalStateException(format("Key %d can't be acknowledged, the inserts of more than %d keys "
+                        + "before it are not acknowledged", key, ACKNOWLEDGE_WINDOW_SIZE));
+            }
+            if (acknowledgeWindow == null) {
+                acknowledgeWindow = new boolean[ACKNOWLEDGE_WINDOW_SIZE];
+            }
+
+            acknowledgeWindow[(int) (index & ACKNOWLEDGE_WINDOW_MASK)] = true;
+            while (acknowledgeWindow[(int) (acknowledged & ACKNOWLEDGE_WINDOW_MASK)]) {
+                acknowledgeWindow[(int) (acknowledged & ACKNOWLEDGE_WINDOW_MASK)] = false;
+                acknowledged++;
+            }
+            acknowledgedKeys = acknowledged;
+        }
+    }
+
+    long currentKeyCount() {
+        return keyCount + acknowledgedKeys;
+    }
+
+    private ZipfianKeyGenerator newZipfian(Random random) {
+        return new ZipfianKeyGenerator(random, keyCount, zipfianConstant, zeta());
+    }
+
+    private synchronized double zeta() {
+        if (zetaKeyCount != keyCount || zetaTheta != zipfianConstant) {
+            zeta = ZipfianKeyGenerator.zeta(keyCount, zipfianConstant);
+            zetaKeyCount = keyCount;
+            zetaTheta = zipfianConstant;
+        }
+        return zeta;
+    }
+
+    private void validate() {
+        if (distribution == null) {
+            throw new IllegalArgumentException("distribution can't be null");
+        }
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException(format("keyCount must be positive, but was %d", keyCount));
+        }
+        if (zipfianConstant <= 0 || zipfianConstant >= 1) {
+            throw new IllegalArgumentException(format("zipfianConstant must be in the range (0, 1), but was %s",
+                    zipfianConstant));
+        }
+        checkFraction("hotsetFraction", hotsetFraction);
+        checkFraction("hotOperationFraction", hotOperationFraction);
+    }
+
+    private static void checkFraction(String name, double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException(format("%s must be in the range [0, 1], but was %s", name, fraction));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeyGeneratorSettings{"
+                + "distribution=" + distribution
+                + ", keyCount=" + keyCount
+                + ", zipfianConstant=" + zipfianConstant
+                + ", hotsetFraction=" + hotsetFraction
+                + ", hotOperationFraction=" + hotOperationFraction
+                + '}';
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#LATEST} distribution.
+ *
+ * The most recently inserted key is the most popular key. Keys are inserted using
+ * {@link KeyGeneratorSettings#nextInsertKey()}; the generator picks up the inserted keys on the next call, once they are
+ * acknowledged using {@link KeyGeneratorSettings#acknowledgeInsert(long)} without gaps.
+ */
+final class LatestKeyGenerator implements KeyGenerator {
+
+    private final KeyGeneratorSettings settings;
+    private final ZipfianKeyGenerator zipfian;
+
+    LatestKeyGenerator(KeyGeneratorSettings settings, ZipfianKeyGenerator zipfian) {
+        this.settings = settings;
+        this.zipfian = zipfian;
+    }
+
+    @Override
+    public long next() {
+        long keyCount = settings.currentKeyCount();
+        zipfian.grow(keyCount);
+        return keyCount - 1 - zipfian.next();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#SCRAMBLED_ZIPFIAN} distribution.
+ *
+ * The zipfian ranks are hashed with FNV-1a (64 bit), so the popular keys are scattered over the key space. Since the
+ * hash is taken modulo the number of keys, a few ranks collide and the distribution is slightly less skewed than the
+ * plain zipfian distribution.
+ */
+final class ScrambledZipfianKeyGenerator implements KeyGenerator {
+
+    private static final long FNV_OFFSET_BASIS_64 = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME_64 = 1099511628211L;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int BITS_PER_BYTE = 8;
+
+    private final ZipfianKeyGenerator zipfian;
+    private final long keyCount;
+
+    ScrambledZipfianKeyGenerator(ZipfianKeyGenerator zipfian) {
+        this.zipfian = zipfian;
+        this.keyCount = zipfian.getKeyCount();
+    }
+
+    @Override
+    public long next() {
+        return (fnvHash64(zipfian.next()) & Long.MAX_VALUE) % keyCount;
+    }
+
+    static long fnvHash64(long value) {
+        long hash = FNV_OFFSET_BASIS_64;
+        long remaining = value;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= remaining & BYTE_MASK;
+            hash *= FNV_PRIME_64;
+            remaining >>>= BITS_PER_BYTE;
+        }
+        return hash;
+    }
+}
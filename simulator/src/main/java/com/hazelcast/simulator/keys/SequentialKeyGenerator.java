@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#SEQUENTIAL} distribution.
+ *
+ * Every generator walks through the complete key space. The start key is chosen at random, so the threads don't access
+ * the same keys in lockstep.
+ */
+final class SequentialKeyGenerator implements KeyGenerator {
+
+    private final long keyCount;
+    private long key;
+
+    SequentialKeyGenerator(long keyCount, long startKey) {
+        this.keyCount = keyCount;
+        this.key = startKey;
+    }
+
+    @Override
+    public long next() {
+        long result = key;
+        key = result + 1 == keyCount ? 0 : result + 1;
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+import java.util.Random;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#UNIFORM} distribution.
+ */
+final class UniformKeyGenerator implements KeyGenerator {
+
+    private final Random random;
+    private final long keyCount;
+
+    UniformKeyGenerator(Random random, long keyCount) {
+        this.random = random;
+        this.keyCount = keyCount;
+    }
+
+    @Override
+    public long next() {
+        return nextLong(random, keyCount);
+    }
+
+    /**
+     * Returns a random long in the range {@code [0, bound)}.
+     *
+     * @param random the Random to use
+     * @param bound  the upper bound (exclusive)
+     * @return the random long
+     */
+    static long nextLong(Random random, long bound) {
+        // rounding will always be down towards 0, so the result will be exclusive the bound
+        return (long) (random.nextDouble() * bound);
+    }
+}
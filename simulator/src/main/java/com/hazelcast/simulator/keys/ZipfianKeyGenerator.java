@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.keys;
+
+import java.util.Random;
+
+import static java.lang.Math.min;
+import static java.lang.Math.pow;
+
+/**
+ * A {@link KeyGenerator} for the {@link KeyDistribution#ZIPFIAN} distribution.
+ *
+ * Uses the algorithm from "Quickly Generating Billion-Record Synthetic Databases" by Jim Gray et al., which generates
+ * a key in constant time. Only the zeta constant depends on the number of keys; it takes linear time to calculate, so it
+ * is calculated once by the {@link KeyGeneratorSettings} and shared by the generators of all threads.
+ *
+ * Contrary to the ZipfianGenerator of the Hazelcast driver, a generator is owned by a single thread, so no
+ * synchronization is needed when the number of keys changes.
+ */
+final class ZipfianKeyGenerator implements KeyGenerator {
+
+    private static final double HALF = 0.5;
+
+    private final Random random;
+    private final double theta;
+    private final double alpha;
+    private final double zeta2;
+    private final double secondKeyThreshold;
+
+    private long keyCount;
+    private double zetaN;
+    private double eta;
+
+    ZipfianKeyGenerator(Random random, long keyCount, double theta, double zetaN) {
+        this.random = random;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zeta2 = zeta(0, 2, theta, 0);
+        this.secondKeyThreshold = 1.0 + pow(HALF, theta);
+        this.keyCount = keyCount;
+        this.zetaN = zetaN;
+        this.eta = eta();
+    }
+
+    @Override
+    public long next() {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < secondKeyThreshold) {
+            return min(1, keyCount - 1);
+        }
+        return min((long) (keyCount * pow(eta * u - eta + 1, alpha)), keyCount - 1);
+    }
+
+    long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Increases the number of keys; the zeta constant is updated incrementally, so the costs are linear in the number
+     * of added keys.
+     *
+     * @param newKeyCount the new number of keys
+     */
+    void grow(long newKeyCount) {
+        if (newKeyCount <= keyCount) {
+            return;
+        }
+        zetaN = zeta(keyCount, newKeyCount, theta, zetaN);
+        keyCount = newKeyCount;
+        eta = eta();
+    }
+
+    private double eta() {
+        return (1 - pow(2.0 / keyCount, 1 - theta)) / (1 - zeta2 / zetaN);
+    }
+
+    /**
+     * Calculates the zeta constant for the given number of keys.
+     *
+     * @param keyCount the number of keys
+     * @param theta    the zipfian constant
+     * @return the zeta constant
+     */
+    static double zeta(long keyCount, double theta) {
+        return zeta(0, keyCount, theta, 0);
+    }
+
+    private static double zeta(long from, long to, double theta, double initialSum) {
+        double sum = initialSum;
+        for (long i = from; i < to; i++) {
+            sum += 1 / pow(i + 1, theta);
+        }
+        return sum;
+    }
+}
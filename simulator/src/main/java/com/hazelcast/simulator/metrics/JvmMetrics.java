@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.simulator.utils.ThreadMXBeanUtils.getThreadAllocatedBytes;
+import static com.hazelcast.simulator.utils.ThreadMXBeanUtils.isAllocationTrackingSupported;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A {@link MetricsSource} for the garbage collection, heap usage and allocation rate of the JVM.
+ *
+ * The allocated bytes are the sum of the bytes allocated by all live threads, as reported by the HotSpot specific
+ * ThreadMXBean. Since the allocation counter of a thread is lost when it terminates, the total is accumulated from
+ * the per thread deltas between two scrapes. The allocation rate is calculated over the
+ * interval between the last two scrapes.
+ */
+public class JvmMetrics implements MetricsSource {
+
+    private static final double MILLIS_PER_SECOND = SECONDS.toMillis(1);
+    private static final double NANOS_PER_SECOND = SECONDS.toNanos(1);
+
+    private Map<Long, Long> lastAllocatedBytes = new HashMap<>();
+    private long allocatedBytesTotal;
+    private long lastCollectNanos;
+    private double allocationRate;
+
+    @Override
+    public synchronized void collect(PrometheusWriter writer) {
+        writer.counter("jvm_gc_collections_total", "Number of garbage collections");
+        writer.counter("jvm_gc_collection_seconds_total", "Accumulated garbage collection time in seconds");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            writer.sample("jvm_gc_collections_total", gc.getCollectionCount(), "gc", gc.getName());
+            writer.sample("jvm_gc_collection_seconds_total", gc.getCollectionTime() / MILLIS_PER_SECOND, "gc", gc.getName());
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        writer.gauge("jvm_memory_heap_used_bytes", "Used heap memory in bytes")
+                .sample("jvm_memory_heap_used_bytes", heap.getUsed());
+        writer.gauge("jvm_memory_heap_committed_bytes", "Committed heap memory in bytes")
+                .sample("jvm_memory_heap_committed_bytes", heap.getCommitted());
+
+        if (!isAllocationTrackingSupported()) {
+            return;
+        }
+
+        updateAllocatedBytes();
+        writer.counter("jvm_allocated_bytes_total", "Bytes allocated by all threads")
+                .sample("jvm_allocated_bytes_total", allocatedBytesTotal);
+        writer.gauge("jvm_allocation_rate_bytes_per_second", "Allocation rate since the previous scrape")
+                .sample("jvm_allocation_rate_bytes_per_second", allocationRate);
+    }
+
+    private void updateAllocatedBytes() {
+        long nowNanos = System.nanoTime();
+        long[] threadIds = ManagementFactory.getThreadMXBean().getAllThreadIds();
+        long[] allocatedBytes = getThreadAllocatedBytes(threadIds);
+
+        Map<Long, Long> currentAllocatedBytes = new HashMap<>(threadIds.length * 2);
+        long delta = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            if (allocatedBytes[i] < 0) {
+                // the thread has terminated in the meantime
+                continue;
+            }
+            Long previous = lastAllocatedBytes.get(threadIds[i]);
+            delta += allocatedBytes[i] - (previous == null ? 0 : previous);
+            currentAllocatedBytes.put(threadIds[i], allocatedBytes[i]);
+        }
+
+        if (lastCollectNanos != 0) {
+            long elapsedNanos = nowNanos - lastCollectNanos;
+            allocationRate = elapsedNanos <= 0 ? 0 : delta * NANOS_PER_SECOND / elapsedNanos;
+        }
+
+        allocatedBytesTotal += delta;
+        lastAllocatedBytes = currentAllocatedBytes;
+        lastCollectNanos = nowNanos;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.metrics;
+
+import com.hazelcast.simulator.utils.UncheckedIOException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A lightweight HTTP server, based on the HTTP server of the JDK, which exposes the metrics of a set of
+ * {@link MetricsSource} instances in the Prometheus text format on the {@value #PATH} path.
+ *
+ * The requests are handled by a single daemon thread, so a slow scraper can't interfere with the benchmark threads.
+ */
+public class MetricsServer implements Closeable {
+
+    public static final String PATH = "/metrics";
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsServer.class);
+
+    private final int port;
+    private final List<MetricsSource> sources;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a MetricsServer.
+     *
+     * @param port    the port to listen on; 0 to pick a free port
+     * @param sources the sources of the metrics
+     */
+    public MetricsServer(int port, MetricsSource... sources) {
+        this.port = port;
+        this.sources = Arrays.asList(sources);
+    }
+
+    /**
+     * Starts the MetricsServer.
+     *
+     * @return this
+     * @throws UncheckedIOException if the server can't bind to its port
+     */
+    public MetricsServer start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start metrics server on port " + port, e);
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MetricsServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+        LOGGER.info("Metrics available on http://<host>:" + getPort() + PATH);
+        return this;
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the port
+     * @throws IllegalStateException if the server hasn't been started
+     */
+    public int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("MetricsServer has not been started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Writes the metrics of all sources.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    public String scrape() {
+        PrometheusWriter writer = new PrometheusWriter();
+        for (MetricsSource source : sources) {
+            try {
+                source.collect(writer);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to collect metrics from " + source.getClass().getSimpleName(), e);
+            }
+        }
+        return writer.toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+
+            byte[] body = scrape().getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.metrics;
+
+/**
+ * Provides metrics to the {@link MetricsServer}.
+ *
+ * The {@link #collect(PrometheusWriter)} method is called on the thread of the MetricsServer for every scrape, so
+ * implementations need to be able to read their values concurrently with the threads updating them.
+ */
+public interface MetricsSource {
+
+    /**
+     * Writes the current values of the metrics of this source.
+     *
+     * @param writer the PrometheusWriter to write the metrics to
+     */
+    void collect(PrometheusWriter writer);
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes metrics in the Prometheus text exposition format.
+ *
+ * Every metric family needs to be declared using {@link #gauge(String, String)} or {@link #counter(String, String)}
+ * right before its samples are written and all samples of a family need to be written before the next family is
+ * declared, since the exposition format doesn't allow the samples of different families to be interleaved. Declaring a
+ * family multiple times is allowed; the HELP and TYPE lines are only written once.
+ *
+ * Labels are passed as alternating label names and label values.
+ */
+public final class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder sb = new StringBuilder();
+    private final Set<String> families = new HashSet<>();
+
+    public PrometheusWriter gauge(String name, String help) {
+        return family(name, help, "gauge");
+    }
+
+    public PrometheusWriter counter(String name, String help) {
+        return family(name, help, "counter");
+    }
+
+    private PrometheusWriter family(String name, String help, String type) {
+        if (families.add(name)) {
+            sb.append("# HELP ").append(name).append(' ').append(escapeHelp(help)).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+        return this;
+    }
+
+    public PrometheusWriter sample(String name, long value, String... labels) {
+        appendName(name, labels);
+        sb.append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        appendName(name, labels);
+        sb.append(formatDouble(value)).append('\n');
+        return this;
+    }
+
+    private void appendName(String name, String... labels) {
+        if (!families.contains(name)) {
+            throw new IllegalStateException("Metric [" + name + "] has not been declared");
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels need to be pairs of name and value");
+        }
+
+        sb.append(name);
+        if (labels.length > 0) {
+            sb.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+    }
+
+    static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
@@ -24,6 +24,16 @@ public interface Probe {
      */
     boolean isPartOfTotalThroughput();
 
+    /**
+     * Checks if a probe should be considered to calculate the latency of a test.
+     *
+     * Auxiliary probes, e.g. the jitter probe or the queueing time of an asynchronous call, should not be merged into the
+     * latency of the test.
+     *
+     * @return {@code true} if probe is relevant for the latency, {@code false} otherwise
+     */
+    boolean isPartOfTotalLatency();
+
     /**
      * Calculates the latency from an external start time and records the value.
      *
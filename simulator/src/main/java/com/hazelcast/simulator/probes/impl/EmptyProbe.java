@@ -33,6 +33,11 @@ public class EmptyProbe implements Probe {
         return false;
     }
 
+    @Override
+    public boolean isPartOfTotalLatency() {
+        return false;
+    }
+
     @Override
     public void done(long startNanos) {
     }
@@ -16,23 +16,39 @@
 package com.hazelcast.simulator.probes.impl;
 
 import com.hazelcast.simulator.probes.Probe;
+import org.HdrHistogram.Histogram;
 import org.HdrHistogram.Recorder;
 
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
 /**
  * HDR-Histogram implementation of the {@link Probe}.
+ *
+ * The probe itself can safely be used by any number of threads concurrently. A thread that is the only one recording
+ * a given measurement, like a timestep thread, can ask for its own {@link SingleWriterHdrProbe} using
+ * {@link #newThreadProbe()} to prevent contention on the shared {@link Recorder}. The values recorded by these thread
+ * probes are merged into the histogram returned by {@link #getIntervalHistogram()}.
+ *
+ * Every thread probe holds its own histograms, so the number of thread probes is bounded; by default to the number of
+ * processors. A thread probe is returned to the probe using {@link SingleWriterHdrProbe#release()} and is reused by the
+ * next thread asking for one. When all thread probes are taken, e.g. when running on many virtual threads, a thread gets
+ * a probe that records into the shared {@link Recorder}.
  */
 public class HdrProbe implements Probe {
     // we want to track up to an hour.
     static final long HIGHEST_TRACKABLE_VALUE = HOURS.toNanos(1);
 
     // we care only about microsecond accuracy.
-    private static final long LOWEST_DISCERNIBLE_VALUE = MICROSECONDS.toNanos(1);
+    static final long LOWEST_DISCERNIBLE_VALUE = MICROSECONDS.toNanos(1);
 
     // since we care about us, the value should be 1000 according to the javadoc of Recorder.
-    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+    static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
 
     // these settings come the website; just above the following link
     //https://github.com/HdrHistogram/HdrHistogram#histogram-variants-and-internal-representation
@@ -41,10 +57,25 @@ public class HdrProbe implements Probe {
             HIGHEST_TRACKABLE_VALUE,
             NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
 
+    private final List<SingleWriterHdrProbe> threadProbes = new CopyOnWriteArrayList<>();
+    private final Queue<SingleWriterHdrProbe> releasedThreadProbes = new ConcurrentLinkedQueue<>();
+    private final SingleWriterHdrProbe sharedThreadProbe = new SingleWriterHdrProbe(this, recorder);
+    private final int maxThreadProbes;
     private final boolean partOfTotalThroughput;
+    private final boolean partOfTotalLatency;
 
     public HdrProbe(boolean partOfTotalThroughput) {
+        this(partOfTotalThroughput, true);
+    }
+
+    public HdrProbe(boolean partOfTotalThroughput, boolean partOfTotalLatency) {
+        this(partOfTotalThroughput, partOfTotalLatency, Runtime.getRuntime().availableProcessors());
+    }
+
+    HdrProbe(boolean partOfTotalThroughput, boolean partOfTotalLatency, int maxThreadProbes) {
         this.partOfTotalThroughput = partOfTotalThroughput;
+        this.partOfTotalLatency = partOfTotalLatency;
+        this.maxThreadProbes = maxThreadProbes;
     }
 
     @Override
@@ -52,6 +83,11 @@ public class HdrProbe implements Probe {
         return partOfTotalThroughput;
     }
 
+    @Override
+    public boolean isPartOfTotalLatency() {
+        return partOfTotalLatency;
+    }
+
     @Override
     public void done(long startNanos) {
         if (startNanos <= 0) {
@@ -74,8 +110,64 @@ public class HdrProbe implements Probe {
         return recorder;
     }
 
+    /**
+     * Returns a {@link SingleWriterHdrProbe} that records into its own recorder. The returned probe should only be used by
+     * a single thread at a time and should be released using {@link SingleWriterHdrProbe#release()} when the thread is
+     * done with it; its values are included in {@link #getIntervalHistogram()} of this probe.
+     *
+     * If the maximum number of thread probes is reached, a probe recording into the shared recorder is returned.
+     *
+     * @return the thread probe
+     */
+    public SingleWriterHdrProbe newThreadProbe() {
+        SingleWriterHdrProbe threadProbe = releasedThreadProbes.poll();
+        if (threadProbe != null) {
+            threadProbe.acquire();
+            return threadProbe;
+        }
+
+        synchronized (threadProbes) {
+            if (threadProbes.size() < maxThreadProbes) {
+                threadProbe = new SingleWriterHdrProbe(this);
+                threadProbes.add(threadProbe);
+                return threadProbe;
+            }
+        }
+        return sharedThreadProbe;
+    }
+
+    void release(SingleWriterHdrProbe threadProbe) {
+        if (threadProbe != sharedThreadProbe) {
+            // the values recorded so far stay in the recorder of the thread probe, so they are still reported
+            releasedThreadProbes.offer(threadProbe);
+        }
+    }
+
+    int threadProbeCount() {
+        return threadProbes.size();
+    }
+
+    /**
+     * Gets the interval histogram of this probe, merged with the interval histograms of all its thread probes.
+     *
+     * Just like {@link Recorder#getIntervalHistogram()}, the interval is reset after this call; so it should only be called
+     * by a single thread.
+     *
+     * @return the merged interval histogram
+     */
+    public Histogram getIntervalHistogram() {
+        Histogram histogram = recorder.getIntervalHistogram();
+        for (SingleWriterHdrProbe threadProbe : threadProbes) {
+            histogram.add(threadProbe.getIntervalHistogram());
+        }
+        return histogram;
+    }
+
     @Override
     public void reset() {
         recorder.reset();
+        for (SingleWriterHdrProbe threadProbe : threadProbes) {
+            threadProbe.reset();
+        }
     }
 }
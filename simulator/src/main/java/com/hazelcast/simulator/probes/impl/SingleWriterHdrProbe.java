@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.Probe;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.HdrHistogram.SingleWriterRecorder;
+import org.HdrHistogram.ValueRecorder;
+
+import static com.hazelcast.simulator.probes.impl.HdrProbe.HIGHEST_TRACKABLE_VALUE;
+import static com.hazelcast.simulator.probes.impl.HdrProbe.LOWEST_DISCERNIBLE_VALUE;
+import static com.hazelcast.simulator.probes.impl.HdrProbe.NUMBER_OF_SIGNIFICANT_VALUE_DIGITS;
+
+/**
+ * A {@link Probe} that records into a {@link SingleWriterRecorder} owned by a single thread.
+ *
+ * A single writer recorder doesn't need atomic increments on the histogram buckets, so recording is cheaper and
+ * there is no contention between the threads recording the same measurement. The probe can't be used by multiple
+ * threads concurrently.
+ *
+ * Instances are obtained using {@link HdrProbe#newThreadProbe()} and returned using {@link #release()}; the recorded
+ * values are reported as part of that {@link HdrProbe}. If the HdrProbe has run out of thread probes, the returned
+ * instance records into the shared {@link Recorder} of the HdrProbe instead, which can be used by multiple threads.
+ */
+public class SingleWriterHdrProbe implements Probe {
+
+    private final ValueRecorder recorder;
+    private final HdrProbe parent;
+
+    // only accessed by the thread owning the probe; the ownership is handed over by the queue of released probes
+    private boolean released;
+
+    // only accessed by the thread collecting the interval histograms
+    private Histogram intervalHistogram;
+
+    SingleWriterHdrProbe(HdrProbe parent) {
+        this(parent, new SingleWriterRecorder(
+                LOWEST_DISCERNIBLE_VALUE,
+                HIGHEST_TRACKABLE_VALUE,
+                NUMBER_OF_SIGNIFICANT_VALUE_DIGITS));
+    }
+
+    SingleWriterHdrProbe(HdrProbe parent, ValueRecorder recorder) {
+        this.parent = parent;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean isPartOfTotalThroughput() {
+        return parent.isPartOfTotalThroughput();
+    }
+
+    @Override
+    public boolean isPartOfTotalLatency() {
+        return parent.isPartOfTotalLatency();
+    }
+
+    @Override
+    public void done(long startNanos) {
+        if (startNanos <= 0) {
+            throw new IllegalArgumentException("startedNanos has to be a positive number");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordValue(nowNanos - startNanos);
+    }
+
+    @Override
+    public void recordValue(long latencyNanos) {
+        if (latencyNanos > HIGHEST_TRACKABLE_VALUE) {
+            latencyNanos = HIGHEST_TRACKABLE_VALUE;
+        }
+        recorder.recordValue(latencyNanos);
+    }
+
+    /**
+     * Gets the interval histogram of this probe. The returned histogram is recycled on the next call, so it should
+     * be consumed (e.g. merged) before this method is called again.
+     *
+     * @return the interval histogram
+     */
+    Histogram getIntervalHistogram() {
+        intervalHistogram = ((SingleWriterRecorder) recorder).getIntervalHistogram(intervalHistogram);
+        return intervalHistogram;
+    }
+
+    /**
+     * Returns this probe to its {@link HdrProbe}, so it can be reused by another thread. The probe should not be used
+     * anymore by the calling thread. Releasing a probe more than once has no effect.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        parent.release(this);
+    }
+
+    void acquire() {
+        released = false;
+    }
+
+    @Override
+    public void reset() {
+        recorder.reset();
+    }
+}
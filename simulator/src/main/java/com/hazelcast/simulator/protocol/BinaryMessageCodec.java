@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.OperationCodec;
+import com.hazelcast.simulator.protocol.operation.OperationType;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.simulator.protocol.operation.OperationType.getOperationType;
+import static com.hazelcast.simulator.utils.HistogramUtils.decodeCompressed;
+import static com.hazelcast.simulator.utils.HistogramUtils.encodeCompressed;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link MessageCodec} which encodes the operations into the body of a JMS {@link BytesMessage}.
+ *
+ * The body contains the number of operations followed by the classId and the payload of every operation. Integers are
+ * written as var-ints and strings and byte arrays are length-prefixed.
+ *
+ * The {@link PerformanceStatsOperation}, which is send by every Worker in every performance monitor interval, has a native
+ * encoding which ships the latency histograms in their compressed binary encoding. The payload of all other operations is
+ * their length-prefixed JSON representation; these operations are infrequent, so there is little to gain.
+ */
+final class BinaryMessageCodec implements MessageCodec {
+
+    static final String NAME = "binary";
+
+    private static final int HAS_HISTOGRAM = 1;
+    private static final int HAS_CPU_TIME = 2;
+    private static final int VAR_INT_BITS = 7;
+    private static final int VAR_INT_MASK = 0x7F;
+    private static final int VAR_INT_CONTINUE = 0x80;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Message encode(Session session, List<SimulatorOperation> operations) throws JMSException {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(encode(operations));
+        return message;
+    }
+
+    @Override
+    public List<SimulatorOperation> decode(Message message) throws JMSException {
+        BytesMessage bytesMessage = (BytesMessage) message;
+        byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(bytes);
+        return decode(bytes);
+    }
+
+    static byte[] encode(List<SimulatorOperation> operations) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            writeVarLong(out, operations.size());
+            for (SimulatorOperation op : operations) {
+                OperationType operationType = getOperationType(op);
+                writeVarLong(out, operationType.toInt());
+                if (op instanceof PerformanceStatsOperation) {
+                    writePerformanceStatsOperation(out, (PerformanceStatsOperation) op);
+                } else {
+                    writeString(out, OperationCodec.toJson(op));
+                }
+            }
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode operations", e);
+        }
+    }
+
+    static List<SimulatorOperation> decode(byte[] bytes) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            int count = (int) readVarLong(in);
+            List<SimulatorOperation> operations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                OperationType operationType = OperationType.fromInt((int) readVarLong(in));
+                if (operationType.getClassType() == PerformanceStatsOperation.class) {
+                    operations.add(readPerformanceStatsOperation(in));
+                } else {
+                    operations.add(OperationCodec.fromJson(readString(in), operationType.getClassType()));
+                }
+            }
+            return operations;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not decode operations", e);
+        }
+    }
+
+    private static void writePerformanceStatsOperation(DataOutputStream out, PerformanceStatsOperation op)
+            throws IOException {
+        Map<String, PerformanceStats> performanceStatsMap = op.getPerformanceStats();
+        writeVarLong(out, performanceStatsMap.size());
+        for (Map.Entry<String, PerformanceStats> entry : performanceStatsMap.entrySet()) {
+            writeString(out, entry.getKey());
+            writePerformanceStats(out, entry.getValue());
+        }
+    }
+
+    private static PerformanceStatsOperation readPerformanceStatsOperation(DataInputStream in) throws IOException {
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        int size = (int) readVarLong(in);
+        for (int i = 0; i < size; i++) {
+            String testId = readString(in);
+            op.addPerformanceStats(testId, readPerformanceStats(in));
+        }
+        return op;
+    }
+
+    private static void writePerformanceStats(DataOutputStream out, PerformanceStats stats) throws IOException {
+        Histogram histogram = stats.getLatencyHistogram();
+        boolean hasCpuTime = stats.getCpuTimeOperationCount() != 0;
+        out.writeByte((histogram == null ? 0 : HAS_HISTOGRAM) | (hasCpuTime ? HAS_CPU_TIME : 0));
+        writeVarLong(out, zigZag(stats.getOperationCount()));
+        out.writeDouble(stats.getIntervalThroughput());
+        out.writeDouble(stats.getTotalThroughput());
+        if (histogram == null) {
+            out.writeDouble(stats.getIntervalLatencyAvgNanos());
+            writeVarLong(out, zigZag(stats.getIntervalLatency999PercentileNanos()));
+            writeVarLong(out, zigZag(stats.getIntervalLatencyMaxNanos()));
+        } else {
+            // the latency values are derived from the histogram, so they don't need to be send
+            writeBytes(out, encodeCompressed(histogram));
+        }
+        if (hasCpuTime) {
+            writeVarLong(out, zigZag(stats.getCpuTimeNanos()));
+            writeVarLong(out, zigZag(stats.getCpuTimeOperationCount()));
+        }
+    }
+
+    private static PerformanceStats readPerformanceStats(DataInputStream in) throws IOException {
+        int flags = in.readByte();
+        long operationCount = unZigZag(readVarLong(in));
+        double intervalThroughput = in.readDouble();
+        double totalThroughput = in.readDouble();
+        PerformanceStats stats;
+        if ((flags & HAS_HISTOGRAM) == 0) {
+            double intervalLatencyAvgNanos = in.readDouble();
+            long intervalLatency999PercentileNanos = unZigZag(readVarLong(in));
+            long intervalLatencyMaxNanos = unZigZag(readVarLong(in));
+            stats = new PerformanceStats(operationCount, intervalThroughput, totalThroughput,
+                    intervalLatencyAvgNanos, intervalLatency999PercentileNanos, intervalLatencyMaxNanos);
+        } else {
+            Histogram histogram = decodeCompressed(readBytes(in));
+            stats = new PerformanceStats(operationCount, intervalThroughput, totalThroughput, histogram);
+        }
+        if ((flags & HAS_CPU_TIME) != 0) {
+            long cpuTimeNanos = unZigZag(readVarLong(in));
+            long cpuTimeOperationCount = unZigZag(readVarLong(in));
+            stats.setCpuTime(cpuTimeNanos, cpuTimeOperationCount);
+        }
+        return stats;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarLong(out, 0);
+        } else {
+            byte[] bytes = s.getBytes(UTF_8);
+            writeVarLong(out, bytes.length + 1);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes a non-negative value using 7 bits per byte; the high bit of a byte is set if more bytes follow.
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~VAR_INT_MASK) != 0) {
+            out.writeByte((int) (remaining & VAR_INT_MASK) | VAR_INT_CONTINUE);
+            remaining >>>= VAR_INT_BITS;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        for (; ; ) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & VAR_INT_MASK) << shift;
+            if ((b & VAR_INT_CONTINUE) == 0) {
+                return value;
+            }
+            shift += VAR_INT_BITS;
+        }
+    }
+
+    /**
+     * Maps signed values to unsigned values, so small negative values (like -1 for an empty value) remain small.
+     */
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -19,8 +19,6 @@ import com.hazelcast.simulator.common.FailureType;
 import com.hazelcast.simulator.coordinator.FailureCollector;
 import com.hazelcast.simulator.coordinator.operations.FailureOperation;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
-import com.hazelcast.simulator.protocol.operation.OperationCodec;
-import com.hazelcast.simulator.protocol.operation.OperationType;
 import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
 import com.hazelcast.simulator.utils.SimulatorUtils;
 import org.apache.log4j.Logger;
@@ -39,48 +37,46 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static com.hazelcast.simulator.common.SimulatorProperties.DEFAULT_AGENT_PORT;
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.coordinatorAddress;
-import static com.hazelcast.simulator.protocol.operation.OperationType.getOperationType;
 import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.UuidUtil.newUnsecureUuidString;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static javax.jms.DeliveryMode.NON_PERSISTENT;
 
 /**
  * Responsible for connecting to the agents and sending operations or invoking operations.
+ *
+ * Every agent has its own send lane; a thread with a queue of pending operations. So a slow or reconnecting agent broker
+ * doesn't stall the sending to the other agents, and a fan-out to many workers is send concurrently. Since all workers of
+ * an agent are reached through the broker of that agent, the operations for a single target are still send in order.
  */
 public class CoordinatorClient implements Closeable {
 
     private static final Logger LOGGER = Logger.getLogger(CoordinatorClient.class);
 
-    private final BlockingQueue<SendTask> taskQueue = new LinkedBlockingQueue<>();
     // the key is the agent-index
     private final ConcurrentMap<Integer, RemoteBroker> remoteBrokers
             = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, FutureImpl> futures = new ConcurrentHashMap<>();
-    private final SendThread sendThread;
     private final ConnectionFactory connectionFactory = new ConnectionFactory();
-    private ResponseHandlerThread responseHandlerThread;
     private OperationProcessor processor;
     private int remoteBrokerPort = DEFAULT_AGENT_PORT;
     private FailureCollector failureCollector;
+    private MessageCodec codec = MessageCodecs.defaultCodec();
     private volatile boolean stop;
-
-    public CoordinatorClient() {
-        this.responseHandlerThread = new ResponseHandlerThread();
-        this.sendThread = new SendThread();
-    }
+    private boolean started;
 
     public ConnectionFactory getConnectionFactory() {
         return connectionFactory;
@@ -91,16 +87,26 @@ public class CoordinatorClient implements Closeable {
         return this;
     }
 
+    public CoordinatorClient setMessageCodec(MessageCodec codec) {
+        this.codec = codec;
+        return this;
+    }
+
     public CoordinatorClient setAgentBrokerPort(int port) {
         this.remoteBrokerPort = port;
         return this;
     }
 
-    public CoordinatorClient connectToAgentBroker(SimulatorAddress agentAddress, String agentIp) throws JMSException {
+    public synchronized CoordinatorClient connectToAgentBroker(SimulatorAddress agentAddress, String agentIp)
+            throws JMSException {
         if (agentIp.equals("localhost")) {
             agentIp = SimulatorUtils.localIp();
         }
-        remoteBrokers.put(agentAddress.getAgentIndex(), new RemoteBroker(agentIp, agentAddress));
+        RemoteBroker remoteBroker = new RemoteBroker(agentIp, agentAddress);
+        remoteBrokers.put(agentAddress.getAgentIndex(), remoteBroker);
+        if (started) {
+            remoteBroker.sendThread.start();
+        }
         return this;
     }
 
@@ -109,9 +115,11 @@ public class CoordinatorClient implements Closeable {
         return this;
     }
 
-    public CoordinatorClient start() {
-        responseHandlerThread.start();
-        sendThread.start();
+    public synchronized CoordinatorClient start() {
+        started = true;
+        for (RemoteBroker remoteBroker : remoteBrokers.values()) {
+            remoteBroker.sendThread.start();
+        }
         return this;
     }
 
@@ -119,10 +127,11 @@ public class CoordinatorClient implements Closeable {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("sending " + op + " to " + target);
         }
-        taskQueue.add(new SendTask(target, getRemoteBroker(target), op, null));
+        RemoteBroker remoteBroker = getRemoteBroker(target);
+        remoteBroker.taskQueue.add(new SendTask(target, remoteBroker, op, null));
     }
 
-    public Future<String> submit(SimulatorAddress target, SimulatorOperation op) {
+    public CompletableFuture<String> submit(SimulatorAddress target, SimulatorOperation op) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("sending " + op + " to " + target);
         }
@@ -131,8 +140,11 @@ public class CoordinatorClient implements Closeable {
 
         FutureImpl future = new FutureImpl(remoteBroker);
         futures.put(future.messageId, future);
+        if (remoteBroker.closed && futures.remove(future.messageId, future)) {
+            future.completeExceptionally(new JMSException("Connection to broker " + remoteBroker.agentAddress + " is closed"));
+        }
 
-        taskQueue.add(new SendTask(target, remoteBroker, op, future.messageId));
+        remoteBroker.taskQueue.add(new SendTask(target, remoteBroker, op, future.messageId));
 
         return future;
     }
@@ -175,83 +187,18 @@ public class CoordinatorClient implements Closeable {
     @Override
     public void close() {
         stop = true;
-        sendThread.interrupt();
-        responseHandlerThread.interrupt();
 
         closeQuietly(remoteBrokers.values());
         remoteBrokers.clear();
     }
 
-    static class FutureImpl implements Future<String> {
+    static class FutureImpl extends CompletableFuture<String> {
         private final RemoteBroker agentBroker;
         private final String messageId = newUnsecureUuidString();
-        private volatile Object result;
 
-        public FutureImpl(RemoteBroker agentBroker) {
+        FutureImpl(RemoteBroker agentBroker) {
             this.agentBroker = agentBroker;
         }
-
-        @Override
-        public boolean cancel(boolean mayInterruptIfRunning) {
-            return false;
-        }
-
-        @Override
-        public boolean isCancelled() {
-            return false;
-        }
-
-        @Override
-        public boolean isDone() {
-            return result != null;
-        }
-
-        @Override
-        public String get() throws InterruptedException, ExecutionException {
-            synchronized (this) {
-                while (result == null) {
-                    wait();
-                }
-            }
-
-            if (result instanceof Throwable) {
-                throw new ExecutionException((Throwable) result);
-            } else {
-                return (String) result;
-            }
-        }
-
-        @Override
-        public String get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-            long deadlineMillis = currentTimeMillis() + unit.toMillis(timeout);
-
-            synchronized (this) {
-                while (result == null) {
-                    long remainingTime = deadlineMillis - currentTimeMillis();
-                    if (remainingTime <= 0) {
-                        throw new TimeoutException();
-                    }
-                    wait(deadlineMillis);
-                }
-            }
-
-            if (result instanceof Throwable) {
-                throw new ExecutionException((Throwable) result);
-            } else {
-                return (String) result;
-            }
-        }
-
-        public void complete(Object payload) {
-            synchronized (this) {
-                if (this.result != null) {
-                    return;
-                }
-
-                this.result = payload;
-                notifyAll();
-            }
-        }
     }
 
     class SendTask {
@@ -269,7 +216,7 @@ public class CoordinatorClient implements Closeable {
         }
 
         private void run() throws JMSException {
-            Message message = remoteBroker.session.createMessage();
+            Message message = MessageCodecs.encode(codec, remoteBroker.session, singletonList(op));
 
             if (requestId != null) {
                 message.setJMSReplyTo(remoteBroker.replyQueue);
@@ -278,8 +225,6 @@ public class CoordinatorClient implements Closeable {
 
             message.setStringProperty("source", coordinatorAddress().toString());
             message.setStringProperty("target", target.toString());
-            message.setStringProperty("payload", OperationCodec.toJson(op));
-            message.setIntProperty("operationType", getOperationType(op).toInt());
 
             switch (target.getAddressLevel()) {
                 case AGENT:
@@ -294,12 +239,23 @@ public class CoordinatorClient implements Closeable {
         }
     }
 
-    class SendThread extends Thread {
+    final class SendThread extends Thread {
+        private final BlockingQueue<SendTask> taskQueue;
+
+        private SendThread(SimulatorAddress agentAddress, BlockingQueue<SendTask> taskQueue) {
+            super("CoordinatorClient-SendThread-" + agentAddress);
+            setDaemon(true);
+            this.taskQueue = taskQueue;
+        }
+
         @Override
         public void run() {
             while (!stop) {
                 try {
                     taskQueue.take().run();
+                } catch (InterruptedException e) {
+                    LOGGER.debug(getName() + " interrupted");
+                    return;
                 } catch (Throwable e) {
                     if (!stop) {
                         LOGGER.error(e.getMessage(), e);
@@ -309,9 +265,15 @@ public class CoordinatorClient implements Closeable {
         }
     }
 
+    /**
+     * The responses and the messages for the coordinator are received by message listeners, so they are processed as soon
+     * as they arrive. The listeners of a RemoteBroker are called by the ActiveMQ session thread of its receive session.
+     */
     final class RemoteBroker implements Closeable, ExceptionListener {
         private volatile boolean closed;
         private final Session session;
+        // JMS sessions with asynchronous consumers should not be used by other threads, so receiving has its own session
+        private final Session receiveSession;
         private final Connection connection;
         private final MessageProducer agentProducer;
         private final MessageProducer workerProducer;
@@ -320,10 +282,14 @@ public class CoordinatorClient implements Closeable {
         private final MessageConsumer replyQueueConsumer;
         private final MessageConsumer coordinatorConsumer;
         private final SimulatorAddress agentAddress;
+        // the send lane of this agent
+        private final BlockingQueue<SendTask> taskQueue = new LinkedBlockingQueue<>();
+        private final SendThread sendThread;
         private boolean connected;
 
         private RemoteBroker(String ip, SimulatorAddress agentAddress) throws JMSException {
             this.agentAddress = agentAddress;
+            this.sendThread = new SendThread(agentAddress, taskQueue);
 
             connection = connectionFactory.newConnection("tcp://" + ip + ":" + remoteBrokerPort, this);
             connected = true;
@@ -335,10 +301,14 @@ public class CoordinatorClient implements Closeable {
             workerProducer = session.createProducer(session.createTopic("workers"));
             workerProducer.setDeliveryMode(NON_PERSISTENT);
 
-            coordinatorConsumer = session.createConsumer(session.createTopic("coordinator"));
+            receiveSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            coordinatorConsumer = receiveSession.createConsumer(receiveSession.createTopic("coordinator"));
+            coordinatorConsumer.setMessageListener(this::processMessage);
 
-            replyQueue = session.createQueue(newUnsecureUuidString());
-            replyQueueConsumer = session.createConsumer(replyQueue);
+            replyQueue = receiveSession.createQueue(newUnsecureUuidString());
+            replyQueueConsumer = receiveSession.createConsumer(replyQueue);
+            replyQueueConsumer.setMessageListener(this::processResponse);
 
             LOGGER.info(format("Successfully connected to agent [%s]", agentAddress));
         }
@@ -355,6 +325,7 @@ public class CoordinatorClient implements Closeable {
             LOGGER.debug(e.getMessage(), e);
 
             remoteBrokers.remove(agentAddress.getAgentIndex());
+            failPendingFutures(e);
 
             FailureOperation failureOperation = new FailureOperation(
                     "Lost connection to " + agentAddress,
@@ -368,117 +339,64 @@ public class CoordinatorClient implements Closeable {
             }
         }
 
-        @Override
-        public void close() {
-            closed = true;
-            try {
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (JMSException e) {
-                LOGGER.trace("Failed to close connection " + connection, e);
-            }
-        }
-    }
-
-    private class ResponseHandlerThread extends Thread {
-
-        private static final int DELAY_MILLIS = 100;
-
-        @Override
-        public void run() {
-            try {
-                while (!stop) {
-                    boolean hasResponse;
-                    do {
-                        checkDeadFutures();
-
-                        hasResponse = false;
-                        for (RemoteBroker remoteBroker : remoteBrokers.values()) {
-                            if (processResponses(remoteBroker)) {
-                                hasResponse = true;
-                            }
-                            if (processMessages(remoteBroker)) {
-                                hasResponse = true;
-                            }
-                        }
-
-                    } while (hasResponse);
-
-                    Thread.sleep(DELAY_MILLIS);
-                }
-            } catch (Throwable e) {
-                if (!stop) {
-                    LOGGER.fatal(e.getMessage(), e);
-                }
-            }
-        }
-
-        private void checkDeadFutures() {
-            for (Map.Entry<String, FutureImpl> entry : futures.entrySet()) {
-                FutureImpl f = entry.getValue();
-                if (f.agentBroker.closed) {
-                    futures.remove(entry.getKey());
-                    f.complete(new JMSException("Connection to broker " + f.agentBroker.agentAddress + "is closed"));
+        private void failPendingFutures(JMSException cause) {
+            for (FutureImpl future : futures.values()) {
+                if (future.agentBroker == this && futures.remove(future.messageId, future)) {
+                    future.completeExceptionally(
+                            new JMSException("Connection to broker " + agentAddress + " is closed: " + cause.getMessage()));
                 }
             }
         }
 
-        private boolean processMessages(RemoteBroker remoteBroker) {
+        private void processMessage(Message message) {
             try {
-                Message message = remoteBroker.coordinatorConsumer.receiveNoWait();
-                if (message == null) {
-                    return false;
-                }
+                SimulatorAddress source = SimulatorAddress.fromString(message.getStringProperty("source"));
 
-                OperationType operationType = OperationType.fromInt(message.getIntProperty("operationType"));
-                String operationData = message.getStringProperty("payload");
+                // a single message can contain a batch of operations
+                for (SimulatorOperation op : MessageCodecs.decode(message)) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Received " + op);
+                    }
 
-                SimulatorOperation op = OperationCodec.fromJson(operationData, operationType.getClassType());
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Received " + op);
+                    processor.process(op, source, EmptyPromise.INSTANCE);
                 }
-
-                SimulatorAddress source = SimulatorAddress.fromString(message.getStringProperty("source"));
-
-                processor.process(op, source, EmptyPromise.INSTANCE);
-                return true;
             } catch (Exception e) {
                 if (!stop) {
                     //todo: feed into failure collector
                     LOGGER.fatal(e.getMessage(), e);
                 }
-                return false;
             }
         }
 
-        private boolean processResponses(RemoteBroker remoteBroker) {
+        private void processResponse(Message replyMessage) {
             try {
-                Message replyMessage = remoteBroker.replyQueueConsumer.receiveNoWait();
-                if (replyMessage == null) {
-                    return false;
-                }
-
                 String correlationId = replyMessage.getJMSCorrelationID();
                 FutureImpl future = futures.remove(correlationId);
                 if (future == null) {
                     LOGGER.debug("No future for " + correlationId + "\n" + replyMessage);
+                } else if (replyMessage.getBooleanProperty("error")) {
+                    future.completeExceptionally(new Exception(replyMessage.getStringProperty("message")));
                 } else {
-                    boolean error = replyMessage.getBooleanProperty("error");
-                    if (error) {
-                        String message = replyMessage.getStringProperty("message");
-                        future.complete(new Exception(message));
-                    } else {
-                        future.complete(replyMessage.getStringProperty("payload"));
-                    }
+                    future.complete(replyMessage.getStringProperty("payload"));
                 }
-                return true;
             } catch (Exception e) {
                 if (!stop) {
                     //todo: feed into failure collector
                     LOGGER.fatal(e);
                 }
-                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            sendThread.interrupt();
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (JMSException e) {
+                LOGGER.trace("Failed to close connection " + connection, e);
             }
         }
     }
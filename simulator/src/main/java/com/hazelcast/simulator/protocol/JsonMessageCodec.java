@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.OperationCodec;
+import com.hazelcast.simulator.protocol.operation.OperationType;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hazelcast.simulator.protocol.operation.OperationType.getOperationType;
+
+/**
+ * A {@link MessageCodec} which encodes the operations as JSON into the properties of a JMS {@link Message}.
+ *
+ * A message contains an 'operationCount' property and for every operation an 'operationType[i]' and 'payload[i]'
+ * property. A message without 'operationCount' is decoded as a single operation using the 'operationType' and 'payload'
+ * properties.
+ *
+ * This is the default codec; it is not the most efficient one, but the messages are human readable, which is useful for
+ * debugging.
+ */
+final class JsonMessageCodec implements MessageCodec {
+
+    static final String NAME = "json";
+    static final String OPERATION_COUNT = "operationCount";
+    static final String OPERATION_TYPE = "operationType";
+    static final String PAYLOAD = "payload";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Message encode(Session session, List<SimulatorOperation> operations) throws JMSException {
+        Message message = session.createMessage();
+        message.setIntProperty(OPERATION_COUNT, operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            SimulatorOperation op = operations.get(i);
+            message.setIntProperty(OPERATION_TYPE + i, getOperationType(op).toInt());
+            message.setStringProperty(PAYLOAD + i, OperationCodec.toJson(op));
+        }
+        return message;
+    }
+
+    @Override
+    public List<SimulatorOperation> decode(Message message) throws JMSException {
+        if (!message.propertyExists(OPERATION_COUNT)) {
+            return Collections.singletonList(decode(message, OPERATION_TYPE, PAYLOAD));
+        }
+
+        int count = message.getIntProperty(OPERATION_COUNT);
+        List<SimulatorOperation> operations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            operations.add(decode(message, OPERATION_TYPE + i, PAYLOAD + i));
+        }
+        return operations;
+    }
+
+    private static SimulatorOperation decode(Message message, String typeProperty, String payloadProperty)
+            throws JMSException {
+        OperationType operationType = OperationType.fromInt(message.getIntProperty(typeProperty));
+        String operationData = message.getStringProperty(payloadProperty);
+        return OperationCodec.fromJson(operationData, operationType.getClassType());
+    }
+}
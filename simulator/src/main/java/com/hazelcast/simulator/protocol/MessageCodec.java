@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.List;
+
+/**
+ * Encodes {@link SimulatorOperation} instances into JMS messages and decodes them again.
+ *
+ * The sender of a message determines the codec; the name of the codec is stored in the 'codec' property of the message, so
+ * the receiver can always decode the message, independent of its own configuration. See {@link MessageCodecs}.
+ *
+ * Implementations must be thread-safe.
+ */
+public interface MessageCodec {
+
+    /**
+     * Returns the name of the codec, which is stored in the messages.
+     *
+     * @return the name of the codec
+     */
+    String getName();
+
+    /**
+     * Creates a message containing the given operations.
+     *
+     * @param session    the session to create the message with
+     * @param operations the operations to encode
+     * @return the created message
+     * @throws JMSException if the message could not be created
+     */
+    Message encode(Session session, List<SimulatorOperation> operations) throws JMSException;
+
+    /**
+     * Decodes the operations from a message created by {@link #encode(Session, List)}.
+     *
+     * @param message the message to decode
+     * @return the decoded operations
+     * @throws JMSException if the message could not be read
+     */
+    List<SimulatorOperation> decode(Message message) throws JMSException;
+}
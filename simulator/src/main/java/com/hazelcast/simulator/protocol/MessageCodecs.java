@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.String.format;
+
+/**
+ * Gives access to the available {@link MessageCodec} implementations.
+ *
+ * The codec used to send operations is configured with the 'OPERATION_CODEC' property in the simulator.properties:
+ * <ul>
+ * <li>json: the operations are encoded as JSON in the message properties. This is the default.</li>
+ * <li>binary: a compact binary encoding in the message body.</li>
+ * <li>the fully qualified class name of a custom {@link MessageCodec} implementation with a no-arg constructor; its
+ * {@link MessageCodec#getName()} should return the class name, so receivers can load it as well.</li>
+ * </ul>
+ *
+ * Every message contains the name of its codec, so a receiver can decode a message independent of its own configuration.
+ * The name in a message is only resolved against the known codecs: the built-in codecs and the codecs configured using
+ * {@link #getCodec(String)}. So a message can't make the receiver load arbitrary classes; a custom codec needs to be
+ * configured on every Simulator component.
+ */
+public final class MessageCodecs {
+
+    public static final String OPERATION_CODEC_PROPERTY = "OPERATION_CODEC";
+
+    static final String CODEC = "codec";
+
+    private static final MessageCodec DEFAULT_CODEC = new JsonMessageCodec();
+    private static final ConcurrentMap<String, MessageCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        CODECS.put(DEFAULT_CODEC.getName(), DEFAULT_CODEC);
+        MessageCodec binaryCodec = new BinaryMessageCodec();
+        CODECS.put(binaryCodec.getName(), binaryCodec);
+    }
+
+    private MessageCodecs() {
+    }
+
+    /**
+     * Returns the default {@link MessageCodec}.
+     *
+     * @return the default codec
+     */
+    public static MessageCodec defaultCodec() {
+        return DEFAULT_CODEC;
+    }
+
+    /**
+     * Returns the {@link MessageCodec} with the given name. A custom codec is created and registered, so messages
+     * encoded with it can be decoded by this process.
+     *
+     * This method is meant for the configured codec; it should not be called with names from received messages.
+     *
+     * @param name the name of the codec, or the class name of a custom codec; if {@code null} or empty the default
+     *             codec is returned
+     * @return the codec
+     * @throws IllegalArgumentException if no codec with the given name could be found
+     */
+    public static MessageCodec getCodec(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return DEFAULT_CODEC;
+        }
+
+        String trimmedName = name.trim();
+        MessageCodec codec = CODECS.get(trimmedName);
+        if (codec != null) {
+            return codec;
+        }
+
+        codec = newCodec(trimmedName);
+        MessageCodec found = CODECS.putIfAbsent(trimmedName, codec);
+        if (found != null) {
+            return found;
+        }
+        CODECS.putIfAbsent(codec.getName(), codec);
+        return codec;
+    }
+
+    private static MessageCodec newCodec(String className) {
+        try {
+            Class<? extends MessageCodec> codecClass = MessageCodecs.class.getClassLoader()
+                    .loadClass(className)
+                    .asSubclass(MessageCodec.class);
+            return codecClass.getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException(format("Failed to create %s [%s]", OPERATION_CODEC_PROPERTY, className),
+                    e.getCause());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException(format("Unknown %s [%s]", OPERATION_CODEC_PROPERTY, className), e);
+        }
+    }
+
+    /**
+     * Returns a known {@link MessageCodec}; in contrast to {@link #getCodec(String)} no codec is created.
+     *
+     * @param name the name of the codec; if {@code null} or empty the default codec is returned
+     * @return the codec
+     * @throws IllegalArgumentException if the codec isn't known
+     */
+    static MessageCodec findCodec(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return DEFAULT_CODEC;
+        }
+
+        MessageCodec codec = CODECS.get(name.trim());
+        if (codec == null) {
+            throw new IllegalArgumentException(format("Unknown codec [%s]", name));
+        }
+        return codec;
+    }
+
+    static Message encode(MessageCodec codec, Session session, List<SimulatorOperation> operations) throws JMSException {
+        Message message = codec.encode(session, operations);
+        message.setStringProperty(CODEC, codec.getName());
+        return message;
+    }
+
+    static List<SimulatorOperation> decode(Message message) throws JMSException {
+        return findCodec(message.getStringProperty(CODEC)).decode(message);
+    }
+}
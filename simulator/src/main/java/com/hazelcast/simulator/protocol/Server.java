@@ -16,8 +16,6 @@
 package com.hazelcast.simulator.protocol;
 
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
-import com.hazelcast.simulator.protocol.operation.OperationCodec;
-import com.hazelcast.simulator.protocol.operation.OperationType;
 import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
 import org.apache.log4j.Logger;
 
@@ -31,13 +29,19 @@ import javax.jms.MessageProducer;
 import javax.jms.Session;
 import javax.jms.Topic;
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.hazelcast.simulator.common.SimulatorProperties.DEFAULT_AGENT_PORT;
-import static com.hazelcast.simulator.protocol.operation.OperationType.getOperationType;
 import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
 import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static com.hazelcast.simulator.utils.Preconditions.checkPositive;
 import static com.hazelcast.simulator.utils.SimulatorUtils.localIp;
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static javax.jms.DeliveryMode.NON_PERSISTENT;
 
@@ -49,21 +53,39 @@ import static javax.jms.DeliveryMode.NON_PERSISTENT;
  *
  * If you are a client, this is the class you want to study thoroughly. It contains most of the logic needed for understanding
  * how to integrate your client.
+ *
+ * Operations for the Coordinator and replies are not send by the calling thread, but are put in a send queue. A single
+ * send thread drains this queue using long lived producers and coalesces consecutive operations for the Coordinator into a
+ * single batched message; so under load (e.g. many tests sending performance stats) there is less messaging overhead.
+ * An operation or reply that can't be encoded is logged and dropped, so it doesn't stop the send thread; if a reply can't be
+ * encoded, the failure is send as reply instead.
  */
 public class Server implements Closeable {
     private static final Logger LOGGER = Logger.getLogger(Server.class);
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long SEND_THREAD_JOIN_TIMEOUT_MILLIS = 5000;
+    private static final Object SHUTDOWN = new Object();
 
     private final String topic;
-    private final ConnectionFactory connectionFactory = new ConnectionFactory();
+    private ConnectionFactory connectionFactory = new ConnectionFactory();
     private final ServerThread serverThread = new ServerThread();
+    private final SendThread sendThread = new SendThread();
+    // contains SimulatorOperations for the coordinator, Replies and the SHUTDOWN signal
+    private final BlockingQueue<Object> sendQueue = new LinkedBlockingQueue<>();
     private SimulatorAddress selfAddress;
     private OperationProcessor processor;
     private MessageConsumer consumer;
     private Session session;
     private Topic destination;
+    // JMS sessions are not thread-safe, so the send thread gets its own session
+    private Session sendSession;
+    private MessageProducer coordinatorProducer;
+    private MessageProducer replyProducer;
     private Connection connection;
     private String brokerURL;
     private String selfAddressString;
+    private MessageCodec codec = MessageCodecs.defaultCodec();
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
     private ExceptionListener exceptionListener = e -> LOGGER.error("JMS Exception occurred", e);
 
     private volatile boolean stop;
@@ -95,6 +117,17 @@ public class Server implements Closeable {
         return this;
     }
 
+    /**
+     * Sets the {@link MessageCodec} used to encode the operations send to the Coordinator.
+     *
+     * @param codec the MessageCodec.
+     * @return this;
+     */
+    public Server setMessageCodec(MessageCodec codec) {
+        this.codec = checkNotNull(codec, "codec can't be null");
+        return this;
+    }
+
     /**
      * Set the {@link OperationProcessor} responsible for handling operations.
      *
@@ -106,6 +139,29 @@ public class Server implements Closeable {
         return this;
     }
 
+    /**
+     * Sets the maximum number of operations for the Coordinator that are send in a single message. A value of 1 sends
+     * every operation in its own message.
+     *
+     * @param maxBatchSize the maximum number of operations per message.
+     * @return this;
+     */
+    public Server setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = checkPositive(maxBatchSize, "maxBatchSize");
+        return this;
+    }
+
+    /**
+     * Sets the {@link ConnectionFactory} used to connect to the broker, e.g. to run the Server without a broker.
+     *
+     * @param connectionFactory the ConnectionFactory.
+     * @return this;
+     */
+    public Server setConnectionFactory(ConnectionFactory connectionFactory) {
+        this.connectionFactory = checkNotNull(connectionFactory, "connectionFactory can't be null");
+        return this;
+    }
+
     public Server setBrokerURL(String brokerURL) {
         this.brokerURL = brokerURL;
         return this;
@@ -136,7 +192,16 @@ public class Server implements Closeable {
             String selector = "target='" + selfAddress + "'";
             LOGGER.info(format("Using messageSelector [%s]", selector));
             this.consumer = session.createConsumer(destination, selector);
+
+            this.sendSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            this.coordinatorProducer = sendSession.createProducer(sendSession.createTopic("coordinator"));
+            coordinatorProducer.setTimeToLive(MINUTES.toMillis(1));
+            coordinatorProducer.setDeliveryMode(NON_PERSISTENT);
+            // the producer for the replies has no fixed destination since every request has its own reply queue
+            this.replyProducer = sendSession.createProducer(null);
+
             serverThread.start();
+            sendThread.start();
 
             LOGGER.info("Successfully started server for " + selfAddressString);
             return this;
@@ -151,29 +216,55 @@ public class Server implements Closeable {
     public void close() {
         stop = true;
         serverThread.interrupt();
+        // the pending messages are flushed before the connection is closed
+        sendQueue.add(SHUTDOWN);
+        joinThread(sendThread, SEND_THREAD_JOIN_TIMEOUT_MILLIS);
         closeQuietly(connection);
         LOGGER.info("Server Stopped");
     }
 
+    /**
+     * Sends an operation to the Coordinator.
+     *
+     * The call doesn't block; the operation is put in the send queue and send asynchronously.
+     *
+     * @param op the operation to send
+     */
     public void sendCoordinator(SimulatorOperation op) {
-        try {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("sending [" + op + "]");
-            }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("sending [" + op + "]");
+        }
 
-            Destination topic = session.createTopic("coordinator");
-            MessageProducer producer = session.createProducer(topic);
-            producer.setTimeToLive(MINUTES.toMillis(1));
-            producer.setDeliveryMode(NON_PERSISTENT);
+        sendQueue.add(op);
+    }
 
-            Message message = session.createMessage();
+    private final class Reply {
+        private final Destination replyTo;
+        private final String correlationId;
+        private final Object value;
+
+        private Reply(Destination replyTo, String correlationId, Object value) {
+            this.replyTo = replyTo;
+            this.correlationId = correlationId;
+            this.value = value;
+        }
+
+        private void send() throws JMSException {
+            Message message = sendSession.createMessage();
+            message.setJMSCorrelationID(correlationId);
             message.setStringProperty("source", selfAddressString);
-            message.setStringProperty("payload", OperationCodec.toJson(op));
-            message.setIntProperty("operationType", getOperationType(op).toInt());
 
-            producer.send(message);
-        } catch (JMSException e) {
-            LOGGER.error(e);
+            if (value instanceof Throwable) {
+                Throwable throwable = (Throwable) value;
+                message.setBooleanProperty("error", true);
+                message.setStringProperty("message", throwable.getMessage());
+            } else {
+                message.setBooleanProperty("error", false);
+                // hack
+                message.setStringProperty("payload", "" + value);
+            }
+
+            replyProducer.send(replyTo, message);
         }
     }
 
@@ -192,29 +283,109 @@ public class Server implements Closeable {
                 LOGGER.debug(format("Sending reply [%s] for [%s] to %s", o, op, replyTo));
             }
 
+            sendQueue.add(new Reply(replyTo, correlationId, o));
+        }
+    }
+
+    private class SendThread extends Thread {
+
+        private final List<Object> pending = new ArrayList<>(DEFAULT_MAX_BATCH_SIZE);
+        private final List<SimulatorOperation> batch = new ArrayList<>(DEFAULT_MAX_BATCH_SIZE);
+
+        SendThread() {
+            super("ServerSendThread");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
             try {
-                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-                Message message = session.createMessage();
-                message.setJMSCorrelationID(correlationId);
-                message.setStringProperty("source", selfAddressString);
+                boolean shutdown = false;
+                while (!shutdown) {
+                    pending.add(sendQueue.take());
+                    sendQueue.drainTo(pending, maxBatchSize - 1);
+                    shutdown = sendPending();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.debug("SendThread interrupted", e);
+            }
+
+            LOGGER.info("SendThread finished");
+        }
+
+        private boolean sendPending() {
+            boolean shutdown = false;
+            for (Object item : pending) {
+                if (item instanceof SimulatorOperation) {
+                    batch.add((SimulatorOperation) item);
+                    continue;
+                }
 
-                if (o instanceof Throwable) {
-                    Throwable throwable = (Throwable) o;
-                    message.setBooleanProperty("error", true);
-                    message.setStringProperty("message", throwable.getMessage());
+                // replies are send in order with the operations
+                flushBatch();
+                if (item == SHUTDOWN) {
+                    shutdown = true;
                 } else {
-                    message.setBooleanProperty("error", false);
-                    // hack
-                    message.setStringProperty("payload", "" + o);
+                    sendReply((Reply) item);
                 }
+            }
+            flushBatch();
+            pending.clear();
+            return shutdown;
+        }
 
-                MessageProducer producer = session.createProducer(replyTo);
-                producer.send(message);
-                session.close();
+        @SuppressWarnings("checkstyle:illegalcatch")
+        private void sendReply(Reply reply) {
+            try {
+                reply.send();
             } catch (JMSException e) {
                 LOGGER.error(e);
+            } catch (RuntimeException e) {
+                LOGGER.error(format("Failed to send reply for correlationId [%s]", reply.correlationId), e);
+                if (!(reply.value instanceof Throwable)) {
+                    // the caller should not wait forever for a reply
+                    sendReply(new Reply(reply.replyTo, reply.correlationId, e));
+                }
             }
         }
+
+        private void flushBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                if (!send(batch) && batch.size() > 1) {
+                    // the operations are send one by one, so only the operations that can't be encoded are dropped
+                    for (SimulatorOperation op : batch) {
+                        send(singletonList(op));
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+
+        /**
+         * Sends operations to the Coordinator.
+         *
+         * @param operations the operations to send
+         * @return {@code false} if the operations could not be encoded, {@code true} otherwise
+         */
+        @SuppressWarnings("checkstyle:illegalcatch")
+        private boolean send(List<SimulatorOperation> operations) {
+            try {
+                Message message = MessageCodecs.encode(codec, sendSession, operations);
+                message.setStringProperty("source", selfAddressString);
+                coordinatorProducer.send(message);
+            } catch (JMSException e) {
+                LOGGER.error(e);
+            } catch (RuntimeException e) {
+                LOGGER.error(format("Failed to encode %d operation(s)", operations.size()), e);
+                return false;
+            }
+            return true;
+        }
     }
 
     private class ServerThread extends Thread {
@@ -237,16 +408,34 @@ public class Server implements Closeable {
         private void handle() throws Exception {
             Message message = consumer.receive();
 
-            OperationType operationType = OperationType.fromInt(message.getIntProperty("operationType"));
-            String operationData = message.getStringProperty("payload");
-            SimulatorOperation op = OperationCodec.fromJson(operationData, operationType.getClassType());
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Received operation:" + op);
+            List<SimulatorOperation> operations;
+            try {
+                operations = MessageCodecs.decode(message);
+            } catch (IllegalArgumentException e) {
+                // a message with an unknown codec is rejected, but it must not stop the server
+                LOGGER.warn(format("Rejecting message from [%s]: %s", message.getStringProperty("source"), e.getMessage()));
+                newPromise(message, null).answer(e);
+                return;
+            }
+
+            for (SimulatorOperation op : operations) {
+                handle(message, op);
             }
+        }
+
+        private PromiseImpl newPromise(Message message, SimulatorOperation op) throws JMSException {
             PromiseImpl promise = new PromiseImpl();
             promise.replyTo = message.getJMSReplyTo();
             promise.correlationId = message.getJMSCorrelationID();
             promise.op = op;
+            return promise;
+        }
+
+        private void handle(Message message, SimulatorOperation op) throws Exception {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Received operation:" + op);
+            }
+            PromiseImpl promise = newPromise(message, op);
 
             SimulatorAddress source = SimulatorAddress.fromString(message.getStringProperty("source"));
 
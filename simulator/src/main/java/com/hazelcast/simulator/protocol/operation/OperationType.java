@@ -32,6 +32,7 @@ import com.hazelcast.simulator.coordinator.operations.RcWorkerStartOperation;
 import com.hazelcast.simulator.worker.operations.CreateTestOperation;
 import com.hazelcast.simulator.worker.operations.ExecuteScriptOperation;
 import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
+import com.hazelcast.simulator.worker.operations.SetRateOperation;
 import com.hazelcast.simulator.worker.operations.StartPhaseOperation;
 import com.hazelcast.simulator.worker.operations.StopRunOperation;
 import com.hazelcast.simulator.worker.operations.TerminateWorkerOperation;
@@ -75,7 +76,8 @@ public enum OperationType {
     CREATE_TEST(CreateTestOperation.class, 4002),
     EXECUTE_SCRIPT(ExecuteScriptOperation.class, 4003),
     START_TEST_PHASE(StartPhaseOperation.class, 4004),
-    STOP_TEST(StopRunOperation.class, 4005);
+    STOP_TEST(StopRunOperation.class, 4005),
+    SET_RATE(SetRateOperation.class, 4006);
 
     private final Class<? extends SimulatorOperation> classType;
     private final int classId;
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.test;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Lets the timestep runner wait for the completion of an asynchronous result returned by a
+ * {@link com.hazelcast.simulator.test.annotations.TimeStep} method, so the latency is recorded when the call completes
+ * instead of when the call is issued.
+ *
+ * Simulator supports {@link java.util.concurrent.CompletionStage} and Reactive Streams {@code Publisher} results out of the
+ * box. A driver can add support for the asynchronous result types of its client library by implementing this interface and
+ * registering the implementation in a {@code META-INF/services/com.hazelcast.simulator.test.AsyncResultAdapter} file.
+ *
+ * Implementations need to be thread-safe and stateless; a single instance is shared by all timestep threads.
+ *
+ * @param <R> the type of the asynchronous result
+ */
+public interface AsyncResultAdapter<R> {
+
+    /**
+     * Returns the type of the asynchronous results this adapter supports. Subtypes are supported as well.
+     *
+     * @return the supported result type.
+     */
+    Class<R> resultType();
+
+    /**
+     * Registers a callback which is called once the asynchronous call completes.
+     *
+     * The callback is called exactly once; with the value of the call and a {@code null} throwable if the call was successful, or
+     * with a {@code null} value and the cause if the call failed. The callback is cheap and can be called on any thread, e.g. an
+     * IO thread of the client library.
+     *
+     * @param result   the asynchronous result
+     * @param callback the callback to call on completion
+     */
+    void onComplete(R result, BiConsumer<Object, Throwable> callback);
+}
@@ -15,6 +15,8 @@
  */
 package com.hazelcast.simulator.test;
 
+import com.hazelcast.simulator.utils.FastRandom;
+
 import java.io.Serializable;
 import java.util.Random;
 
@@ -23,12 +25,15 @@ import java.util.Random;
  * <p>
  * This class is called BaseThreadState instead of ThreadState, since in most cases a test needs to subclass BaseThreadState.
  * In this case the prettier and shorter name ThreadState can be used.
+ * <p>
+ * The {@link #random} is a {@link FastRandom}, which is faster than a regular {@link Random} but not thread-safe. So it should
+ * only be used by the thread owning the thread state.
  */
 @SuppressWarnings("unused")
 public class BaseThreadState implements Serializable {
 
     @SuppressWarnings("checkstyle:visibilitymodifier")
-    public final Random random = new Random();
+    public final Random random = new FastRandom();
 
     /**
      * @return random generated double
@@ -94,6 +94,17 @@ import java.lang.annotation.Target;
  * we can reduce the overhead by the benchmark framework to the bare minimum. The generated code of the TimeStepRunner can be
  * found in the worker directory.
  *
+ * The compiled runners are cached in the session directory, named after the hash of their code. So identical runners, e.g. for
+ * the same test and settings on multiple workers of an agent, are compiled only once.
+ *
+ * Code generation needs a JDK on the workers. Without a Java compiler, or when configured explicitly, the timestep methods are
+ * called using method handles instead:
+ * <pre>
+ *     class=yourtest
+ *     runnerType=methodHandle
+ * </pre>
+ * This runner has a slightly higher overhead, since it checks for every call which features are used.
+ *
  * <h1>Execution groups</h1>
  * Normally all timestep methods from a test belong to the same execution group; meaning that there is a group of threads will
  * will call each timestep method using some distribution. But in some cases this is unwanted, e.g. a typical producer/consumer
@@ -195,6 +206,40 @@ import java.lang.annotation.Target;
  * Keep in mind that the current iteration (and therefor numbers like throughput) are based on completion of the timestep method,
  * but that doesn't need to mean completion of the async call.
  *
+ * <h2>Asynchronous results</h2>
+ * If a timestep method returns an asynchronous result, the latency is recorded when the call completes instead of when the
+ * timestep method returns. Out of the box a {@link java.util.concurrent.CompletionStage}, like a
+ * {@link java.util.concurrent.CompletableFuture} or a Lettuce RedisFuture, and a Reactive Streams Publisher, like a Reactor Mono,
+ * are supported. A Publisher is subscribed to by the timestep runner. Other result types can be supported by registering a
+ * {@link com.hazelcast.simulator.test.AsyncResultAdapter}; e.g. the memcached driver registers one for its OperationFuture.
+ *
+ * <h2>Bounded concurrency</h2>
+ * A timestep method returning an asynchronous result is normally not limited in the number of outstanding calls. To keep a
+ * fixed number of calls in flight per timestep thread, the maxInFlight property can be configured:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     maxInFlight=16
+ * }
+ * </pre>
+ * A timestep thread will wait for a permit before issuing the next call and the permit is returned on completion of the
+ * future; the latency is then recorded on completion. Next to the regular probe, a '_queueTime' probe records how long a thread
+ * waited for a permit and a '_serviceTime' probe records the time between issuing the call and its completion. Before the
+ * {@link AfterRun} methods are called, the timestep thread waits for all outstanding calls to complete.
+ *
+ * In case of an execution group producer, maxInFlight is configured using 'producerMaxInFlight'.
+ *
+ * <h2>Service time and response time</h2>
+ * If a timestep method returning an asynchronous result runs with a metronome, e.g. by configuring
+ * an interval or ratePerSecond, the regular probe records the response time: the time between the start of the call according
+ * to the schedule of the metronome and its completion. This prevents coordinated omission; if a timestep thread gets blocked,
+ * e.g. by back pressure of the client, the calls that should have been issued in the meantime are not lost from the latency
+ * distribution. Next to the regular probe, a '_serviceTime' probe records the time between actually issuing the call and its
+ * completion. The gap between the two shows how much latency is caused by the load generator falling behind its schedule.
+ *
+ * The response time is measured from the intended start as long as the metronome accounts for coordinated omission, which is
+ * the default.
+ *
  * <h1>Logging</h1>
  * By default a timestep based thread will not log anything during the run/warmup period. But sometimes some logging is required,
  * e.g. when needing to do some debugging. There are 2 out of the box options for logging:
@@ -282,6 +327,20 @@ import java.lang.annotation.Target;
  * }
  * </pre>
  *
+ * <h2>Rate profiles</h2>
+ * Instead of a fixed rate, the ratePerSecond property can contain a rate profile that changes the rate during the run. This
+ * makes it possible to sweep the throughput in a single run, e.g. to find the saturation point of a cluster:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     ratePerSecond=step:10000..200000+10000/30s
+ * }
+ * </pre>
+ * In this example the rate starts at 10000 requests/second and is increased by 10000 every 30 seconds until 200000 is
+ * reached. Besides 'step' there are 'ramp', 'sine' and 'csv' profiles; see
+ * {@link com.hazelcast.simulator.worker.metronome.RateProfile} for details. The target rate is written to the performance csv
+ * file next to the achieved rate and latency.
+ *
  * <h1>Stress testing</h1>
  * With stress testing you try to find the highest performance until you run into the breaking point of the system. In Simulator
  * this is done by increasing the number of threads until the `threadCount` number of threads are all running. This can be done
@@ -317,7 +376,7 @@ import java.lang.annotation.Target;
  *
  * <h2>Different flavors of metronomes</h2>
  * Internally a {@link com.hazelcast.simulator.worker.metronome.Metronome} is used to control the rate of requests. There are
- * currently 3 out of the box implementations:
+ * currently 5 out of the box implementations:
  * <ol>
  * <li>{@link com.hazelcast.simulator.worker.metronome.SleepingMetronome}: which used LockSupport.park for waiting.
  * This metronome is the default and useful if you don't want to consume a lot of CPU cycles.</li>
@@ -332,6 +391,14 @@ import java.lang.annotation.Target;
  * both can influence the benchmark. With the ConstantCombinedRateMetronome as long as their is a thread available, a
  * requests will be made. THis prevents building up the bubble and will give a more stable request rate.
  * </li>
+ * <li>{@link com.hazelcast.simulator.worker.metronome.PoissonMetronome}: which uses exponentially distributed intervals
+ * instead of a fixed interval. A fixed interval creates a perfectly periodic load which hides queueing effects; with
+ * Poisson arrivals requests occasionally cluster like they do in real traffic.
+ * </li>
+ * <li>{@link com.hazelcast.simulator.worker.metronome.BurstyMetronome}: which alternates between an on period with
+ * Poisson arrivals and an off period without any requests. The on and off period are configured using burstOnMs and
+ * burstOffMs. The average rate over a whole cycle matches the configured interval.
+ * </li>
  * </ol>
  *
  * The metronome type can be configured using:
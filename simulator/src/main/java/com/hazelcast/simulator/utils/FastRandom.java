@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast {@link Random} for use by a single thread, based on the xoroshiro128** generator.
+ *
+ * {@link Random} updates its seed using a compare-and-swap on every call, which is measurable when a timestep thread
+ * draws tens of millions of random numbers per second. This implementation keeps its state in plain fields, so it is not
+ * thread-safe; every thread needs its own instance. It is not suited for cryptographic purposes.
+ *
+ * The seed is expanded into the 128 bits of state using the SplitMix64 generator, so similar seeds give unrelated sequences.
+ */
+public class FastRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final long MIX_MULTIPLIER_1 = 0xbf58476d1ce4e5b9L;
+    private static final long MIX_MULTIPLIER_2 = 0x94d049bb133111ebL;
+    private static final int MIX_SHIFT_1 = 30;
+    private static final int MIX_SHIFT_2 = 27;
+    private static final int MIX_SHIFT_3 = 31;
+
+    private static final int STAR_MULTIPLIER = 5;
+    private static final int STAR_ROTATE = 7;
+    private static final int STAR_STAR_MULTIPLIER = 9;
+    private static final int ROTATE_A = 24;
+    private static final int SHIFT_B = 16;
+    private static final int ROTATE_C = 37;
+
+    private static final int LONG_BITS = 64;
+    private static final int INT_BITS = 32;
+    private static final int DOUBLE_BITS = 53;
+    private static final int FLOAT_BITS = 24;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(System.nanoTime());
+
+    // no initializers, since the fields are set by setSeed() which is called by the constructor of Random
+    private long s0;
+    private long s1;
+
+    public FastRandom() {
+        this(SEED_UNIQUIFIER.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+    }
+
+    public FastRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        s0 = mix(seed + GOLDEN_GAMMA);
+        s1 = mix(seed + 2 * GOLDEN_GAMMA);
+        if ((s0 | s1) == 0) {
+            // the all zero state is the only state the generator can't escape from
+            s1 = GOLDEN_GAMMA;
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> MIX_SHIFT_1)) * MIX_MULTIPLIER_1;
+        z = (z ^ (z >>> MIX_SHIFT_2)) * MIX_MULTIPLIER_2;
+        return z ^ (z >>> MIX_SHIFT_3);
+    }
+
+    @Override
+    public long nextLong() {
+        long x0 = s0;
+        long x1 = s1;
+        long result = Long.rotateLeft(x0 * STAR_MULTIPLIER, STAR_ROTATE) * STAR_STAR_MULTIPLIER;
+        x1 ^= x0;
+        s0 = Long.rotateLeft(x0, ROTATE_A) ^ x1 ^ (x1 << SHIFT_B);
+        s1 = Long.rotateLeft(x1, ROTATE_C);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (LONG_BITS - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> INT_BITS);
+    }
+
+    /**
+     * Returns a uniformly distributed int between 0 (inclusive) and the bound (exclusive).
+     *
+     * Uses Lemire's multiply-and-shift method, which only needs a division in the rare case a value has to be rejected.
+     *
+     * @param bound the upper bound (exclusive). Must be positive.
+     * @return the random int
+     * @throws IllegalArgumentException if the bound is not positive
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+
+        long product = (nextLong() >>> INT_BITS) * bound;
+        if ((product & INT_MASK) < bound) {
+            // the low bits are in the biased range if they are smaller than 2^32 % bound
+            long threshold = (1L << INT_BITS) % bound;
+            while ((product & INT_MASK) < threshold) {
+                product = (nextLong() >>> INT_BITS) * bound;
+            }
+        }
+        return (int) (product >>> INT_BITS);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> (LONG_BITS - DOUBLE_BITS)) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> (LONG_BITS - FLOAT_BITS)) * FLOAT_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}
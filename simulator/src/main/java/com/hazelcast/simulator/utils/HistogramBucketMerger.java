@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+/**
+ * Merges streams of interval histograms into fixed wall-clock buckets.
+ *
+ * Every interval histogram is assigned to the bucket its start timestamp falls in; buckets are aligned on the epoch, so
+ * with a bucket width of 1 second, every bucket starts at a whole second. So histograms of different sources are merged
+ * based on when they were recorded and not on their position in the stream; a source that started late or skipped an
+ * interval doesn't shift its histograms into the wrong bucket. Buckets without any histogram are skipped.
+ *
+ * The sources are merged using a k-way merge: only the current histogram of every source is kept in memory. The
+ * histograms of every source need to be ordered on their start timestamp.
+ */
+public class HistogramBucketMerger {
+
+    public static final long DEFAULT_BUCKET_MILLIS = 1000;
+
+    private final List<? extends Supplier<Histogram>> sources;
+    private final long bucketMillis;
+    private final PriorityQueue<Head> heads;
+    private final List<Integer> pendingSources = new ArrayList<>();
+
+    /**
+     * Creates a HistogramBucketMerger.
+     *
+     * @param sources      the sources of the interval histograms; a source returns {@code null} when it is exhausted
+     * @param bucketMillis the width of the buckets in milliseconds
+     */
+    public HistogramBucketMerger(List<? extends Supplier<Histogram>> sources, long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucketMillis should be larger than 0, but was " + bucketMillis);
+        }
+        this.sources = sources;
+        this.bucketMillis = bucketMillis;
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), Comparator.comparingLong(head -> head.bucket));
+        for (int i = 0; i < sources.size(); i++) {
+            pendingSources.add(i);
+        }
+    }
+
+    /**
+     * Returns the merged histogram of the next bucket. The start and end timestamp of the returned histogram are the
+     * boundaries of the bucket.
+     *
+     * @return the merged histogram, or {@code null} if all sources are exhausted
+     */
+    public Histogram next() {
+        Histogram merged = null;
+        long bucket = 0;
+        for (; ; ) {
+            readPendingSources();
+
+            Head head = heads.peek();
+            if (head == null || (merged != null && head.bucket != bucket)) {
+                break;
+            }
+
+            if (merged == null) {
+                bucket = head.bucket;
+                merged = new Histogram(
+                        head.histogram.getLowestDiscernibleValue(),
+                        head.histogram.getHighestTrackableValue(),
+                        head.histogram.getNumberOfSignificantValueDigits());
+            }
+
+            // a source with intervals shorter than the bucket can have multiple histograms in the same bucket,
+            // so we continue with the next histograms of the sources we take from
+            while (head != null && head.bucket == bucket) {
+                heads.poll();
+                merged.add(head.histogram);
+                pendingSources.add(head.sourceIndex);
+                head = heads.peek();
+            }
+        }
+
+        if (merged != null) {
+            merged.setStartTimeStamp(bucket * bucketMillis);
+            merged.setEndTimeStamp((bucket + 1) * bucketMillis);
+        }
+        return merged;
+    }
+
+    private void readPendingSources() {
+        if (pendingSources.isEmpty()) {
+            return;
+        }
+
+        List<Supplier<Histogram>> toRead = new ArrayList<>(pendingSources.size());
+        for (int sourceIndex : pendingSources) {
+            toRead.add(sources.get(sourceIndex));
+        }
+
+        List<Histogram> histograms = read(toRead);
+        for (int i = 0; i < histograms.size(); i++) {
+            Histogram histogram = histograms.get(i);
+            if (histogram != null) {
+                heads.add(new Head(pendingSources.get(i), histogram, Math.floorDiv(histogram.getStartTimeStamp(), bucketMillis)));
+            }
+        }
+        pendingSources.clear();
+    }
+
+    /**
+     * Reads the next histogram of each of the given sources. Can be overridden to read the sources in parallel.
+     *
+     * @param toRead the sources to read from
+     * @return the next histogram of every source, in the same order as the sources; {@code null} for an exhausted source
+     */
+    protected List<Histogram> read(List<Supplier<Histogram>> toRead) {
+        List<Histogram> histograms = new ArrayList<>(toRead.size());
+        for (Supplier<Histogram> source : toRead) {
+            histograms.add(source.get());
+        }
+        return histograms;
+    }
+
+    private static final class Head {
+        private final int sourceIndex;
+        private final Histogram histogram;
+        private final long bucket;
+
+        private Head(int sourceIndex, Histogram histogram, long bucket) {
+            this.sourceIndex = sourceIndex;
+            this.histogram = histogram;
+            this.bucket = bucket;
+        }
+    }
+}
@@ -22,32 +22,45 @@ import org.HdrHistogram.HistogramLogWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static com.hazelcast.simulator.utils.FileUtils.ensureExistingFile;
+import static com.hazelcast.simulator.utils.HistogramBucketMerger.DEFAULT_BUCKET_MILLIS;
 
 /**
- * The HistogramLogMerger merges the Histograms of multiple HDR files. This will be done based under the assumption that
- * every histogram spans the same duration.
+ * The HistogramLogMerger merges the Histograms of multiple HDR files.
  *
- * It works like this; from each HistogramLogReader a Histogram is read and merged into a final Histogram and this Histogram
- * is written into the merged HDR. Once round is complete, the next Histogram is retrieved. The different HDR files don't need
- * to have the same length; as soon as a HDR is finished, it is ignored and this continues till all HDR files are fully processed.
+ * The histograms are merged into fixed wall-clock buckets based on their start timestamp (see {@link HistogramBucketMerger}),
+ * so the histograms of HDR files that started at different moments or are missing intervals end up in the right bucket.
+ * The HDR files are streamed; only the current histogram of every file is kept in memory.
+ *
+ * Usage: HistogramLogMerger [-bucketMillis width] outputFile inputFile...
  */
 public final class HistogramLogMerger {
 
+    private static final String BUCKET_MILLIS_OPTION = "-bucketMillis";
+
     private HistogramLogMerger() {
     }
 
     public static void main(String[] args) throws IOException {
-        File outputFile = new File(args[0]);
+        int argIndex = 0;
+        long bucketMillis = DEFAULT_BUCKET_MILLIS;
+        if (args.length > 1 && BUCKET_MILLIS_OPTION.equals(args[0])) {
+            bucketMillis = Long.parseLong(args[1]);
+            argIndex = 2;
+        }
+
+        File outputFile = new File(args[argIndex]);
         deleteQuiet(outputFile);
         ensureExistingFile(outputFile);
 
-        HistogramLogReader[] readers = new HistogramLogReader[args.length - 1];
-        for (int k = 1; k < args.length; k++) {
-            String inputFile = args[k];
-            readers[k - 1] = new HistogramLogReader(inputFile);
+        List<HistogramLogReader> readers = new ArrayList<>(args.length - argIndex - 1);
+        for (int k = argIndex + 1; k < args.length; k++) {
+            readers.add(new HistogramLogReader(args[k]));
         }
 
         HistogramLogWriter writer = new HistogramLogWriter(outputFile);
@@ -55,29 +68,24 @@ public final class HistogramLogMerger {
         writer.outputLogFormatVersion();
         writer.outputLegend();
 
-        for (; ; ) {
-            Histogram merged = null;
-            for (HistogramLogReader reader : readers) {
-                Histogram histogram = (Histogram) reader.nextIntervalHistogram();
-                if (histogram == null) {
-                    continue;
-                }
-
-                if (merged == null) {
-                    merged = new Histogram(
-                            histogram.getLowestDiscernibleValue(),
-                            histogram.getHighestTrackableValue(),
-                            histogram.getNumberOfSignificantValueDigits());
-                }
-                merged.add(histogram);
-            }
+        List<Supplier<Histogram>> sources = new ArrayList<>(readers.size());
+        for (HistogramLogReader reader : readers) {
+            sources.add(() -> (Histogram) reader.nextIntervalHistogram());
+        }
 
+        HistogramBucketMerger merger = new HistogramBucketMerger(sources, bucketMillis);
+        for (; ; ) {
+            Histogram merged = merger.next();
             if (merged == null) {
                 break;
             }
-
             writer.outputIntervalHistogram(merged);
         }
+
+        writer.close();
+        for (HistogramLogReader reader : readers) {
+            reader.close();
+        }
     }
 
     private static String getBaseName(File file) {
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static com.hazelcast.simulator.utils.FileUtils.stripExtension;
+import static com.hazelcast.simulator.utils.HistogramBucketMerger.DEFAULT_BUCKET_MILLIS;
+import static com.hazelcast.simulator.utils.HistogramTrimmer.nextTrimmedHistogram;
+import static com.hazelcast.simulator.utils.SimulatorHistogramLogProcessor.legend;
+import static com.hazelcast.simulator.utils.SimulatorHistogramLogProcessor.logFormat;
+import static com.hazelcast.simulator.utils.SimulatorHistogramLogProcessor.regularHistogramStatistics;
+import static java.lang.String.format;
+
+/**
+ * Prepares the HDR files of a session for the report in a single JVM.
+ *
+ * For every probe the HDR files of all workers are streamed at the same time, so every histogram is read only once. For
+ * every probe it:
+ * <ol>
+ * <li>trims the histograms outside of the time range (see {@link HistogramTrimmer}) and writes the trimmed HDR file
+ * of each worker</li>
+ * <li>merges the histograms of all workers into wall-clock buckets (see {@link HistogramBucketMerger}) and writes
+ * them to a single HDR file for the probe</li>
+ * <li>writes the interval CSV and the percentile distribution (.hgrm) of each worker and of the merged probe, like
+ * {@link SimulatorHistogramLogProcessor} does</li>
+ * </ol>
+ * The probes are processed in parallel on a {@link ForkJoinPool}; and for every probe, the histograms of the workers
+ * are processed in parallel as well.
+ *
+ * Usage: HistogramReportProcessor sessionDir targetDir startMillis endMillis [bucketMillis]
+ */
+public final class HistogramReportProcessor {
+
+    private static final String HDR_EXTENSION = ".hdr";
+    private static final String HGRM_EXTENSION = ".hgrm";
+
+    private static final int MIN_ARGUMENT_COUNT = 4;
+
+    // the percentile distribution in the .hgrm file is in microseconds
+    private static final double OUTPUT_VALUE_UNIT_RATIO = 1000.0;
+    private static final int PERCENTILES_OUTPUT_TICKS_PER_HALF = 5;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+    // the shape of the histogram used for the percentile distribution if there are no histograms in the time range
+    private static final long EMPTY_HIGHEST_TRACKABLE_VALUE = 1000000L;
+    private static final int EMPTY_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private final File sessionDir;
+    private final File targetDir;
+    private final long startMillis;
+    private final long endMillis;
+    private final long bucketMillis;
+
+    public HistogramReportProcessor(File sessionDir, File targetDir, long startMillis, long endMillis) {
+        this(sessionDir, targetDir, startMillis, endMillis, DEFAULT_BUCKET_MILLIS);
+    }
+
+    public HistogramReportProcessor(File sessionDir, File targetDir, long startMillis, long endMillis, long bucketMillis) {
+        this.sessionDir = sessionDir;
+        this.targetDir = targetDir;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Processes all probes of the session.
+     *
+     * @param pool the pool to process the probes on
+     * @return the names of the processed probes (the names of the HDR files)
+     */
+    public List<String> run(ForkJoinPool pool) {
+        Map<String, List<File>> workerDirsByProbe = findWorkerDirsByProbe();
+
+        List<ProbeTask> tasks = new ArrayList<>(workerDirsByProbe.size());
+        for (Map.Entry<String, List<File>> entry : workerDirsByProbe.entrySet()) {
+            tasks.add(new ProbeTask(entry.getKey(), entry.getValue()));
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return new ArrayList<>(workerDirsByProbe.keySet());
+    }
+
+    private Map<String, List<File>> findWorkerDirsByProbe() {
+        Map<String, List<File>> result = new TreeMap<>();
+        File[] workerDirs = sessionDir.listFiles();
+        if (workerDirs == null) {
+            return result;
+        }
+
+        for (File workerDir : workerDirs) {
+            File[] hdrFiles = workerDir.listFiles((dir, name) -> name.endsWith(HDR_EXTENSION));
+            if (hdrFiles == null) {
+                continue;
+            }
+
+            for (File hdrFile : hdrFiles) {
+                result.computeIfAbsent(hdrFile.getName(), k -> new ArrayList<>()).add(workerDir);
+            }
+        }
+
+        for (List<File> dirs : result.values()) {
+            dirs.sort(null);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < MIN_ARGUMENT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Usage: HistogramReportProcessor sessionDir targetDir startMillis endMillis [bucketMillis]");
+        }
+
+        long bucketMillis = args.length > MIN_ARGUMENT_COUNT ? Long.parseLong(args[MIN_ARGUMENT_COUNT]) : DEFAULT_BUCKET_MILLIS;
+        HistogramReportProcessor processor = new HistogramReportProcessor(
+                new File(args[0]), new File(args[1]), Long.parseLong(args[2]), Long.parseLong(args[3]), bucketMillis);
+
+        long started = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<String> probes = processor.run(pool);
+            System.out.println(format("Processed %d probes in %d ms", probes.size(), System.currentTimeMillis() - started));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Processes a single probe: the histograms of all workers are merged into wall-clock buckets (see
+     * {@link HistogramBucketMerger}), so the merged histogram of a bucket is written as soon as the histograms of all
+     * workers for that bucket have been read.
+     */
+    private final class ProbeTask extends RecursiveAction {
+
+        private final String probeFileName;
+        private final List<File> workerDirs;
+
+        private ProbeTask(String probeFileName, List<File> workerDirs) {
+            this.probeFileName = probeFileName;
+            this.workerDirs = workerDirs;
+        }
+
+        @Override
+        protected void compute() {
+            List<WorkerLog> workerLogs = new ArrayList<>(workerDirs.size());
+            HistogramLogWriter mergedWriter = null;
+            IntervalLogs mergedLogs = null;
+            try {
+                for (File workerDir : workerDirs) {
+                    File workerTargetDir = ensureExistingDirectory(new File(targetDir, workerDir.getName()));
+                    workerLogs.add(new WorkerLog(new File(workerDir, probeFileName), new File(workerTargetDir, probeFileName)));
+                }
+
+                File mergedFile = new File(targetDir, probeFileName);
+                mergedWriter = new HistogramLogWriter(mergedFile);
+                mergedWriter.outputComment("[Latency histograms for " + stripExtension(probeFileName) + ']');
+                mergedWriter.outputLogFormatVersion();
+                mergedWriter.outputLegend();
+                mergedLogs = new IntervalLogs(mergedFile);
+
+                HistogramBucketMerger merger = new ParallelBucketMerger(workerLogs);
+                for (; ; ) {
+                    Histogram merged = merger.next();
+                    if (merged == null) {
+                        break;
+                    }
+                    mergedWriter.outputIntervalHistogram(merged);
+                    mergedLogs.add(merged);
+                }
+                mergedLogs.complete();
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException("Failed to process probe " + probeFileName, e);
+            } finally {
+                if (mergedWriter != null) {
+                    mergedWriter.close();
+                }
+                closeQuietly(mergedLogs);
+                closeQuietly(workerLogs);
+            }
+        }
+    }
+
+    /**
+     * Reads the next histograms of the workers in parallel.
+     */
+    private final class ParallelBucketMerger extends HistogramBucketMerger {
+
+        private ParallelBucketMerger(List<WorkerLog> workerLogs) {
+            super(workerLogs, bucketMillis);
+        }
+
+        @Override
+        protected List<Histogram> read(List<Supplier<Histogram>> toRead) {
+            List<ForkJoinTask<Histogram>> tasks = new ArrayList<>(toRead.size());
+            for (Supplier<Histogram> source : toRead) {
+                tasks.add(ForkJoinTask.adapt((Callable<Histogram>) source::get));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            List<Histogram> histograms = new ArrayList<>(tasks.size());
+            for (ForkJoinTask<Histogram> task : tasks) {
+                histograms.add(task.join());
+            }
+            return histograms;
+        }
+    }
+
+    /**
+     * The HDR file of a single worker for a single probe. Every histogram in the time range is written to the trimmed
+     * HDR file and to the interval logs of the worker.
+     */
+    private final class WorkerLog implements Supplier<Histogram>, Closeable {
+
+        private final HistogramLogReader reader;
+        private final HistogramLogWriter writer;
+        private final IntervalLogs intervalLogs;
+        private boolean completed;
+
+        private WorkerLog(File sourceFile, File targetFile) throws FileNotFoundException {
+            this.reader = new HistogramLogReader(sourceFile);
+            this.writer = new HistogramLogWriter(targetFile);
+            this.intervalLogs = new IntervalLogs(targetFile);
+        }
+
+        @Override
+        public Histogram get() {
+            Histogram histogram = nextTrimmedHistogram(reader, startMillis, endMillis);
+            if (histogram == null) {
+                if (!completed) {
+                    completed = true;
+                    intervalLogs.complete();
+                }
+                return null;
+            }
+
+            writer.outputIntervalHistogram(histogram);
+            intervalLogs.add(histogram);
+            return histogram;
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+            writer.close();
+            intervalLogs.close();
+        }
+    }
+
+    /**
+     * Writes the interval CSV and the percentile distribution (.hgrm) of a HDR file. The output is the same as running
+     * {@link SimulatorHistogramLogProcessor} on the HDR file with {@code -csv -outputValueUnitRatio 1000} for the
+     * interval CSV and {@code -outputValueUnitRatio 1000} for the percentile distribution.
+     */
+    private static final class IntervalLogs implements Closeable {
+
+        private final File hgrmFile;
+        private final PrintStream intervalLog;
+        private final String logFormat = logFormat(true);
+        private Histogram accumulatedHistogram;
+        private double startTimeSec;
+
+        private IntervalLogs(File hdrFile) throws FileNotFoundException {
+            String baseName = stripExtension(hdrFile.getAbsolutePath());
+            this.hgrmFile = new File(baseName + HGRM_EXTENSION);
+            this.intervalLog = newPrintStream(new File(baseName));
+            outputTimeRange(intervalLog, "Interval percentile log");
+        }
+
+        private void add(Histogram intervalHistogram) {
+            if (accumulatedHistogram == null) {
+                // shape the accumulated histogram like the histograms in the log file (but clear their contents)
+                accumulatedHistogram = intervalHistogram.copy();
+                accumulatedHistogram.reset();
+                accumulatedHistogram.setAutoResize(true);
+
+                startTimeSec = intervalHistogram.getStartTimeStamp() / MILLIS_PER_SECOND;
+                outputStartTime(intervalLog, startTimeSec);
+                intervalLog.println(legend(true));
+            }
+            accumulatedHistogram.add(intervalHistogram);
+
+            Object[] statistics = regularHistogramStatistics(
+                    intervalHistogram, accumulatedHistogram, startTimeSec, OUTPUT_VALUE_UNIT_RATIO);
+            intervalLog.format(Locale.US, logFormat, statistics);
+        }
+
+        private void complete() {
+            PrintStream hgrmLog = null;
+            try {
+                hgrmLog = newPrintStream(hgrmFile);
+                outputTimeRange(hgrmLog, "Overall percentile distribution");
+                Histogram histogram = accumulatedHistogram;
+                if (histogram == null) {
+                    // if there were no histograms in the log file, we still need an empty histogram for the output
+                    histogram = new Histogram(EMPTY_HIGHEST_TRACKABLE_VALUE, EMPTY_SIGNIFICANT_VALUE_DIGITS);
+                } else {
+                    outputStartTime(hgrmLog, startTimeSec);
+                }
+                histogram.outputPercentileDistribution(
+                        hgrmLog, PERCENTILES_OUTPUT_TICKS_PER_HALF, OUTPUT_VALUE_UNIT_RATIO, false);
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException("Failed to write " + hgrmFile, e);
+            } finally {
+                closeQuietly(hgrmLog);
+            }
+        }
+
+        @Override
+        public void close() {
+            intervalLog.close();
+        }
+
+        private static PrintStream newPrintStream(File file) throws FileNotFoundException {
+            try {
+                return new PrintStream(file, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void outputTimeRange(PrintStream log, String title) {
+            log.format(Locale.US, "#[%s between %.3f and %s seconds (relative to StartTime)]\n", title, 0.0, "<Infinite>");
+        }
+
+        private static void outputStartTime(PrintStream log, double startTimeSec) {
+            log.format(Locale.US, "#[StartTime: %.3f (seconds since epoch), %s]\n",
+                    startTimeSec, new Date((long) (startTimeSec * MILLIS_PER_SECOND)).toString());
+        }
+    }
+}
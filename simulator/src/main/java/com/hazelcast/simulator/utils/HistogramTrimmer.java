@@ -40,10 +40,30 @@ public final class HistogramTrimmer {
         HistogramLogReader reader = new HistogramLogReader(inputFile);
         HistogramLogWriter writer = new HistogramLogWriter(outputFile);
         for (; ; ) {
-            Histogram histogram = (Histogram) reader.nextIntervalHistogram();
+            Histogram histogram = nextTrimmedHistogram(reader, startMillis, endMillis);
             if (histogram == null) {
                 break;
             }
+            writer.outputIntervalHistogram(histogram);
+        }
+
+        outputFile.renameTo(new File(args[0]));
+    }
+
+    /**
+     * Reads the next histogram from the reader that completely falls between the start time and the end time.
+     *
+     * @param reader      the reader to read the histograms from
+     * @param startMillis the start time in milliseconds since the epoch
+     * @param endMillis   the end time in milliseconds since the epoch
+     * @return the histogram, or {@code null} if the reader has no more histograms in the time range
+     */
+    static Histogram nextTrimmedHistogram(HistogramLogReader reader, long startMillis, long endMillis) {
+        for (; ; ) {
+            Histogram histogram = (Histogram) reader.nextIntervalHistogram();
+            if (histogram == null) {
+                return null;
+            }
 
             if (histogram.getStartTimeStamp() >= startMillis && histogram.getEndTimeStamp() <= endMillis) {
                 Histogram out = new Histogram(
@@ -53,10 +73,8 @@ public final class HistogramTrimmer {
                 out.setStartTimeStamp(histogram.getStartTimeStamp());
                 out.setEndTimeStamp(histogram.getEndTimeStamp());
                 out.add(histogram);
-                writer.outputIntervalHistogram(out);
+                return out;
             }
         }
-
-        outputFile.renameTo(new File(args[0]));
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+
+/**
+ * Utility methods to transfer {@link Histogram} instances between Simulator components in their compact
+ * (compressed) encoding.
+ */
+public final class HistogramUtils {
+
+    private HistogramUtils() {
+    }
+
+    /**
+     * Encodes a {@link Histogram} into its compressed binary representation.
+     *
+     * @param histogram the Histogram to encode
+     * @return the compressed bytes
+     */
+    public static byte[] encodeCompressed(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    /**
+     * Decodes a {@link Histogram} from its compressed binary representation.
+     *
+     * @param bytes the compressed bytes
+     * @return the decoded Histogram
+     * @throws IllegalArgumentException if the bytes don't contain a valid compressed Histogram
+     */
+    public static Histogram decodeCompressed(byte[] bytes) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Could not decode compressed histogram", e);
+        }
+    }
+
+    /**
+     * Encodes a {@link Histogram} into a Base64 string of its compressed binary representation, so it can be embedded
+     * into text based messages.
+     *
+     * @param histogram the Histogram to encode
+     * @return the Base64 encoded compressed Histogram
+     */
+    public static String encodeToBase64(Histogram histogram) {
+        return Base64.getEncoder().encodeToString(encodeCompressed(histogram));
+    }
+
+    /**
+     * Decodes a {@link Histogram} from a string created by {@link #encodeToBase64(Histogram)}.
+     *
+     * @param base64 the Base64 encoded compressed Histogram
+     * @return the decoded Histogram
+     */
+    public static Histogram decodeFromBase64(String base64) {
+        return decodeCompressed(Base64.getDecoder().decode(base64));
+    }
+
+    /**
+     * Creates an empty {@link Histogram} with the same configuration as the given Histogram.
+     *
+     * @param histogram the Histogram to take the configuration from
+     * @return the created Histogram
+     */
+    public static Histogram newEmptyHistogram(Histogram histogram) {
+        return new Histogram(
+                histogram.getLowestDiscernibleValue(),
+                histogram.getHighestTrackableValue(),
+                histogram.getNumberOfSignificantValueDigits());
+    }
+}
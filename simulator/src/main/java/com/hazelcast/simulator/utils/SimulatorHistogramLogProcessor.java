@@ -28,6 +28,21 @@ public class SimulatorHistogramLogProcessor extends HistogramLogProcessor {
     }
 
     protected Object[] buildRegularHistogramStatistics(Histogram intervalHistogram, Histogram accumulatedHistogram) {
+        return regularHistogramStatistics(intervalHistogram, accumulatedHistogram, logReader.getStartTimeSec(),
+                config.outputValueUnitRatio);
+    }
+
+    /**
+     * Builds the statistics of a single line of the interval log; the values match the format of {@link #logFormat(boolean)}.
+     *
+     * @param intervalHistogram    the histogram of the interval
+     * @param accumulatedHistogram the histogram of all intervals till now, including the given interval
+     * @param startTimeSec         the start time of the log in seconds since the epoch
+     * @param outputValueUnitRatio the scaling factor by which the recorded values are divided in the output
+     * @return the statistics
+     */
+    static Object[] regularHistogramStatistics(Histogram intervalHistogram, Histogram accumulatedHistogram,
+                                               double startTimeSec, double outputValueUnitRatio) {
         double intervalThroughput = ((double) (intervalHistogram.getTotalCount())
                 / (intervalHistogram.getEndTimeStamp() - intervalHistogram.getStartTimeStamp()));
 
@@ -35,39 +50,39 @@ public class SimulatorHistogramLogProcessor extends HistogramLogProcessor {
                 / (accumulatedHistogram.getEndTimeStamp() - accumulatedHistogram.getStartTimeStamp());
 
         return new Object[]{
-                ((intervalHistogram.getEndTimeStamp() / 1000.0) - logReader.getStartTimeSec()),
+                ((intervalHistogram.getEndTimeStamp() / 1000.0) - startTimeSec),
                 (intervalHistogram.getEndTimeStamp() / 1000.0),
                 // values recorded during the last reporting interval
                 intervalHistogram.getTotalCount(),
-                intervalHistogram.getValueAtPercentile(25.0) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(50.0) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(75.0) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(90.0) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(99.0) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(99.9) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(99.99) / config.outputValueUnitRatio,
-                intervalHistogram.getValueAtPercentile(99.999) / config.outputValueUnitRatio,
-                intervalHistogram.getMinValue() / config.outputValueUnitRatio,
-                intervalHistogram.getMaxValue() / config.outputValueUnitRatio,
-                intervalHistogram.getMean() / config.outputValueUnitRatio,
-                intervalHistogram.getStdDeviation() / config.outputValueUnitRatio,
-                intervalThroughput / config.outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(25.0) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(50.0) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(75.0) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(90.0) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(99.0) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(99.9) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(99.99) / outputValueUnitRatio,
+                intervalHistogram.getValueAtPercentile(99.999) / outputValueUnitRatio,
+                intervalHistogram.getMinValue() / outputValueUnitRatio,
+                intervalHistogram.getMaxValue() / outputValueUnitRatio,
+                intervalHistogram.getMean() / outputValueUnitRatio,
+                intervalHistogram.getStdDeviation() / outputValueUnitRatio,
+                intervalThroughput / outputValueUnitRatio,
 
                 // values recorded from the beginning until now
                 accumulatedHistogram.getTotalCount(),
-                accumulatedHistogram.getValueAtPercentile(25.0) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(50.0) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(75.0) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(90.0) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(99.0) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(99.9) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(99.99) / config.outputValueUnitRatio,
-                accumulatedHistogram.getValueAtPercentile(99.999) / config.outputValueUnitRatio,
-                accumulatedHistogram.getMinValue() / config.outputValueUnitRatio,
-                accumulatedHistogram.getMaxValue() / config.outputValueUnitRatio,
-                accumulatedHistogram.getMean() / config.outputValueUnitRatio,
-                accumulatedHistogram.getStdDeviation() / config.outputValueUnitRatio,
-                totalThroughput / config.outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(25.0) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(50.0) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(75.0) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(90.0) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(99.0) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(99.9) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(99.99) / outputValueUnitRatio,
+                accumulatedHistogram.getValueAtPercentile(99.999) / outputValueUnitRatio,
+                accumulatedHistogram.getMinValue() / outputValueUnitRatio,
+                accumulatedHistogram.getMaxValue() / outputValueUnitRatio,
+                accumulatedHistogram.getMean() / outputValueUnitRatio,
+                accumulatedHistogram.getStdDeviation() / outputValueUnitRatio,
+                totalThroughput / outputValueUnitRatio,
         };
     }
 
@@ -116,6 +131,10 @@ public class SimulatorHistogramLogProcessor extends HistogramLogProcessor {
     }
 
     protected String buildLegend(boolean cvs) {
+        return legend(cvs);
+    }
+
+    static String legend(boolean cvs) {
         if (cvs) {
             return "\"Timestamp\","
                     + "\"StartTime\","
@@ -157,6 +176,10 @@ public class SimulatorHistogramLogProcessor extends HistogramLogProcessor {
     }
 
     protected String buildLogFormat(boolean cvs) {
+        return logFormat(cvs);
+    }
+
+    static String logFormat(boolean cvs) {
         if (cvs) {
             return "%.3f," //timestamp
                     + "%.3f," //timestamp
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import net.openhft.affinity.Affinity;
+import net.openhft.affinity.AffinityLock;
+import net.openhft.affinity.CpuLayout;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Utility methods to pin threads to CPUs, so the threads generating the load don't migrate between cores or NUMA nodes.
+ *
+ * The affinity is set using native calls of the OpenHFT affinity library (sched_setaffinity on Linux); on platforms
+ * which don't support it, pinning is a no-op.
+ *
+ * The CPUs used by pinned load generating threads are registered using {@link #reserve(Collection)} or
+ * {@link #selectAndReserveCpus(String, int, CpuLayout, BitSet, BitSet)}. The reservations are counted per CPU, so the
+ * tests running concurrently in a worker each keep their CPUs reserved until they release them. Auxiliary threads,
+ * like the performance monitor and the jitter thread, use an {@link Isolation} to move away from the reserved CPUs, so
+ * they don't compete with the load generating threads.
+ *
+ * An affinity setting is either a CPU list in the taskset format (e.g. '0-3,8,10-11'), {@value #SPREAD} to spread the
+ * threads over the sockets and the physical cores, or {@value #COMPACT} to fill up the sockets and cores one by one.
+ */
+public final class ThreadAffinity {
+
+    public static final String SPREAD = "spread";
+    public static final String COMPACT = "compact";
+
+    private static final Logger LOGGER = Logger.getLogger(ThreadAffinity.class);
+
+    // the number of reservations per CPU; concurrently running tests can reserve the same CPU
+    private static final Map<Integer, Integer> RESERVATIONS = new HashMap<>();
+    private static volatile int reservedVersion;
+
+    private ThreadAffinity() {
+    }
+
+    /**
+     * Checks if an affinity setting is valid.
+     *
+     * @param setting the affinity setting
+     * @throws IllegalArgumentException if the setting isn't valid
+     */
+    public static void checkSetting(String setting) {
+        if (!SPREAD.equals(setting) && !COMPACT.equals(setting)) {
+            parseCpuList(setting);
+        }
+    }
+
+    /**
+     * Parses a CPU list in the taskset format, e.g. '0-3,8,10-11'.
+     *
+     * @param cpuList the CPU list
+     * @return the CPUs in the order of the list
+     * @throws IllegalArgumentException if the CPU list isn't valid
+     */
+    public static List<Integer> parseCpuList(String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String item : cpuList.split(",")) {
+            String range = item.trim();
+            try {
+                int dash = range.indexOf('-');
+                int from = Integer.parseInt(dash == -1 ? range : range.substring(0, dash).trim());
+                int to = dash == -1 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                if (from < 0 || to < from) {
+                    throw new IllegalArgumentException(format("Invalid CPU range '%s' in CPU list '%s'", range, cpuList));
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(format("Invalid CPU list '%s'", cpuList), e);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * Returns the CPUs this process is allowed to run on.
+     *
+     * @return the available CPUs
+     */
+    public static BitSet availableCpus() {
+        BitSet cpus = (BitSet) AffinityLock.BASE_AFFINITY.clone();
+        if (cpus.isEmpty()) {
+            cpus.set(0, Runtime.getRuntime().availableProcessors());
+        }
+        return cpus;
+    }
+
+    /**
+     * Selects a CPU for every thread.
+     *
+     * For a CPU list, the threads are assigned round robin to the listed CPUs. For {@value #SPREAD} and
+     * {@value #COMPACT}, the CPUs are ordered according to the CPU layout and the CPUs which are already taken are
+     * skipped as long as there are enough free CPUs.
+     *
+     * @param setting     the affinity setting
+     * @param threadCount the number of threads
+     * @param layout      the CPU layout
+     * @param available   the available CPUs
+     * @param taken       the CPUs already taken by other threads; updated with the selected CPUs
+     * @return the CPU per thread
+     * @throws IllegalArgumentException if the setting isn't valid
+     */
+    public static int[] selectCpus(String setting, int threadCount, CpuLayout layout, BitSet available, BitSet taken) {
+        List<Integer> candidates;
+        if (SPREAD.equals(setting) || COMPACT.equals(setting)) {
+            candidates = orderCpus(setting, layout, available);
+            List<Integer> free = new ArrayList<>(candidates);
+            free.removeIf(taken::get);
+            if (free.size() >= threadCount) {
+                candidates = free;
+            } else {
+                LOGGER.warn(format("Not enough free CPUs for %d threads using affinity '%s', CPUs are shared",
+                        threadCount, setting));
+            }
+        } else {
+            candidates = parseCpuList(setting);
+            candidates.removeIf(cpu -> !available.get(cpu));
+            if (candidates.isEmpty()) {
+                throw new IllegalArgumentException(format("None of the CPUs in '%s' are available", setting));
+            }
+        }
+
+        int[] cpus = new int[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            cpus[i] = candidates.get(i % candidates.size());
+            taken.set(cpus[i]);
+        }
+        return cpus;
+    }
+
+    /**
+     * Selects a CPU for every thread like {@link #selectCpus(String, int, CpuLayout, BitSet, BitSet)} and reserves the
+     * selected CPUs. The CPUs reserved by others, e.g. by a test running concurrently, are taken into account as taken
+     * CPUs; selecting and reserving is atomic, so concurrent selections don't pick the same free CPUs.
+     *
+     * The reservation needs to be released using {@link #release(Collection)}.
+     *
+     * @param setting     the affinity setting
+     * @param threadCount the number of threads
+     * @param layout      the CPU layout
+     * @param available   the available CPUs
+     * @param taken       the CPUs already taken by other threads; updated with the reserved and the selected CPUs
+     * @return the CPU per thread
+     * @throws IllegalArgumentException if the setting isn't valid
+     */
+    public static int[] selectAndReserveCpus(String setting, int threadCount, CpuLayout layout, BitSet available,
+                                             BitSet taken) {
+        synchronized (RESERVATIONS) {
+            taken.or(reservedCpus());
+            int[] cpus = selectCpus(setting, threadCount, layout, available, taken);
+            List<Integer> reserved = new ArrayList<>(cpus.length);
+            for (int cpu : cpus) {
+                reserved.add(cpu);
+            }
+            reserve(reserved);
+            return cpus;
+        }
+    }
+
+    static List<Integer> orderCpus(String policy, CpuLayout layout, BitSet available) {
+        List<Integer> cpus = new ArrayList<>();
+        for (int cpu = available.nextSetBit(0); cpu >= 0; cpu = available.nextSetBit(cpu + 1)) {
+            cpus.add(cpu);
+        }
+        if (cpus.isEmpty() || cpus.get(cpus.size() - 1) >= layout.cpus()) {
+            // the layout is unknown, so the CPUs are used in their natural order
+            return cpus;
+        }
+
+        Comparator<Integer> comparator;
+        if (SPREAD.equals(policy)) {
+            // first one hardware thread of every core, alternating between the sockets
+            comparator = Comparator.<Integer>comparingInt(layout::threadId)
+                    .thenComparingInt(layout::coreId)
+                    .thenComparingInt(layout::socketId);
+        } else {
+            // fill up a socket core by core, including the hardware threads of each core
+            comparator = Comparator.<Integer>comparingInt(layout::socketId)
+                    .thenComparingInt(layout::coreId)
+                    .thenComparingInt(layout::threadId);
+        }
+        cpus.sort(comparator.thenComparingInt(cpu -> cpu));
+        return cpus;
+    }
+
+    /**
+     * Returns the CPU layout of the machine.
+     *
+     * @return the CPU layout
+     */
+    public static CpuLayout cpuLayout() {
+        return AffinityLock.cpuLayout();
+    }
+
+    /**
+     * Pins the current thread to a single CPU.
+     *
+     * @param cpu the CPU
+     */
+    public static void pinCurrentThread(int cpu) {
+        BitSet cpus = new BitSet();
+        cpus.set(cpu);
+        pinCurrentThread(cpus);
+    }
+
+    /**
+     * Pins the current thread to a set of CPUs.
+     *
+     * @param cpus the CPUs
+     */
+    public static void pinCurrentThread(BitSet cpus) {
+        try {
+            Affinity.setAffinity(cpus);
+            LOGGER.info(format("%s pinned to CPUs %s", Thread.currentThread().getName(), cpus));
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.warn(format("Failed to pin %s to CPUs %s: %s", Thread.currentThread().getName(), cpus, e.getMessage()));
+        }
+    }
+
+    /**
+     * Reserves CPUs for pinned load generating threads. Every reservation of a CPU needs to be released once.
+     *
+     * @param cpus the CPUs to reserve
+     */
+    public static void reserve(Collection<Integer> cpus) {
+        if (cpus.isEmpty()) {
+            return;
+        }
+        synchronized (RESERVATIONS) {
+            for (int cpu : cpus) {
+                RESERVATIONS.merge(cpu, 1, Integer::sum);
+            }
+            reservedVersion++;
+        }
+    }
+
+    /**
+     * Releases CPUs reserved by {@link #reserve(Collection)}. A CPU stays reserved as long as it has other reservations.
+     *
+     * @param cpus the CPUs to release
+     */
+    public static void release(Collection<Integer> cpus) {
+        if (cpus.isEmpty()) {
+            return;
+        }
+        synchronized (RESERVATIONS) {
+            for (int cpu : cpus) {
+                RESERVATIONS.computeIfPresent(cpu, (key, count) -> count == 1 ? null : count - 1);
+            }
+            reservedVersion++;
+        }
+    }
+
+    /**
+     * Returns the CPUs which have at least one reservation.
+     *
+     * @return the reserved CPUs
+     */
+    public static BitSet reservedCpus() {
+        BitSet cpus = new BitSet();
+        synchronized (RESERVATIONS) {
+            for (int cpu : RESERVATIONS.keySet()) {
+                cpus.set(cpu);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * Returns the available CPUs which are not reserved. If all CPUs are reserved, all available CPUs are returned.
+     *
+     * @return the unreserved CPUs
+     */
+    public static BitSet unreservedCpus() {
+        BitSet cpus = availableCpus();
+        cpus.andNot(reservedCpus());
+        return cpus.isEmpty() ? availableCpus() : cpus;
+    }
+
+    /**
+     * Keeps an auxiliary thread away from the reserved CPUs.
+     *
+     * The {@link #update()} method needs to be called by the thread itself; it only makes a native call if the reserved
+     * CPUs have changed since the previous call, so it is cheap enough to be called in a loop.
+     */
+    public static final class Isolation {
+
+        private int version;
+
+        /**
+         * Pins the current thread to the unreserved CPUs if the reserved CPUs have changed.
+         *
+         * @return {@code true} if the affinity of the current thread was changed, {@code false} otherwise
+         */
+        public boolean update() {
+            int currentVersion = reservedVersion;
+            if (currentVersion == version) {
+                return false;
+            }
+            version = currentVersion;
+            pinCurrentThread(unreservedCpus());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Utility methods to read per thread statistics from the {@link ThreadMXBean}.
+ *
+ * The allocated bytes rely on the HotSpot specific {@link com.sun.management.ThreadMXBean}; on other JVMs the
+ * allocation tracking isn't supported and -1 is returned. The same applies to the CPU time on JVMs which don't support
+ * the measurement of the CPU time of other threads.
+ */
+public final class ThreadMXBeanUtils {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = initAllocationMXBean();
+    private static final ThreadMXBean CPU_TIME_MX_BEAN = initCpuTimeMXBean();
+
+    private ThreadMXBeanUtils() {
+    }
+
+    private static com.sun.management.ThreadMXBean initAllocationMXBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocationBean;
+    }
+
+    private static ThreadMXBean initCpuTimeMXBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadCpuTimeSupported()) {
+            return null;
+        }
+        if (!bean.isThreadCpuTimeEnabled()) {
+            bean.setThreadCpuTimeEnabled(true);
+        }
+        return bean;
+    }
+
+    /**
+     * Checks if the allocated bytes per thread can be tracked.
+     *
+     * @return {@code true} if the allocated bytes are tracked, {@code false} otherwise
+     */
+    public static boolean isAllocationTrackingSupported() {
+        return ALLOCATION_MX_BEAN != null && ALLOCATION_MX_BEAN.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Returns the number of bytes allocated by a thread since it was started.
+     *
+     * @param threadId the id of the thread
+     * @return the allocated bytes, or -1 if the thread isn't alive or allocation tracking isn't supported
+     */
+    public static long getThreadAllocatedBytes(long threadId) {
+        return isAllocationTrackingSupported() ? ALLOCATION_MX_BEAN.getThreadAllocatedBytes(threadId) : -1;
+    }
+
+    /**
+     * Returns the number of bytes allocated by multiple threads since they were started.
+     *
+     * @param threadIds the ids of the threads
+     * @return the allocated bytes per thread; -1 for a thread that isn't alive, or for all threads if allocation
+     * tracking isn't supported
+     */
+    public static long[] getThreadAllocatedBytes(long[] threadIds) {
+        if (!isAllocationTrackingSupported()) {
+            long[] result = new long[threadIds.length];
+            Arrays.fill(result, -1);
+            return result;
+        }
+        return ALLOCATION_MX_BEAN.getThreadAllocatedBytes(threadIds);
+    }
+
+    /**
+     * Checks if the CPU time per thread can be measured.
+     *
+     * @return {@code true} if the CPU time is measured, {@code false} otherwise
+     */
+    public static boolean isCpuTimeSupported() {
+        return CPU_TIME_MX_BEAN != null && CPU_TIME_MX_BEAN.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Returns the CPU time consumed by a thread since it was started.
+     *
+     * @param threadId the id of the thread
+     * @return the CPU time in nanoseconds, or -1 if the thread isn't alive or CPU time measurement isn't supported
+     */
+    public static long getThreadCpuTime(long threadId) {
+        return isCpuTimeSupported() ? CPU_TIME_MX_BEAN.getThreadCpuTime(threadId) : -1;
+    }
+}
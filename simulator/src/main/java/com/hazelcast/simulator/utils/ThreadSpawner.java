@@ -111,6 +111,36 @@ public class ThreadSpawner {
         } else {
             thread = new ReportExceptionThread(testId, name, runnable);
         }
+        return start(thread);
+    }
+
+    /**
+     * Spawns a new virtual thread for the given {@link Runnable}.
+     *
+     * Virtual threads are always daemon threads. Check {@link VirtualThreads#isSupported()} before calling this method.
+     *
+     * @param namePrefix the name prefix for the thread
+     * @param runnable   the {@link Runnable} to execute
+     * @return the created thread
+     * @throws UnsupportedOperationException if virtual threads are not supported by the JVM
+     */
+    public Thread spawnVirtual(String namePrefix, Runnable runnable) {
+        checkNotNull(namePrefix, "namePrefix can't be null");
+        checkNotNull(runnable, "runnable can't be null");
+
+        String name = newName(namePrefix);
+        Thread thread;
+        if (throwException) {
+            thread = VirtualThreads.newThread(name, runnable);
+            thread.setUncaughtExceptionHandler(exceptionHandler);
+        } else {
+            // a virtual thread can't be subclassed, so the exception reporting is done by the task
+            thread = VirtualThreads.newThread(name, new ReportExceptionTask(testId, runnable));
+        }
+        return start(thread);
+    }
+
+    private Thread start(Thread thread) {
         threads.add(thread);
         thread.start();
         return thread;
@@ -162,6 +192,27 @@ public class ThreadSpawner {
         }
     }
 
+    private static class ReportExceptionTask implements Runnable {
+
+        private final String testId;
+        private final Runnable task;
+
+        ReportExceptionTask(String testId, Runnable task) {
+            this.testId = testId;
+            this.task = task;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AvoidCatchingThrowable")
+        public void run() {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                ExceptionReporter.report(testId, t);
+            }
+        }
+    }
+
     private static class ReportExceptionThread extends Thread {
 
         private final String testId;
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+
+/**
+ * Creates virtual threads on JVMs which support them (Java 21+).
+ *
+ * Simulator is compiled for Java 8, so the virtual thread API is accessed using reflection. On older JVMs, or when
+ * virtual threads are only available as a preview feature which isn't enabled, {@link #isSupported()} returns
+ * {@code false} and the caller should fall back to platform threads.
+ */
+public final class VirtualThreads {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class);
+
+    // the methods of the public Thread.Builder interface are used, since the builder implementations aren't public
+    private static final Method OF_VIRTUAL = findMethod("java.lang.Thread", "ofVirtual");
+    private static final Method NAME = findMethod("java.lang.Thread$Builder", "name", String.class);
+    private static final Method UNSTARTED = findMethod("java.lang.Thread$Builder", "unstarted", Runnable.class);
+    private static final boolean SUPPORTED = checkSupported();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks if virtual threads can be created.
+     *
+     * @return {@code true} if virtual threads are supported, {@code false} otherwise
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Creates an unstarted virtual thread.
+     *
+     * @param name the name of the thread
+     * @param task the task to run
+     * @return the created virtual thread
+     * @throws UnsupportedOperationException if virtual threads are not supported
+     */
+    public static Thread newThread(String name, Runnable task) {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) UNSTARTED.invoke(builder, task);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method findMethod(String className, String methodName, Class<?>... parameterTypes) {
+        try {
+            return Class.forName(className).getMethod(methodName, parameterTypes);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static boolean checkSupported() {
+        if (OF_VIRTUAL == null || NAME == null || UNSTARTED == null) {
+            LOGGER.debug("Virtual threads are not supported by this JVM");
+            return false;
+        }
+        try {
+            // fails if virtual threads are a preview feature which isn't enabled
+            UNSTARTED.invoke(OF_VIRTUAL.invoke(null), (Runnable) () -> {
+            });
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Virtual threads are not enabled: " + e);
+            return false;
+        }
+    }
+}
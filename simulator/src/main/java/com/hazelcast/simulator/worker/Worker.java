@@ -18,13 +18,17 @@ package com.hazelcast.simulator.worker;
 import com.hazelcast.simulator.agent.workerprocess.WorkerParameters;
 import com.hazelcast.simulator.common.ProcessSuicideThread;
 import com.hazelcast.simulator.common.ShutdownThread;
+import com.hazelcast.simulator.metrics.JvmMetrics;
+import com.hazelcast.simulator.metrics.MetricsServer;
 import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.utils.ExceptionReporter;
 import com.hazelcast.simulator.drivers.Driver;
 import com.hazelcast.simulator.worker.operations.TerminateWorkerOperation;
 import com.hazelcast.simulator.worker.performance.PerformanceMonitor;
+import com.hazelcast.simulator.worker.performance.WorkerMetrics;
 import com.hazelcast.simulator.worker.testcontainer.TestManager;
+import com.hazelcast.simulator.worker.testcontainer.TimeStepRunnerClassCache;
 import org.apache.log4j.Logger;
 
 import java.io.File;
@@ -33,6 +37,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static com.hazelcast.simulator.agent.workerprocess.WorkerParameters.loadParameters;
 import static com.hazelcast.simulator.common.GitInfo.getBuildTime;
 import static com.hazelcast.simulator.common.GitInfo.getCommitIdAbbrev;
+import static com.hazelcast.simulator.protocol.MessageCodecs.OPERATION_CODEC_PROPERTY;
+import static com.hazelcast.simulator.protocol.MessageCodecs.getCodec;
 import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.CommonUtils.exitWithError;
 import static com.hazelcast.simulator.utils.CommonUtils.getSimulatorVersion;
@@ -55,6 +61,7 @@ public class Worker {
     private final AtomicBoolean shutdownStarted = new AtomicBoolean();
     private final String publicAddress;
     private final PerformanceMonitor performanceMonitor;
+    private final MetricsServer metricsServer;
     private final Server server;
     private final TestManager testManager;
     private final Driver driver;
@@ -70,8 +77,12 @@ public class Worker {
                 .setAll(parameters.asMap());
         this.server = new Server("workers")
                 .setBrokerURL(localIp(), parseInt(parameters.get("AGENT_PORT")))
+                .setMessageCodec(getCodec(parameters.get(OPERATION_CODEC_PROPERTY)))
                 .setSelfAddress(workerAddress);
         this.testManager = new TestManager(server, driver);
+        // the workers of a session share their compiled runner classes; the parent of the worker dir is the session dir
+        TimeStepRunnerClassCache.setDirectory(
+                new File(getUserDir().getParentFile(), TimeStepRunnerClassCache.DIRECTORY_NAME));
 
         ScriptExecutor scriptExecutor = new ScriptExecutor(driver);
         server.setProcessor(new WorkerOperationProcessor(this, testManager, scriptExecutor));
@@ -79,7 +90,19 @@ public class Worker {
         Runtime.getRuntime().addShutdownHook(new WorkerShutdownThread(true));
 
         int interval = Integer.parseInt(parameters.get("WORKER_PERFORMANCE_MONITOR_INTERVAL_SECONDS"));
-        this.performanceMonitor = new PerformanceMonitor(server, testManager, interval);
+        boolean binaryLog = Boolean.parseBoolean(parameters.get("WORKER_PERFORMANCE_BINARY_LOG"));
+        this.performanceMonitor = new PerformanceMonitor(server, testManager, interval, binaryLog);
+        this.metricsServer = newMetricsServer();
+    }
+
+    private MetricsServer newMetricsServer() {
+        String metricsPort = parameters.get("WORKER_METRICS_PORT");
+        int basePort = metricsPort == null ? 0 : parseInt(metricsPort.trim());
+        if (basePort <= 0) {
+            return null;
+        }
+        // multiple workers can run on the same agent, so each worker gets its own port
+        return new MetricsServer(basePort + workerAddress.getWorkerIndex(), new WorkerMetrics(testManager), new JvmMetrics());
     }
 
     public void start() throws Exception {
@@ -87,6 +110,9 @@ public class Worker {
 
         server.start();
         performanceMonitor.start();
+        if (metricsServer != null) {
+            metricsServer.start();
+        }
         driver.startDriverInstance();
 
         new ProcessSuicideThread(parameters.get("agent.pid"), parameters.intGet("WORKER_ORPHAN_INTERVAL_SECONDS")).start();
@@ -180,6 +206,7 @@ public class Worker {
         public void doRun() {
             closeQuietly(driver);
             closeQuietly(performanceMonitor);
+            closeQuietly(metricsServer);
         }
     }
 }
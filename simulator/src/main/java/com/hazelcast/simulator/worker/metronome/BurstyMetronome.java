@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.worker.metronome.PoissonMetronome.nextExponential;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A {@link Metronome} that generates an on/off (bursty) load. During the on period requests arrive as a Poisson process (see
+ * {@link PoissonMetronome}), during the off period no requests are made at all.
+ *
+ * The rate during the on period is increased so that the average rate over a whole on/off cycle is equal to the configured
+ * interval or ratePerSecond. So with burstOnMs=1000 and burstOffMs=1000 and ratePerSecond=1000, the load is 2000 requests
+ * per second for 1 second, followed by 1 second of silence.
+ *
+ * All threads of an execution group share the same on/off cycle, so the bursts of the different threads coincide. The cycle
+ * starts when the first thread of the execution group calls {@link #waitForNext()}; a thread starting later joins the cycle
+ * at its current position.
+ *
+ * The on and off period can be configured using:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     ratePerSecond=1000
+ *     metronomeClass=com.hazelcast.simulator.worker.metronome.BurstyMetronome
+ *     burstOnMs=200
+ *     burstOffMs=800
+ * }
+ * </pre>
+ *
+ * Just like the {@link SleepingMetronome}, the expected start time is returned from {@link #waitForNext()}, so coordinated
+ * omission correction keeps working.
+ */
+public final class BurstyMetronome implements Metronome {
+
+    private static final long DEFAULT_BURST_MS = 1000;
+
+    private final long onIntervalNanos;
+    private final long onNanos;
+    private final long offNanos;
+    private final AtomicLong epochNanos;
+    private final boolean accountForCoordinatedOmission;
+    private long onTimeNanos;
+    private boolean started;
+
+    BurstyMetronome(long intervalNanos, long onNanos, long offNanos, boolean accountForCoordinatedOmission) {
+        if (onNanos <= 0) {
+            throw new IllegalTestException(
+                    format("burstOnMs must be larger than 0, but was %d ms", NANOSECONDS.toMillis(onNanos)));
+        }
+        if (offNanos < 0) {
+            throw new IllegalTestException(
+                    format("burstOffMs can't be smaller than 0, but was %d ms", NANOSECONDS.toMillis(offNanos)));
+        }
+
+        // during the on period the interval is shortened, so that the average over a whole cycle matches the interval
+        this.onIntervalNanos = Math.max(1, intervalNanos * onNanos / (onNanos + offNanos));
+        this.onNanos = onNanos;
+        this.offNanos = offNanos;
+        this.epochNanos = new AtomicLong();
+        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+    }
+
+    public BurstyMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
+        this(intervalNanos * threadCount,
+                MILLISECONDS.toNanos(binding.loadAsLong(toPropertyName(prefix, "burstOnMs"), DEFAULT_BURST_MS)),
+                MILLISECONDS.toNanos(binding.loadAsLong(toPropertyName(prefix, "burstOffMs"), DEFAULT_BURST_MS)),
+                binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+    }
+
+    public BurstyMetronome(Metronome m) {
+        BurstyMetronome master = (BurstyMetronome) m;
+        this.onIntervalNanos = master.onIntervalNanos;
+        this.onNanos = master.onNanos;
+        this.offNanos = master.offNanos;
+        this.epochNanos = master.epochNanos;
+        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+    }
+
+    @Override
+    public long waitForNext() {
+        if (!started) {
+            // a thread starting later, e.g. due to a rampup, joins the shared cycle at its current position
+            started = true;
+            epochNanos.compareAndSet(0, nanoTime());
+            onTimeNanos = toOnTimeNanos(nanoTime() - epochNanos.get());
+        }
+        onTimeNanos += nextExponential(onIntervalNanos, ThreadLocalRandom.current().nextDouble());
+        long expectedStartNanos = toRealNanos(onTimeNanos);
+
+        long now;
+        while ((now = nanoTime()) < expectedStartNanos) {
+            parkNanos(expectedStartNanos - now);
+        }
+
+        return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
+    }
+
+    /**
+     * Maps a point on the 'on-time' timeline (the time only counting the on periods) to the real time by inserting the off
+     * periods.
+     *
+     * @param onTimeNanos the on-time in nanos since the epoch
+     * @return the real time in nanos
+     */
+    long toRealNanos(long onTimeNanos) {
+        long cycles = onTimeNanos / onNanos;
+        return epochNanos.get() + cycles * (onNanos + offNanos) + onTimeNanos % onNanos;
+    }
+
+    /**
+     * Maps the real time elapsed since the epoch to the 'on-time' timeline; a time in an off period maps to the end of the
+     * preceding on period.
+     *
+     * @param elapsedNanos the real time in nanos since the epoch
+     * @return the on-time in nanos
+     */
+    long toOnTimeNanos(long elapsedNanos) {
+        long cycleNanos = onNanos + offNanos;
+        return (elapsedNanos / cycleNanos) * onNanos + Math.min(elapsedNanos % cycleNanos, onNanos);
+    }
+
+    long getOnIntervalNanos() {
+        return onIntervalNanos;
+    }
+}
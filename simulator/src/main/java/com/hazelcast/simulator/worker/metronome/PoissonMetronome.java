@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.log;
+import static java.lang.Math.round;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A {@link Metronome} that generates an open-loop load with exponentially distributed inter-arrival times, so the requests
+ * of each thread form a Poisson process with the configured average rate.
+ *
+ * A fixed interval creates a perfectly periodic load which real traffic never has; and because requests never arrive at the
+ * same time, queueing effects in the system under test are hidden. With a Poisson arrival process requests occasionally
+ * cluster, and the latency at high utilization is much closer to what is seen in production.
+ *
+ * Just like the {@link SleepingMetronome}, the expected start time is returned from {@link #waitForNext()}, so coordinated
+ * omission correction keeps working.
+ */
+public final class PoissonMetronome implements Metronome {
+
+    private final long intervalNanos;
+    private final boolean accountForCoordinatedOmission;
+    private long nextNanos;
+
+    PoissonMetronome(long intervalNanos, boolean accountForCoordinatedOmission) {
+        this.intervalNanos = intervalNanos;
+        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+    }
+
+    public PoissonMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
+        this(intervalNanos * threadCount, binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+    }
+
+    public PoissonMetronome(Metronome m) {
+        PoissonMetronome master = (PoissonMetronome) m;
+        this.intervalNanos = master.intervalNanos;
+        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+    }
+
+    @Override
+    public long waitForNext() {
+        // the first arrival is also exponentially distributed, so there is no need for an additional random offset
+        if (nextNanos == 0) {
+            nextNanos = nanoTime();
+        }
+        nextNanos += nextExponential(intervalNanos, ThreadLocalRandom.current().nextDouble());
+
+        long now;
+        while ((now = nanoTime()) < nextNanos) {
+            parkNanos(nextNanos - now);
+        }
+
+        return accountForCoordinatedOmission ? nextNanos : nanoTime();
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Converts a uniformly distributed random value into an exponentially distributed interval with the given mean.
+     *
+     * @param meanNanos the mean interval in nanos
+     * @param uniform   a random value in the range [0, 1)
+     * @return the interval in nanos
+     */
+    static long nextExponential(long meanNanos, double uniform) {
+        return round(-log(1 - uniform) * meanNanos);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.worker.testcontainer.MetronomeSupplier.parseInterval;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A RateProfile determines the target rate of requests per second as a function of the time elapsed since the start of the
+ * run. It is used by the {@link RateProfileMetronome} to sweep the throughput in a single run.
+ *
+ * A profile is configured using the ratePerSecond property:
+ * <ol>
+ * <li>ramp:&lt;from&gt;..&lt;to&gt;/&lt;duration&gt; e.g. 'ramp:1000..100000/10m': the rate increases linearly from 'from'
+ * to 'to' over the duration and then remains at 'to'.</li>
+ * <li>step:&lt;from&gt;..&lt;to&gt;[+&lt;increment&gt;]/&lt;stepDuration&gt; e.g. 'step:10000..200000+10000/30s': the rate
+ * starts at 'from' and changes with 'increment' every stepDuration until 'to' is reached. If the increment isn't
+ * configured, the lowest of 'from' and 'to' is used as increment.</li>
+ * <li>sine:&lt;min&gt;..&lt;max&gt;/&lt;period&gt; e.g. 'sine:1000..5000/1m': the rate follows a sine wave starting at
+ * 'min'.</li>
+ * <li>csv:&lt;file&gt; e.g. 'csv:schedule.csv': a schedule where each line contains the offset in seconds and the rate
+ * from that offset on, e.g. '30,5000'. Lines starting with '#' are ignored.</li>
+ * <li>live:&lt;rate&gt; e.g. 'live:1000': the rate starts at the given rate and can be changed while running using a
+ * {@link com.hazelcast.simulator.worker.operations.SetRateOperation}. This is used by the coordinator when searching for the
+ * maximum sustainable throughput.</li>
+ * </ol>
+ * All rates need to be larger than 0.
+ */
+public abstract class RateProfile {
+
+    private static final String RANGE_SEPARATOR = "..";
+
+    /**
+     * Returns the target rate per second.
+     *
+     * @param elapsedNanos the time elapsed since the start of the run in nanos
+     * @return the target rate per second
+     */
+    public abstract double getRatePerSecond(long elapsedNanos);
+
+    /**
+     * Checks if a ratePerSecond value is a rate profile instead of a fixed rate.
+     *
+     * @param value the value to check
+     * @return true if the value is a rate profile, false otherwise
+     */
+    public static boolean isRateProfile(String value) {
+        return value != null && value.indexOf(':') > 0;
+    }
+
+    /**
+     * Loads the rate profile from the ratePerSecond property of an execution group.
+     *
+     * @param binding        the PropertyBinding to load the property from
+     * @param executionGroup the execution group
+     * @return the loaded RateProfile
+     * @throws IllegalTestException if the property is missing or not a valid rate profile
+     */
+    public static RateProfile load(PropertyBinding binding, String executionGroup) {
+        String property = toPropertyName(executionGroup, "ratePerSecond");
+        String value = binding.load(property);
+        if (!isRateProfile(value)) {
+            throw new IllegalTestException(format("%s with value [%s] is not a rate profile", property, value));
+        }
+        return parse(property, value);
+    }
+
+    static RateProfile parse(String property, String value) {
+        int index = value.indexOf(':');
+        String type = value.substring(0, index);
+        String args = value.substring(index + 1);
+        try {
+            if ("ramp".equals(type)) {
+                return new Ramp(property, args);
+            } else if ("step".equals(type)) {
+                return new Step(property, args);
+            } else if ("sine".equals(type)) {
+                return new Sine(property, args);
+            } else if ("csv".equals(type)) {
+                return new Schedule(property, new File(args));
+            } else if ("live".equals(type)) {
+                return new Live(parseRate(property, args));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalTestException(format("%s has an invalid rate profile [%s]", property, value), e);
+        }
+        throw new IllegalTestException(format("%s has an unknown rate profile type [%s] in [%s]", property, type, value));
+    }
+
+    private static double parseRate(String property, String value) {
+        double rate = Double.parseDouble(value.trim());
+        if (rate <= 0) {
+            throw new IllegalTestException(format("%s has a rate [%s] that is not larger than 0", property, value));
+        }
+        return rate;
+    }
+
+    /**
+     * Parses a '&lt;from&gt;..&lt;to&gt;/&lt;duration&gt;' value into the from, to and duration in nanos.
+     */
+    private static double[] parseRangeAndDuration(String property, String value) {
+        int slashIndex = value.lastIndexOf('/');
+        int rangeIndex = value.indexOf(RANGE_SEPARATOR);
+        if (slashIndex == -1 || rangeIndex == -1 || rangeIndex > slashIndex) {
+            throw new IllegalTestException(format("%s has an invalid rate profile [%s], expected <from>..<to>/<duration>",
+                    property, value));
+        }
+
+        long durationNanos = parseInterval(property, value.substring(slashIndex + 1));
+        if (durationNanos == 0) {
+            throw new IllegalTestException(format("%s has a rate profile [%s] with a duration of 0", property, value));
+        }
+        return new double[]{
+                parseRate(property, value.substring(0, rangeIndex)),
+                parseRate(property, value.substring(rangeIndex + RANGE_SEPARATOR.length(), slashIndex)),
+                durationNanos,
+        };
+    }
+
+    static final class Ramp extends RateProfile {
+        private final double from;
+        private final double to;
+        private final double durationNanos;
+
+        Ramp(String property, String args) {
+            double[] values = parseRangeAndDuration(property, args);
+            this.from = values[0];
+            this.to = values[1];
+            this.durationNanos = values[2];
+        }
+
+        @Override
+        public double getRatePerSecond(long elapsedNanos) {
+            double fraction = min(1, elapsedNanos / durationNanos);
+            return from + (to - from) * fraction;
+        }
+    }
+
+    static final class Step extends RateProfile {
+        private final double from;
+        private final double to;
+        private final double increment;
+        private final double stepNanos;
+
+        Step(String property, String args) {
+            int slashIndex = args.lastIndexOf('/');
+            int plusIndex = args.indexOf('+');
+            double increment = -1;
+            if (plusIndex != -1 && plusIndex < slashIndex) {
+                increment = parseRate(property, args.substring(plusIndex + 1, slashIndex));
+                args = args.substring(0, plusIndex) + args.substring(slashIndex);
+            }
+
+            double[] values = parseRangeAndDuration(property, args);
+            this.from = values[0];
+            this.to = values[1];
+            this.stepNanos = values[2];
+            this.increment = increment == -1 ? min(from, to) : increment;
+        }
+
+        @Override
+        public double getRatePerSecond(long elapsedNanos) {
+            long step = (long) (elapsedNanos / stepNanos);
+            if (to >= from) {
+                return min(from + step * increment, to);
+            }
+            return max(from - step * increment, to);
+        }
+    }
+
+    static final class Sine extends RateProfile {
+        private final double min;
+        private final double max;
+        private final double periodNanos;
+
+        Sine(String property, String args) {
+            double[] values = parseRangeAndDuration(property, args);
+            this.min = values[0];
+            this.max = values[1];
+            this.periodNanos = values[2];
+        }
+
+        @Override
+        public double getRatePerSecond(long elapsedNanos) {
+            double phase = 2 * PI * (elapsedNanos % (long) periodNanos) / periodNanos;
+            return min + (max - min) * (1 - cos(phase)) / 2;
+        }
+    }
+
+    static final class Schedule extends RateProfile {
+        private final long[] offsetNanos;
+        private final double[] rates;
+
+        Schedule(String property, File file) {
+            List<String> lines = readLines(property, file);
+            this.offsetNanos = new long[lines.size()];
+            this.rates = new double[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                String[] columns = lines.get(i).split(",");
+                if (columns.length != 2) {
+                    throw new IllegalTestException(format("%s rate schedule [%s] has an invalid line [%s]",
+                            property, file.getAbsolutePath(), lines.get(i)));
+                }
+                offsetNanos[i] = (long) (Double.parseDouble(columns[0].trim()) * SECONDS.toNanos(1));
+                rates[i] = parseRate(property, columns[1]);
+                if (i > 0 && offsetNanos[i] <= offsetNanos[i - 1]) {
+                    throw new IllegalTestException(format("%s rate schedule [%s] offsets need to be increasing",
+                            property, file.getAbsolutePath()));
+                }
+            }
+        }
+
+        private static List<String> readLines(String property, File file) {
+            if (!file.exists()) {
+                throw new IllegalTestException(format("%s rate schedule [%s] does not exist", property, file.getAbsolutePath()));
+            }
+
+            List<String> lines = new ArrayList<>();
+            for (String line : fileAsText(file).split("\n")) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+            if (lines.isEmpty()) {
+                throw new IllegalTestException(format("%s rate schedule [%s] is empty", property, file.getAbsolutePath()));
+            }
+            return lines;
+        }
+
+        @Override
+        public double getRatePerSecond(long elapsedNanos) {
+            double rate = rates[0];
+            for (int i = 1; i < offsetNanos.length && offsetNanos[i] <= elapsedNanos; i++) {
+                rate = rates[i];
+            }
+            return rate;
+        }
+    }
+
+    static final class Live extends RateProfile {
+        private volatile double ratePerSecond;
+
+        Live(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        void setRatePerSecond(double ratePerSecond) {
+            if (ratePerSecond <= 0) {
+                throw new IllegalArgumentException("ratePerSecond must be larger than 0, but was " + ratePerSecond);
+            }
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        @Override
+        public double getRatePerSecond(long elapsedNanos) {
+            return ratePerSecond;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.round;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A {@link Metronome} with a time-varying rate determined by a {@link RateProfile}. This makes it possible to sweep the
+ * throughput in a single run, e.g. to find the saturation point of a system.
+ *
+ * The rate is shared by all threads of the execution group, just like with the {@link SleepingMetronome}. The time of the
+ * profile starts when the first thread of the execution group calls {@link #waitForNext()}.
+ *
+ * This metronome is used automatically when the ratePerSecond property contains a rate profile, e.g.
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     ratePerSecond=step:10000..200000+10000/30s
+ * }
+ * </pre>
+ */
+public final class RateProfileMetronome implements Metronome {
+
+    private final RateProfile rateProfile;
+    private final int threadCount;
+    private final boolean accountForCoordinatedOmission;
+    private final AtomicLong epochNanos;
+    // incremented on every rate change, so the threads can discard the schedule of the previous rate
+    private final AtomicLong rateGeneration;
+    private long nextNanos;
+    private long generation;
+
+    RateProfileMetronome(RateProfile rateProfile, int threadCount, boolean accountForCoordinatedOmission) {
+        this.rateProfile = rateProfile;
+        this.threadCount = threadCount;
+        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+        this.epochNanos = new AtomicLong();
+        this.rateGeneration = new AtomicLong();
+    }
+
+    public RateProfileMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
+        this(RateProfile.load(binding, prefix), threadCount,
+                binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+    }
+
+    public RateProfileMetronome(Metronome m) {
+        RateProfileMetronome master = (RateProfileMetronome) m;
+        this.rateProfile = master.rateProfile;
+        this.threadCount = master.threadCount;
+        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+        this.epochNanos = master.epochNanos;
+        this.rateGeneration = master.rateGeneration;
+    }
+
+    @Override
+    public long waitForNext() {
+        if (nextNanos == 0) {
+            epochNanos.compareAndSet(0, nanoTime());
+            nextNanos = nanoTime();
+            generation = rateGeneration.get();
+        } else if (generation != rateGeneration.get()) {
+            // the backlog of the previous rate, e.g. an overloaded step of a throughput search, isn't carried over;
+            // otherwise the calls would fire back-to-back with expected start times in the past
+            generation = rateGeneration.get();
+            nextNanos = nanoTime();
+        }
+
+        long now;
+        while ((now = nanoTime()) < nextNanos) {
+            parkNanos(nextNanos - now);
+        }
+
+        long expectedStartNanos = nextNanos;
+        nextNanos += getIntervalNanos(expectedStartNanos - epochNanos.get());
+        return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
+    }
+
+    /**
+     * Returns the interval between 2 requests of a single thread.
+     *
+     * @param elapsedNanos the time elapsed since the start of the profile in nanos
+     * @return the interval in nanos
+     */
+    long getIntervalNanos(long elapsedNanos) {
+        return Math.max(1, round(threadCount * SECONDS.toNanos(1) / rateProfile.getRatePerSecond(elapsedNanos)));
+    }
+
+    /**
+     * Returns the current target rate of all threads combined. If the profile hasn't started yet, the initial rate is
+     * returned.
+     *
+     * This method is thread-safe.
+     *
+     * @return the current target rate per second
+     */
+    public double getTargetRatePerSecond() {
+        long epoch = epochNanos.get();
+        return rateProfile.getRatePerSecond(epoch == 0 ? 0 : nanoTime() - epoch);
+    }
+
+    /**
+     * Checks if the rate can be changed while running.
+     *
+     * @return true if the metronome uses a 'live' rate profile, false otherwise
+     */
+    public boolean isLive() {
+        return rateProfile instanceof RateProfile.Live;
+    }
+
+    /**
+     * Changes the rate of all threads combined. The new rate is picked up by each thread after its current wait completes;
+     * the schedule of each thread then restarts at the current time, so a backlog of the previous rate is discarded.
+     *
+     * This method is thread-safe.
+     *
+     * @param ratePerSecond the new rate per second
+     * @throws IllegalStateException if the metronome doesn't use a 'live' rate profile
+     */
+    public void setTargetRatePerSecond(double ratePerSecond) {
+        if (!isLive()) {
+            throw new IllegalStateException("The rate can only be changed with a 'live' rate profile");
+        }
+        ((RateProfile.Live) rateProfile).setRatePerSecond(ratePerSecond);
+        rateGeneration.incrementAndGet();
+    }
+}
@@ -26,6 +26,9 @@ import java.util.Map;
  * Sends a {@link PerformanceStats} per running Simulator Test to the Coordinator, which contains the last snapshot of performance
  * numbers from that test.
  *
+ * The {@link PerformanceStats} contain the compact encoded interval latency histogram of the test, so the Coordinator can
+ * merge the histograms of all Workers.
+ *
  * This Operation is 'mandatory' to implement. The consequence of not implementing it is no performance information is
  * available on the coordinator for logging purposes.
  */
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.operations;
+
+import com.google.gson.annotations.SerializedName;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+
+/**
+ * Changes the target rate of a Simulator Test during the {@link TestPhase#RUN} phase.
+ *
+ * This is used by the coordinator to probe different rates without restarting the workers, e.g. when searching for the
+ * maximum sustainable throughput. The test needs to be configured with a 'live' rate profile, e.g. 'ratePerSecond=live:1000'.
+ */
+public class SetRateOperation implements SimulatorOperation {
+
+    /**
+     * The name of the test to change the rate of.
+     */
+    @SerializedName("testId")
+    private final String testId;
+
+    /**
+     * The new target rate per second for this worker.
+     */
+    @SerializedName("ratePerSecond")
+    private final double ratePerSecond;
+
+    public SetRateOperation(String testId, double ratePerSecond) {
+        this.testId = testId;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "SetRateOperation{testId='" + testId + "', ratePerSecond=" + ratePerSecond + '}';
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.utils.UncheckedIOException;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.FileUtils.stripExtension;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A compact binary time series of the performance stats, written next to the performance csv file.
+ *
+ * The file starts with the {@link #MAGIC} int and the {@link #VERSION} byte, followed by a fixed size record per
+ * interval. All values are big endian:
+ * <pre>
+ * long   epoch in ms
+ * long   operations
+ * long   operations-delta
+ * double operations/second
+ * double target-operations/second (0 if the rate isn't limited)
+ * int    latency-p50(us)
+ * int    latency-p99(us)
+ * int    latency-p99.9(us)
+ * int    latency-max(us)
+ * </pre>
+ * The latencies are -1 if there is no latency for the interval.
+ */
+final class BinaryPerformanceLog implements Closeable {
+
+    static final int MAGIC = 0x53505246;
+    static final byte VERSION = 1;
+    static final int RECORD_SIZE = 56;
+
+    private static final String EXTENSION = ".bin";
+    private static final double[] LATENCY_PERCENTILES = {50, 99, 99.9};
+
+    private final File file;
+    private DataOutputStream out;
+
+    BinaryPerformanceLog(File file) {
+        this.file = file;
+    }
+
+    static File getBinaryFile(File csvFile) {
+        return new File(csvFile.getParentFile(), stripExtension(csvFile.getName()) + EXTENSION);
+    }
+
+    void write(long timeMillis,
+               long operationsTotal,
+               long operationsDelta,
+               double operationsPerSecond,
+               double targetOperationsPerSecond,
+               Histogram latencyHistogram) {
+        try {
+            if (out == null) {
+                boolean newFile = !file.exists() || file.length() == 0;
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                if (newFile) {
+                    out.writeInt(MAGIC);
+                    out.writeByte(VERSION);
+                }
+            }
+
+            out.writeLong(timeMillis);
+            out.writeLong(operationsTotal);
+            out.writeLong(operationsDelta);
+            out.writeDouble(operationsPerSecond);
+            out.writeDouble(targetOperationsPerSecond);
+            boolean hasLatency = latencyHistogram != null && latencyHistogram.getTotalCount() > 0;
+            for (double percentile : LATENCY_PERCENTILES) {
+                out.writeInt(hasLatency ? toMicros(latencyHistogram.getValueAtPercentile(percentile)) : -1);
+            }
+            out.writeInt(hasLatency ? toMicros(latencyHistogram.getMaxValue()) : -1);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private static int toMicros(long nanos) {
+        return (int) Math.min(Integer.MAX_VALUE, NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(out);
+    }
+
+    /**
+     * Reads all records of a binary performance log.
+     *
+     * @param file the file to read
+     * @return the records
+     * @throws UncheckedIOException if the file can't be read or isn't a binary performance log
+     */
+    static List<Record> read(File file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new UncheckedIOException(file.getAbsolutePath() + " is not a binary performance log");
+            }
+
+            List<Record> records = new ArrayList<>();
+            for (; ; ) {
+                long timeMillis;
+                try {
+                    timeMillis = in.readLong();
+                } catch (EOFException e) {
+                    return records;
+                }
+                records.add(new Record(timeMillis, in));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file.getAbsolutePath(), e);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * A single record of the binary performance log.
+     */
+    static final class Record {
+        final long timeMillis;
+        final long operationsTotal;
+        final long operationsDelta;
+        final double operationsPerSecond;
+        final double targetOperationsPerSecond;
+        final int latencyP50Micros;
+        final int latencyP99Micros;
+        final int latencyP999Micros;
+        final int latencyMaxMicros;
+
+        private Record(long timeMillis, DataInputStream in) throws IOException {
+            this.timeMillis = timeMillis;
+            this.operationsTotal = in.readLong();
+            this.operationsDelta = in.readLong();
+            this.operationsPerSecond = in.readDouble();
+            this.targetOperationsPerSecond = in.readDouble();
+            this.latencyP50Micros = in.readInt();
+            this.latencyP99Micros = in.readInt();
+            this.latencyP999Micros = in.readInt();
+            this.latencyMaxMicros = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.utils.UncheckedIOException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Responsible for writing a value per execution group of a test, like the allocated bytes or the CPU time, to disk in
+ * csv format. Next to the value of the interval, the number of operations and the value per operation are written.
+ *
+ * Like the {@link PerformanceLogWriter}, the file is opened on the first write and every write is flushed.
+ */
+final class ExecutionGroupLogWriter implements Closeable {
+
+    private final StringBuilder sb = new StringBuilder();
+    private final DecimalFormat format = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.ENGLISH));
+    private final File file;
+    private final String valueName;
+    private Writer writer;
+
+    /**
+     * Creates an ExecutionGroupLogWriter.
+     *
+     * @param file      the csv file
+     * @param valueName the name of the value column, e.g. 'allocated-bytes'
+     */
+    ExecutionGroupLogWriter(File file, String valueName) {
+        this.file = checkNotNull(file, "file can't be null");
+        this.valueName = checkNotNull(valueName, "valueName can't be null");
+    }
+
+    private void open() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        writer.write("epoch,timestamp,execution-group," + valueName + ",operations," + valueName + "/operation\n");
+    }
+
+    void write(long timeMillis, String timestamp, Map<String, Long> values, Map<String, Long> operations) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        sb.setLength(0);
+        for (Map.Entry<String, Long> entry : new TreeMap<>(values).entrySet()) {
+            Long groupOperations = operations.get(entry.getKey());
+            long operationCount = groupOperations == null ? 0 : groupOperations;
+
+            sb.append(format.format(timeMillis * 1d / SECONDS.toMillis(1)));
+            sb.append(',').append(timestamp);
+            sb.append(',').append(entry.getKey());
+            sb.append(',').append(entry.getValue());
+            sb.append(',').append(operationCount);
+            sb.append(',');
+            if (operationCount > 0) {
+                sb.append(format.format(entry.getValue() / (double) operationCount));
+            }
+            sb.append('\n');
+        }
+
+        try {
+            if (writer == null) {
+                open();
+            }
+            writer.append(sb);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(writer);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.log4j.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Records the durations of the garbage collections of the JVM in a {@link Histogram}, using the GC notifications of the
+ * {@link GarbageCollectorMXBean} instances.
+ *
+ * The durations are recorded in nanoseconds, with the same histogram settings as the probes, so the interval histograms
+ * can be written and processed like the latency histograms. The GC notifications have a millisecond resolution. Only the
+ * stop-the-world collections are recorded; the concurrent cycles of collectors like CMS, G1, ZGC and Shenandoah are not.
+ */
+final class GcPauseRecorder implements NotificationListener, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(GcPauseRecorder.class);
+
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(
+            MICROSECONDS.toNanos(1), HOURS.toNanos(1), NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    /**
+     * Starts listening to GC notifications.
+     *
+     * @return this
+     */
+    GcPauseRecorder start() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+        if (emitters.isEmpty()) {
+            LOGGER.info("GC notifications are not supported, GC pauses are not recorded");
+        }
+        return this;
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        recordGc(info.getGcName(), info.getGcAction(), info.getGcInfo().getDuration());
+    }
+
+    void recordGc(String gcName, String gcAction, long durationMillis) {
+        if (isStopTheWorld(gcName, gcAction)) {
+            recordPause(durationMillis);
+        }
+    }
+
+    /**
+     * Checks if a GC notification is about a stop-the-world pause. The concurrent collectors also send notifications for
+     * their concurrent cycles (e.g. 'ConcurrentMarkSweep', 'G1 Concurrent GC', 'ZGC Cycles' and 'Shenandoah Cycles'),
+     * whose duration is mostly spent running concurrently with the application, so they would be reported as huge pauses.
+     */
+    static boolean isStopTheWorld(String gcName, String gcAction) {
+        String name = gcName.toLowerCase(Locale.ROOT);
+        return !name.contains("concurrent")
+                && !name.contains("cycles")
+                && !gcAction.toLowerCase(Locale.ROOT).contains("cycle");
+    }
+
+    void recordPause(long durationMillis) {
+        // a GC shorter than a millisecond is reported as 0 ms
+        long durationNanos = Math.max(MILLISECONDS.toNanos(durationMillis), MICROSECONDS.toNanos(1));
+        recorder.recordValue(Math.min(durationNanos, HOURS.toNanos(1)));
+    }
+
+    /**
+     * Returns the histogram of the GC pauses since the previous call.
+     *
+     * @return the interval histogram
+     */
+    Histogram getIntervalHistogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                ignore(e);
+            }
+        }
+        emitters.clear();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+
+import static com.hazelcast.simulator.utils.HistogramUtils.decodeFromBase64;
+import static com.hazelcast.simulator.utils.HistogramUtils.encodeToBase64;
+
+/**
+ * Gson {@link TypeAdapter} which writes a {@link Histogram} as Base64 string of its compressed encoding.
+ */
+final class HistogramBase64Adapter extends TypeAdapter<Histogram> {
+
+    @Override
+    public void write(JsonWriter out, Histogram histogram) throws IOException {
+        if (histogram == null) {
+            out.nullValue();
+        } else {
+            out.value(encodeToBase64(histogram));
+        }
+    }
+
+    @Override
+    public Histogram read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return decodeFromBase64(in.nextString());
+    }
+}
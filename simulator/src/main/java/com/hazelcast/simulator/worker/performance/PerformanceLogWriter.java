@@ -15,44 +15,74 @@
  */
 package com.hazelcast.simulator.worker.performance;
 
+import com.hazelcast.simulator.utils.UncheckedIOException;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 
-import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Responsible for writing to performance stats to disk in csv format.
+ *
+ * Next to the achieved throughput, the target throughput (if the rate is limited) and the latency of the interval are written,
+ * so a run with a {@link com.hazelcast.simulator.worker.metronome.RateProfile} shows how latency develops with the rate.
+ *
+ * The file is opened on the first write and kept open till the writer is closed; every write is flushed, so the file
+ * is complete after every interval. Optionally the same stats are written to a {@link BinaryPerformanceLog} as well.
  */
-final class PerformanceLogWriter {
+final class PerformanceLogWriter implements Closeable {
 
-    private final StringBuffer sb = new StringBuffer();
+    private static final double[] LATENCY_PERCENTILES = {50, 99, 99.9};
+
+    private final StringBuilder sb = new StringBuilder();
     private final DecimalFormat format = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.ENGLISH));
     private final File file;
-    private boolean headerWritten;
+    private final BinaryPerformanceLog binaryLog;
+    private Writer writer;
 
     PerformanceLogWriter(File file) {
+        this(file, false);
+    }
+
+    /**
+     * Creates a PerformanceLogWriter.
+     *
+     * @param file      the csv file
+     * @param binaryLog {@code true} if the stats should be written to a binary log next to the csv file as well; the
+     *                  binary log has the same name as the csv file with a '.bin' extension
+     */
+    PerformanceLogWriter(File file, boolean binaryLog) {
         this.file = checkNotNull(file, "file can't be null");
+        this.binaryLog = binaryLog ? new BinaryPerformanceLog(BinaryPerformanceLog.getBinaryFile(file)) : null;
     }
 
-    private void writeHeader() {
-        String columns = "epoch,timestamp,operations,operations-delta,operations/second\n";
-        appendText(columns, file);
+    private void open() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        writer.write("epoch,timestamp,operations,operations-delta,operations/second,target-operations/second,"
+                + "latency-p50(us),latency-p99(us),latency-p99.9(us),latency-max(us)\n");
     }
 
     void write(long timeMillis,
                String timestamp,
                long operationsTotal,
                long operationsDelta,
-               double operationsPerSecond) {
-
-        if (!headerWritten) {
-            writeHeader();
-            headerWritten = true;
-        }
+               double operationsPerSecond,
+               double targetOperationsPerSecond,
+               Histogram latencyHistogram) {
 
         sb.setLength(0);
         // ms are expressed in epoch time after the decimal point
@@ -61,7 +91,45 @@ final class PerformanceLogWriter {
         sb.append(',').append(operationsTotal);
         sb.append(',').append(operationsDelta);
         sb.append(',').append(format.format(operationsPerSecond));
+        // a target of 0 means that the rate isn't limited
+        sb.append(',');
+        if (targetOperationsPerSecond > 0) {
+            sb.append(format.format(targetOperationsPerSecond));
+        }
+        appendLatency(latencyHistogram);
         sb.append('\n');
-        appendText(sb.toString(), file);
+
+        try {
+            if (writer == null) {
+                open();
+            }
+            writer.append(sb);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to " + file.getAbsolutePath(), e);
+        }
+
+        if (binaryLog != null) {
+            binaryLog.write(timeMillis, operationsTotal, operationsDelta, operationsPerSecond, targetOperationsPerSecond,
+                    latencyHistogram);
+        }
+    }
+
+    private void appendLatency(Histogram latencyHistogram) {
+        if (latencyHistogram == null || latencyHistogram.getTotalCount() == 0) {
+            sb.append(",,,,");
+            return;
+        }
+
+        for (double percentile : LATENCY_PERCENTILES) {
+            sb.append(',').append(format.format(NANOSECONDS.toMicros(latencyHistogram.getValueAtPercentile(percentile))));
+        }
+        sb.append(',').append(format.format(NANOSECONDS.toMicros(latencyHistogram.getMaxValue())));
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(writer);
+        closeQuietly(binaryLog);
     }
 }
@@ -16,9 +16,11 @@
 package com.hazelcast.simulator.worker.performance;
 
 import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.utils.ThreadAffinity;
 import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
 import com.hazelcast.simulator.worker.testcontainer.TestContainer;
 import com.hazelcast.simulator.worker.testcontainer.TestManager;
+import org.HdrHistogram.Histogram;
 import org.apache.log4j.Logger;
 
 import java.io.Closeable;
@@ -26,12 +28,19 @@ import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepNanos;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static com.hazelcast.simulator.utils.HistogramUtils.newEmptyHistogram;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.lang.System.nanoTime;
@@ -54,13 +63,31 @@ public class PerformanceMonitor implements Closeable {
     private final TestManager testManager;
     private final Server server;
     private final int updateIntervalSeconds;
+    private final boolean binaryLog;
 
     public PerformanceMonitor(Server server,
                               TestManager testManager,
                               int updateIntervalSeconds) {
+        this(server, testManager, updateIntervalSeconds, false);
+    }
+
+    /**
+     * Creates a PerformanceMonitor.
+     *
+     * @param server                the server to send the performance stats to the coordinator
+     * @param testManager           the TestManager with the tests to monitor
+     * @param updateIntervalSeconds the interval of the performance stats; 0 disables the monitor
+     * @param binaryLog             {@code true} if the performance stats should be written to a binary log next to the
+     *                              performance csv files
+     */
+    public PerformanceMonitor(Server server,
+                              TestManager testManager,
+                              int updateIntervalSeconds,
+                              boolean binaryLog) {
         this.testManager = testManager;
         this.server = server;
         this.updateIntervalSeconds = updateIntervalSeconds;
+        this.binaryLog = binaryLog;
         this.thread = new PerformanceMonitorThread();
         thread.setUncaughtExceptionHandler((t, e) -> LOGGER.fatal(e.getMessage(), e));
     }
@@ -93,17 +120,37 @@ public class PerformanceMonitor implements Closeable {
         private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
         private final long updateIntervalMillis;
         private final List<TestContainer> dirtyContainers = new ArrayList<>();
+        // the trackers and log writers of the tests, by test id; closed when the test has completed
+        private final Map<String, TestPerformanceTracker> trackers = new HashMap<>();
+        private final Map<String, PerformanceLogWriter> performanceLogWriters = new HashMap<>();
+        private final Map<String, ExecutionGroupLogWriter> allocationLogWriters = new HashMap<>();
+        private final Map<String, ExecutionGroupLogWriter> cpuTimeLogWriters = new HashMap<>();
+        private final Set<String> activeTestIds = new HashSet<>();
 
         private PerformanceMonitorThread() {
             super("WorkerPerformanceMonitor");
             setDaemon(true);
             this.updateIntervalMillis = SECONDS.toMillis(updateIntervalSeconds);
-            this.globalPerformanceLogWriter = new PerformanceLogWriter(new File(getUserDir(), "performance.csv"));
+            this.globalPerformanceLogWriter = new PerformanceLogWriter(new File(getUserDir(), "performance.csv"), binaryLog);
         }
 
         @Override
         public void run() {
+            try {
+                monitor();
+            } finally {
+                closeQuietly(trackers.values());
+                closeQuietly(performanceLogWriters.values());
+                closeQuietly(allocationLogWriters.values());
+                closeQuietly(cpuTimeLogWriters.values());
+                closeQuietly(globalPerformanceLogWriter);
+            }
+        }
+
+        private void monitor() {
+            ThreadAffinity.Isolation isolation = new ThreadAffinity.Isolation();
             while (!shutdown.get()) {
+                isolation.update();
                 long startNanos = nanoTime();
                 long currentTimeMillis = currentTimeMillis();
 
@@ -130,13 +177,33 @@ public class PerformanceMonitor implements Closeable {
 
         private void updateTrackers(long currentTimeMillis) {
             dirtyContainers.clear();
+            activeTestIds.clear();
 
             for (TestContainer container : testManager.getContainers()) {
+                String testId = container.getTestCase().getId();
+                activeTestIds.add(testId);
                 TestPerformanceTracker tracker = container.getTestPerformanceTracker();
+                trackers.put(testId, tracker);
                 if (tracker.update(updateIntervalMillis, currentTimeMillis)) {
                     dirtyContainers.add(container);
                 }
             }
+
+            closeCompleted(trackers);
+            closeCompleted(performanceLogWriters);
+            closeCompleted(allocationLogWriters);
+            closeCompleted(cpuTimeLogWriters);
+        }
+
+        private void closeCompleted(Map<String, ? extends Closeable> closeables) {
+            Iterator<? extends Map.Entry<String, ? extends Closeable>> iterator = closeables.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ? extends Closeable> entry = iterator.next();
+                if (!activeTestIds.contains(entry.getKey())) {
+                    closeQuietly(entry.getValue());
+                    iterator.remove();
+                }
+            }
         }
 
         private void coordinatorUpdate() {
@@ -157,14 +224,43 @@ public class PerformanceMonitor implements Closeable {
             long globalIntervalOperationCount = 0;
             long globalOperationsCount = 0;
             double globalIntervalThroughput = 0;
+            double globalTargetThroughput = 0;
+            Histogram globalLatencyHistogram = null;
 
             for (TestContainer container : dirtyContainers) {
                 TestPerformanceTracker tracker = container.getTestPerformanceTracker();
-                tracker.persist(currentTimestamp, dateString);
+                tracker.persistHistograms();
+                getPerformanceLogWriter(container.getTestCase().getId()).write(
+                        currentTimestamp,
+                        dateString,
+                        tracker.totalOperationCount(),
+                        tracker.intervalOperationCount(),
+                        tracker.intervalThroughput(),
+                        tracker.targetThroughput(),
+                        tracker.intervalLatencyHistogram());
+                getExecutionGroupLogWriter(allocationLogWriters, "allocation", "allocated-bytes", container).write(
+                        currentTimestamp,
+                        dateString,
+                        tracker.intervalAllocatedBytes(),
+                        tracker.intervalIterations());
+                getExecutionGroupLogWriter(cpuTimeLogWriters, "cpu", "cpu-time(ns)", container).write(
+                        currentTimestamp,
+                        dateString,
+                        tracker.intervalCpuTimeNanos(),
+                        tracker.intervalIterations());
 
                 globalIntervalOperationCount += tracker.intervalOperationCount();
                 globalOperationsCount += tracker.totalOperationCount();
                 globalIntervalThroughput += tracker.intervalThroughput();
+                globalTargetThroughput += tracker.targetThroughput();
+
+                Histogram intervalLatencyHistogram = tracker.intervalLatencyHistogram();
+                if (intervalLatencyHistogram != null) {
+                    if (globalLatencyHistogram == null) {
+                        globalLatencyHistogram = newEmptyHistogram(intervalLatencyHistogram);
+                    }
+                    globalLatencyHistogram.add(intervalLatencyHistogram);
+                }
             }
 
             // global performance stats
@@ -173,7 +269,31 @@ public class PerformanceMonitor implements Closeable {
                     dateString,
                     globalOperationsCount,
                     globalIntervalOperationCount,
-                    globalIntervalThroughput);
+                    globalIntervalThroughput,
+                    globalTargetThroughput,
+                    globalLatencyHistogram);
+        }
+
+        private PerformanceLogWriter getPerformanceLogWriter(String testId) {
+            PerformanceLogWriter writer = performanceLogWriters.get(testId);
+            if (writer == null) {
+                writer = new PerformanceLogWriter(new File(getUserDir(), "performance-" + testId + ".csv"), binaryLog);
+                performanceLogWriters.put(testId, writer);
+            }
+            return writer;
+        }
+
+        private ExecutionGroupLogWriter getExecutionGroupLogWriter(Map<String, ExecutionGroupLogWriter> writers,
+                                                                   String filePrefix,
+                                                                   String valueName,
+                                                                   TestContainer container) {
+            String testId = container.getTestCase().getId();
+            ExecutionGroupLogWriter writer = writers.get(testId);
+            if (writer == null) {
+                writer = new ExecutionGroupLogWriter(new File(getUserDir(), filePrefix + "-" + testId + ".csv"), valueName);
+                writers.put(testId, writer);
+            }
+            return writer;
         }
     }
 }
@@ -15,8 +15,11 @@
  */
 package com.hazelcast.simulator.worker.performance;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.hazelcast.simulator.common.TestPhase;
+import org.HdrHistogram.Histogram;
 
+import static com.hazelcast.simulator.utils.HistogramUtils.newEmptyHistogram;
 import static java.lang.Math.max;
 
 /**
@@ -25,6 +28,10 @@ import static java.lang.Math.max;
  * Has methods to combine {@link PerformanceStats} instances by adding or setting maximum values.
  *
  * There is a lot of stuff in there, but the thing most important is the operationCount (in a given time window).
+ *
+ * If the {@link PerformanceStats} contains a latency {@link Histogram}, the histograms are merged when instances are
+ * combined and the latency values are derived from the merged histogram. So the latency values are true aggregated
+ * percentiles instead of the maximum of the percentiles of the combined instances.
  */
 public class PerformanceStats {
 
@@ -39,6 +46,12 @@ public class PerformanceStats {
     private double intervalLatencyAvgNanos;
     private long intervalLatencyMaxNanos;
     private long intervalLatency999PercentileNanos;
+    // in JSON the histogram is transferred in its compressed and Base64 encoded form
+    @JsonAdapter(HistogramBase64Adapter.class)
+    private Histogram latencyHistogram;
+    // the CPU time of the execution groups which measure it, and the number of operations of these execution groups
+    private long cpuTimeNanos;
+    private long cpuTimeOperationCount;
 
     /**
      * Creates an empty {@link PerformanceStats} instance.
@@ -74,6 +87,27 @@ public class PerformanceStats {
         this.intervalLatencyMaxNanos = intervalLatencyMaxNanos;
     }
 
+    /**
+     * Creates a {@link PerformanceStats} instance with values and the latency histogram of the interval.
+     * <p>
+     * The latency values are derived from the histogram.
+     *
+     * @param operationCount     Operation count value.
+     * @param intervalThroughput Throughput value for an interval.
+     * @param totalThroughput    Total throughput value.
+     * @param latencyHistogram   the latency {@link Histogram} for an interval.
+     */
+    public PerformanceStats(long operationCount,
+                            double intervalThroughput,
+                            double totalThroughput,
+                            Histogram latencyHistogram) {
+        this.operationCount = operationCount;
+        this.intervalThroughput = intervalThroughput;
+        this.totalThroughput = totalThroughput;
+        this.latencyHistogram = latencyHistogram;
+        updateLatencyFromHistogram();
+    }
+
     public PerformanceStats(PerformanceStats original) {
         this.operationCount = original.operationCount;
         this.intervalThroughput = original.intervalThroughput;
@@ -81,6 +115,21 @@ public class PerformanceStats {
         this.intervalLatencyAvgNanos = original.intervalLatencyAvgNanos;
         this.intervalLatency999PercentileNanos = original.intervalLatency999PercentileNanos;
         this.intervalLatencyMaxNanos = original.intervalLatencyMaxNanos;
+        this.latencyHistogram = copy(original.latencyHistogram);
+        this.cpuTimeNanos = original.cpuTimeNanos;
+        this.cpuTimeOperationCount = original.cpuTimeOperationCount;
+    }
+
+    /**
+     * Sets the CPU time consumed in the interval by the timestep threads of the execution groups which measure the CPU
+     * time, and the number of operations of these execution groups in the interval.
+     *
+     * @param cpuTimeNanos          the CPU time in nanoseconds
+     * @param cpuTimeOperationCount the number of operations
+     */
+    public void setCpuTime(long cpuTimeNanos, long cpuTimeOperationCount) {
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.cpuTimeOperationCount = cpuTimeOperationCount;
     }
 
     /**
@@ -102,7 +151,8 @@ public class PerformanceStats {
      * For the total performance number and the performance per Simulator Agent, the added values should be set, so we get the
      * summed up operation count and throughput values.
      * <p>
-     * The method always sets the maximum values for latency.
+     * If both instances contain a latency histogram, the histograms are merged and the latency values are derived from the
+     * merged histogram. Otherwise the method sets the maximum values for latency.
      *
      * @param other                          {@link PerformanceStats} which should be added to this instance
      * @param addOperationCountAndThroughput {@code true} if operation count and throughput should be added,
@@ -121,7 +171,16 @@ public class PerformanceStats {
             intervalLatencyAvgNanos = other.intervalLatencyAvgNanos;
             intervalLatency999PercentileNanos = other.intervalLatency999PercentileNanos;
             intervalLatencyMaxNanos = other.intervalLatencyMaxNanos;
+
+            latencyHistogram = copy(other.latencyHistogram);
+
+            cpuTimeNanos = other.cpuTimeNanos;
+            cpuTimeOperationCount = other.cpuTimeOperationCount;
         } else {
+            // the CPU time is always summed, so the CPU time per operation is a true average
+            cpuTimeNanos += other.cpuTimeNanos;
+            cpuTimeOperationCount += other.cpuTimeOperationCount;
+
             if (addOperationCountAndThroughput) {
                 operationCount += other.operationCount;
                 intervalThroughput += other.intervalThroughput;
@@ -132,12 +191,34 @@ public class PerformanceStats {
                 totalThroughput = max(totalThroughput, other.totalThroughput);
             }
 
-            intervalLatencyAvgNanos = max(intervalLatencyAvgNanos, other.intervalLatencyAvgNanos);
-            intervalLatency999PercentileNanos = max(intervalLatency999PercentileNanos, other.intervalLatency999PercentileNanos);
-            intervalLatencyMaxNanos = max(intervalLatencyMaxNanos, other.intervalLatencyMaxNanos);
+            if (latencyHistogram != null && other.latencyHistogram != null) {
+                latencyHistogram.add(other.latencyHistogram);
+                updateLatencyFromHistogram();
+            } else {
+                intervalLatencyAvgNanos = max(intervalLatencyAvgNanos, other.intervalLatencyAvgNanos);
+                intervalLatency999PercentileNanos = max(intervalLatency999PercentileNanos,
+                        other.intervalLatency999PercentileNanos);
+                intervalLatencyMaxNanos = max(intervalLatencyMaxNanos, other.intervalLatencyMaxNanos);
+            }
         }
     }
 
+    private void updateLatencyFromHistogram() {
+        Histogram histogram = latencyHistogram;
+        intervalLatencyAvgNanos = histogram.getMean();
+        intervalLatency999PercentileNanos = histogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
+        intervalLatencyMaxNanos = histogram.getMaxValue();
+    }
+
+    private static Histogram copy(Histogram histogram) {
+        if (histogram == null) {
+            return null;
+        }
+        Histogram copy = newEmptyHistogram(histogram);
+        copy.add(histogram);
+        return copy;
+    }
+
     /**
      * Returns if the {@link PerformanceStats} instance is still empty.
      *
@@ -171,6 +252,43 @@ public class PerformanceStats {
         return intervalLatencyMaxNanos;
     }
 
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public long getCpuTimeOperationCount() {
+        return cpuTimeOperationCount;
+    }
+
+    /**
+     * Returns the CPU time per operation of the execution groups which measure the CPU time.
+     *
+     * @return the CPU time per operation in nanoseconds or -1 if the CPU time isn't measured.
+     */
+    public double getCpuTimeNanosPerOperation() {
+        return cpuTimeOperationCount == 0 ? -1 : cpuTimeNanos / (double) cpuTimeOperationCount;
+    }
+
+    /**
+     * Returns the latency histogram.
+     *
+     * @return the latency {@link Histogram} or {@code null} if no histogram is available.
+     */
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * Returns the latency at the given percentile.
+     *
+     * @param percentile the percentile, e.g. 99.9
+     * @return the latency in nanoseconds or -1 if no latency histogram is available.
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        Histogram histogram = getLatencyHistogram();
+        return histogram == null ? -1 : histogram.getValueAtPercentile(percentile);
+    }
+
     @Override
     public String toString() {
         return "PerformanceStats{"
@@ -180,6 +298,8 @@ public class PerformanceStats {
                 + ", intervalAvgLatencyNanos=" + intervalLatencyAvgNanos
                 + ", intervalLatency999PercentileNanos=" + intervalLatency999PercentileNanos
                 + ", intervalMaxLatencyNanos=" + intervalLatencyMaxNanos
+                + ", cpuTimeNanos=" + cpuTimeNanos
+                + ", cpuTimeOperationCount=" + cpuTimeOperationCount
                 + '}';
     }
 
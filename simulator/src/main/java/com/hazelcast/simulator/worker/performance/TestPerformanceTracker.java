@@ -22,13 +22,15 @@ import com.hazelcast.simulator.worker.testcontainer.TestContainer;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramLogWriter;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
-import static com.hazelcast.simulator.worker.performance.PerformanceStats.INTERVAL_LATENCY_PERCENTILE;
+import static com.hazelcast.simulator.utils.HistogramUtils.newEmptyHistogram;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -37,36 +39,52 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * Has methods to update the performance values and write them to files.
  * <p>
  * Holds a map of {@link Histogram} for each {@link com.hazelcast.simulator.probes.Probe} of a Simulator Test.
+ * In the same interval the GC pauses are recorded in a histogram, and the bytes allocated by the timestep threads
+ * are tracked per execution group, so regressions in the allocation per operation can be spotted. Execution groups can
+ * opt-in to measure the CPU time of their timestep threads as well, to report the CPU time per operation.
  *
  * This class has a shitty design due to conflated concerns due to file writing and remoting sending the histograms.
  * This is caused by the Recorder that gets reset when getIntervalHistogram is called. Meaning that writing to file
  * and sending to remote, needs to rely on the same set of Histograms to write/send.
  */
-public final class TestPerformanceTracker {
+public final class TestPerformanceTracker implements Closeable {
+
+    /**
+     * The name of the interval histogram of the GC pauses, which is written next to the histograms of the probes.
+     */
+    public static final String GC_PAUSE_HISTOGRAM_NAME = "gcPause";
 
     private static final long ONE_SECOND_IN_MILLIS = SECONDS.toMillis(1);
 
     private final TestContainer testContainer;
     private final Map<String, HistogramLogWriter> histogramLogWriterMap = new HashMap<>();
-    private final PerformanceLogWriter performanceLogWriter;
     private long lastUpdateMillis;
-    private Map<String, Histogram> intervalHistogramMap;
+    // the interval values are only updated by the PerformanceMonitor thread, but are also read by the metrics server
+    private volatile Map<String, Histogram> intervalHistogramMap;
+    // the merged interval histogram of all probes; null if there are no probes
+    private volatile Histogram intervalLatencyHistogram;
 
     private long iterationsDuringWarmup;
     private long lastIterations;
-    private double intervalLatencyAvgNanos;
-    private long intervalLatency999PercentileNanos;
-    private long intervalLatencyMaxNanos;
-    private long intervalOperationCount;
-    private long totalOperationCount;
-    private double intervalThroughput;
+    private volatile long intervalOperationCount;
+    private volatile long totalOperationCount;
+    private volatile double intervalThroughput;
     private double totalThroughput;
+    private volatile double targetThroughput;
+
+    // records the GC pauses while the test is running; null if the test hasn't started or has completed
+    private GcPauseRecorder gcPauseRecorder;
+    // the iterations, allocated bytes and CPU time per execution group at the previous update
+    private Map<String, Long> lastGroupIterations = Collections.emptyMap();
+    private Map<String, Long> lastGroupAllocatedBytes = Collections.emptyMap();
+    private Map<String, Long> lastGroupCpuTimeNanos = Collections.emptyMap();
+    private volatile Map<String, Long> intervalGroupIterations = Collections.emptyMap();
+    private volatile Map<String, Long> intervalGroupAllocatedBytes = Collections.emptyMap();
+    private volatile Map<String, Long> intervalGroupCpuTimeNanos = Collections.emptyMap();
     private long nextUpdateMillis;
 
     public TestPerformanceTracker(TestContainer container) {
         this.testContainer = container;
-        this.performanceLogWriter = new PerformanceLogWriter(
-                new File(getUserDir(), "performance-" + container.getTestCase().getId() + ".csv"));
     }
 
     /**
@@ -89,7 +107,8 @@ public final class TestPerformanceTracker {
         long runStartedMillis = testContainer.getRunStartedMillis();
 
         if (!testContainer.isRunning() || runStartedMillis == 0) {
-            // the test hasn't started
+            // the test hasn't started or has completed
+            close();
             return true;
         }
 
@@ -99,6 +118,10 @@ public final class TestPerformanceTracker {
             for (Probe probe : testContainer.getProbeMap().values()) {
                 probe.reset();
             }
+            lastGroupIterations = testContainer.iterationsPerExecutionGroup();
+            lastGroupAllocatedBytes = testContainer.allocatedBytesPerExecutionGroup();
+            lastGroupCpuTimeNanos = testContainer.cpuTimeNanosPerExecutionGroup();
+            gcPauseRecorder = new GcPauseRecorder().start();
             lastUpdateMillis = currentTimeMillis;
             nextUpdateMillis = lastUpdateMillis + updateIntervalMillis;
             return true;
@@ -110,10 +133,7 @@ public final class TestPerformanceTracker {
     private void makeUpdate(long updateIntervalMillis, long currentTimeMillis) {
         Map<String, Probe> probeMap = testContainer.getProbeMap();
         Map<String, Histogram> intervalHistograms = new HashMap<>(probeMap.size());
-
-        long intervalPercentileLatency = -1;
-        double intervalMean = -1;
-        long intervalMaxLatency = -1;
+        Histogram intervalLatencyHistogram = null;
 
         long iterations = testContainer.iteration() - iterationsDuringWarmup;
         long intervalOperationCount = iterations - lastIterations;
@@ -126,24 +146,18 @@ public final class TestPerformanceTracker {
             }
 
             HdrProbe hdrProbe = (HdrProbe) probe;
-            Histogram intervalHistogram = hdrProbe.getRecorder().getIntervalHistogram();
+            Histogram intervalHistogram = hdrProbe.getIntervalHistogram();
             intervalHistogram.setStartTimeStamp(lastUpdateMillis);
             intervalHistogram.setEndTimeStamp(currentTimeMillis);
             intervalHistograms.put(probeName, intervalHistogram);
 
-            long percentileValue = intervalHistogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
-            if (percentileValue > intervalPercentileLatency) {
-                intervalPercentileLatency = percentileValue;
-            }
-
-            double meanLatency = intervalHistogram.getMean();
-            if (meanLatency > intervalMean) {
-                intervalMean = meanLatency;
-            }
-
-            long maxValue = intervalHistogram.getMaxValue();
-            if (maxValue > intervalMaxLatency) {
-                intervalMaxLatency = maxValue;
+            if (probe.isPartOfTotalLatency()) {
+                if (intervalLatencyHistogram == null) {
+                    intervalLatencyHistogram = newEmptyHistogram(intervalHistogram);
+                    intervalLatencyHistogram.setStartTimeStamp(lastUpdateMillis);
+                    intervalLatencyHistogram.setEndTimeStamp(currentTimeMillis);
+                }
+                intervalLatencyHistogram.add(intervalHistogram);
             }
 
             if (probe.isPartOfTotalThroughput()) {
@@ -151,11 +165,16 @@ public final class TestPerformanceTracker {
             }
         }
 
-        this.intervalHistogramMap = intervalHistograms;
+        if (gcPauseRecorder != null) {
+            Histogram gcPauseHistogram = gcPauseRecorder.getIntervalHistogram();
+            gcPauseHistogram.setStartTimeStamp(lastUpdateMillis);
+            gcPauseHistogram.setEndTimeStamp(currentTimeMillis);
+            intervalHistograms.put(GC_PAUSE_HISTOGRAM_NAME, gcPauseHistogram);
+        }
+        updateExecutionGroups();
 
-        this.intervalLatency999PercentileNanos = intervalPercentileLatency;
-        this.intervalLatencyAvgNanos = intervalMean;
-        this.intervalLatencyMaxNanos = intervalMaxLatency;
+        this.intervalHistogramMap = intervalHistograms;
+        this.intervalLatencyHistogram = intervalLatencyHistogram;
 
         this.intervalOperationCount = intervalOperationCount;
         this.totalOperationCount += intervalOperationCount;
@@ -164,6 +183,7 @@ public final class TestPerformanceTracker {
         long totalTimeDelta = currentTimeMillis - testContainer.getRunStartedMillis();
 
         this.intervalThroughput = (intervalOperationCount * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDelta;
+        this.targetThroughput = testContainer.getTargetRatePerSecond();
         this.totalThroughput = (totalOperationCount * ONE_SECOND_IN_MILLIS / (double) totalTimeDelta);
 
         this.lastIterations = iterations;
@@ -171,6 +191,42 @@ public final class TestPerformanceTracker {
         this.lastUpdateMillis = currentTimeMillis;
     }
 
+    private void updateExecutionGroups() {
+        Map<String, Long> groupIterations = testContainer.iterationsPerExecutionGroup();
+        Map<String, Long> groupAllocatedBytes = testContainer.allocatedBytesPerExecutionGroup();
+        Map<String, Long> groupCpuTimeNanos = testContainer.cpuTimeNanosPerExecutionGroup();
+
+        this.intervalGroupIterations = delta(groupIterations, lastGroupIterations);
+        this.intervalGroupAllocatedBytes = delta(groupAllocatedBytes, lastGroupAllocatedBytes);
+        this.intervalGroupCpuTimeNanos = delta(groupCpuTimeNanos, lastGroupCpuTimeNanos);
+        this.lastGroupIterations = groupIterations;
+        this.lastGroupAllocatedBytes = groupAllocatedBytes;
+        this.lastGroupCpuTimeNanos = groupCpuTimeNanos;
+    }
+
+    private static Map<String, Long> delta(Map<String, Long> current, Map<String, Long> last) {
+        Map<String, Long> delta = new HashMap<>();
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            Long lastValue = last.get(entry.getKey());
+            // if there is no previous value, the threads of the execution group have started during this interval
+            if (lastValue != null) {
+                delta.put(entry.getKey(), entry.getValue() - lastValue);
+            }
+        }
+        return delta;
+    }
+
+    private static Map<String, Double> perOperation(Map<String, Long> values, Map<String, Long> iterations) {
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            Long groupIterations = iterations.get(entry.getKey());
+            if (groupIterations != null && groupIterations > 0) {
+                result.put(entry.getKey(), entry.getValue() / (double) groupIterations);
+            }
+        }
+        return result;
+    }
+
     long intervalOperationCount() {
         return intervalOperationCount;
     }
@@ -183,14 +239,68 @@ public final class TestPerformanceTracker {
         return intervalThroughput;
     }
 
-    void persist(long currentTimeMillis, String currentTimeString) {
-        performanceLogWriter.write(
-                currentTimeMillis,
-                currentTimeString,
-                totalOperationCount,
-                intervalOperationCount,
-                intervalThroughput);
+    double targetThroughput() {
+        return targetThroughput;
+    }
+
+    Histogram intervalLatencyHistogram() {
+        return intervalLatencyHistogram;
+    }
+
+    /**
+     * Returns the bytes allocated by the threads of each execution group in the last interval.
+     *
+     * @return the allocated bytes per execution group
+     */
+    Map<String, Long> intervalAllocatedBytes() {
+        return intervalGroupAllocatedBytes;
+    }
+
+    /**
+     * Returns the iterations of each execution group in the last interval.
+     *
+     * @return the iterations per execution group
+     */
+    Map<String, Long> intervalIterations() {
+        return intervalGroupIterations;
+    }
+
+    /**
+     * Returns the bytes allocated per iteration of each execution group in the last interval. Execution groups without
+     * iterations in the last interval are left out.
+     *
+     * @return the allocated bytes per operation per execution group
+     */
+    Map<String, Double> intervalAllocatedBytesPerOperation() {
+        return perOperation(intervalGroupAllocatedBytes, intervalGroupIterations);
+    }
+
+    /**
+     * Returns the CPU time consumed by the threads of each execution group in the last interval. Only the execution groups
+     * which measure the CPU time are included.
+     *
+     * @return the CPU time in nanoseconds per execution group
+     */
+    Map<String, Long> intervalCpuTimeNanos() {
+        return intervalGroupCpuTimeNanos;
+    }
+
+    /**
+     * Returns the CPU time per iteration of each execution group in the last interval. Execution groups without
+     * iterations in the last interval, or which don't measure the CPU time, are left out.
+     *
+     * @return the CPU time in nanoseconds per operation per execution group
+     */
+    Map<String, Double> intervalCpuTimeNanosPerOperation() {
+        return perOperation(intervalGroupCpuTimeNanos, intervalGroupIterations);
+    }
 
+    Map<String, Histogram> intervalHistograms() {
+        Map<String, Histogram> histograms = intervalHistogramMap;
+        return histograms == null ? Collections.<String, Histogram>emptyMap() : histograms;
+    }
+
+    void persistHistograms() {
         // dumps all the Histograms that have been collected to file.
         for (Map.Entry<String, Histogram> histogramEntry : intervalHistogramMap.entrySet()) {
             String probeName = histogramEntry.getKey();
@@ -205,13 +315,40 @@ public final class TestPerformanceTracker {
     }
 
     PerformanceStats createPerformanceStats() {
-        return new PerformanceStats(
-                totalOperationCount,
-                intervalThroughput,
-                totalThroughput,
-                intervalLatencyAvgNanos,
-                intervalLatency999PercentileNanos,
-                intervalLatencyMaxNanos);
+        PerformanceStats performanceStats;
+        if (intervalLatencyHistogram == null) {
+            performanceStats = new PerformanceStats(totalOperationCount, intervalThroughput, totalThroughput, -1, -1, -1);
+        } else {
+            performanceStats = new PerformanceStats(
+                    totalOperationCount,
+                    intervalThroughput,
+                    totalThroughput,
+                    intervalLatencyHistogram);
+        }
+
+        long cpuTimeNanos = 0;
+        long cpuTimeOperationCount = 0;
+        Map<String, Long> iterations = intervalGroupIterations;
+        for (Map.Entry<String, Long> entry : intervalGroupCpuTimeNanos.entrySet()) {
+            Long groupIterations = iterations.get(entry.getKey());
+            if (groupIterations != null) {
+                cpuTimeNanos += entry.getValue();
+                cpuTimeOperationCount += groupIterations;
+            }
+        }
+        performanceStats.setCpuTime(cpuTimeNanos, cpuTimeOperationCount);
+        return performanceStats;
+    }
+
+    /**
+     * Stops recording the GC pauses. Is called when the test has completed; can be called multiple times.
+     */
+    @Override
+    public void close() {
+        if (gcPauseRecorder != null) {
+            gcPauseRecorder.close();
+            gcPauseRecorder = null;
+        }
     }
 
     HistogramLogWriter createHistogramLogWriter(String probeName) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.metrics.MetricsSource;
+import com.hazelcast.simulator.metrics.PrometheusWriter;
+import com.hazelcast.simulator.worker.testcontainer.TestContainer;
+import com.hazelcast.simulator.worker.testcontainer.TestManager;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A {@link MetricsSource} for the performance of the tests running on a Simulator Worker.
+ *
+ * The throughput and the latencies are the values of the last interval of the {@link PerformanceMonitor}, so they are
+ * only available if the performance monitor is enabled, just like the allocated bytes per operation and the GC pauses,
+ * which are exposed as the {@value TestPerformanceTracker#GC_PAUSE_HISTOGRAM_NAME} probe. The iterations are read
+ * directly from the running tests.
+ */
+public class WorkerMetrics implements MetricsSource {
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = SECONDS.toNanos(1);
+    private static final double PERCENTILE_FACTOR = 100;
+
+    private final TestManager testManager;
+
+    public WorkerMetrics(TestManager testManager) {
+        this.testManager = testManager;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        // the exposition format requires the samples of a family to be contiguous, so the tests are iterated per family
+        Collection<TestContainer> containers = testManager.getContainers();
+
+        writer.counter("simulator_test_operations_total", "Number of operations of the test");
+        for (TestContainer container : containers) {
+            writer.sample("simulator_test_operations_total", container.getTestPerformanceTracker().totalOperationCount(),
+                    "test", testId(container));
+        }
+
+        writer.gauge("simulator_test_throughput", "Operations per second in the last interval");
+        for (TestContainer container : containers) {
+            writer.sample("simulator_test_throughput", container.getTestPerformanceTracker().intervalThroughput(),
+                    "test", testId(container));
+        }
+
+        writer.gauge("simulator_test_target_throughput", "Target operations per second; 0 if the rate isn't limited");
+        for (TestContainer container : containers) {
+            writer.sample("simulator_test_target_throughput", container.getTestPerformanceTracker().targetThroughput(),
+                    "test", testId(container));
+        }
+
+        writeExecutionGroups(writer, containers);
+        writeProbes(writer, containers);
+    }
+
+    private static void writeExecutionGroups(PrometheusWriter writer, Collection<TestContainer> containers) {
+        writer.counter("simulator_execution_group_iterations_total", "Number of iterations per execution group");
+        for (TestContainer container : containers) {
+            for (Map.Entry<String, Long> entry : container.iterationsPerExecutionGroup().entrySet()) {
+                writer.sample("simulator_execution_group_iterations_total", entry.getValue(),
+                        "test", testId(container), "group", entry.getKey());
+            }
+        }
+
+        writer.gauge("simulator_execution_group_allocated_bytes_per_operation",
+                "Bytes allocated per iteration of the execution group in the last interval");
+        for (TestContainer container : containers) {
+            TestPerformanceTracker tracker = container.getTestPerformanceTracker();
+            for (Map.Entry<String, Double> entry : tracker.intervalAllocatedBytesPerOperation().entrySet()) {
+                writer.sample("simulator_execution_group_allocated_bytes_per_operation", entry.getValue(),
+                        "test", testId(container), "group", entry.getKey());
+            }
+        }
+
+        writer.gauge("simulator_execution_group_cpu_seconds_per_operation",
+                "CPU time per iteration of the execution group in the last interval, if measured");
+        for (TestContainer container : containers) {
+            TestPerformanceTracker tracker = container.getTestPerformanceTracker();
+            for (Map.Entry<String, Double> entry : tracker.intervalCpuTimeNanosPerOperation().entrySet()) {
+                writer.sample("simulator_execution_group_cpu_seconds_per_operation", entry.getValue() / NANOS_PER_SECOND,
+                        "test", testId(container), "group", entry.getKey());
+            }
+        }
+    }
+
+    private static void writeProbes(PrometheusWriter writer, Collection<TestContainer> containers) {
+        // the histograms are taken once, so the count and the latencies of a probe belong to the same interval
+        Map<String, Map<String, Histogram>> histogramsPerTest = new LinkedHashMap<>();
+        for (TestContainer container : containers) {
+            histogramsPerTest.put(testId(container), container.getTestPerformanceTracker().intervalHistograms());
+        }
+
+        writer.gauge("simulator_probe_count", "Number of values recorded by the probe in the last interval");
+        for (Map.Entry<String, Map<String, Histogram>> test : histogramsPerTest.entrySet()) {
+            for (Map.Entry<String, Histogram> entry : test.getValue().entrySet()) {
+                writer.sample("simulator_probe_count", entry.getValue().getTotalCount(),
+                        "test", test.getKey(), "probe", entry.getKey());
+            }
+        }
+
+        writer.gauge("simulator_probe_latency_seconds", "Latency percentiles of the probe in the last interval");
+        for (Map.Entry<String, Map<String, Histogram>> test : histogramsPerTest.entrySet()) {
+            for (Map.Entry<String, Histogram> entry : test.getValue().entrySet()) {
+                writeLatencies(writer, test.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void writeLatencies(PrometheusWriter writer, String testId, String probe, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+
+        for (double quantile : QUANTILES) {
+            double seconds = histogram.getValueAtPercentile(quantile * PERCENTILE_FACTOR) / NANOS_PER_SECOND;
+            writer.sample("simulator_probe_latency_seconds", seconds,
+                    "test", testId, "probe", probe, "quantile", Double.toString(quantile));
+        }
+        writer.sample("simulator_probe_latency_seconds", histogram.getMaxValue() / NANOS_PER_SECOND,
+                "test", testId, "probe", probe, "quantile", "1.0");
+    }
+
+    private static String testId(TestContainer container) {
+        return container.getTestCase().getId();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import static java.lang.String.format;
+
+/**
+ * Selects an index with a given probability in constant time using Vose's alias method.
+ *
+ * The table consists of a column per index. A selection picks a column uniformly and then flips a biased coin to choose
+ * between the index of that column and its alias. Both decisions are made from a single random long: the high 32 bits pick
+ * the column and the low 32 bits are compared with the threshold of the column.
+ *
+ * Unlike a lookup array with a slot per 1/1000000 of probability, the probabilities are not rounded to a fixed precision
+ * and the table has the size of the number of indices, so it fits in a few cache lines.
+ */
+public final class AliasTable {
+
+    private static final int INT_BITS = 32;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+    private static final double COIN_RANGE = 1L << INT_BITS;
+
+    private final int size;
+    // the coin flip selects the column if the low bits are smaller than the threshold, otherwise the alias
+    private final long[] thresholds;
+    private final int[] aliases;
+
+    /**
+     * Creates an AliasTable.
+     *
+     * @param weights the weights of the indices; they don't need to add up to 1
+     * @throws IllegalArgumentException if there are no weights, a weight is negative, or all weights are 0
+     */
+    public AliasTable(double... weights) {
+        this.size = weights.length;
+        this.thresholds = new long[size];
+        this.aliases = new int[size];
+
+        double[] scaled = scale(weights);
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            // every column starts full; the columns which remain full after pairing need no alias
+            thresholds[i] = 1L << INT_BITS;
+            aliases[i] = i;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        pair(scaled, small, smallCount, large, largeCount);
+    }
+
+    /**
+     * Fills the columns with less than their share by pairing them with a column with more than its share.
+     */
+    private void pair(double[] scaled, int[] small, int smallCount, int[] large, int largeCount) {
+        // because of rounding errors, columns in the small list can remain; they are close to full anyway
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            thresholds[less] = (long) (scaled[less] * COIN_RANGE);
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+    }
+
+    private double[] scale(double[] weights) {
+        if (size == 0) {
+            throw new IllegalArgumentException("There should be at least one weight");
+        }
+
+        double sum = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException(format("Invalid weight %s", weight));
+            }
+            sum += weight;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("The sum of the weights can't be 0");
+        }
+
+        double[] scaled = new double[size];
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / sum;
+        }
+        return scaled;
+    }
+
+    /**
+     * Returns the number of indices.
+     *
+     * @return the number of indices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Selects an index.
+     *
+     * @param random a uniformly distributed random long, e.g. from {@link com.hazelcast.simulator.utils.FastRandom#nextLong()}
+     * @return the selected index
+     */
+    public int select(long random) {
+        int column = (int) (((random >>> INT_BITS) * size) >>> INT_BITS);
+        return (random & INT_MASK) < thresholds[column] ? column : aliases[column];
+    }
+
+    /**
+     * Returns the exact probability an index is selected with, given a uniformly distributed random long.
+     *
+     * @param index the index
+     * @return the probability of the index
+     */
+    double probability(int index) {
+        double probability = 0;
+        for (int column = 0; column < size; column++) {
+            double coin = thresholds[column] / COIN_RANGE;
+            if (column == index) {
+                probability += coin;
+            }
+            if (aliases[column] == index) {
+                probability += 1 - coin;
+            }
+        }
+        return probability / size;
+    }
+}
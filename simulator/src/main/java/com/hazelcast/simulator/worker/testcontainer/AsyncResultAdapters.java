@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.test.AsyncResultAdapter;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import static java.lang.String.format;
+
+/**
+ * The registry of {@link AsyncResultAdapter} instances.
+ *
+ * The adapters registered by the drivers using the {@link ServiceLoader} mechanism, or using
+ * {@link #register(AsyncResultAdapter)}, take precedence over the built-in adapters for {@link CompletionStage} and
+ * Reactive Streams {@code Publisher} results.
+ */
+public final class AsyncResultAdapters {
+
+    static final String PUBLISHER_CLASS_NAME = "org.reactivestreams.Publisher";
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncResultAdapters.class);
+
+    private static final List<AsyncResultAdapter> REGISTERED = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean SERVICES_LOADED = new AtomicBoolean();
+
+    private AsyncResultAdapters() {
+    }
+
+    /**
+     * Registers an adapter. An adapter registered later takes precedence over an adapter registered earlier for the same type.
+     *
+     * @param adapter the adapter to register
+     */
+    public static void register(AsyncResultAdapter adapter) {
+        REGISTERED.add(0, adapter);
+        LOGGER.info(format("Registered %s for %s results", adapter.getClass().getName(), adapter.resultType().getName()));
+    }
+
+    /**
+     * Removes a registered adapter.
+     *
+     * @param adapter the adapter to remove
+     */
+    public static void unregister(AsyncResultAdapter adapter) {
+        REGISTERED.remove(adapter);
+    }
+
+    /**
+     * Finds the adapter for a result type.
+     *
+     * @param resultType the type returned by a timestep method
+     * @return the found adapter, or {@code null} if the result type isn't asynchronous
+     */
+    public static AsyncResultAdapter find(Class<?> resultType) {
+        loadServices();
+
+        for (AsyncResultAdapter adapter : REGISTERED) {
+            if (adapter.resultType().isAssignableFrom(resultType)) {
+                return adapter;
+            }
+        }
+
+        if (CompletionStage.class.isAssignableFrom(resultType)) {
+            return CompletionStageAdapter.INSTANCE;
+        }
+
+        Class<?> publisherClass = findPublisherClass(resultType);
+        if (publisherClass != null && publisherClass.isAssignableFrom(resultType)) {
+            return new PublisherAdapter(publisherClass);
+        }
+        return null;
+    }
+
+    private static void loadServices() {
+        if (!SERVICES_LOADED.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<AsyncResultAdapter> adapters = new ArrayList<>();
+        try {
+            for (AsyncResultAdapter adapter : ServiceLoader.load(AsyncResultAdapter.class)) {
+                adapters.add(adapter);
+            }
+        } catch (ServiceConfigurationError e) {
+            LOGGER.warn("Failed to load AsyncResultAdapter services: " + e.getMessage(), e);
+        }
+        for (AsyncResultAdapter adapter : adapters) {
+            register(adapter);
+        }
+    }
+
+    private static Class<?> findPublisherClass(Class<?> resultType) {
+        ClassLoader classLoader = resultType.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        try {
+            return Class.forName(PUBLISHER_CLASS_NAME, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static final class CompletionStageAdapter implements AsyncResultAdapter<CompletionStage> {
+
+        private static final CompletionStageAdapter INSTANCE = new CompletionStageAdapter();
+
+        @Override
+        public Class<CompletionStage> resultType() {
+            return CompletionStage.class;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onComplete(CompletionStage result, BiConsumer<Object, Throwable> callback) {
+            result.whenComplete(callback);
+        }
+    }
+
+    /**
+     * Subscribes to a Reactive Streams {@code Publisher}, e.g. a Reactor {@code Mono}, and completes on its onComplete or
+     * onError signal. The Reactive Streams API isn't a dependency of Simulator, so the subscriber is a dynamic proxy. The
+     * proxy class and the methods are resolved once, so completing a result only creates the subscriber.
+     */
+    static final class PublisherAdapter implements AsyncResultAdapter<Object> {
+
+        private final Class<?> publisherClass;
+        private final Constructor<?> subscriberConstructor;
+        private final Method subscribe;
+        private final Method request;
+
+        PublisherAdapter(Class<?> publisherClass) {
+            try {
+                ClassLoader classLoader = publisherClass.getClassLoader();
+                Class<?> subscriberClass = Class.forName("org.reactivestreams.Subscriber", false, classLoader);
+                this.publisherClass = publisherClass;
+                this.subscriberConstructor = Proxy.getProxyClass(classLoader, subscriberClass)
+                        .getConstructor(InvocationHandler.class);
+                this.subscribe = publisherClass.getMethod("subscribe", subscriberClass);
+                this.request = Class.forName("org.reactivestreams.Subscription", false, classLoader)
+                        .getMethod("request", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalTestException("Incompatible Reactive Streams API: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<Object> resultType() {
+            return (Class<Object>) publisherClass;
+        }
+
+        @Override
+        public void onComplete(Object result, BiConsumer<Object, Throwable> callback) {
+            try {
+                Object subscriber = subscriberConstructor.newInstance(new Subscriber(request, callback));
+                subscribe.invoke(result, subscriber);
+            } catch (ReflectiveOperationException e) {
+                callback.accept(null, e);
+            }
+        }
+    }
+
+    private static final class Subscriber implements InvocationHandler {
+
+        private final Method request;
+        private final BiConsumer<Object, Throwable> callback;
+        private volatile Object lastValue;
+        private volatile boolean completed;
+
+        Subscriber(Method request, BiConsumer<Object, Throwable> callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "onSubscribe":
+                    request.invoke(args[0], Long.MAX_VALUE);
+                    return null;
+                case "onNext":
+                    lastValue = args[0];
+                    return null;
+                case "onError":
+                    complete(null, (Throwable) args[0]);
+                    return null;
+                case "onComplete":
+                    complete(lastValue, null);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Subscriber{callback=" + callback + '}';
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private void complete(Object value, Throwable throwable) {
+            // the Reactive Streams specification guarantees serial signals, so this doesn't need to be atomic
+            if (!completed) {
+                completed = true;
+                callback.accept(value, throwable);
+            }
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.probes.Probe;
 import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.utils.ThreadAffinity;
+import org.apache.log4j.Logger;
 
 /**
  * For more information see:
@@ -24,9 +26,12 @@ import com.hazelcast.simulator.test.TestContext;
  */
 public class JitterThread extends Thread {
 
+    private static final Logger LOGGER = Logger.getLogger(JitterThread.class);
+
     private int recordJitterThresholdNs;
     private final TestContext textContext;
     private final Probe probe;
+    private final ThreadAffinity.Isolation isolation = new ThreadAffinity.Isolation();
 
     public JitterThread(TestContext testContext, Probe probe, int recordJitterThresholdNs) {
         super("JitterThread");
@@ -40,6 +45,11 @@ public class JitterThread extends Thread {
         long startNanos = System.nanoTime();
         while (!textContext.isStopped()) {
             long endNanos = System.nanoTime();
+            if (isolation.update()) {
+                // the jitter caused by the re-pinning itself is not recorded; the probe shows the effect of the pinning
+                LOGGER.info("JitterThread moved away from the CPUs of the pinned timestep threads");
+                endNanos = System.nanoTime();
+            }
             long durationNanos = endNanos - startNanos;
             if (durationNanos >= recordJitterThresholdNs) {
                 probe.recordValue(durationNanos);
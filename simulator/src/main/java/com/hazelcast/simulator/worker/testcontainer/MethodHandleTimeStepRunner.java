@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.EmptyProbe;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.test.AsyncResultAdapter;
+import com.hazelcast.simulator.utils.FastRandom;
+import com.hazelcast.simulator.utils.ThrottlingLogger;
+import org.apache.log4j.Level;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * A {@link TimeStepRunner} which calls the timestep methods using {@link MethodHandle}s instead of generated code.
+ *
+ * This runner doesn't need a Java compiler, so it can be used when the workers run on a JRE. The generated runner is
+ * faster, since its loop only contains the code for the configured features, while this runner checks them on every
+ * iteration.
+ */
+class MethodHandleTimeStepRunner extends TimeStepRunner {
+
+    // (threadState, probe, startNanos) -> result
+    private static final MethodType INVOKER_TYPE = methodType(Object.class, Object.class, Probe.class, long.class);
+
+    private long logFrequency;
+    private long logRateMs;
+
+    public MethodHandleTimeStepRunner(Object testInstance, TimeStepModel timeStepModel, String executionGroup) {
+        super(testInstance, timeStepModel, executionGroup);
+    }
+
+    @Override
+    public void bind(PropertyBinding binding) {
+        super.bind(binding);
+        logFrequency = binding.loadAsLong(toPropertyName(executionGroup, "logFrequency"), 0);
+        logRateMs = binding.loadAsLong(toPropertyName(executionGroup, "logRateMs"), 0);
+    }
+
+    @Override
+    protected void timeStepLoop() throws Exception {
+        Invoker[] invokers = createInvokers();
+        AliasTable aliasTable = timeStepAliasTable;
+        FastRandom random = new FastRandom();
+        ThrottlingLogger throttlingLogger = logRateMs > 0 ? new ThrottlingLogger(logger, logRateMs) : null;
+
+        long iteration = 0;
+        while (!testContext.isStopped()) {
+            long startNanos = metronome.waitForNext();
+
+            Invoker invoker = invokers.length == 1 ? invokers[0] : invokers[aliasTable.select(random.nextLong())];
+            if (!invoker.invoke(startNanos)) {
+                break;
+            }
+
+            iteration++;
+            iterations.lazySet(iteration);
+            log(iteration, throttlingLogger);
+            if (iteration == maxIterations) {
+                break;
+            }
+        }
+    }
+
+    private void log(long iteration, ThrottlingLogger throttlingLogger) {
+        if (logFrequency > 0 && iteration % logFrequency == 0) {
+            logger.info("At " + logFrequency);
+        }
+        if (throttlingLogger != null && throttlingLogger.requestLogSlot()) {
+            throttlingLogger.logInSlot(Level.INFO, "At " + iteration);
+        }
+    }
+
+    private Invoker[] createInvokers() throws IllegalAccessException {
+        List<Method> methods = timeStepModel.getActiveTimeStepMethods(executionGroup);
+        Invoker[] invokers = new Invoker[methods.size()];
+        for (int i = 0; i < invokers.length; i++) {
+            invokers[i] = new Invoker(methods.get(i));
+        }
+        return invokers;
+    }
+
+    private MethodHandle createHandle(Method method) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method).bindTo(testInstance);
+
+        // every parameter is either the probe, the start time or the thread state
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?>[] invokerTypes = new Class[parameterTypes.length];
+        int[] reorder = new int[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (timeStepModel.hasStartNanosAnnotation(method, i)) {
+                invokerTypes[i] = long.class;
+                reorder[i] = 2;
+            } else if (Probe.class.isAssignableFrom(parameterTypes[i])) {
+                invokerTypes[i] = Probe.class;
+                reorder[i] = 1;
+            } else {
+                invokerTypes[i] = Object.class;
+                reorder[i] = 0;
+            }
+        }
+        handle = handle.asType(methodType(Object.class, invokerTypes));
+        return MethodHandles.permuteArguments(handle, INVOKER_TYPE, reorder);
+    }
+
+    private final class Invoker {
+
+        private final MethodHandle handle;
+        private final Probe parameterProbe;
+        private final Probe latencyProbe;
+        private final AsyncResultAdapter adapter;
+        private final Probe queueTimeProbe;
+        private final Probe serviceTimeProbe;
+
+        private Invoker(Method method) throws IllegalAccessException {
+            String name = method.getName();
+            Probe probe = probeMap.get(name);
+            boolean hasProbeParameter = hasProbeParameter(method);
+
+            this.handle = createHandle(method);
+            this.parameterProbe = probe == null ? EmptyProbe.INSTANCE : probe;
+            this.adapter = asyncResultAdapters.get(name);
+            this.queueTimeProbe = probeMap.get(name + QUEUE_TIME_PROBE_SUFFIX);
+            this.serviceTimeProbe = probeMap.get(name + SERVICE_TIME_PROBE_SUFFIX);
+            if (adapter != null) {
+                this.latencyProbe = probe;
+            } else if (hasProbeParameter) {
+                // the timestep method records the latency itself
+                this.latencyProbe = null;
+            } else {
+                this.latencyProbe = probe instanceof HdrProbe ? newThreadProbe((HdrProbe) probe) : probe;
+            }
+        }
+
+        private boolean hasProbeParameter(Method method) {
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (Probe.class.isAssignableFrom(parameterType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Invokes the timestep method.
+         *
+         * @return {@code false} if the test was stopped while waiting for an in flight permit, {@code true} otherwise
+         */
+        private boolean invoke(long startNanos) throws Exception {
+            if (adapter == null) {
+                atomicReference.lazySet(invokeHandle(startNanos));
+                if (latencyProbe != null) {
+                    latencyProbe.recordValue(System.nanoTime() - startNanos);
+                }
+                return true;
+            }
+
+            long serviceStartNanos = inFlightPermits == null ? System.nanoTime() : acquirePermit();
+            if (serviceStartNanos < 0) {
+                return false;
+            }
+            Object result;
+            try {
+                result = invokeHandle(startNanos);
+            } catch (Exception | Error e) {
+                // the call won't complete, so its permit is returned right away
+                if (inFlightPermits != null) {
+                    inFlightPermits.release();
+                }
+                throw e;
+            }
+            adapter.onComplete(result, (o, throwable) -> onComplete(startNanos, serviceStartNanos));
+            return true;
+        }
+
+        /**
+         * Acquires an in flight permit and records the time spent waiting for it.
+         *
+         * @return the time the permit was acquired, or -1 if the test was stopped while waiting
+         */
+        private long acquirePermit() throws InterruptedException {
+            long queueStartNanos = System.nanoTime();
+            if (!acquireInFlightPermit()) {
+                return -1;
+            }
+            long serviceStartNanos = System.nanoTime();
+            if (queueTimeProbe != null) {
+                queueTimeProbe.recordValue(serviceStartNanos - queueStartNanos);
+            }
+            return serviceStartNanos;
+        }
+
+        private void onComplete(long startNanos, long serviceStartNanos) {
+            long completedNanos = System.nanoTime();
+            if (latencyProbe != null) {
+                latencyProbe.recordValue(completedNanos - startNanos);
+            }
+            if (serviceTimeProbe != null) {
+                serviceTimeProbe.recordValue(completedNanos - serviceStartNanos);
+            }
+            if (inFlightPermits != null) {
+                inFlightPermits.release();
+            }
+        }
+
+        @SuppressWarnings("checkstyle:illegalcatch")
+        private Object invokeHandle(long startNanos) throws Exception {
+            try {
+                return (Object) handle.invokeExact(threadState, parameterProbe, startNanos);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
@@ -17,12 +17,15 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.RateProfile;
+import com.hazelcast.simulator.worker.metronome.RateProfileMetronome;
 import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
 
 import java.lang.reflect.Constructor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import static com.hazelcast.simulator.worker.metronome.RateProfile.isRateProfile;
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
 import static java.lang.Math.round;
 import static java.lang.String.format;
@@ -41,22 +44,19 @@ public class MetronomeSupplier implements Supplier<Metronome> {
     private final long intervalNanos;
 
     public MetronomeSupplier(String executionGroup, PropertyBinding binding, int threadCount) {
-        String property = toPropertyName(executionGroup, "interval");
-        String intervalString = binding.load(property);
-
-        long intervalNanos = intervalString == null ? 0 : parseInterval(property, intervalString);
-
-        double ratePerSecond = binding.loadAsDouble(
-                toPropertyName(executionGroup, "ratePerSecond"), 0);
-
-        if (ratePerSecond > 0) {
-            intervalNanos = round(SECONDS.toNanos(1) / ratePerSecond);
-        }
+        String ratePerSecondProperty = toPropertyName(executionGroup, "ratePerSecond");
+        boolean hasRateProfile = isRateProfile(binding.getTestCase().getProperty(ratePerSecondProperty));
+        long intervalNanos = loadIntervalNanos(executionGroup, binding, hasRateProfile);
 
         // we read the metronome up front so we doing get an unused properties error if interval is 0,
         // but the user did configure a metronome.
-        Class<SleepingMetronome> configuredMetronomeClass = binding.loadAsClass(
-                toPropertyName(executionGroup, "metronomeClass"), SleepingMetronome.class);
+        Class<? extends Metronome> defaultMetronomeClass = hasRateProfile ? RateProfileMetronome.class : SleepingMetronome.class;
+        Class<? extends Metronome> configuredMetronomeClass = binding.loadAsClass(
+                toPropertyName(executionGroup, "metronomeClass"), defaultMetronomeClass);
+        if (hasRateProfile && configuredMetronomeClass != RateProfileMetronome.class) {
+            throw new IllegalTestException(format("%s contains a rate profile, which can't be combined with metronome [%s]",
+                    ratePerSecondProperty, configuredMetronomeClass.getName()));
+        }
 
         this.intervalNanos = intervalNanos;
         if (intervalNanos == 0) {
@@ -80,11 +80,76 @@ public class MetronomeSupplier implements Supplier<Metronome> {
         }
     }
 
+    private static long loadIntervalNanos(String executionGroup, PropertyBinding binding, boolean hasRateProfile) {
+        String property = toPropertyName(executionGroup, "interval");
+        String intervalString = binding.load(property);
+
+        long intervalNanos = intervalString == null ? 0 : parseInterval(property, intervalString);
+
+        if (hasRateProfile) {
+            // the initial rate is used as interval; the RateProfileMetronome takes care of the changes in rate
+            RateProfile rateProfile = RateProfile.load(binding, executionGroup);
+            return round(SECONDS.toNanos(1) / rateProfile.getRatePerSecond(0));
+        }
+
+        double ratePerSecond = binding.loadAsDouble(toPropertyName(executionGroup, "ratePerSecond"), 0);
+        if (ratePerSecond > 0) {
+            intervalNanos = round(SECONDS.toNanos(1) / ratePerSecond);
+        }
+        return intervalNanos;
+    }
+
     public long getIntervalNanos() {
         return intervalNanos;
     }
 
-    private static long parseInterval(String property, String value) {
+    /**
+     * Returns the target rate of all threads of the execution group combined.
+     *
+     * This method is thread-safe.
+     *
+     * @return the target rate per second or 0 if the rate isn't limited.
+     */
+    public double getTargetRatePerSecond() {
+        if (masterMetronome instanceof RateProfileMetronome) {
+            return ((RateProfileMetronome) masterMetronome).getTargetRatePerSecond();
+        }
+        return intervalNanos == 0 ? 0 : SECONDS.toNanos(1) / (double) intervalNanos;
+    }
+
+    /**
+     * Checks if the rate of this execution group can be changed while running.
+     *
+     * @return true if a 'live' rate profile is configured, false otherwise.
+     */
+    public boolean hasLiveRate() {
+        return masterMetronome instanceof RateProfileMetronome && ((RateProfileMetronome) masterMetronome).isLive();
+    }
+
+    /**
+     * Changes the target rate of all threads of the execution group combined.
+     *
+     * This method is thread-safe.
+     *
+     * @param ratePerSecond the new target rate per second
+     * @throws IllegalStateException if no 'live' rate profile is configured
+     */
+    public void setTargetRatePerSecond(double ratePerSecond) {
+        if (!hasLiveRate()) {
+            throw new IllegalStateException("The rate can only be changed when a 'live' rate profile is configured");
+        }
+        ((RateProfileMetronome) masterMetronome).setTargetRatePerSecond(ratePerSecond);
+    }
+
+    /**
+     * Parses a duration with a time unit, e.g. 10ms.
+     *
+     * @param property the name of the property the value belongs to
+     * @param value    the value to parse
+     * @return the duration in nanos
+     * @throws IllegalTestException if the value isn't a valid duration
+     */
+    public static long parseInterval(String property, String value) {
         long duration;
         try {
             if (value.endsWith("ns")) {
@@ -72,7 +72,14 @@ public class Probability {
         return Double.toString(value);
     }
 
-    public static byte[] loadTimeStepProbabilityArray(Map<Method, Probability> methods, List<Method> activeMethods) {
+    /**
+     * Creates the {@link AliasTable} to select the active timestep methods with.
+     *
+     * @param methods       the probabilities of the timestep methods
+     * @param activeMethods the active timestep methods
+     * @return the AliasTable, or {@code null} if there is only a single active timestep method
+     */
+    public static AliasTable loadTimeStepAliasTable(Map<Method, Probability> methods, List<Method> activeMethods) {
         if (activeMethods.size() < 2) {
             return null;
         }
@@ -80,12 +87,10 @@ public class Probability {
         double[] methodProbabilities = new double[activeMethods.size()];
         for (int methodIndex = 0; methodIndex < activeMethods.size(); methodIndex++) {
             Method method = activeMethods.get(methodIndex);
-            Probability probability = methods.get(method);
-            methodProbabilities[methodIndex] = probability.getValue();
+            // the remainder assigned to a default method can be slightly negative due to rounding errors
+            methodProbabilities[methodIndex] = Math.max(0, methods.get(method).getValue());
         }
-
-        int[] methodRatios = methodProbabilitiesToMethodRatios(methodProbabilities);
-        return ratiosToMethodProbabilityArray(methodRatios);
+        return new AliasTable(methodProbabilities);
     }
 
     public static int[] methodProbabilitiesToMethodRatios(double... methodProbabilities) {
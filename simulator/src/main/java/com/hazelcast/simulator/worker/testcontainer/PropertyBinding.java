@@ -242,13 +242,17 @@ public class PropertyBinding {
     }
 
     public Probe getOrCreateProbe(String probeName, boolean partOfTotalThroughput) {
+        return getOrCreateProbe(probeName, partOfTotalThroughput, true);
+    }
+
+    public Probe getOrCreateProbe(String probeName, boolean partOfTotalThroughput, boolean partOfTotalLatency) {
         if (probeClass == null) {
             return EmptyProbe.INSTANCE;
         }
 
         Probe probe = probeMap.get(probeName);
         if (probe == null) {
-            probe = new HdrProbe(partOfTotalThroughput);
+            probe = new HdrProbe(partOfTotalThroughput, partOfTotalLatency);
             probeMap.put(probeName, probe);
         }
         return probe;
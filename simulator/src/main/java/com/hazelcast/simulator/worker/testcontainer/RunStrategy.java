@@ -15,6 +15,8 @@
  */
 package com.hazelcast.simulator.worker.testcontainer;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 /**
@@ -41,6 +43,65 @@ abstract class RunStrategy {
         return 0;
     }
 
+    /**
+     * Returns the number of iterations per execution group. The map is empty if the iterations aren't tracked per
+     * execution group.
+     *
+     * This method is thread-safe.
+     *
+     * @return the number of iterations per execution group.
+     */
+    public Map<String, Long> iterationsPerExecutionGroup() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the number of bytes allocated by the threads of each execution group. The map is empty if the
+     * allocations aren't tracked per execution group.
+     *
+     * This method is thread-safe.
+     *
+     * @return the allocated bytes per execution group.
+     */
+    public Map<String, Long> allocatedBytesPerExecutionGroup() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the CPU time consumed by the threads of each execution group. Only the execution groups for which the
+     * CPU time is measured are included.
+     *
+     * This method is thread-safe.
+     *
+     * @return the CPU time in nanoseconds per execution group.
+     */
+    public Map<String, Long> cpuTimeNanosPerExecutionGroup() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the target rate of all the executions combined. Value is 0 if the rate isn't limited or not tracked.
+     *
+     * This method is thread-safe.
+     *
+     * @return the target rate per second.
+     */
+    public double targetRatePerSecond() {
+        return 0;
+    }
+
+    /**
+     * Changes the target rate of all the executions combined while the test is running.
+     *
+     * This method is thread-safe.
+     *
+     * @param ratePerSecond the new target rate per second.
+     * @throws IllegalStateException if the rate can't be changed.
+     */
+    public void setTargetRatePerSecond(double ratePerSecond) {
+        throw new IllegalStateException(getClass().getSimpleName() + " doesn't support changing the rate");
+    }
+
     /**
      * Checks if the run strategy is running. This is true in case of warmup and actual running.
      *
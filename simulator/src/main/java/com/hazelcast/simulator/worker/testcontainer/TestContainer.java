@@ -36,6 +36,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -166,6 +167,30 @@ public class TestContainer {
         return runStrategy == null ? 0 : runStrategy.iterations();
     }
 
+    public Map<String, Long> iterationsPerExecutionGroup() {
+        return runStrategy == null ? Collections.<String, Long>emptyMap() : runStrategy.iterationsPerExecutionGroup();
+    }
+
+    public Map<String, Long> allocatedBytesPerExecutionGroup() {
+        return runStrategy == null ? Collections.<String, Long>emptyMap() : runStrategy.allocatedBytesPerExecutionGroup();
+    }
+
+    public Map<String, Long> cpuTimeNanosPerExecutionGroup() {
+        return runStrategy == null ? Collections.<String, Long>emptyMap() : runStrategy.cpuTimeNanosPerExecutionGroup();
+    }
+
+    public double getTargetRatePerSecond() {
+        return runStrategy == null ? 0 : runStrategy.targetRatePerSecond();
+    }
+
+    public void setTargetRatePerSecond(double ratePerSecond) {
+        if (runStrategy == null) {
+            throw new IllegalStateException(format("Can't set the rate of test [%s], it has no run strategy",
+                    testCase.getId()));
+        }
+        runStrategy.setTargetRatePerSecond(ratePerSecond);
+    }
+
     public Map<String, Probe> getProbeMap() {
         return propertyBinding.getProbeMap();
     }
@@ -205,7 +230,7 @@ public class TestContainer {
 
             taskPerPhaseMap.put(RUN, () -> {
                 if (propertyBinding.recordJitter) {
-                    Probe probe = propertyBinding.getOrCreateProbe("jitter", false);
+                    Probe probe = propertyBinding.getOrCreateProbe("jitter", false, false);
                     new JitterThread(testContext, probe, propertyBinding.recordJitterThresholdNs).start();
                 }
                 return runStrategy.getRunCallable().call();
@@ -22,6 +22,7 @@ import com.hazelcast.simulator.protocol.Server;
 import com.hazelcast.simulator.utils.ExceptionReporter;
 import com.hazelcast.simulator.drivers.Driver;
 import com.hazelcast.simulator.worker.operations.CreateTestOperation;
+import com.hazelcast.simulator.worker.operations.SetRateOperation;
 import com.hazelcast.simulator.worker.operations.StartPhaseOperation;
 import com.hazelcast.simulator.worker.operations.StopRunOperation;
 import org.apache.log4j.Logger;
@@ -91,6 +92,19 @@ public class TestManager {
         testContainer.getTestContext().stop();
     }
 
+    public void setRate(SetRateOperation op) {
+        String testId = op.getTestId();
+
+        LOGGER.info(format("%s Setting rate of %s to %s ops/s %s", DASHES, testId, op.getRatePerSecond(), DASHES));
+
+        TestContainer testContainer = tests.get(testId);
+        if (testContainer == null) {
+            throw new IllegalArgumentException(format("Could not set rate, test [%s] is not found.", testId));
+        }
+
+        testContainer.setTargetRatePerSecond(op.getRatePerSecond());
+    }
+
     public void startTestPhase(StartPhaseOperation op, Promise promise) throws Exception {
         TestPhase testPhase = op.getTestPhase();
 
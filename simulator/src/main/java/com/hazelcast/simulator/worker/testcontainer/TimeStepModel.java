@@ -34,7 +34,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
-import static com.hazelcast.simulator.worker.testcontainer.Probability.loadTimeStepProbabilityArray;
+import static com.hazelcast.simulator.worker.testcontainer.Probability.loadTimeStepAliasTable;
 import static java.lang.String.format;
 import static java.lang.reflect.Modifier.isAbstract;
 import static java.lang.reflect.Modifier.isPublic;
@@ -319,17 +319,17 @@ public class TimeStepModel {
     }
 
     /**
-     * Returns the probabilities of the {@link TimeStep} methods.
+     * Returns the {@link AliasTable} to select the {@link TimeStep} methods with.
      *
-     * The value in the byte refers to the index of the method in the {@link #getActiveTimeStepMethods(String)}.
-     * If a method has 0.5 probability and index 15, then 50% of the values in the array will point to 15.
+     * The selected index refers to the index of the method in the {@link #getActiveTimeStepMethods(String)}.
+     * If a method has 0.5 probability and index 15, then 50% of the selections will return 15.
      *
-     * @param group the name of the execution group to get the probability array for
-     * @return the array of probabilities for each {@link TimeStep} method or {@code null} if there is only a
+     * @param group the name of the execution group to get the AliasTable for
+     * @return the AliasTable for the {@link TimeStep} methods or {@code null} if there is only a
      * single {@link TimeStep} method.
      */
-    public byte[] getTimeStepProbabilityArray(String group) {
-        return executionGroups.get(group).timeStepProbabilityArray;
+    public AliasTable getTimeStepAliasTable(String group) {
+        return executionGroups.get(group).timeStepAliasTable;
     }
 
     private final class ExecutionGroup {
@@ -340,7 +340,7 @@ public class TimeStepModel {
         private Class threadStateClass;
         private Constructor threadStateConstructor;
         private Map<Method, Probability> probabilities;
-        private byte[] timeStepProbabilityArray;
+        private AliasTable timeStepAliasTable;
 
         private ExecutionGroup(String name) {
             this.name = name;
@@ -350,7 +350,7 @@ public class TimeStepModel {
             threadStateClass = loadThreadStateClass();
             threadStateConstructor = loadThreadStateConstructor();
             probabilities = loadProbabilities();
-            timeStepProbabilityArray = loadTimeStepProbabilityArray(probabilities, getActiveTimeStepMethods(name));
+            timeStepAliasTable = loadTimeStepAliasTable(probabilities, getActiveTimeStepMethods(name));
         }
 
         private Class loadThreadStateClass() {
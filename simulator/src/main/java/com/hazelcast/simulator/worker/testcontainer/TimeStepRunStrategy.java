@@ -17,15 +17,28 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.utils.ThreadAffinity;
 import com.hazelcast.simulator.utils.ThreadSpawner;
+import com.hazelcast.simulator.utils.VirtualThreads;
+import com.hazelcast.simulator.worker.metronome.BusySpinningMetronome;
 import org.apache.log4j.Logger;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
 
+import static com.hazelcast.simulator.utils.ThreadMXBeanUtils.isCpuTimeSupported;
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static com.hazelcast.simulator.worker.testcontainer.TimeStepRunnerCodeGenerator.isAsyncResultType;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -39,6 +52,10 @@ class TimeStepRunStrategy extends RunStrategy {
     private static final int DEFAULT_THREAD_COUNT = 10;
     private static final int DEFAULT_LOG_FREQUENCY = 0;
     private static final int DEFAULT_LOG_RATE_MS = 0;
+    private static final String THREAD_MODEL_PLATFORM = "platform";
+    private static final String THREAD_MODEL_VIRTUAL = "virtual";
+    private static final String RUNNER_TYPE_GENERATED = "generated";
+    private static final String RUNNER_TYPE_METHOD_HANDLE = "methodHandle";
 
     private static final Logger LOGGER = Logger.getLogger(TimeStepRunStrategy.class);
 
@@ -51,6 +68,11 @@ class TimeStepRunStrategy extends RunStrategy {
     private final Map<String, Class> runnerClassMap = new HashMap<>();
     private final Map<String, Integer> threadCountMap = new HashMap<>();
     private final Map<String, Long> runIterationMap = new HashMap<>();
+    private final Map<String, Integer> maxInFlightMap = new HashMap<>();
+    private final Map<String, Boolean> measureCpuTimeMap = new HashMap<>();
+    private final Map<String, String> affinityMap = new HashMap<>();
+    private final Map<String, Boolean> virtualThreadsMap = new HashMap<>();
+    private final List<Integer> pinnedCpus = new ArrayList<>();
     private int totalThreadCount;
 
     TimeStepRunStrategy(TestContainer testContainer) {
@@ -58,6 +80,7 @@ class TimeStepRunStrategy extends RunStrategy {
         this.testContext = testContainer.getTestContext();
         this.testInstance = testContainer.getTestInstance();
         this.timeStepModel = new TimeStepModel(testInstance.getClass(), binding);
+        checkDefaultExecutionGroupRate();
 
         for (String executionGroup : timeStepModel.getExecutionGroups()) {
             int threadCount = binding.loadAsInt(toPropertyName(executionGroup, "threadCount"), DEFAULT_THREAD_COUNT);
@@ -70,24 +93,167 @@ class TimeStepRunStrategy extends RunStrategy {
             LOGGER.info(format("executionGroup [%s] using interval: %s class=%s",
                     executionGroup, metronomeConstructor.getIntervalNanos(), metronomeConstructor.getMetronomeClass().getName()));
 
-            long logFrequency = binding.loadAsLong(toPropertyName(executionGroup, "logFrequency"), DEFAULT_LOG_FREQUENCY);
-            long logRateMs = binding.loadAsLong(toPropertyName(executionGroup, "logRateMs"), DEFAULT_LOG_RATE_MS);
-
             long iterations = binding.loadAsLong(toPropertyName(executionGroup, "iterations"), 0);
             runIterationMap.put(executionGroup, iterations);
 
-            Class runnerClass = new TimeStepRunnerCodeGenerator().compile(
-                    testContainer.getTestCase().getId(),
-                    executionGroup,
-                    timeStepModel,
-                    metronomeConstructor.getMetronomeClass(),
-                    binding.getProbeClass(),
-                    logFrequency,
-                    logRateMs,
-                    iterations > 0);
+            maxInFlightMap.put(executionGroup, loadMaxInFlight(executionGroup));
+
+            measureCpuTimeMap.put(executionGroup, loadMeasureCpuTime(executionGroup));
+
+            affinityMap.put(executionGroup, loadAffinity(executionGroup));
+            virtualThreadsMap.put(executionGroup, loadVirtualThreads(executionGroup, metronomeConstructor));
+
+            runnerClassMap.put(executionGroup, loadRunnerClass(executionGroup, metronomeConstructor));
+        }
+    }
+
+    private void checkDefaultExecutionGroupRate() {
+        Set<String> executionGroups = timeStepModel.getExecutionGroups();
+        if (!executionGroups.contains("") && binding.getTestCase().getProperty("ratePerSecond") != null) {
+            LOGGER.warn(format("ratePerSecond only applies to the default execution group, but test [%s] only has the "
+                    + "execution groups %s; use <executionGroup>RatePerSecond instead",
+                    testContext.getTestId(), executionGroups));
+        }
+    }
+
+    /**
+     * Loads the class of the timestep runners of an execution group; the 'runnerType' is either 'generated' (default)
+     * to generate and compile a runner for the execution group, or 'methodHandle' to use the
+     * {@link MethodHandleTimeStepRunner}, which doesn't need a Java compiler. If there is no Java compiler, the
+     * {@link MethodHandleTimeStepRunner} is used.
+     */
+    private Class loadRunnerClass(String executionGroup, MetronomeSupplier metronomeSupplier) {
+        String property = toPropertyName(executionGroup, "runnerType");
+        String runnerType = binding.load(property);
+        if (runnerType != null && RUNNER_TYPE_METHOD_HANDLE.equals(runnerType.trim())) {
+            LOGGER.info(format("executionGroup [%s] using the %s", executionGroup,
+                    MethodHandleTimeStepRunner.class.getSimpleName()));
+            return MethodHandleTimeStepRunner.class;
+        } else if (runnerType != null && !RUNNER_TYPE_GENERATED.equals(runnerType.trim())) {
+            throw new IllegalTestException(format("%s has an invalid value '%s', expected '%s' or '%s'",
+                    property, runnerType, RUNNER_TYPE_GENERATED, RUNNER_TYPE_METHOD_HANDLE));
+        }
+
+        if (!TimeStepRunnerCodeGenerator.isCompilerAvailable()) {
+            LOGGER.warn(format("executionGroup [%s] can't generate a runner; no Java compiler found,"
+                    + " falling back to the %s", executionGroup, MethodHandleTimeStepRunner.class.getSimpleName()));
+            return MethodHandleTimeStepRunner.class;
+        }
+        return compileRunnerClass(executionGroup, metronomeSupplier);
+    }
+
+    private Class compileRunnerClass(String executionGroup, MetronomeSupplier metronomeSupplier) {
+        long logFrequency = binding.loadAsLong(toPropertyName(executionGroup, "logFrequency"), DEFAULT_LOG_FREQUENCY);
+        long logRateMs = binding.loadAsLong(toPropertyName(executionGroup, "logRateMs"), DEFAULT_LOG_RATE_MS);
+
+        return new TimeStepRunnerCodeGenerator().compile(
+                executionGroup,
+                timeStepModel,
+                metronomeSupplier.getMetronomeClass(),
+                binding.getProbeClass(),
+                logFrequency,
+                logRateMs,
+                runIterationMap.get(executionGroup) > 0,
+                maxInFlightMap.get(executionGroup) > 0);
+    }
+
+    /**
+     * Loads if the timestep threads of an execution group should be virtual threads; the 'threadModel' is either
+     * 'platform' (default) or 'virtual'. If the JVM doesn't support virtual threads, platform threads are used.
+     */
+    private boolean loadVirtualThreads(String executionGroup, MetronomeSupplier metronomeSupplier) {
+        String property = toPropertyName(executionGroup, "threadModel");
+        String threadModel = binding.load(property);
+        if (threadModel == null || THREAD_MODEL_PLATFORM.equals(threadModel.trim())) {
+            return false;
+        } else if (!THREAD_MODEL_VIRTUAL.equals(threadModel.trim())) {
+            throw new IllegalTestException(format("%s has an invalid value '%s', expected '%s' or '%s'",
+                    property, threadModel, THREAD_MODEL_PLATFORM, THREAD_MODEL_VIRTUAL));
+        }
+
+        if (affinityMap.get(executionGroup) != null) {
+            throw new IllegalTestException(format("executionGroup [%s] can't combine virtual threads with an affinity;"
+                    + " a virtual thread would pin its carrier thread", executionGroup));
+        }
+        if (measureCpuTimeMap.get(executionGroup)) {
+            throw new IllegalTestException(format("executionGroup [%s] can't combine virtual threads with measureCpuTime;"
+                    + " the CPU time of a virtual thread can't be measured", executionGroup));
+        }
+        if (metronomeSupplier.getMetronomeClass() == BusySpinningMetronome.class) {
+            throw new IllegalTestException(format("executionGroup [%s] can't combine virtual threads with the %s;"
+                    + " a spinning virtual thread never yields its carrier thread", executionGroup,
+                    BusySpinningMetronome.class.getSimpleName()));
+        }
+        if (!VirtualThreads.isSupported()) {
+            LOGGER.warn(format("executionGroup [%s] can't use virtual threads; not supported by the JVM,"
+                    + " falling back to platform threads", executionGroup));
+            return false;
+        }
+        LOGGER.info(format("executionGroup [%s] using virtual threads", executionGroup));
+        return true;
+    }
+
+    /**
+     * Loads the CPU affinity of the timestep threads of an execution group; either a CPU list like '0-3,8',
+     * 'spread' or 'compact'. Returns null if the threads aren't pinned.
+     */
+    private String loadAffinity(String executionGroup) {
+        String property = toPropertyName(executionGroup, "affinity");
+        String affinity = binding.load(property);
+        if (affinity == null || affinity.trim().isEmpty()) {
+            return null;
+        }
+
+        affinity = affinity.trim();
+        try {
+            ThreadAffinity.checkSetting(affinity);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(property + " has an invalid value: " + e.getMessage(), e);
+        }
+        LOGGER.info(format("executionGroup [%s] using affinity: %s", executionGroup, affinity));
+        return affinity;
+    }
+
+    /**
+     * Loads if the CPU time of the timestep threads of an execution group should be measured, so the CPU time per
+     * operation can be reported.
+     */
+    private boolean loadMeasureCpuTime(String executionGroup) {
+        boolean measureCpuTime = binding.loadAsBoolean(toPropertyName(executionGroup, "measureCpuTime"), false);
+        if (measureCpuTime) {
+            if (isCpuTimeSupported()) {
+                LOGGER.info(format("executionGroup [%s] measuring CPU time per operation", executionGroup));
+            } else {
+                LOGGER.warn(format("executionGroup [%s] can't measure CPU time; not supported by the JVM", executionGroup));
+            }
+        }
+        return measureCpuTime;
+    }
+
+    /**
+     * Loads the maximum number of outstanding asynchronous calls per timestep thread of an execution group.
+     *
+     * 0 means the number of outstanding calls is unbounded.
+     */
+    private int loadMaxInFlight(String executionGroup) {
+        String property = toPropertyName(executionGroup, "maxInFlight");
+        int maxInFlight = binding.loadAsInt(property, 0);
+        if (maxInFlight < 0) {
+            throw new IllegalTestException(property + " can't be smaller than 0");
+        }
 
-            runnerClassMap.put(executionGroup, runnerClass);
+        if (maxInFlight > 0) {
+            boolean hasAsyncTimeStep = false;
+            for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
+                hasAsyncTimeStep |= isAsyncResultType(method.getReturnType());
+            }
+            if (!hasAsyncTimeStep) {
+                throw new IllegalTestException(
+                        property + " is configured, but there are no asynchronous timestep methods in that execution group");
+            }
+            LOGGER.info(format("executionGroup [%s] using maxInFlight: %d per thread", executionGroup, maxInFlight));
         }
+        return maxInFlight;
     }
 
     @Override
@@ -102,6 +268,78 @@ class TimeStepRunStrategy extends RunStrategy {
         return iterations;
     }
 
+    @Override
+    public Map<String, Long> iterationsPerExecutionGroup() {
+        TimeStepRunner[] localRunners = runners;
+        Map<String, Long> iterations = new HashMap<>();
+        if (localRunners != null) {
+            for (TimeStepRunner runner : localRunners) {
+                iterations.merge(runner.getExecutionGroup(), runner.iteration(), Long::sum);
+            }
+        }
+        return iterations;
+    }
+
+    @Override
+    public Map<String, Long> allocatedBytesPerExecutionGroup() {
+        TimeStepRunner[] localRunners = runners;
+        Map<String, Long> allocatedBytes = new HashMap<>();
+        if (localRunners != null) {
+            for (TimeStepRunner runner : localRunners) {
+                long runnerAllocatedBytes = runner.allocatedBytes();
+                if (runnerAllocatedBytes >= 0) {
+                    allocatedBytes.merge(runner.getExecutionGroup(), runnerAllocatedBytes, Long::sum);
+                }
+            }
+        }
+        return allocatedBytes;
+    }
+
+    @Override
+    public Map<String, Long> cpuTimeNanosPerExecutionGroup() {
+        TimeStepRunner[] localRunners = runners;
+        Map<String, Long> cpuTimeNanos = new HashMap<>();
+        if (localRunners != null) {
+            for (TimeStepRunner runner : localRunners) {
+                long runnerCpuTimeNanos = runner.cpuTimeNanos();
+                if (runnerCpuTimeNanos >= 0) {
+                    cpuTimeNanos.merge(runner.getExecutionGroup(), runnerCpuTimeNanos, Long::sum);
+                }
+            }
+        }
+        return cpuTimeNanos;
+    }
+
+    @Override
+    public double targetRatePerSecond() {
+        double targetRatePerSecond = 0;
+        for (MetronomeSupplier metronomeSupplier : metronomeSettingsMap.values()) {
+            targetRatePerSecond += metronomeSupplier.getTargetRatePerSecond();
+        }
+        return targetRatePerSecond;
+    }
+
+    @Override
+    public void setTargetRatePerSecond(double ratePerSecond) {
+        // the rate is only changed if it applies to the whole test, otherwise the measured throughput would be misleading
+        Set<String> fixedRateGroups = new TreeSet<>();
+        for (Map.Entry<String, MetronomeSupplier> entry : metronomeSettingsMap.entrySet()) {
+            if (!entry.getValue().hasLiveRate()) {
+                fixedRateGroups.add(entry.getKey().isEmpty() ? "<default>" : entry.getKey());
+            }
+        }
+        if (!fixedRateGroups.isEmpty()) {
+            throw new IllegalStateException(format("The rate of test [%s] can only be changed if all its execution groups "
+                    + "have a live rate profile, e.g. ratePerSecond=live:1000, but the execution groups %s don't. "
+                    + "A throughput search doesn't support tests with named execution groups",
+                    testContext.getTestId(), fixedRateGroups));
+        }
+
+        for (MetronomeSupplier metronomeSupplier : metronomeSettingsMap.values()) {
+            metronomeSupplier.setTargetRatePerSecond(ratePerSecond);
+        }
+    }
+
     @Override
     public Callable getRunCallable() {
         return () -> {
@@ -111,17 +349,41 @@ class TimeStepRunStrategy extends RunStrategy {
                 if (totalThreadCount <= 0) {
                     return null;
                 }
+                // the CPUs of pinned timestep threads are reserved, which keeps the CPUs of other tests and the auxiliary
+                // threads, like the performance monitor, away from them
                 runners = createRunners();
                 onRunStarted();
                 ThreadSpawner spawner = spawnThreads(runners);
                 spawner.awaitCompletion();
                 return null;
             } finally {
+                ThreadAffinity.release(pinnedCpus);
+                pinnedCpus.clear();
                 onRunCompleted();
             }
         };
     }
 
+    private int[] selectCpus(String executionGroup, int threadCount, BitSet availableCpus, BitSet takenCpus) {
+        String affinity = affinityMap.get(executionGroup);
+        if (affinity == null) {
+            return null;
+        }
+
+        try {
+            int[] cpus = ThreadAffinity.selectAndReserveCpus(
+                    affinity, threadCount, ThreadAffinity.cpuLayout(), availableCpus, takenCpus);
+            for (int cpu : cpus) {
+                pinnedCpus.add(cpu);
+            }
+            LOGGER.info(format("executionGroup [%s] pinning timestep threads to CPUs %s", executionGroup, Arrays.toString(cpus)));
+            return cpus;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(format("executionGroup [%s] can't use affinity '%s': %s",
+                    executionGroup, affinity, e.getMessage()), e);
+        }
+    }
+
     private ThreadSpawner spawnThreads(TimeStepRunner[] runners) {
         ThreadSpawner spawner = new ThreadSpawner(testContext.getTestId());
 
@@ -132,21 +394,32 @@ class TimeStepRunStrategy extends RunStrategy {
                 name += "-" + executionGroup;
             }
             name += "-timestepThread";
-            spawner.spawn(name, runner);
+            if (virtualThreadsMap.get(executionGroup)) {
+                spawner.spawnVirtual(name, runner);
+            } else {
+                spawner.spawn(name, runner);
+            }
         }
 
         return spawner;
     }
 
     @SuppressWarnings("unchecked")
+    private Constructor<TimeStepRunner> getRunnerConstructor(String executionGroup) throws NoSuchMethodException {
+        Class runnerClass = runnerClassMap.get(executionGroup);
+        // the generated runners take the test class, the MethodHandleTimeStepRunner takes any test instance
+        Class testClass = runnerClass == MethodHandleTimeStepRunner.class ? Object.class : testInstance.getClass();
+        return runnerClass.getConstructor(testClass, TimeStepModel.class, String.class);
+    }
+
     private TimeStepRunner[] createRunners() throws Exception {
         TimeStepRunner[] runners = new TimeStepRunner[totalThreadCount];
 
+        BitSet availableCpus = ThreadAffinity.availableCpus();
+        BitSet takenCpus = new BitSet();
         int k = 0;
         for (String executionGroup : timeStepModel.getExecutionGroups()) {
-            Class runnerClass = runnerClassMap.get(executionGroup);
-            Constructor<TimeStepRunner> constructor = runnerClass
-                    .getConstructor(testInstance.getClass(), TimeStepModel.class, String.class);
+            Constructor<TimeStepRunner> constructor = getRunnerConstructor(executionGroup);
 
             MetronomeSupplier metronomeSupplier = metronomeSettingsMap.get(executionGroup);
 
@@ -157,12 +430,22 @@ class TimeStepRunStrategy extends RunStrategy {
             }
             int threadCount = threadCountMap.get(executionGroup);
             long delayMs = SECONDS.toMillis(rampupSeconds) / threadCount;
+            int[] cpus = selectCpus(executionGroup, threadCount, availableCpus, takenCpus);
             for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
                 TimeStepRunner runner = constructor.newInstance(testInstance, timeStepModel, executionGroup);
                 runner.testContext = binding.getTestContext();
                 runner.maxIterations = runIterationMap.get(executionGroup);
                 runner.metronome = metronomeSupplier.get();
                 runner.delayMillis = delayMs * threadIndex;
+                int maxInFlight = maxInFlightMap.get(executionGroup);
+                if (maxInFlight > 0) {
+                    runner.maxInFlight = maxInFlight;
+                    runner.inFlightPermits = new Semaphore(maxInFlight);
+                }
+                runner.measureCpuTime = measureCpuTimeMap.get(executionGroup);
+                if (cpus != null) {
+                    runner.cpu = cpus[threadIndex];
+                }
                 runner.bind(binding);
                 runners[k] = runner;
                 k++;
@@ -17,29 +17,52 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.SingleWriterHdrProbe;
+import com.hazelcast.simulator.test.AsyncResultAdapter;
 import com.hazelcast.simulator.test.StopException;
 import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.utils.ThreadAffinity;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
 import org.apache.log4j.Logger;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+import static com.hazelcast.simulator.utils.ThreadMXBeanUtils.getThreadAllocatedBytes;
+import static com.hazelcast.simulator.utils.ThreadMXBeanUtils.getThreadCpuTime;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Simulator uses a code generator to generate a subclass of this class.
  */
 public abstract class TimeStepRunner implements Runnable {
 
+    // suffixes of the names of the probes that track the queueing and service time of bounded asynchronous calls
+    protected static final String QUEUE_TIME_PROBE_SUFFIX = "_queueTime";
+    protected static final String SERVICE_TIME_PROBE_SUFFIX = "_serviceTime";
+    // completion callback of asynchronous calls which are not tracked
+    protected static final BiConsumer<Object, Throwable> IGNORE_RESULT = (o, throwable) -> {
+    };
+
+    private static final long IN_FLIGHT_PERMIT_TIMEOUT_MILLIS = 100;
+    private static final long IN_FLIGHT_COMPLETION_TIMEOUT_SECONDS = 60;
+
     protected TestContext testContext;
     protected Metronome metronome;
 
@@ -49,10 +72,15 @@ public abstract class TimeStepRunner implements Runnable {
     protected final Object testInstance;
     protected final AtomicLong iterations = new AtomicLong();
     protected final TimeStepModel timeStepModel;
-    protected final byte[] timeStepProbabilities;
+    protected final AliasTable timeStepAliasTable;
     protected final Map<String, Probe> probeMap = new HashMap<>();
+    // the adapters of the timestep methods returning an asynchronous result
+    protected final Map<String, AsyncResultAdapter> asyncResultAdapters = new HashMap<>();
     protected long maxIterations;
     protected long delayMillis;
+    // limits the number of outstanding asynchronous calls of this runner; null if unbounded
+    protected Semaphore inFlightPermits;
+    protected int maxInFlight;
 
     // There are used to prevent dead code optimization
     protected final AtomicReference atomicReference = new AtomicReference();
@@ -60,12 +88,31 @@ public abstract class TimeStepRunner implements Runnable {
     protected final AtomicInteger atomicInteger = new AtomicInteger();
     protected final AtomicLong atomicLong = new AtomicLong();
 
+    // if the CPU time of the thread running this runner should be reported
+    protected boolean measureCpuTime;
+    // the CPU the thread running this runner is pinned to; -1 if it isn't pinned
+    protected int cpu = -1;
+
+    // the id of the thread running this runner; 0 as long as the runner hasn't started
+    private volatile long threadId;
+    // the bytes allocated and the CPU time of the thread running this runner when it completed; -1 as long as it is running
+    private volatile long completedAllocatedBytes = -1;
+    private volatile long completedCpuTimeNanos = -1;
+    // the thread probes used by this runner; released when the runner completes
+    private final List<SingleWriterHdrProbe> threadProbes = new ArrayList<>();
+
     public TimeStepRunner(Object testInstance, TimeStepModel timeStepModel, String executionGroup) {
         this.testInstance = testInstance;
         this.timeStepModel = timeStepModel;
         this.executionGroup = executionGroup;
         this.threadState = initThreadState();
-        this.timeStepProbabilities = timeStepModel.getTimeStepProbabilityArray(executionGroup);
+        this.timeStepAliasTable = timeStepModel.getTimeStepAliasTable(executionGroup);
+        for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
+            AsyncResultAdapter adapter = AsyncResultAdapters.find(method.getReturnType());
+            if (adapter != null) {
+                asyncResultAdapters.put(method.getName(), adapter);
+            }
+        }
     }
 
     public String getExecutionGroup() {
@@ -78,6 +125,23 @@ public abstract class TimeStepRunner implements Runnable {
             if (probe != null) {
                 probeMap.put(method.getName(), probe);
             }
+
+            if (asyncResultAdapters.containsKey(method.getName())) {
+                if (inFlightPermits != null) {
+                    bindAuxiliaryProbe(binding, method.getName() + QUEUE_TIME_PROBE_SUFFIX);
+                }
+                // with a metronome the regular probe measures from the intended start, so the service time differs
+                if (inFlightPermits != null || !(metronome instanceof EmptyMetronome)) {
+                    bindAuxiliaryProbe(binding, method.getName() + SERVICE_TIME_PROBE_SUFFIX);
+                }
+            }
+        }
+    }
+
+    private void bindAuxiliaryProbe(PropertyBinding binding, String probeName) {
+        Probe probe = binding.getOrCreateProbe(probeName, false, false);
+        if (probe != null) {
+            probeMap.put(probeName, probe);
         }
     }
 
@@ -85,8 +149,59 @@ public abstract class TimeStepRunner implements Runnable {
         return iterations.get();
     }
 
+    /**
+     * Returns the number of bytes allocated by the thread running this runner.
+     *
+     * This method is thread-safe.
+     *
+     * @return the allocated bytes, or -1 if the runner hasn't started or allocation tracking isn't supported
+     */
+    public long allocatedBytes() {
+        long id = threadId;
+        if (id == 0) {
+            return -1;
+        }
+        long allocatedBytes = getThreadAllocatedBytes(id);
+        // if the thread has completed in the meantime, the last value has been stored
+        return allocatedBytes >= 0 ? allocatedBytes : completedAllocatedBytes;
+    }
+
+    /**
+     * Returns the CPU time consumed by the thread running this runner. The CPU time is only measured if it is enabled
+     * for the execution group of the runner.
+     *
+     * This method is thread-safe.
+     *
+     * @return the CPU time in nanoseconds, or -1 if the runner hasn't started, the CPU time isn't measured for the
+     * execution group or CPU time measurement isn't supported
+     */
+    public long cpuTimeNanos() {
+        long id = threadId;
+        if (!measureCpuTime || id == 0) {
+            return -1;
+        }
+        long cpuTimeNanos = getThreadCpuTime(id);
+        // if the thread has completed in the meantime, the last value has been stored
+        return cpuTimeNanos >= 0 ? cpuTimeNanos : completedCpuTimeNanos;
+    }
+
     @Override
     public final void run() {
+        threadId = Thread.currentThread().getId();
+        if (cpu >= 0) {
+            ThreadAffinity.pinCurrentThread(cpu);
+        }
+        try {
+            doRun();
+        } finally {
+            completedAllocatedBytes = getThreadAllocatedBytes(threadId);
+            if (measureCpuTime) {
+                completedCpuTimeNanos = getThreadCpuTime(threadId);
+            }
+        }
+    }
+
+    private void doRun() {
         String threadName = Thread.currentThread().getName();
         if (delayMillis > 0) {
             try {
@@ -108,6 +223,13 @@ public abstract class TimeStepRunner implements Runnable {
             } catch (StopException e) {
                 explicitStop = true;
                 logger.info(threadName + " stopped using StopException");
+            } finally {
+                releaseThreadProbes();
+            }
+
+            if (inFlightPermits != null) {
+                // also when stopped using a StopException, the outstanding calls are recorded before the run completes
+                awaitInFlightCompletion();
             }
 
             afterRun();
@@ -147,6 +269,56 @@ public abstract class TimeStepRunner implements Runnable {
 
     protected abstract void timeStepLoop() throws Exception;
 
+    /**
+     * Gets a thread probe from the given probe for the thread running this runner. The thread probe is released when the
+     * runner completes, so it can be reused by another thread.
+     *
+     * @param probe the probe
+     * @return the thread probe
+     */
+    protected final SingleWriterHdrProbe newThreadProbe(HdrProbe probe) {
+        SingleWriterHdrProbe threadProbe = probe.newThreadProbe();
+        threadProbes.add(threadProbe);
+        return threadProbe;
+    }
+
+    private void releaseThreadProbes() {
+        for (SingleWriterHdrProbe threadProbe : threadProbes) {
+            threadProbe.release();
+        }
+        threadProbes.clear();
+    }
+
+    /**
+     * Waits till the number of outstanding asynchronous calls of this runner drops below the maxInFlight.
+     *
+     * @return {@code true} if the permit was acquired, {@code false} if the test was stopped while waiting.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    protected final boolean acquireInFlightPermit() throws InterruptedException {
+        while (!inFlightPermits.tryAcquire(IN_FLIGHT_PERMIT_TIMEOUT_MILLIS, MILLISECONDS)) {
+            if (testContext.isStopped()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits till all outstanding asynchronous calls of this runner have completed, so their latencies are recorded
+     * before the run completes.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitInFlightCompletion() throws InterruptedException {
+        if (!inFlightPermits.tryAcquire(maxInFlight, IN_FLIGHT_COMPLETION_TIMEOUT_SECONDS, SECONDS)) {
+            logger.warn(Thread.currentThread().getName() + " timed out waiting for "
+                    + (maxInFlight - inFlightPermits.availablePermits()) + " outstanding asynchronous calls");
+            return;
+        }
+        inFlightPermits.release(maxInFlight);
+    }
+
     private void afterRun() throws Exception {
         for (Method afterRunMethod : timeStepModel.getAfterRunMethods(executionGroup)) {
             run(afterRunMethod);
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.lang.String.format;
+import static java.security.AccessController.doPrivileged;
+
+/**
+ * Caches the compiled {@link TimeStepRunner} classes, so identical runners are compiled only once.
+ *
+ * The generated runner classes are named after the hash of their source code. A class is first looked up in memory; a
+ * worker compiles the same runner only once, even if it is used by multiple tests. Then the class file is looked up in the
+ * cache directory; if the directory is shared by the workers of a session, only the first worker on an agent needs to
+ * compile a runner.
+ */
+public final class TimeStepRunnerClassCache {
+
+    public static final String DIRECTORY_NAME = "timestep-worker-classes";
+
+    // the length of the hash in the class names; 64 bits makes a collision very unlikely
+    private static final int HASH_LENGTH = 16;
+
+    private static final Logger LOGGER = Logger.getLogger(TimeStepRunnerClassCache.class);
+
+    private static final ConcurrentMap<String, Class> CLASSES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<File, ClassLoader> CLASS_LOADERS = new ConcurrentHashMap<>();
+    private static volatile File directory;
+
+    private TimeStepRunnerClassCache() {
+    }
+
+    /**
+     * Sets the directory the compiled classes are stored in. If not set, a directory in the user dir is used.
+     *
+     * @param directory the directory to store the compiled classes in
+     */
+    public static void setDirectory(File directory) {
+        TimeStepRunnerClassCache.directory = directory.getAbsoluteFile();
+        LOGGER.info("Using TimeStepRunner class cache directory: " + TimeStepRunnerClassCache.directory);
+    }
+
+    static File getDirectory() {
+        File dir = directory;
+        return dir == null ? new File(getUserDir(), DIRECTORY_NAME).getAbsoluteFile() : dir;
+    }
+
+    /**
+     * Creates the class name of a runner based on the hash of its source.
+     *
+     * @param baseName the base of the class name
+     * @param source   the source of the runner
+     * @return the class name
+     */
+    static String className(String baseName, String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(baseName).append('_');
+            for (int i = 0; i < HASH_LENGTH / 2; i++) {
+                sb.append(format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets a compiled runner class from memory or from the cache directory.
+     *
+     * @param className the name of the class
+     * @return the class, or {@code null} if the class hasn't been compiled yet
+     */
+    static Class get(String className) {
+        Class clazz = CLASSES.get(className);
+        if (clazz != null) {
+            return clazz;
+        }
+
+        if (!new File(getDirectory(), className + ".class").isFile()) {
+            return null;
+        }
+        LOGGER.info(format("Loading cached TimeStepRunner class %s", className));
+        return load(className);
+    }
+
+    /**
+     * Loads a class which has just been compiled into the cache directory.
+     *
+     * @param className the name of the class
+     * @return the loaded class
+     */
+    static Class load(String className) {
+        File dir = getDirectory();
+        ClassLoader classLoader = CLASS_LOADERS.computeIfAbsent(dir, TimeStepRunnerClassCache::newClassLoader);
+        try {
+            Class clazz = classLoader.loadClass(className);
+            Class found = CLASSES.putIfAbsent(className, clazz);
+            return found == null ? clazz : found;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalTestException(e.getMessage(), e);
+        }
+    }
+
+    private static ClassLoader newClassLoader(File dir) {
+        return (ClassLoader) doPrivileged((PrivilegedAction) () -> {
+            try {
+                return new URLClassLoader(new URL[]{dir.toURI().toURL()});
+            } catch (MalformedURLException e) {
+                throw new IllegalTestException(e.getMessage(), e);
+            }
+        });
+    }
+
+    // just for testing
+    static void clear() {
+        CLASSES.clear();
+        CLASS_LOADERS.clear();
+        directory = null;
+    }
+}
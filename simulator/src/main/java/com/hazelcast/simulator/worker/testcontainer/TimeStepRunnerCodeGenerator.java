@@ -17,6 +17,9 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.SingleWriterHdrProbe;
+import com.hazelcast.simulator.test.AsyncResultAdapter;
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
 import freemarker.ext.util.WrapperTemplateModel;
@@ -27,6 +30,7 @@ import freemarker.template.Template;
 import freemarker.template.TemplateExceptionHandler;
 import freemarker.template.TemplateMethodModelEx;
 import freemarker.template.TemplateModelException;
+import org.apache.log4j.Logger;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
@@ -35,54 +39,80 @@ import javax.tools.JavaFileObject;
 import javax.tools.SimpleJavaFileObject;
 import javax.tools.ToolProvider;
 import java.io.File;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.security.PrivilegedAction;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
-import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.FileUtils.writeText;
-import static java.security.AccessController.doPrivileged;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 
 class TimeStepRunnerCodeGenerator {
 
-    private final JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
-    private final File targetDirectory = new File(getUserDir(), "timestep-worker-classes");
+    // the class name used while rendering the source; replaced by the class name based on the hash of the source
+    private static final String CLASS_NAME_PLACEHOLDER = "$TimeStepRunnerClassName$";
 
+    private static final Logger LOGGER = Logger.getLogger(TimeStepRunnerCodeGenerator.class);
+
+    private final JavaCompiler javaCompiler;
+
+    TimeStepRunnerCodeGenerator() {
+        this(ToolProvider.getSystemJavaCompiler());
+    }
+
+    TimeStepRunnerCodeGenerator(JavaCompiler javaCompiler) {
+        this.javaCompiler = javaCompiler;
+    }
+
+    static boolean isCompilerAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    @SuppressWarnings("checkstyle:parameternumber")
     Class compile(
-            String testCaseId,
             String executionGroup,
             TimeStepModel timeStepModel,
             Class<? extends Metronome> metronomeClass,
             Class<? extends Probe> probeClass,
             long logFrequency,
             long logRateMs,
-            boolean hasIterationCap) {
-
-        ensureExistingDirectory(targetDirectory);
+            boolean hasIterationCap,
+            boolean hasMaxInFlight) {
 
-        String className = timeStepModel.getTestClass().getSimpleName();
+        String baseName = timeStepModel.getTestClass().getSimpleName();
         if (!"".equals(executionGroup)) {
-            className += "_" + executionGroup + "_";
+            baseName += "_" + executionGroup + "_";
 
         }
-        className += "Runner";
+        baseName += "Runner";
 
-        if (!"".equals(testCaseId)) {
-            className += testCaseId;
+        String source = createSource(executionGroup, metronomeClass, timeStepModel, probeClass, logFrequency, logRateMs,
+                hasIterationCap, hasMaxInFlight);
+        String className = TimeStepRunnerClassCache.className(baseName, source);
+
+        Class clazz = TimeStepRunnerClassCache.get(className);
+        if (clazz != null) {
+            return clazz;
         }
-        JavaFileObject file = createJavaFileObject(
-                className, executionGroup, metronomeClass, timeStepModel, probeClass, logFrequency, logRateMs, hasIterationCap);
-        return compile(javaCompiler, file, className);
+
+        String javaCode = source.replace(CLASS_NAME_PLACEHOLDER, className);
+        File targetDirectory = ensureExistingDirectory(TimeStepRunnerClassCache.getDirectory());
+        writeText(javaCode, new File(targetDirectory, className + ".java"));
+        return compile(javaCompiler, new JavaSourceFromString(className, javaCode), className);
     }
 
     Class compile(JavaCompiler compiler, JavaFileObject file, final String className) {
@@ -91,47 +121,76 @@ class TimeStepRunnerCodeGenerator {
                     + " You need to use a JDK to run Simulator! Version found: " + System.getProperty("java.version"));
         }
 
-        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-        JavaCompiler.CompilationTask task = compiler.getTask(
-                null,
-                null,
-                diagnostics,
-                asList("-d", targetDirectory.getAbsolutePath()),
-                null,
-                singletonList(file));
-
-        boolean success = task.call();
-        if (!success) {
-            StringBuilder sb = new StringBuilder();
-            for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
-                sb.append("Error on line ")
-                        .append(diagnostic.getLineNumber())
-                        .append(" in ")
-                        .append(diagnostic)
-                        .append('\n');
+        File targetDirectory = ensureExistingDirectory(TimeStepRunnerClassCache.getDirectory());
+        // other workers could use the same directory, so the class is only moved in place when it is complete
+        File compileDirectory = createTempDirectory(targetDirectory);
+        try {
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    null,
+                    diagnostics,
+                    asList("-d", compileDirectory.getAbsolutePath()),
+                    null,
+                    singletonList(file));
+
+            boolean success = task.call();
+            if (!success) {
+                StringBuilder sb = new StringBuilder();
+                for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+                    sb.append("Error on line ")
+                            .append(diagnostic.getLineNumber())
+                            .append(" in ")
+                            .append(diagnostic)
+                            .append('\n');
+                }
+                throw new IllegalTestException(sb.toString());
             }
-            throw new IllegalTestException(sb.toString());
+
+            moveClassFiles(compileDirectory, targetDirectory);
+            LOGGER.info(format("Compiled TimeStepRunner class %s", className));
+        } finally {
+            deleteQuiet(compileDirectory);
+        }
+
+        return TimeStepRunnerClassCache.load(className);
+    }
+
+    private static File createTempDirectory(File parent) {
+        try {
+            return Files.createTempDirectory(parent.toPath(), "javac").toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        return (Class) doPrivileged((PrivilegedAction) () -> {
+    private static void moveClassFiles(File sourceDirectory, File targetDirectory) {
+        File[] files = sourceDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
             try {
-                URLClassLoader classLoader = new URLClassLoader(new URL[]{targetDirectory.toURI().toURL()});
-                return (Class) classLoader.loadClass(className);
-            } catch (ClassNotFoundException | MalformedURLException e) {
-                throw new IllegalTestException(e.getMessage(), e);
+                Files.move(file.toPath(), new File(targetDirectory, file.getName()).toPath(), ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // another worker compiled the same class concurrently
+                ignore(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        });
+        }
     }
 
-    private JavaFileObject createJavaFileObject(
-            String className,
+    @SuppressWarnings("checkstyle:parameternumber")
+    private String createSource(
             String executionGroup,
             Class<? extends Metronome> metronomeClass,
             TimeStepModel timeStepModel,
             Class<? extends Probe> probeClass,
             long logFrequency,
             long logRateMs,
-            boolean hasIterationCap) {
+            boolean hasIterationCap,
+            boolean hasMaxInFlight) {
         try {
             Configuration cfg = new Configuration(Configuration.VERSION_2_3_24);
             cfg.setClassForTemplateLoading(this.getClass(), "/");
@@ -144,13 +203,14 @@ class TimeStepRunnerCodeGenerator {
             root.put("metronomeClass", getMetronomeClass(metronomeClass));
             root.put("timeStepMethods", timeStepModel.getActiveTimeStepMethods(executionGroup));
             root.put("probeClass", getClassName(probeClass));
+            root.put("threadProbeClass", getThreadProbeClass(probeClass));
             root.put("isStartNanos", new IsStartNanos(timeStepModel));
             root.put("isAssignableFrom", new IsAssignableFromMethod());
-            root.put("isAsyncResult", new IsAsyncResult());
+            root.put("isAsyncResult", new IsAsyncResult(timeStepModel.getActiveTimeStepMethods(executionGroup)));
             root.put("Probe", Probe.class);
             root.put("threadStateClass", getClassName(timeStepModel.getThreadStateClass(executionGroup)));
             root.put("hasProbe", new HasProbeMethod());
-            root.put("className", className);
+            root.put("className", CLASS_NAME_PLACEHOLDER);
             if (logFrequency > 0) {
                 root.put("logFrequency", "" + logFrequency);
             }
@@ -163,18 +223,18 @@ class TimeStepRunnerCodeGenerator {
                 root.put("hasIterationCap", "true");
             }
 
+            if (hasMaxInFlight) {
+                root.put("maxInFlight", "true");
+            }
+
             Template temp = cfg.getTemplate("TimeStepRunner.ftl");
             StringWriter out = new StringWriter();
             temp.process(root, out);
 
-            String javaCode = out.toString();
-            File javaFile = new File(targetDirectory, className + ".java");
-
-            writeText(javaCode, javaFile);
-
-            return new JavaSourceFromString(className, javaCode);
+            return out.toString();
         } catch (Exception e) {
-            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage(), e);
+            throw new IllegalTestException(timeStepModel.getTestClass().getName() + " ran into a code generation problem: "
+                    + e.getMessage(), e);
         }
     }
 
@@ -182,6 +242,11 @@ class TimeStepRunnerCodeGenerator {
         return clazz == null ? null : clazz.getName().replace('$', '.');
     }
 
+    private static String getThreadProbeClass(Class<? extends Probe> probeClass) {
+        // each runner thread records its synchronous calls into its own single writer probe
+        return probeClass == HdrProbe.class ? getClassName(SingleWriterHdrProbe.class) : null;
+    }
+
     private static String getMetronomeClass(Class<? extends Metronome> metronomeClass) {
         if (metronomeClass == EmptyMetronome.class) {
             return null;
@@ -231,6 +296,17 @@ class TimeStepRunnerCodeGenerator {
     }
 
     private static final class IsAsyncResult implements TemplateMethodModelEx {
+
+        private final Set<String> asyncResultTypeNames = new HashSet<>();
+
+        IsAsyncResult(List<Method> timeStepMethods) {
+            for (Method method : timeStepMethods) {
+                if (isAsyncResultType(method.getReturnType())) {
+                    asyncResultTypeNames.add(method.getReturnType().getName());
+                }
+            }
+        }
+
         @Override
         public Object exec(List list) throws TemplateModelException {
             if (list.size() != 1) {
@@ -239,10 +315,17 @@ class TimeStepRunnerCodeGenerator {
             }
 
             String resultTypeName = ((SimpleScalar) list.get(0)).getAsString();
-            return "java.util.concurrent.CompletableFuture".equals(resultTypeName);
+            return asyncResultTypeNames.contains(resultTypeName);
         }
     }
 
+    /**
+     * Checks if a timestep method result is asynchronous, meaning that there is an {@link AsyncResultAdapter} for it.
+     */
+    static boolean isAsyncResultType(Class<?> resultType) {
+        return AsyncResultAdapters.find(resultType) != null;
+    }
+
     private static final class IsStartNanos implements TemplateMethodModelEx {
 
         private final TimeStepModel timeStepModel;
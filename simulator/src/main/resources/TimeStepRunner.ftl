@@ -23,7 +23,7 @@ public class ${className} extends TimeStepRunner {
     @Override
     public void timeStepLoop() throws Exception {
 <#if timeStepMethods?size gt 1>
-        final Random random = new Random();
+        final FastRandom random = new FastRandom();
 </#if>
         final AtomicLong iterations = this.iterations;
         final TestContextImpl testContext = (TestContextImpl)this.testContext;
@@ -33,9 +33,27 @@ public class ${className} extends TimeStepRunner {
 </#if>
 <#if probeClass??>
     <#list timeStepMethods as method>
+        <#if threadProbeClass?? && !hasProbe(method) && !isAsyncResult(method.getReturnType().getName())>
+        final ${threadProbeClass} ${method.name}Probe = newThreadProbe((${probeClass})probeMap.get("${method.name}"));
+        <#else>
         final ${probeClass} ${method.name}Probe = (${probeClass})probeMap.get("${method.name}");
+        </#if>
+        <#if maxInFlight?? && isAsyncResult(method.getReturnType().getName())>
+        final ${probeClass} ${method.name}QueueTimeProbe = (${probeClass})probeMap.get("${method.name}" + QUEUE_TIME_PROBE_SUFFIX);
+        </#if>
+        <#if (maxInFlight?? || metronomeClass??) && isAsyncResult(method.getReturnType().getName())>
+        final ${probeClass} ${method.name}ServiceTimeProbe = (${probeClass})probeMap.get("${method.name}" + SERVICE_TIME_PROBE_SUFFIX);
+        </#if>
     </#list>
 </#if>
+<#list timeStepMethods as method>
+    <#if isAsyncResult(method.getReturnType().getName())>
+        final AsyncResultAdapter ${method.name}Adapter = asyncResultAdapters.get("${method.name}");
+    </#if>
+</#list>
+<#if maxInFlight??>
+        final Semaphore inFlightPermits = this.inFlightPermits;
+</#if>
 <#if threadStateClass??>
         final ${threadStateClass} threadState = (${threadStateClass})this.threadState;
 </#if>
@@ -47,7 +65,7 @@ public class ${className} extends TimeStepRunner {
 </#if>
 
 <#if timeStepMethods?size gt 1>
-        final byte[] probs  = this.timeStepProbabilities;
+        final AliasTable aliasTable = this.timeStepAliasTable;
 </#if>
 
 <#if hasIterationCap??>
@@ -55,6 +73,9 @@ public class ${className} extends TimeStepRunner {
 </#if>
 
         long iteration = 0;
+<#if maxInFlight??>
+        loop:
+</#if>
         while (!testContext.isStopped()) {
 <#if probeClass??>
     <#if metronomeClass??>
@@ -73,9 +94,13 @@ public class ${className} extends TimeStepRunner {
     <#assign resultType=method.getReturnType().getName()>
     <#if hasProbe(method)|| !probeClass?? || isAsyncResult(resultType)>
             <#assign resultName = "result">
-            <#if isAsyncResult(resultType)>${resultType} ${resultName} = </#if><@timestepMethodCall m=method/>
+            <#assign suffix = "">
             <#if isAsyncResult(resultType)>
+                <@acquireInFlightPermit m=method/>
+                <@asyncMethodCall m=method/>
                 <@handleAsyncResult m=method/>
+            <#else>
+            <@timestepMethodCall m=method/>
             </#if>
     <#else>
             <@timestepMethodCall m=method/>
@@ -83,17 +108,20 @@ public class ${className} extends TimeStepRunner {
     </#if>
 <#else>
 
-            switch(probs[random.nextInt(probs.length)]){
+            switch(aliasTable.select(random.nextLong())){
     <#list timeStepMethods as method>
         <#assign index = method?counter-1>
                 case ${index}:
         <#assign resultType=method.getReturnType().getName()>
         <#if hasProbe(method) || !probeClass?? || isAsyncResult(resultType)>
             <#assign resultName = "result" + index>
+            <#assign suffix = "" + index>
             <#if isAsyncResult(resultType)>
-                    ${resultType} ${resultName} = </#if><@timestepMethodCall m=method/>
-            <#if isAsyncResult(resultType)>
+                <@acquireInFlightPermit m=method/>
+                <@asyncMethodCall m=method/>
                     <@handleAsyncResult m=method/>
+            <#else>
+                    <@timestepMethodCall m=method/>
             </#if>
         <#else>
                     <@timestepMethodCall m=method/>
@@ -125,8 +153,57 @@ public class ${className} extends TimeStepRunner {
         }
     }
 
+<#macro acquireInFlightPermit m>
+    <#if maxInFlight??>
+                    final long queueStartNanos${suffix} = System.nanoTime();
+                    if (!acquireInFlightPermit()) {
+                        break loop;
+                    }
+                    final long serviceStartNanos${suffix} = System.nanoTime();
+        <#if probeClass??>
+                    ${m.getName()}QueueTimeProbe.recordValue(serviceStartNanos${suffix} - queueStartNanos${suffix});
+        </#if>
+    <#elseif metronomeClass?? && probeClass??>
+                    final long serviceStartNanos${suffix} = System.nanoTime();
+    </#if>
+</#macro>
+
+<#macro asyncMethodCall m>
+    <#if maxInFlight??>
+                    final Object ${resultName};
+                    try {
+                        ${resultName} = <@timestepMethodCall m=m/>
+                    } catch (Throwable t) {
+                        // the call won't complete, so its permit is returned right away
+                        inFlightPermits.release();
+                        throw t;
+                    }
+    <#else>
+                    final Object ${resultName} = <@timestepMethodCall m=m/>
+    </#if>
+</#macro>
+
 <#macro handleAsyncResult m>
-                    ${resultName}.whenCompleteAsync((o, throwable) ->  ${m.getName()}Probe.recordValue(System.nanoTime() - startNanos), Runnable::run);
+    <#if maxInFlight??>
+                    ${m.getName()}Adapter.onComplete(${resultName}, (o, throwable) -> {
+        <#if probeClass??>
+                        final long completedNanos = System.nanoTime();
+                        ${m.getName()}Probe.recordValue(completedNanos - startNanos);
+                        ${m.getName()}ServiceTimeProbe.recordValue(completedNanos - serviceStartNanos${suffix});
+        </#if>
+                        inFlightPermits.release();
+                    });
+    <#elseif metronomeClass?? && probeClass??>
+                    ${m.getName()}Adapter.onComplete(${resultName}, (o, throwable) -> {
+                        final long completedNanos = System.nanoTime();
+                        ${m.getName()}Probe.recordValue(completedNanos - startNanos);
+                        ${m.getName()}ServiceTimeProbe.recordValue(completedNanos - serviceStartNanos${suffix});
+                    });
+    <#elseif probeClass??>
+                    ${m.getName()}Adapter.onComplete(${resultName}, (o, throwable) -> ${m.getName()}Probe.recordValue(System.nanoTime() - startNanos));
+    <#else>
+                    ${m.getName()}Adapter.onComplete(${resultName}, IGNORE_RESULT);
+    </#if>
 </#macro>
 
 <#macro timestepMethodCall m>
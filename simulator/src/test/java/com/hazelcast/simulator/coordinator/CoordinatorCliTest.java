@@ -35,8 +35,10 @@ import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class CoordinatorCliTest {
 
@@ -254,6 +256,107 @@ public class CoordinatorCliTest {
         assertEquals(42, testSuite.getDurationSeconds());
     }
 
+    @Test
+    public void testInit_throughputSearch() {
+        args.add("--throughputSearch");
+        args.add("1000..20000");
+        args.add("--latencySlo");
+        args.add("99.9=5ms");
+        args.add("--searchStepDuration");
+        args.add("1m");
+        args.add(testSuiteFile.getAbsolutePath());
+
+        CoordinatorCli cli = createCoordinatorCli();
+
+        ThroughputSearchSettings settings = cli.testSuite.getThroughputSearchSettings();
+        assertEquals(1000, settings.getMinRatePerSecond(), 0.1);
+        assertEquals(20000, settings.getMaxRatePerSecond(), 0.1);
+        assertEquals(99.9, settings.getLatencyPercentile(), 0.001);
+        assertEquals(MILLISECONDS.toNanos(5), settings.getMaxLatencyNanos());
+        assertEquals(MINUTES.toSeconds(1), settings.getStepSeconds());
+    }
+
+    @Test
+    public void testInit_withoutThroughputSearch() {
+        args.add(testSuiteFile.getAbsolutePath());
+
+        CoordinatorCli cli = createCoordinatorCli();
+
+        assertNull(cli.testSuite.getThroughputSearchSettings());
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_invalidRange() {
+        args.add("--throughputSearch");
+        args.add("20000..1000");
+        args.add(testSuiteFile.getAbsolutePath());
+
+        createCoordinatorCli();
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_invalidLatencySlo() {
+        args.add("--throughputSearch");
+        args.add("1000..20000");
+        args.add("--latencySlo");
+        args.add("99.9=5");
+        args.add(testSuiteFile.getAbsolutePath());
+
+        createCoordinatorCli();
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_accuracyZero() {
+        args.add("--throughputSearch");
+        args.add("1000..20000");
+        args.add("--latencySlo");
+        args.add("99.9=5ms");
+        args.add("--searchAccuracy");
+        args.add("0");
+        args.add(testSuiteFile.getAbsolutePath());
+
+        createCoordinatorCli();
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_accuracyOne() {
+        args.add("--throughputSearch");
+        args.add("1000..20000");
+        args.add("--latencySlo");
+        args.add("99.9=5ms");
+        args.add("--searchAccuracy");
+        args.add("1");
+        args.add(testSuiteFile.getAbsolutePath());
+
+        createCoordinatorCli();
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_withFixedRate() {
+        throughputSearchWithRateProperty("ratePerSecond");
+    }
+
+    @Test(expected = CommandLineExitException.class)
+    public void testInit_throughputSearch_withFixedGroupRate() {
+        throughputSearchWithRateProperty("putRatePerSecond");
+    }
+
+    private void throughputSearchWithRateProperty(String property) {
+        File rateTestSuiteFile = new File("rate_test.properties").getAbsoluteFile();
+        writeText(format("class=Foobar%n%s=100%n", property), rateTestSuiteFile);
+        args.add("--throughputSearch");
+        args.add("1000..20000");
+        args.add("--latencySlo");
+        args.add("99.9=5ms");
+        args.add(rateTestSuiteFile.getAbsolutePath());
+
+        try {
+            createCoordinatorCli();
+        } finally {
+            deleteQuiet(rateTestSuiteFile);
+        }
+    }
+
     @Test(expected = CommandLineExitException.class)
     public void testInit_noWorkersDefined() {
         args.add("--members");
@@ -1,15 +1,20 @@
 package com.hazelcast.simulator.coordinator;
 
+import com.hazelcast.simulator.metrics.PrometheusWriter;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.workerAddress;
 import static com.hazelcast.simulator.worker.performance.PerformanceStats.aggregateAll;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
@@ -106,6 +111,117 @@ public class PerformanceStatsCollectorTest {
         assertEquals(2800, performanceStats.getIntervalLatencyMaxNanos());
     }
 
+    @Test
+    public void testGet_withHistograms() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+        update(a2w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 5000)));
+
+        PerformanceStats interval = performanceStatsCollector.get(TEST_CASE_ID_1, false);
+        assertEquals(2000, interval.getLatencyHistogram().getTotalCount());
+        assertEquals(MICROSECONDS.toNanos(100), interval.getLatencyPercentileNanos(50), 1000);
+        assertEquals(MICROSECONDS.toNanos(5000), interval.getLatencyPercentileNanos(99), 10000);
+
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(2000, 100, 100, newHistogram(1000, 100)));
+
+        PerformanceStats total = performanceStatsCollector.get(TEST_CASE_ID_1, true);
+        assertEquals(3000, total.getLatencyHistogram().getTotalCount());
+        assertEquals(MICROSECONDS.toNanos(100), total.getLatencyPercentileNanos(50), 1000);
+    }
+
+    @Test
+    public void testGet_aggregated_isNotChangedByLaterUpdates() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+
+        PerformanceStats total = performanceStatsCollector.get(TEST_CASE_ID_1, true);
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(2000, 100, 100, newHistogram(1000, 100)));
+
+        assertEquals(1000, total.getOperationCount());
+        assertEquals(1000, total.getLatencyHistogram().getTotalCount());
+        assertEquals(2000, performanceStatsCollector.get(TEST_CASE_ID_1, true).getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testDetailedPerformanceInfo_withHistograms() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+
+        String performance = performanceStatsCollector.detailedPerformanceInfo(TEST_CASE_ID_1, SECONDS.toMillis(10));
+        assertTrue(performance.contains("99.99th"));
+        assertTrue(performance.contains("max"));
+    }
+
+    @Test
+    public void testFormatPerformanceNumbers_withHistograms() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+
+        String performance = performanceStatsCollector.formatIntervalPerformanceNumbers(TEST_CASE_ID_1);
+        assertTrue(performance.contains("(50th)"));
+        assertTrue(performance.contains("(99.9th)"));
+    }
+
+    @Test
+    public void testCollect() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+        update(a2w1, TEST_CASE_ID_1, new PerformanceStats(3000, 300, 100, newHistogram(1000, 5000)));
+
+        PrometheusWriter writer = new PrometheusWriter();
+        performanceStatsCollector.collect(writer);
+        String metrics = writer.toString();
+
+        assertTrue(metrics.contains("simulator_test_operations_total{test=\"testCase1\"} 4000\n"));
+        assertTrue(metrics.contains("simulator_test_throughput{test=\"testCase1\"} 400.0\n"));
+        assertTrue(metrics.contains("simulator_test_latency_seconds{test=\"testCase1\",quantile=\"0.5\"} 1.0"));
+        assertTrue(metrics.contains("simulator_test_latency_seconds{test=\"testCase1\",quantile=\"0.99\"} 0.005"));
+        assertTrue(metrics.contains("simulator_worker_test_throughput{test=\"testCase1\",worker=\"" + a2w1 + "\"} 300.0\n"));
+    }
+
+    @Test
+    public void testCollect_multipleTests_familiesAreContiguous() {
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 100, 100, newHistogram(1000, 100)));
+        update(a1w1, TEST_CASE_ID_2, new PerformanceStats(2000, 200, 100, newHistogram(1000, 200)));
+
+        PrometheusWriter writer = new PrometheusWriter();
+        performanceStatsCollector.collect(writer);
+
+        List<String> families = new ArrayList<String>();
+        for (String line : writer.toString().split("\n")) {
+            if (line.startsWith("# HELP ")) {
+                continue;
+            }
+            String family = line.startsWith("# TYPE ") ? line.split(" ")[2] : line.split("[{ ]")[0];
+            if (families.isEmpty() || !families.get(families.size() - 1).equals(family)) {
+                assertFalse("samples of family " + family + " are not contiguous", families.contains(family));
+                families.add(family);
+            }
+        }
+
+        String metrics = writer.toString();
+        assertEquals(1, countOccurrences(metrics, "# TYPE simulator_test_operations_total "));
+        assertTrue(metrics.contains("simulator_test_operations_total{test=\"testCase1\"} 1000\n"
+                + "simulator_test_operations_total{test=\"testCase2\"} 2000\n"));
+    }
+
+    private static int countOccurrences(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testCollect_onEmptyContainer() {
+        PrometheusWriter writer = new PrometheusWriter();
+        emptyPerformanceStatsCollector.collect(writer);
+
+        assertFalse(writer.toString().contains("{test="));
+    }
+
+    private static Histogram newHistogram(int count, long latencyMicros) {
+        Histogram histogram = new Histogram(MICROSECONDS.toNanos(1), HOURS.toNanos(1), 3);
+        histogram.recordValueWithCount(MICROSECONDS.toNanos(latencyMicros), count);
+        return histogram;
+    }
+
     @Test
     public void testGet_testCaseNotFound() {
         PerformanceStats performanceStats = performanceStatsCollector.get("notFound", true);
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThroughputSearchTest {
+
+    private final File reportFile = new File("throughput-search-test.csv").getAbsoluteFile();
+    private final ThroughputSearchSettings settings = new ThroughputSearchSettings()
+            .setMinRatePerSecond(1000)
+            .setMaxRatePerSecond(100000)
+            .setLatencyPercentile(99)
+            .setMaxLatencyNanos(MILLISECONDS.toNanos(10))
+            .setAccuracy(0.01);
+
+    @After
+    public void after() {
+        deleteQuiet(reportFile);
+    }
+
+    @Test
+    public void testRun() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+
+        // the latency explodes above 42000 ops/s
+        double result = search.run(rate -> search.newStep(rate, rate, histogram(rate <= 42000 ? 1 : 50)));
+
+        assertTrue("result was " + result, result <= 42000);
+        assertTrue("result was " + result, result >= 42000 * (1 - settings.getAccuracy()));
+        assertEquals(result, search.getMaxSustainableRatePerSecond(), 0.1);
+        assertEquals(1000, search.getSteps().get(0).getTargetRatePerSecond(), 0.1);
+        assertEquals(100000, search.getSteps().get(1).getTargetRatePerSecond(), 0.1);
+    }
+
+    @Test
+    public void testRun_whenMinRateNotSustainable() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+
+        double result = search.run(rate -> search.newStep(rate, rate, histogram(50)));
+
+        assertEquals(0, result, 0.1);
+        assertEquals(1, search.getSteps().size());
+    }
+
+    @Test
+    public void testRun_whenMaxRateSustainable() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+
+        double result = search.run(rate -> search.newStep(rate, rate, histogram(1)));
+
+        assertEquals(100000, result, 0.1);
+        assertEquals(2, search.getSteps().size());
+    }
+
+    @Test
+    public void testRun_whenAborted() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+
+        double result = search.run(rate -> rate > 1000 ? null : search.newStep(rate, rate, histogram(1)));
+
+        assertEquals(1000, result, 0.1);
+        assertEquals(1, search.getSteps().size());
+    }
+
+    @Test
+    public void testNewStep() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+
+        assertTrue(search.newStep(1000, 1000, histogram(9)).isSustainable());
+        assertFalse(search.newStep(1000, 1000, histogram(11)).isSustainable());
+        assertFalse(search.newStep(1000, 1000, null).isSustainable());
+        assertFalse(search.newStep(1000, 1000, new Histogram(3)).isSustainable());
+        // the achieved rate is too low
+        assertFalse(search.newStep(1000, 900, histogram(1)).isSustainable());
+    }
+
+    @Test
+    public void testWriteReport() {
+        ThroughputSearch search = new ThroughputSearch(settings);
+        search.run(rate -> search.newStep(rate, rate, histogram(rate <= 42000 ? 1 : 50)));
+
+        search.writeReport(reportFile);
+
+        String[] lines = fileAsText(reportFile).split("\n");
+        assertEquals(search.getSteps().size() + 3, lines.length);
+        assertTrue(lines[1].startsWith("# max sustainable operations/second: "));
+        assertTrue(lines[2].startsWith("target-operations/second,operations/second,latency-p50(us)"));
+        // the steps are sorted by rate
+        assertTrue(lines[3].startsWith("1000,1000,"));
+        assertTrue(lines[3].endsWith(",true"));
+        assertTrue(lines[lines.length - 1].startsWith("100000,100000,"));
+        assertTrue(lines[lines.length - 1].endsWith(",false"));
+    }
+
+    private static Histogram histogram(long latencyMs) {
+        Histogram histogram = new Histogram(3);
+        histogram.recordValueWithCount(MILLISECONDS.toNanos(latencyMs), 100);
+        return histogram;
+    }
+}
@@ -0,0 +1,38 @@
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HotspotKeyGeneratorTest {
+
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void testNext() {
+        HotspotKeyGenerator generator = new HotspotKeyGenerator(new FastRandom(), 1000, 100, 0.8);
+
+        int hot = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long key = generator.next();
+            assertTrue(key >= 0 && key < 1000);
+            if (key < 100) {
+                hot++;
+            }
+        }
+
+        assertEquals(0.8, (double) hot / ITERATIONS, 0.01);
+    }
+
+    @Test
+    public void testNext_whenAllKeysHot() {
+        HotspotKeyGenerator generator = new HotspotKeyGenerator(new FastRandom(), 10, 10, 0.5);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long key = generator.next();
+            assertTrue(key >= 0 && key < 10);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.common.TestCase;
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.PropertyBindingSupport.bindAll;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyGeneratorSettingsTest {
+
+    private final KeyGeneratorSettings settings = new KeyGeneratorSettings();
+
+    @Test
+    public void testDefaults() {
+        assertEquals(KeyDistribution.UNIFORM, settings.distribution);
+        assertEquals(KeyGeneratorSettings.DEFAULT_KEY_COUNT, settings.keyCount);
+        assertTrue(settings.newGenerator() instanceof UniformKeyGenerator);
+    }
+
+    @Test
+    public void testBindFromTestProperties() {
+        TestCase testCase = new TestCase("id")
+                .setProperty("keys.distribution", "scrambled_zipfian")
+                .setProperty("keys.keyCount", 5000)
+                .setProperty("keys.zipfianConstant", 0.8);
+
+        SomeTest test = new SomeTest();
+        bindAll(test, testCase);
+
+        assertEquals(KeyDistribution.SCRAMBLED_ZIPFIAN, test.keys.distribution);
+        assertEquals(5000, test.keys.keyCount);
+        assertEquals(0.8, test.keys.zipfianConstant, 0);
+        assertTrue(test.keys.newGenerator() instanceof ScrambledZipfianKeyGenerator);
+    }
+
+    @Test
+    public void testNewGenerator_allDistributions() {
+        settings.keyCount = 100;
+        for (KeyDistribution distribution : KeyDistribution.values()) {
+            settings.distribution = distribution;
+            KeyGenerator generator = settings.newGenerator();
+            for (int i = 0; i < 10000; i++) {
+                long key = generator.next();
+                assertTrue(distribution + " generated " + key, key >= 0 && key < settings.keyCount);
+            }
+        }
+    }
+
+    @Test
+    public void testNewGenerator_singleKey() {
+        settings.keyCount = 1;
+        for (KeyDistribution distribution : KeyDistribution.values()) {
+            settings.distribution = distribution;
+            KeyGenerator generator = settings.newGenerator();
+            for (int i = 0; i < 100; i++) {
+                assertEquals(distribution.toString(), 0, generator.next());
+            }
+        }
+    }
+
+    @Test
+    public void testNextInsertKey() {
+        settings.keyCount = 10;
+
+        assertEquals(10, settings.nextInsertKey());
+        assertEquals(11, settings.nextInsertKey());
+        assertEquals(10, settings.currentKeyCount());
+    }
+
+    @Test
+    public void testAcknowledgeInsert_onlyContiguousKeysAreCounted() {
+        settings.keyCount = 10;
+        long key1 = settings.nextInsertKey();
+        long key2 = settings.nextInsertKey();
+        long key3 = settings.nextInsertKey();
+
+        settings.acknowledgeInsert(key2);
+        assertEquals(10, settings.currentKeyCount());
+
+        settings.acknowledgeInsert(key1);
+        assertEquals(12, settings.currentKeyCount());
+
+        settings.acknowledgeInsert(key3);
+        assertEquals(13, settings.currentKeyCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcknowledgeInsert_whenNotInserted() {
+        settings.keyCount = 10;
+
+        settings.acknowledgeInsert(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcknowledgeInsert_whenAlreadyAcknowledged() {
+        settings.keyCount = 10;
+        long key = settings.nextInsertKey();
+        settings.acknowledgeInsert(key);
+
+        settings.acknowledgeInsert(key);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewGenerator_whenDistributionNull() {
+        settings.distribution = null;
+        settings.newGenerator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewGenerator_whenKeyCountZero() {
+        settings.keyCount = 0;
+        settings.newGenerator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewGenerator_whenZipfianConstantOne() {
+        settings.distribution = KeyDistribution.ZIPFIAN;
+        settings.zipfianConstant = 1;
+        settings.newGenerator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewGenerator_whenHotsetFractionTooLarge() {
+        settings.hotsetFraction = 1.1;
+        settings.newGenerator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewGenerator_whenHotOperationFractionNegative() {
+        settings.hotOperationFraction = -0.1;
+        settings.newGenerator();
+    }
+
+    public static class SomeTest {
+        public KeyGeneratorSettings keys = new KeyGeneratorSettings();
+    }
+}
@@ -0,0 +1,68 @@
+package com.hazelcast.simulator.keys;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatestKeyGeneratorTest {
+
+    private final KeyGeneratorSettings settings = new KeyGeneratorSettings();
+
+    @Test
+    public void testNext_latestKeyIsMostPopular() {
+        settings.distribution = KeyDistribution.LATEST;
+        settings.keyCount = 100;
+        KeyGenerator generator = settings.newGenerator();
+
+        assertMostPopularKey(generator, 99, 100);
+    }
+
+    @Test
+    public void testNext_followsInsertedKeys() {
+        settings.distribution = KeyDistribution.LATEST;
+        settings.keyCount = 100;
+        KeyGenerator generator = settings.newGenerator();
+
+        for (int i = 0; i < 50; i++) {
+            settings.acknowledgeInsert(settings.nextInsertKey());
+        }
+
+        assertMostPopularKey(generator, 149, 150);
+    }
+
+    @Test
+    public void testNext_ignoresUnacknowledgedInsertedKeys() {
+        settings.distribution = KeyDistribution.LATEST;
+        settings.keyCount = 100;
+        KeyGenerator generator = settings.newGenerator();
+
+        long firstKey = settings.nextInsertKey();
+        for (int i = 0; i < 49; i++) {
+            settings.acknowledgeInsert(settings.nextInsertKey());
+        }
+
+        // the insert of the first key hasn't completed, so none of the inserted keys can be returned
+        assertMostPopularKey(generator, 99, 150);
+
+        settings.acknowledgeInsert(firstKey);
+        assertMostPopularKey(generator, 149, 150);
+    }
+
+    private static void assertMostPopularKey(KeyGenerator generator, long expectedKey, int keyCount) {
+        long[] counts = new long[keyCount];
+        for (int i = 0; i < 100000; i++) {
+            long key = generator.next();
+            assertTrue(key >= 0 && key < keyCount);
+            counts[(int) key]++;
+        }
+
+        int mostPopular = 0;
+        for (int key = 1; key < keyCount; key++) {
+            if (counts[key] > counts[mostPopular]) {
+                mostPopular = key;
+            }
+        }
+        assertEquals(expectedKey, mostPopular);
+    }
+}
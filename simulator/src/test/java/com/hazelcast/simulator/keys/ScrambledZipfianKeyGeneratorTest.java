@@ -0,0 +1,39 @@
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import org.junit.Test;
+
+import static com.hazelcast.simulator.keys.ScrambledZipfianKeyGenerator.fnvHash64;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScrambledZipfianKeyGeneratorTest {
+
+    private static final int KEY_COUNT = 1000;
+
+    @Test
+    public void testFnvHash64() {
+        assertEquals(fnvHash64(42), fnvHash64(42));
+        assertTrue(fnvHash64(0) != fnvHash64(1));
+    }
+
+    @Test
+    public void testNext_mostPopularKeyIsScrambled() {
+        ZipfianKeyGenerator zipfian = new ZipfianKeyGenerator(
+                new FastRandom(), KEY_COUNT, 0.99, ZipfianKeyGenerator.zeta(KEY_COUNT, 0.99));
+        ScrambledZipfianKeyGenerator generator = new ScrambledZipfianKeyGenerator(zipfian);
+
+        long[] counts = new long[KEY_COUNT];
+        for (int i = 0; i < 100000; i++) {
+            counts[(int) generator.next()]++;
+        }
+
+        int mostPopular = 0;
+        for (int key = 1; key < KEY_COUNT; key++) {
+            if (counts[key] > counts[mostPopular]) {
+                mostPopular = key;
+            }
+        }
+        assertEquals((fnvHash64(0) & Long.MAX_VALUE) % KEY_COUNT, mostPopular);
+    }
+}
@@ -0,0 +1,18 @@
+package com.hazelcast.simulator.keys;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SequentialKeyGeneratorTest {
+
+    @Test
+    public void testNext_wrapsAround() {
+        SequentialKeyGenerator generator = new SequentialKeyGenerator(3, 1);
+
+        assertEquals(1, generator.next());
+        assertEquals(2, generator.next());
+        assertEquals(0, generator.next());
+        assertEquals(1, generator.next());
+    }
+}
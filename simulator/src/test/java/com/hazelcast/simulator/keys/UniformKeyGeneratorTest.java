@@ -0,0 +1,29 @@
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UniformKeyGeneratorTest {
+
+    private static final int KEY_COUNT = 10;
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void testNext() {
+        UniformKeyGenerator generator = new UniformKeyGenerator(new FastRandom(), KEY_COUNT);
+
+        long[] counts = new long[KEY_COUNT];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long key = generator.next();
+            assertTrue(key >= 0 && key < KEY_COUNT);
+            counts[(int) key]++;
+        }
+
+        for (long count : counts) {
+            assertEquals((double) ITERATIONS / KEY_COUNT, count, ITERATIONS / KEY_COUNT * 0.1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hazelcast.simulator.keys;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZipfianKeyGeneratorTest {
+
+    private static final int KEY_COUNT = 1000;
+    private static final int ITERATIONS = 1000000;
+
+    @Test
+    public void testNext_isSkewed() {
+        ZipfianKeyGenerator generator = newGenerator(KEY_COUNT);
+
+        long[] counts = count(generator);
+
+        // with theta 0.99, key 0 is about twice as popular as key 1 and about 10 times as popular as key 9
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[9]);
+        assertEquals(2.0, (double) counts[0] / counts[1], 0.2);
+        assertEquals(9.8, (double) counts[0] / counts[9], 1.5);
+    }
+
+    @Test
+    public void testNext_followsZipfianProbability() {
+        ZipfianKeyGenerator generator = newGenerator(KEY_COUNT);
+        double zeta = ZipfianKeyGenerator.zeta(KEY_COUNT, 0.99);
+
+        long[] counts = count(generator);
+
+        assertEquals(1 / zeta, (double) counts[0] / ITERATIONS, 0.01);
+    }
+
+    @Test
+    public void testGrow() {
+        ZipfianKeyGenerator generator = newGenerator(10);
+
+        generator.grow(KEY_COUNT);
+
+        assertEquals(KEY_COUNT, generator.getKeyCount());
+        long[] counts = count(generator);
+        double zeta = ZipfianKeyGenerator.zeta(KEY_COUNT, 0.99);
+        assertEquals(1 / zeta, (double) counts[0] / ITERATIONS, 0.01);
+    }
+
+    @Test
+    public void testGrow_whenSmaller_thenIgnored() {
+        ZipfianKeyGenerator generator = newGenerator(KEY_COUNT);
+
+        generator.grow(10);
+
+        assertEquals(KEY_COUNT, generator.getKeyCount());
+    }
+
+    private static ZipfianKeyGenerator newGenerator(long keyCount) {
+        return new ZipfianKeyGenerator(new FastRandom(), keyCount, 0.99, ZipfianKeyGenerator.zeta(keyCount, 0.99));
+    }
+
+    private static long[] count(KeyGenerator generator) {
+        long[] counts = new long[KEY_COUNT];
+        for (int i = 0; i < ITERATIONS; i++) {
+            counts[(int) generator.next()]++;
+        }
+        return counts;
+    }
+}
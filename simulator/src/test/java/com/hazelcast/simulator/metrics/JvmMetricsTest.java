@@ -0,0 +1,45 @@
+package com.hazelcast.simulator.metrics;
+
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+
+public class JvmMetricsTest {
+
+    private static final Pattern ALLOCATED_BYTES = Pattern.compile("jvm_allocated_bytes_total (\\d+)\n");
+
+    private final JvmMetrics metrics = new JvmMetrics();
+
+    @Test
+    public void testAllocatedBytes_increases() {
+        long first = allocatedBytes();
+
+        byte[][] garbage = new byte[100][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[1024];
+        }
+
+        long second = allocatedBytes();
+        assertTrue("expected " + second + " >= " + (first + 100 * 1024), second >= first + garbage.length * 1024);
+    }
+
+    @Test
+    public void testAllocationRate() {
+        allocatedBytes();
+        PrometheusWriter writer = new PrometheusWriter();
+        metrics.collect(writer);
+
+        assertTrue(writer.toString().contains("# TYPE jvm_allocation_rate_bytes_per_second gauge\n"));
+    }
+
+    private long allocatedBytes() {
+        PrometheusWriter writer = new PrometheusWriter();
+        metrics.collect(writer);
+        Matcher matcher = ALLOCATED_BYTES.matcher(writer.toString());
+        assertTrue(writer.toString(), matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+}
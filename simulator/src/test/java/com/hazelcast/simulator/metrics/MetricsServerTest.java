@@ -0,0 +1,84 @@
+package com.hazelcast.simulator.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Scanner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsServerTest {
+
+    private MetricsServer server;
+
+    @After
+    public void after() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        server = new MetricsServer(0,
+                writer -> writer.gauge("foo", "The foo").sample("foo", 42),
+                new JvmMetrics()).start();
+
+        HttpURLConnection connection = openConnection();
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertEquals(PrometheusWriter.CONTENT_TYPE, connection.getContentType());
+
+        String body = read(connection);
+        assertTrue(body.contains("foo 42\n"));
+        assertTrue(body.contains("# TYPE jvm_gc_collections_total counter\n"));
+        assertTrue(body.contains("jvm_memory_heap_used_bytes "));
+    }
+
+    @Test
+    public void testGet_failingSourceIsSkipped() throws Exception {
+        server = new MetricsServer(0,
+                writer -> {
+                    throw new IllegalStateException("expected");
+                },
+                writer -> writer.gauge("foo", "The foo").sample("foo", 42)).start();
+
+        HttpURLConnection connection = openConnection();
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertTrue(read(connection).contains("foo 42\n"));
+    }
+
+    @Test
+    public void testPost() throws Exception {
+        server = new MetricsServer(0).start();
+
+        HttpURLConnection connection = openConnection();
+        connection.setRequestMethod("POST");
+        assertEquals(HttpURLConnection.HTTP_BAD_METHOD, connection.getResponseCode());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetPort_notStarted() {
+        new MetricsServer(0).getPort();
+    }
+
+    @Test
+    public void testClose_notStarted() {
+        new MetricsServer(0).close();
+    }
+
+    private HttpURLConnection openConnection() throws Exception {
+        URL url = new URL("http://localhost:" + server.getPort() + MetricsServer.PATH);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static String read(HttpURLConnection connection) throws Exception {
+        try (InputStream in = connection.getInputStream(); Scanner scanner = new Scanner(in, UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
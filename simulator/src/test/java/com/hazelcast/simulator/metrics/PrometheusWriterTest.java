@@ -0,0 +1,60 @@
+package com.hazelcast.simulator.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrometheusWriterTest {
+
+    private final PrometheusWriter writer = new PrometheusWriter();
+
+    @Test
+    public void testSample() {
+        writer.gauge("foo", "The foo")
+                .sample("foo", 10)
+                .sample("foo", 1.5, "a", "x", "b", "y");
+
+        assertEquals("# HELP foo The foo\n"
+                + "# TYPE foo gauge\n"
+                + "foo 10\n"
+                + "foo{a=\"x\",b=\"y\"} 1.5\n", writer.toString());
+    }
+
+    @Test
+    public void testFamily_declaredTwice() {
+        writer.counter("foo_total", "The foo").sample("foo_total", 1, "a", "x");
+        writer.counter("foo_total", "The foo").sample("foo_total", 2, "a", "y");
+
+        assertEquals("# HELP foo_total The foo\n"
+                + "# TYPE foo_total counter\n"
+                + "foo_total{a=\"x\"} 1\n"
+                + "foo_total{a=\"y\"} 2\n", writer.toString());
+    }
+
+    @Test
+    public void testEscaping() {
+        writer.gauge("foo", "back\\slash\nnewline").sample("foo", 1, "a", "quote\"back\\slash\nnewline");
+
+        assertEquals("# HELP foo back\\\\slash\\nnewline\n"
+                + "# TYPE foo gauge\n"
+                + "foo{a=\"quote\\\"back\\\\slash\\nnewline\"} 1\n", writer.toString());
+    }
+
+    @Test
+    public void testFormatDouble() {
+        assertEquals("NaN", PrometheusWriter.formatDouble(Double.NaN));
+        assertEquals("+Inf", PrometheusWriter.formatDouble(Double.POSITIVE_INFINITY));
+        assertEquals("-Inf", PrometheusWriter.formatDouble(Double.NEGATIVE_INFINITY));
+        assertEquals("0.25", PrometheusWriter.formatDouble(0.25));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSample_undeclared() {
+        writer.sample("foo", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSample_oddLabels() {
+        writer.gauge("foo", "The foo").sample("foo", 1, "a");
+    }
+}
@@ -13,5 +13,6 @@ public class EmptyProbeTest {
         emptyProbe.done(10);
         emptyProbe.recordValue(20);
         assertFalse(emptyProbe.isPartOfTotalThroughput());
+        assertFalse(emptyProbe.isPartOfTotalLatency());
     }
 }
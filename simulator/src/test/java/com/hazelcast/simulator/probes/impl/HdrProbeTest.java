@@ -11,6 +11,8 @@ import static com.hazelcast.simulator.probes.impl.HdrProbe.HIGHEST_TRACKABLE_VAL
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -30,6 +32,18 @@ public class HdrProbeTest {
         assertFalse(tmpProbe.isPartOfTotalThroughput());
     }
 
+    @Test
+    public void testConstructor_defaultIsLatencyProbe() {
+        Probe tmpProbe = new HdrProbe(false);
+        assertTrue(tmpProbe.isPartOfTotalLatency());
+    }
+
+    @Test
+    public void testConstructor_noLatencyProbe() {
+        Probe tmpProbe = new HdrProbe(false, false);
+        assertFalse(tmpProbe.isPartOfTotalLatency());
+    }
+
     @Test
     public void testDone_withExternalStarted() throws InterruptedException {
         long expectedLatency = TimeUnit.SECONDS.toNanos(2);
@@ -116,4 +130,105 @@ public class HdrProbeTest {
 
         assertEquals(3, probe.getRecorder().getIntervalHistogram().getTotalCount());
     }
+
+    @Test
+    public void testThreadProbe_inheritsSettings() {
+        SingleWriterHdrProbe threadProbe = new HdrProbe(true, false).newThreadProbe();
+
+        assertTrue(threadProbe.isPartOfTotalThroughput());
+        assertFalse(threadProbe.isPartOfTotalLatency());
+    }
+
+    @Test
+    public void testGetIntervalHistogram_mergesThreadProbes() {
+        SingleWriterHdrProbe threadProbe1 = probe.newThreadProbe();
+        SingleWriterHdrProbe threadProbe2 = probe.newThreadProbe();
+
+        long value1 = MILLISECONDS.toNanos(200);
+        long value2 = MILLISECONDS.toNanos(500);
+        long value3 = MILLISECONDS.toNanos(1000);
+
+        probe.recordValue(value1);
+        threadProbe1.recordValue(value2);
+        threadProbe2.recordValue(value3);
+
+        assertHistogramContent(probe.getIntervalHistogram(), value1, value2, value3);
+
+        // the interval is reset after it has been retrieved
+        threadProbe1.recordValue(value1);
+        assertHistogramContent(probe.getIntervalHistogram(), value1);
+    }
+
+    @Test
+    public void testThreadProbe_whenTooLarge() {
+        SingleWriterHdrProbe threadProbe = probe.newThreadProbe();
+        threadProbe.recordValue(HIGHEST_TRACKABLE_VALUE * 2);
+
+        assertHistogramContent(probe.getIntervalHistogram(), HIGHEST_TRACKABLE_VALUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThreadProbe_done_withZero() {
+        probe.newThreadProbe().done(0);
+    }
+
+    @Test
+    public void testReset_resetsThreadProbes() {
+        SingleWriterHdrProbe threadProbe = probe.newThreadProbe();
+        probe.recordValue(1);
+        threadProbe.recordValue(2);
+
+        probe.reset();
+
+        assertEquals(0, probe.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testNewThreadProbe_whenMaxReached_thenRecordsIntoSharedRecorder() {
+        HdrProbe boundedProbe = new HdrProbe(false, true, 2);
+        SingleWriterHdrProbe threadProbe1 = boundedProbe.newThreadProbe();
+        SingleWriterHdrProbe threadProbe2 = boundedProbe.newThreadProbe();
+        SingleWriterHdrProbe sharedProbe1 = boundedProbe.newThreadProbe();
+        SingleWriterHdrProbe sharedProbe2 = boundedProbe.newThreadProbe();
+
+        assertNotSame(threadProbe1, threadProbe2);
+        assertSame(sharedProbe1, sharedProbe2);
+        assertEquals(2, boundedProbe.threadProbeCount());
+
+        threadProbe1.recordValue(1000);
+        threadProbe2.recordValue(2000);
+        sharedProbe1.recordValue(3000);
+        sharedProbe2.recordValue(4000);
+        assertHistogramContent(boundedProbe.getIntervalHistogram(), 1000, 2000, 3000, 4000);
+    }
+
+    @Test
+    public void testNewThreadProbe_reusesReleasedProbe() {
+        HdrProbe boundedProbe = new HdrProbe(false, true, 1);
+        SingleWriterHdrProbe threadProbe = boundedProbe.newThreadProbe();
+        threadProbe.recordValue(1000);
+
+        threadProbe.release();
+        // releasing twice must not hand out the probe to two threads
+        threadProbe.release();
+
+        assertSame(threadProbe, boundedProbe.newThreadProbe());
+        assertNotSame(threadProbe, boundedProbe.newThreadProbe());
+        assertEquals(1, boundedProbe.threadProbeCount());
+
+        // the values recorded before the release are still reported
+        threadProbe.recordValue(2000);
+        assertHistogramContent(boundedProbe.getIntervalHistogram(), 1000, 2000);
+    }
+
+    @Test
+    public void testRelease_sharedProbe() {
+        HdrProbe boundedProbe = new HdrProbe(false, true, 0);
+        SingleWriterHdrProbe sharedProbe = boundedProbe.newThreadProbe();
+
+        sharedProbe.release();
+
+        assertSame(sharedProbe, boundedProbe.newThreadProbe());
+        assertEquals(0, boundedProbe.threadProbeCount());
+    }
 }
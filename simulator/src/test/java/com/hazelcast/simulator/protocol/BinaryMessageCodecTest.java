@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.protocol.operation.LogOperation;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
+import com.hazelcast.simulator.worker.operations.StartPhaseOperation;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.HdrHistogram.Histogram;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.junit.Test;
+
+import javax.jms.Message;
+import javax.jms.Session;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.protocol.BinaryMessageCodec.readVarLong;
+import static com.hazelcast.simulator.protocol.BinaryMessageCodec.unZigZag;
+import static com.hazelcast.simulator.protocol.BinaryMessageCodec.writeVarLong;
+import static com.hazelcast.simulator.protocol.BinaryMessageCodec.zigZag;
+import static com.hazelcast.simulator.utils.HistogramUtils.encodeToBase64;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BinaryMessageCodecTest {
+
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+
+    @Test
+    public void testEncodeDecode_message() throws Exception {
+        Session session = mock(Session.class);
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+
+        Message message = codec.encode(session, asList((SimulatorOperation) new LogOperation("foo"),
+                new StartPhaseOperation(TestPhase.RUN, "testId")));
+        // makes the message readable, like sending does
+        ((ActiveMQBytesMessage) message).reset();
+
+        List<SimulatorOperation> decoded = codec.decode(message);
+
+        assertEquals(2, decoded.size());
+        assertEquals("foo", ((LogOperation) decoded.get(0)).getMessage());
+        StartPhaseOperation startPhaseOperation = (StartPhaseOperation) decoded.get(1);
+        assertEquals(TestPhase.RUN, startPhaseOperation.getTestPhase());
+        assertEquals("testId", startPhaseOperation.getTestId());
+    }
+
+    @Test
+    public void testPerformanceStatsOperation_withHistogram() {
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1000);
+        }
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        op.addPerformanceStats("test1", new PerformanceStats(1000, 100, 50, histogram));
+
+        PerformanceStats decoded = roundTrip(op).getPerformanceStats().get("test1");
+
+        assertEquals(1000, decoded.getOperationCount());
+        assertEquals(100, decoded.getIntervalThroughput(), 0);
+        assertEquals(50, decoded.getTotalThroughput(), 0);
+        assertEquals(histogram, decoded.getLatencyHistogram());
+        assertEquals(histogram.getMaxValue(), decoded.getIntervalLatencyMaxNanos());
+        assertEquals(histogram.getMean(), decoded.getIntervalLatencyAvgNanos(), 0);
+    }
+
+    @Test
+    public void testPerformanceStatsOperation_withoutHistogram() {
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        op.addPerformanceStats("test1", new PerformanceStats(1000, 100, 50, 23.5, 2000, 3000));
+        op.addPerformanceStats("test2", new PerformanceStats());
+
+        PerformanceStatsOperation decodedOp = roundTrip(op);
+
+        PerformanceStats decoded = decodedOp.getPerformanceStats().get("test1");
+        assertEquals(1000, decoded.getOperationCount());
+        assertEquals(100, decoded.getIntervalThroughput(), 0);
+        assertEquals(50, decoded.getTotalThroughput(), 0);
+        assertEquals(23.5, decoded.getIntervalLatencyAvgNanos(), 0);
+        assertEquals(2000, decoded.getIntervalLatency999PercentileNanos());
+        assertEquals(3000, decoded.getIntervalLatencyMaxNanos());
+        assertNull(decoded.getLatencyHistogram());
+
+        assertTrue(decodedOp.getPerformanceStats().get("test2").isEmpty());
+    }
+
+    @Test
+    public void testPerformanceStatsOperation_withCpuTime() {
+        PerformanceStats stats = new PerformanceStats(1000, 100, 50, 23.5, 2000, 3000);
+        stats.setCpuTime(5000000, 1000);
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        op.addPerformanceStats("test1", stats);
+
+        PerformanceStats decoded = roundTrip(op).getPerformanceStats().get("test1");
+
+        assertEquals(1000, decoded.getOperationCount());
+        assertEquals(5000000, decoded.getCpuTimeNanos());
+        assertEquals(1000, decoded.getCpuTimeOperationCount());
+        assertEquals(5000, decoded.getCpuTimeNanosPerOperation(), 0);
+    }
+
+    @Test
+    public void testPerformanceStatsOperation_isSmallerThanJson() {
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1000);
+        }
+        PerformanceStatsOperation op = new PerformanceStatsOperation();
+        op.addPerformanceStats("test1", new PerformanceStats(1000, 100, 50, histogram));
+
+        byte[] bytes = BinaryMessageCodec.encode(asList((SimulatorOperation) op));
+
+        assertTrue(bytes.length < encodeToBase64(histogram).length());
+    }
+
+    @Test
+    public void testVarLong() throws Exception {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE};
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        for (long value : values) {
+            writeVarLong(out, value);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, readVarLong(in));
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void testVarLong_smallValueUsesSingleByte() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writeVarLong(new DataOutputStream(bos), 127);
+
+        assertEquals(1, bos.size());
+    }
+
+    @Test
+    public void testZigZag() {
+        long[] values = {0, -1, 1, -2, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : values) {
+            assertEquals(value, unZigZag(zigZag(value)));
+        }
+        assertEquals(1, zigZag(-1));
+    }
+
+    private static PerformanceStatsOperation roundTrip(PerformanceStatsOperation op) {
+        List<SimulatorOperation> operations = new ArrayList<SimulatorOperation>();
+        operations.add(op);
+        byte[] bytes = BinaryMessageCodec.encode(operations);
+        return (PerformanceStatsOperation) BinaryMessageCodec.decode(bytes).get(0);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.LogOperation;
+import com.hazelcast.simulator.protocol.operation.OperationCodec;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import com.hazelcast.simulator.worker.operations.StopRunOperation;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.protocol.operation.OperationType.getOperationType;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JsonMessageCodecTest {
+
+    private final JsonMessageCodec codec = new JsonMessageCodec();
+    private final Session session = mock(Session.class);
+
+    @Before
+    public void before() throws Exception {
+        when(session.createMessage()).thenReturn(new ActiveMQMessage());
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        List<SimulatorOperation> operations = new ArrayList<SimulatorOperation>(asList(
+                new LogOperation("foo"),
+                new StopRunOperation("testId"),
+                new LogOperation("bar")));
+
+        Message message = codec.encode(session, operations);
+
+        List<SimulatorOperation> decoded = codec.decode(message);
+
+        assertEquals(3, decoded.size());
+        assertEquals("foo", ((LogOperation) decoded.get(0)).getMessage());
+        assertTrue(decoded.get(1) instanceof StopRunOperation);
+        assertEquals("testId", ((StopRunOperation) decoded.get(1)).getTestId());
+        assertEquals("bar", ((LogOperation) decoded.get(2)).getMessage());
+    }
+
+    @Test
+    public void testDecode_singleOperation() throws Exception {
+        LogOperation op = new LogOperation("foo");
+        Message message = new ActiveMQMessage();
+        message.setIntProperty("operationType", getOperationType(op).toInt());
+        message.setStringProperty("payload", OperationCodec.toJson(op));
+
+        List<SimulatorOperation> decoded = codec.decode(message);
+
+        assertEquals(1, decoded.size());
+        assertEquals("foo", ((LogOperation) decoded.get(0)).getMessage());
+    }
+}
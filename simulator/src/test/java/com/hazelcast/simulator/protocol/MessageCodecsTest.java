@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol;
+
+import com.hazelcast.simulator.protocol.operation.LogOperation;
+import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.junit.Test;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.simulator.protocol.MessageCodecs.getCodec;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MessageCodecsTest {
+
+    @Test
+    public void testGetCodec_default() {
+        assertSame(MessageCodecs.defaultCodec(), getCodec(null));
+        assertSame(MessageCodecs.defaultCodec(), getCodec(""));
+        assertTrue(getCodec("json") instanceof JsonMessageCodec);
+    }
+
+    @Test
+    public void testGetCodec_binary() {
+        assertTrue(getCodec("binary") instanceof BinaryMessageCodec);
+    }
+
+    @Test
+    public void testGetCodec_className() {
+        MessageCodec codec = getCodec(BinaryMessageCodec.class.getName());
+
+        assertTrue(codec instanceof BinaryMessageCodec);
+        assertSame(codec, getCodec(BinaryMessageCodec.class.getName()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetCodec_unknown() {
+        getCodec("unknown");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetCodec_notACodec() {
+        getCodec("java.util.ArrayList");
+    }
+
+    @Test
+    public void testDecode_whenUnknownCodec_thenCodecIsNotCreated() throws Exception {
+        Message message = new ActiveMQMessage();
+        message.setStringProperty(MessageCodecs.CODEC, CountingCodec.class.getName());
+
+        try {
+            MessageCodecs.decode(message);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, CountingCodec.INSTANCES.get());
+        }
+    }
+
+    @Test
+    public void testDecode_whenConfiguredCodec() throws Exception {
+        Session session = mock(Session.class);
+        when(session.createMessage()).thenReturn(new ActiveMQMessage());
+        MessageCodec codec = getCodec(ConfiguredCodec.class.getName());
+
+        Message message = MessageCodecs.encode(codec, session, singletonList(op("foo")));
+
+        assertEquals("foo", message(MessageCodecs.decode(message)));
+    }
+
+    @Test
+    public void testDecode_usesCodecOfMessage() throws Exception {
+        Session session = mock(Session.class);
+        when(session.createMessage()).thenReturn(new ActiveMQMessage());
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+
+        Message jsonMessage = MessageCodecs.encode(getCodec("json"), session, singletonList(op("json")));
+        Message binaryMessage = MessageCodecs.encode(getCodec("binary"), session, singletonList(op("binary")));
+        ((ActiveMQBytesMessage) binaryMessage).reset();
+
+        assertEquals("json", message(MessageCodecs.decode(jsonMessage)));
+        assertEquals("binary", message(MessageCodecs.decode(binaryMessage)));
+    }
+
+    @Test
+    public void testDecode_withoutCodecProperty() throws Exception {
+        Session session = mock(Session.class);
+        when(session.createMessage()).thenReturn(new ActiveMQMessage());
+        Message message = new JsonMessageCodec().encode(session, singletonList(op("foo")));
+
+        assertEquals("foo", message(MessageCodecs.decode(message)));
+    }
+
+    private static SimulatorOperation op(String message) {
+        return new LogOperation(message);
+    }
+
+    private static String message(List<SimulatorOperation> operations) {
+        assertEquals(1, operations.size());
+        return ((LogOperation) operations.get(0)).getMessage();
+    }
+
+    public static class CountingCodec extends ConfiguredCodec {
+
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public CountingCodec() {
+            INSTANCES.incrementAndGet();
+        }
+    }
+
+    public static class ConfiguredCodec implements MessageCodec {
+
+        private final MessageCodec codec = new JsonMessageCodec();
+
+        @Override
+        public String getName() {
+            return getClass().getName();
+        }
+
+        @Override
+        public Message encode(Session session, List<SimulatorOperation> operations) throws JMSException {
+            return codec.encode(session, operations);
+        }
+
+        @Override
+        public List<SimulatorOperation> decode(Message message) throws JMSException {
+            return codec.decode(message);
+        }
+    }
+}
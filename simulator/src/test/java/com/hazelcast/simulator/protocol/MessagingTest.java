@@ -10,6 +10,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -18,6 +22,7 @@ import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.SimulatorUtils.localIp;
 import static com.hazelcast.simulator.utils.TestUtils.assertCompletesEventually;
 import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static java.util.Collections.synchronizedList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -138,4 +143,313 @@ public class MessagingTest {
             }
         });
     }
+
+    @Test
+    public void sendCoordinator_manyOperations() throws Exception {
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setProcessor(mock(OperationProcessor.class))
+                .start();
+
+        final List<String> received = synchronizedList(new ArrayList<String>());
+        client = new CoordinatorClient()
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        received.add(((LogOperation) op).getMessage());
+                    }
+                });
+        client.getConnectionFactory().setMaxReconnectAttempts(1);
+        client.start().connectToAgentBroker(agentAddress, localIp());
+
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            agentServer.sendCoordinator(new LogOperation("" + i));
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(count, received.size());
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            assertEquals("" + i, received.get(i));
+        }
+    }
+
+    @Test
+    public void sendCoordinator_whenMaxBatchSizeOne() throws Exception {
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setProcessor(mock(OperationProcessor.class))
+                .setMaxBatchSize(1)
+                .start();
+
+        final List<String> received = synchronizedList(new ArrayList<String>());
+        client = new CoordinatorClient()
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        received.add(((LogOperation) op).getMessage());
+                    }
+                });
+        client.getConnectionFactory().setMaxReconnectAttempts(1);
+        client.start().connectToAgentBroker(agentAddress, localIp());
+
+        final int count = 100;
+        for (int i = 0; i < count; i++) {
+            agentServer.sendCoordinator(new LogOperation("" + i));
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(count, received.size());
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            assertEquals("" + i, received.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxBatchSize_whenZero() {
+        new Server("agents").setMaxBatchSize(0);
+    }
+
+    @Test
+    public void send_manyOperations_keepsOrderPerTarget() throws Exception {
+        final List<String> received = synchronizedList(new ArrayList<String>());
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        received.add(((LogOperation) op).getMessage());
+                    }
+                })
+                .start();
+
+        client = new CoordinatorClient()
+                .setProcessor(mock(OperationProcessor.class));
+        client.getConnectionFactory().setMaxReconnectAttempts(1);
+        client.start().connectToAgentBroker(agentAddress, localIp());
+
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            client.send(agentAddress, new LogOperation("" + i));
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(count, received.size());
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            assertEquals("" + i, received.get(i));
+        }
+    }
+
+    @Test
+    public void binaryCodec() throws Exception {
+        final List<String> receivedByAgent = synchronizedList(new ArrayList<String>());
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setMessageCodec(MessageCodecs.getCodec("binary"))
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        receivedByAgent.add(((LogOperation) op).getMessage());
+                        promise.answer("OK");
+                    }
+                })
+                .start();
+
+        final OperationProcessor clientOperationProcessor = mock(OperationProcessor.class);
+        client = new CoordinatorClient()
+                .setMessageCodec(MessageCodecs.getCodec("binary"))
+                .setProcessor(clientOperationProcessor);
+        client.getConnectionFactory().setMaxReconnectAttempts(1);
+        client.start().connectToAgentBroker(agentAddress, localIp());
+
+        assertEquals("OK", client.submit(agentAddress, new LogOperation("request")).get());
+        assertEquals("request", receivedByAgent.get(0));
+
+        agentServer.sendCoordinator(new LogOperation("Foo"));
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                verify(clientOperationProcessor).process(any(LogOperation.class), eq(agentAddress), any(Promise.class));
+            }
+        });
+    }
+
+    @Test
+    public void sendCoordinator_whenEncodingFails_thenOtherOperationsAreSend() throws Exception {
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setMessageCodec(new PoisonMessageCodec())
+                .setProcessor(mock(OperationProcessor.class))
+                .start();
+
+        final List<String> received = synchronizedList(new ArrayList<String>());
+        client = new CoordinatorClient()
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        received.add(((LogOperation) op).getMessage());
+                    }
+                });
+        client.getConnectionFactory().setMaxReconnectAttempts(1);
+        client.start().connectToAgentBroker(agentAddress, localIp());
+
+        agentServer.sendCoordinator(new LogOperation("before"));
+        agentServer.sendCoordinator(new LogOperation(PoisonMessageCodec.POISON));
+        agentServer.sendCoordinator(new LogOperation("after"));
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(2, received.size());
+            }
+        });
+        assertEquals("before", received.get(0));
+        assertEquals("after", received.get(1));
+
+        // the send thread is still alive
+        agentServer.sendCoordinator(new LogOperation("last"));
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(3, received.size());
+            }
+        });
+    }
+
+    @Test
+    public void reply_whenEncodingFails_thenFailureIsReplied() throws Exception {
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        if (!PoisonMessageCodec.POISON.equals(((LogOperation) op).getMessage())) {
+                            promise.answer("OK");
+                            return;
+                        }
+                        promise.answer(new Object() {
+                            @Override
+                            public String toString() {
+                                throw new IllegalStateException("can't encode");
+                            }
+                        });
+                    }
+                })
+                .start();
+
+        client = new CoordinatorClient()
+                .setProcessor(mock(OperationProcessor.class))
+                .start()
+                .connectToAgentBroker(agentAddress, localIp());
+
+        Future f = client.submit(agentAddress, new LogOperation(PoisonMessageCodec.POISON, Level.DEBUG));
+        assertCompletesEventually(f);
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getMessage().contains("can't encode"));
+        }
+
+        // the send thread is still alive
+        assertEquals("OK", client.submit(agentAddress, new LogOperation("", Level.DEBUG)).get());
+    }
+
+    @Test
+    public void submit_whenUnknownCodec_thenRejected() throws Exception {
+        final List<String> received = synchronizedList(new ArrayList<String>());
+        agentServer = new Server("agents")
+                .setBrokerURL(broker.getBrokerURL())
+                .setSelfAddress(agentAddress)
+                .setProcessor(new OperationProcessor() {
+                    @Override
+                    public void process(SimulatorOperation op, SimulatorAddress source, Promise promise) throws Exception {
+                        received.add(((LogOperation) op).getMessage());
+                        promise.answer("OK");
+                    }
+                })
+                .start();
+
+        // the codec isn't configured using MessageCodecs.getCodec(), so it is unknown to the agent
+        client = new CoordinatorClient()
+                .setMessageCodec(new UnknownMessageCodec())
+                .setProcessor(mock(OperationProcessor.class))
+                .start()
+                .connectToAgentBroker(agentAddress, localIp());
+
+        Future f = client.submit(agentAddress, new LogOperation("rejected"));
+        assertCompletesEventually(f);
+        try {
+            f.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getMessage().contains("Unknown codec"));
+        }
+        assertTrue(received.isEmpty());
+
+        // the server thread is still alive
+        closeQuietly(client);
+        client = new CoordinatorClient()
+                .setProcessor(mock(OperationProcessor.class))
+                .start()
+                .connectToAgentBroker(agentAddress, localIp());
+        assertEquals("OK", client.submit(agentAddress, new LogOperation("accepted")).get());
+        assertEquals("accepted", received.get(0));
+    }
+
+    private static class UnknownMessageCodec extends PoisonMessageCodec {
+
+        @Override
+        public String getName() {
+            return "unknown";
+        }
+    }
+
+    /**
+     * A JSON codec that can't encode a {@link LogOperation} with the {@link #POISON} message.
+     */
+    private static class PoisonMessageCodec implements MessageCodec {
+
+        static final String POISON = "poison";
+
+        private final MessageCodec codec = new JsonMessageCodec();
+
+        @Override
+        public String getName() {
+            return codec.getName();
+        }
+
+        @Override
+        public Message encode(Session session, List<SimulatorOperation> operations) throws JMSException {
+            for (SimulatorOperation op : operations) {
+                if (op instanceof LogOperation && POISON.equals(((LogOperation) op).getMessage())) {
+                    throw new IllegalStateException("poisoned operation");
+                }
+            }
+            return codec.encode(session, operations);
+        }
+
+        @Override
+        public List<SimulatorOperation> decode(Message message) throws JMSException {
+            return codec.decode(message);
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastRandomTest {
+
+    private static final int SAMPLES = 1000000;
+
+    @Test
+    public void testSameSeed_thenSameSequence() {
+        FastRandom random1 = new FastRandom(42);
+        FastRandom random2 = new FastRandom(42);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(random1.nextLong(), random2.nextLong());
+        }
+    }
+
+    @Test
+    public void testSetSeed_thenSequenceRestarts() {
+        FastRandom random = new FastRandom(42);
+        long first = random.nextLong();
+        random.nextLong();
+
+        random.setSeed(42);
+
+        assertEquals(first, random.nextLong());
+    }
+
+    @Test
+    public void testDefaultConstructor_thenDifferentSequences() {
+        assertNotEquals(new FastRandom().nextLong(), new FastRandom().nextLong());
+    }
+
+    @Test
+    public void testZeroSeed() {
+        FastRandom random = new FastRandom(0);
+
+        assertNotEquals(random.nextLong(), random.nextLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNextInt_whenBoundZero() {
+        new FastRandom().nextInt(0);
+    }
+
+    @Test
+    public void testNextInt_withBound() {
+        FastRandom random = new FastRandom(1);
+        int bound = 10;
+        int[] counts = new int[bound];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[random.nextInt(bound)]++;
+        }
+
+        for (int count : counts) {
+            assertEquals(SAMPLES / bound, count, SAMPLES / bound / 20);
+        }
+    }
+
+    @Test
+    public void testNextInt_withLargeBound() {
+        FastRandom random = new FastRandom(1);
+        int bound = Integer.MAX_VALUE - 1;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            int value = random.nextInt(bound);
+            assertTrue(value >= 0 && value < bound);
+        }
+    }
+
+    @Test
+    public void testNextDouble() {
+        FastRandom random = new FastRandom(1);
+        double sum = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+            sum += value;
+        }
+
+        assertEquals(0.5, sum / SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testNextBoolean() {
+        FastRandom random = new FastRandom(1);
+        int trueCount = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            if (random.nextBoolean()) {
+                trueCount++;
+            }
+        }
+
+        assertEquals(SAMPLES / 2, trueCount, SAMPLES / 100);
+    }
+
+    @Test
+    public void testNextLong_bitsAreBalanced() {
+        FastRandom random = new FastRandom(1);
+        int[] bitCounts = new int[64];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long value = random.nextLong();
+            for (int bit = 0; bit < 64; bit++) {
+                if ((value & (1L << bit)) != 0) {
+                    bitCounts[bit]++;
+                }
+            }
+        }
+
+        for (int bitCount : bitCounts) {
+            assertEquals(SAMPLES / 2, bitCount, SAMPLES / 100);
+        }
+    }
+}
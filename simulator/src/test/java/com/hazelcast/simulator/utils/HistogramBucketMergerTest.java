@@ -0,0 +1,150 @@
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HistogramBucketMergerTest {
+
+    private static final long BASE_MILLIS = 1500000000000L;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidBucketMillis() {
+        new HistogramBucketMerger(emptyList(), 0);
+    }
+
+    @Test
+    public void testNoSources() {
+        HistogramBucketMerger merger = new HistogramBucketMerger(emptyList(), 1000);
+
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testAlignedSources() {
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 1000, 1), histogram(1000, 2000, 2)),
+                source(histogram(0, 1000, 10), histogram(1000, 2000, 20))), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 11);
+        assertBucket(merger.next(), 1000, 2000, 22);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testSourceStartedLate() {
+        // the second source started a second later, so its first histogram belongs to the second bucket
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 1000, 1), histogram(1000, 2000, 2), histogram(2000, 3000, 3)),
+                source(histogram(1000, 2000, 10), histogram(2000, 3000, 20))), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 1);
+        assertBucket(merger.next(), 1000, 2000, 12);
+        assertBucket(merger.next(), 2000, 3000, 23);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testSkewedSources() {
+        // the intervals of the second source start 300 ms after the whole second
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 1000, 1), histogram(1000, 2000, 2)),
+                source(histogram(300, 1300, 10), histogram(1300, 2300, 20))), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 11);
+        assertBucket(merger.next(), 1000, 2000, 22);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testMissingIntervals() {
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 1000, 1), histogram(2000, 3000, 3), histogram(5000, 6000, 6)),
+                source(histogram(0, 1000, 10), histogram(1000, 2000, 20), histogram(2000, 3000, 30))), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 11);
+        assertBucket(merger.next(), 1000, 2000, 20);
+        assertBucket(merger.next(), 2000, 3000, 33);
+        // buckets without histograms are skipped
+        assertBucket(merger.next(), 5000, 6000, 6);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testIntervalsShorterThanBucket() {
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 500, 1), histogram(500, 1000, 2), histogram(1000, 1500, 3), histogram(1500, 2000, 4)),
+                source(histogram(0, 1000, 10), histogram(1000, 2000, 20))), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 13);
+        assertBucket(merger.next(), 1000, 2000, 27);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testBucketWidth() {
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(
+                source(histogram(0, 1000, 1), histogram(1000, 2000, 2), histogram(2000, 3000, 3)),
+                source(histogram(0, 1000, 10), histogram(1000, 2000, 20), histogram(2000, 3000, 30))), 2000);
+
+        assertBucket(merger.next(), 0, 2000, 33);
+        assertBucket(merger.next(), 2000, 4000, 33);
+        assertNull(merger.next());
+    }
+
+    @Test
+    public void testRead_onlyOnceAfterExhausted() {
+        CountingSource source = new CountingSource(source(histogram(0, 1000, 1)));
+        HistogramBucketMerger merger = new HistogramBucketMerger(asList(source), 1000);
+
+        assertBucket(merger.next(), 0, 1000, 1);
+        assertNull(merger.next());
+        assertNull(merger.next());
+        assertEquals(2, source.reads);
+    }
+
+    private static void assertBucket(Histogram histogram, long startOffset, long endOffset, long totalCount) {
+        assertEquals(BASE_MILLIS + startOffset, histogram.getStartTimeStamp());
+        assertEquals(BASE_MILLIS + endOffset, histogram.getEndTimeStamp());
+        assertEquals(totalCount, histogram.getTotalCount());
+    }
+
+    private static Supplier<Histogram> source(Histogram... histograms) {
+        Iterator<Histogram> iterator = new ArrayList<>(asList(histograms)).iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static Histogram histogram(long startOffset, long endOffset, int count) {
+        Histogram histogram = new Histogram(1000, 3600000000000L, 3);
+        for (int i = 0; i < count; i++) {
+            histogram.recordValue(1000 + i);
+        }
+        histogram.setStartTimeStamp(BASE_MILLIS + startOffset);
+        histogram.setEndTimeStamp(BASE_MILLIS + endOffset);
+        return histogram;
+    }
+
+    private static final class CountingSource implements Supplier<Histogram> {
+        private final Supplier<Histogram> source;
+        private int reads;
+
+        private CountingSource(Supplier<Histogram> source) {
+            this.source = source;
+        }
+
+        @Override
+        public Histogram get() {
+            reads++;
+            return source.get();
+        }
+    }
+}
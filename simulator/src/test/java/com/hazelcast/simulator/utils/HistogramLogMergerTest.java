@@ -1,13 +1,89 @@
 package com.hazelcast.simulator.utils;
 
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static com.hazelcast.simulator.utils.ReflectionUtils.invokePrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class HistogramLogMergerTest {
 
+    private static final long BASE_MILLIS = 1500000000000L;
+
+    private File dir;
+
+    @Before
+    public void before() {
+        dir = TestUtils.createTmpDirectory();
+    }
+
+    @After
+    public void after() {
+        deleteQuiet(dir);
+    }
+
     @Test
     public void testConstructor() throws Exception {
         invokePrivateConstructor(HistogramLogMerger.class);
     }
+
+    @Test
+    public void testMain_alignsOnTimestamp() throws Exception {
+        // the second worker started a second later
+        File file1 = writeHdrFile("worker1.hdr", 0, 1, 2, 3);
+        File file2 = writeHdrFile("worker2.hdr", 1, 2);
+        File output = new File(dir, "merged.hdr");
+
+        HistogramLogMerger.main(new String[]{output.getAbsolutePath(), file1.getAbsolutePath(), file2.getAbsolutePath()});
+
+        HistogramLogReader reader = new HistogramLogReader(output);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 0, 1000, 1);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 1000, 2000, 2);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 2000, 3000, 2);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 3000, 4000, 1);
+        assertNull(reader.nextIntervalHistogram());
+        reader.close();
+    }
+
+    @Test
+    public void testMain_withBucketMillis() throws Exception {
+        File file1 = writeHdrFile("worker1.hdr", 0, 1, 2, 3);
+        File output = new File(dir, "merged.hdr");
+
+        HistogramLogMerger.main(new String[]{"-bucketMillis", "2000", output.getAbsolutePath(), file1.getAbsolutePath()});
+
+        HistogramLogReader reader = new HistogramLogReader(output);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 0, 2000, 2);
+        assertInterval((Histogram) reader.nextIntervalHistogram(), 2000, 4000, 2);
+        assertNull(reader.nextIntervalHistogram());
+        reader.close();
+    }
+
+    private static void assertInterval(Histogram histogram, long startOffset, long endOffset, long totalCount) {
+        assertEquals(BASE_MILLIS + startOffset, histogram.getStartTimeStamp());
+        assertEquals(BASE_MILLIS + endOffset, histogram.getEndTimeStamp());
+        assertEquals(totalCount, histogram.getTotalCount());
+    }
+
+    private File writeHdrFile(String name, int... seconds) throws Exception {
+        File file = new File(dir, name);
+        HistogramLogWriter writer = new HistogramLogWriter(file);
+        for (int second : seconds) {
+            Histogram histogram = new Histogram(1000, 3600000000000L, 3);
+            histogram.recordValue(1000);
+            histogram.setStartTimeStamp(BASE_MILLIS + second * 1000);
+            histogram.setEndTimeStamp(BASE_MILLIS + (second + 1) * 1000);
+            writer.outputIntervalHistogram(histogram);
+        }
+        writer.close();
+        return file;
+    }
 }
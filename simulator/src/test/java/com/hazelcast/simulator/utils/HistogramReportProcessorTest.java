@@ -0,0 +1,166 @@
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramReportProcessorTest {
+
+    private static final long BASE_MILLIS = 1500000000000L;
+    private static final int INTERVALS = 10;
+    private static final long START_MILLIS = BASE_MILLIS + 2000;
+    private static final long END_MILLIS = BASE_MILLIS + 8000;
+
+    private File sessionDir;
+    private File targetDir;
+    private ForkJoinPool pool;
+
+    @Before
+    public void before() throws Exception {
+        sessionDir = TestUtils.createTmpDirectory();
+        targetDir = TestUtils.createTmpDirectory();
+        pool = new ForkJoinPool(2);
+
+        writeHdrFile(new File(ensureExistingDirectory(sessionDir, "A1_W1-member"), "MapTest-get.hdr"), 1);
+        writeHdrFile(new File(ensureExistingDirectory(sessionDir, "A1_W1-member"), "MapTest-put.hdr"), 2);
+        writeHdrFile(new File(ensureExistingDirectory(sessionDir, "A1_W2-member"), "MapTest-get.hdr"), 3);
+        // a worker without any probes
+        ensureExistingDirectory(sessionDir, "A1_W3-member");
+    }
+
+    @After
+    public void after() {
+        pool.shutdown();
+        deleteQuiet(sessionDir);
+        deleteQuiet(targetDir);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        List<String> probes = new HistogramReportProcessor(sessionDir, targetDir, START_MILLIS, END_MILLIS).run(pool);
+
+        assertEquals(asList("MapTest-get.hdr", "MapTest-put.hdr"), probes);
+        assertFalse(new File(targetDir, "A1_W3-member").exists());
+
+        // intervals 2..7 are completely in the time range
+        assertEquals(6 * 1 * 100, totalCount(new File(targetDir, "A1_W1-member/MapTest-get.hdr")));
+        assertEquals(6 * 3 * 100, totalCount(new File(targetDir, "A1_W2-member/MapTest-get.hdr")));
+        assertEquals(6 * 4 * 100, totalCount(new File(targetDir, "MapTest-get.hdr")));
+        assertEquals(6 * 2 * 100, totalCount(new File(targetDir, "MapTest-put.hdr")));
+
+        for (String name : asList("MapTest-get", "MapTest-put", "A1_W1-member/MapTest-get", "A1_W2-member/MapTest-get")) {
+            assertTrue(new File(targetDir, name).exists());
+            assertTrue(new File(targetDir, name + ".hgrm").exists());
+        }
+    }
+
+    @Test
+    public void testRun_sameOutputAsSeparateTools() throws Exception {
+        File legacyDir = TestUtils.createTmpDirectory();
+        try {
+            runSeparateTools(legacyDir);
+
+            new HistogramReportProcessor(sessionDir, targetDir, START_MILLIS, END_MILLIS).run(pool);
+
+            for (String name : asList("MapTest-get", "MapTest-put", "A1_W1-member/MapTest-get", "A1_W2-member/MapTest-get")) {
+                assertEquals(name, fileAsText(new File(legacyDir, name)), fileAsText(new File(targetDir, name)));
+                assertEquals(name, fileAsText(new File(legacyDir, name + ".hgrm")),
+                        fileAsText(new File(targetDir, name + ".hgrm")));
+            }
+        } finally {
+            deleteQuiet(legacyDir);
+        }
+    }
+
+    @Test
+    public void testRun_noHistogramsInRange() throws Exception {
+        new HistogramReportProcessor(sessionDir, targetDir, END_MILLIS, START_MILLIS).run(pool);
+
+        assertEquals(0, totalCount(new File(targetDir, "MapTest-get.hdr")));
+        assertTrue(fileAsText(new File(targetDir, "MapTest-get.hgrm")).contains("Total count    =            0"));
+    }
+
+    @Test
+    public void testRun_emptySession() {
+        File emptySessionDir = TestUtils.createTmpDirectory();
+        try {
+            List<String> probes = new HistogramReportProcessor(emptySessionDir, targetDir, START_MILLIS, END_MILLIS).run(pool);
+
+            assertTrue(probes.isEmpty());
+        } finally {
+            deleteQuiet(emptySessionDir);
+        }
+    }
+
+    // replays what the report script used to do: a JVM per file for the trimming, merging and percentile logs
+    private void runSeparateTools(File legacyDir) throws Exception {
+        for (String worker : asList("A1_W1-member", "A1_W2-member")) {
+            File workerDir = ensureExistingDirectory(legacyDir, worker);
+            for (File hdrFile : new File(sessionDir, worker).listFiles()) {
+                File copy = new File(workerDir, hdrFile.getName());
+                FileUtils.copy(hdrFile, copy);
+                HistogramTrimmer.main(new String[]{copy.getAbsolutePath(), "" + START_MILLIS, "" + END_MILLIS});
+            }
+        }
+
+        HistogramLogMerger.main(new String[]{new File(legacyDir, "MapTest-get.hdr").getAbsolutePath(),
+                new File(legacyDir, "A1_W1-member/MapTest-get.hdr").getAbsolutePath(),
+                new File(legacyDir, "A1_W2-member/MapTest-get.hdr").getAbsolutePath()});
+        HistogramLogMerger.main(new String[]{new File(legacyDir, "MapTest-put.hdr").getAbsolutePath(),
+                new File(legacyDir, "A1_W1-member/MapTest-put.hdr").getAbsolutePath()});
+
+        for (String name : asList("MapTest-get", "MapTest-put", "A1_W1-member/MapTest-get", "A1_W1-member/MapTest-put",
+                "A1_W2-member/MapTest-get")) {
+            String base = new File(legacyDir, name).getAbsolutePath();
+            new SimulatorHistogramLogProcessor(
+                    new String[]{"-i", base + ".hdr", "-o", base, "-outputValueUnitRatio", "1000"}).run();
+            new File(base + ".hgrm").renameTo(new File(base + ".hgrm.bak"));
+            new SimulatorHistogramLogProcessor(
+                    new String[]{"-csv", "-i", base + ".hdr", "-o", base, "-outputValueUnitRatio", "1000"}).run();
+            new File(base + ".hgrm.bak").renameTo(new File(base + ".hgrm"));
+        }
+    }
+
+    private static void writeHdrFile(File file, int multiplier) throws Exception {
+        HistogramLogWriter writer = new HistogramLogWriter(file);
+        for (int interval = 0; interval < INTERVALS; interval++) {
+            Histogram histogram = new Histogram(1000, 3600000000000L, 3);
+            for (int i = 0; i < 100 * multiplier; i++) {
+                histogram.recordValue(1000 + interval * 1000 + i * 37);
+            }
+            histogram.setStartTimeStamp(BASE_MILLIS + interval * 1000);
+            histogram.setEndTimeStamp(BASE_MILLIS + (interval + 1) * 1000);
+            writer.outputIntervalHistogram(histogram);
+        }
+        writer.close();
+    }
+
+    private static long totalCount(File hdrFile) throws Exception {
+        HistogramLogReader reader = new HistogramLogReader(hdrFile);
+        long count = 0;
+        for (; ; ) {
+            Histogram histogram = (Histogram) reader.nextIntervalHistogram();
+            if (histogram == null) {
+                break;
+            }
+            count += histogram.getTotalCount();
+        }
+        reader.close();
+        return count;
+    }
+}
@@ -0,0 +1,63 @@
+package com.hazelcast.simulator.utils;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.HistogramUtils.decodeCompressed;
+import static com.hazelcast.simulator.utils.HistogramUtils.decodeFromBase64;
+import static com.hazelcast.simulator.utils.HistogramUtils.encodeCompressed;
+import static com.hazelcast.simulator.utils.HistogramUtils.encodeToBase64;
+import static com.hazelcast.simulator.utils.HistogramUtils.newEmptyHistogram;
+import static com.hazelcast.simulator.utils.ReflectionUtils.invokePrivateConstructor;
+import static org.junit.Assert.assertEquals;
+
+public class HistogramUtilsTest {
+
+    @Test
+    public void testConstructor() throws Exception {
+        invokePrivateConstructor(HistogramUtils.class);
+    }
+
+    @Test
+    public void testEncodeCompressed() {
+        Histogram histogram = newHistogram();
+
+        Histogram decoded = decodeCompressed(encodeCompressed(histogram));
+
+        assertEquals(histogram, decoded);
+    }
+
+    @Test
+    public void testEncodeToBase64() {
+        Histogram histogram = newHistogram();
+
+        Histogram decoded = decodeFromBase64(encodeToBase64(histogram));
+
+        assertEquals(histogram, decoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeCompressed_invalidData() {
+        decodeCompressed(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+    }
+
+    @Test
+    public void testNewEmptyHistogram() {
+        Histogram histogram = newHistogram();
+
+        Histogram empty = newEmptyHistogram(histogram);
+
+        assertEquals(0, empty.getTotalCount());
+        assertEquals(histogram.getLowestDiscernibleValue(), empty.getLowestDiscernibleValue());
+        assertEquals(histogram.getHighestTrackableValue(), empty.getHighestTrackableValue());
+        assertEquals(histogram.getNumberOfSignificantValueDigits(), empty.getNumberOfSignificantValueDigits());
+    }
+
+    private static Histogram newHistogram() {
+        Histogram histogram = new Histogram(1000, 3600000000000L, 3);
+        for (int k = 1; k <= 1000; k++) {
+            histogram.recordValue(k * 1000);
+        }
+        return histogram;
+    }
+}
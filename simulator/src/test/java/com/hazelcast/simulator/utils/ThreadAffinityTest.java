@@ -0,0 +1,259 @@
+package com.hazelcast.simulator.utils;
+
+import net.openhft.affinity.CpuLayout;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadAffinityTest {
+
+    // 2 sockets with 2 cores and 2 hardware threads each; cpu = thread * 4 + core * 2 + socket
+    private final CpuLayout layout = new FakeCpuLayout();
+
+    @After
+    public void after() {
+        ThreadAffinity.release(asList(0, 1, 2, 3, 4, 5, 6, 7));
+    }
+
+    @Test
+    public void testParseCpuList() {
+        assertEquals(asList(0, 1, 2, 3, 8, 10, 11), ThreadAffinity.parseCpuList("0-3,8, 10-11"));
+        assertEquals(Collections.singletonList(5), ThreadAffinity.parseCpuList("5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuList_notANumber() {
+        ThreadAffinity.parseCpuList("0,a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuList_invalidRange() {
+        ThreadAffinity.parseCpuList("3-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuList_negative() {
+        ThreadAffinity.parseCpuList("-1");
+    }
+
+    @Test
+    public void testCheckSetting() {
+        ThreadAffinity.checkSetting(ThreadAffinity.SPREAD);
+        ThreadAffinity.checkSetting(ThreadAffinity.COMPACT);
+        ThreadAffinity.checkSetting("1-2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckSetting_invalid() {
+        ThreadAffinity.checkSetting("all");
+    }
+
+    @Test
+    public void testSelectCpus_cpuList_roundRobin() {
+        BitSet taken = new BitSet();
+        int[] cpus = ThreadAffinity.selectCpus("2,4-5", 5, layout, allCpus(), taken);
+
+        assertArrayEquals(new int[]{2, 4, 5, 2, 4}, cpus);
+        assertEquals(bitSet(2, 4, 5), taken);
+    }
+
+    @Test
+    public void testSelectCpus_cpuList_skipsUnavailableCpus() {
+        int[] cpus = ThreadAffinity.selectCpus("0-3", 2, layout, bitSet(1, 3), new BitSet());
+
+        assertArrayEquals(new int[]{1, 3}, cpus);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectCpus_cpuList_noneAvailable() {
+        ThreadAffinity.selectCpus("4-5", 2, layout, bitSet(1, 3), new BitSet());
+    }
+
+    @Test
+    public void testSelectCpus_spread() {
+        int[] cpus = ThreadAffinity.selectCpus(ThreadAffinity.SPREAD, 4, layout, allCpus(), new BitSet());
+
+        // one hardware thread of every physical core, alternating between the sockets
+        assertArrayEquals(new int[]{0, 1, 2, 3}, cpus);
+    }
+
+    @Test
+    public void testSelectCpus_compact() {
+        int[] cpus = ThreadAffinity.selectCpus(ThreadAffinity.COMPACT, 4, layout, allCpus(), new BitSet());
+
+        // all hardware threads of the cores of the first socket
+        assertArrayEquals(new int[]{0, 4, 2, 6}, cpus);
+    }
+
+    @Test
+    public void testSelectCpus_skipsTakenCpus() {
+        BitSet taken = new BitSet();
+        int[] first = ThreadAffinity.selectCpus(ThreadAffinity.SPREAD, 2, layout, allCpus(), taken);
+        int[] second = ThreadAffinity.selectCpus(ThreadAffinity.SPREAD, 2, layout, allCpus(), taken);
+
+        assertArrayEquals(new int[]{0, 1}, first);
+        assertArrayEquals(new int[]{2, 3}, second);
+    }
+
+    @Test
+    public void testSelectCpus_sharesCpusWhenNotEnoughFree() {
+        BitSet taken = bitSet(0, 1, 2, 3, 4, 5, 6);
+        int[] cpus = ThreadAffinity.selectCpus(ThreadAffinity.COMPACT, 3, layout, allCpus(), taken);
+
+        assertArrayEquals(new int[]{0, 4, 2}, cpus);
+    }
+
+    @Test
+    public void testSelectAndReserveCpus_concurrentTestsUseDifferentCpus() {
+        // every test selects its CPUs starting with its own taken CPUs
+        int[] first = ThreadAffinity.selectAndReserveCpus(ThreadAffinity.SPREAD, 2, layout, allCpus(), new BitSet());
+        int[] second = ThreadAffinity.selectAndReserveCpus(ThreadAffinity.COMPACT, 2, layout, allCpus(), new BitSet());
+
+        assertArrayEquals(new int[]{0, 1}, first);
+        assertArrayEquals(new int[]{4, 2}, second);
+        assertEquals(bitSet(0, 1, 2, 4), ThreadAffinity.reservedCpus());
+
+        // the first test completing doesn't release the CPUs of the second test
+        ThreadAffinity.release(asList(0, 1));
+        assertEquals(bitSet(2, 4), ThreadAffinity.reservedCpus());
+    }
+
+    @Test
+    public void testRelease_whenReservedTwice_thenReservedUntilReleasedTwice() {
+        ThreadAffinity.reserve(asList(3));
+        ThreadAffinity.reserve(asList(3));
+
+        ThreadAffinity.release(asList(3));
+        assertEquals(bitSet(3), ThreadAffinity.reservedCpus());
+
+        ThreadAffinity.release(asList(3));
+        assertEquals(new BitSet(), ThreadAffinity.reservedCpus());
+    }
+
+    @Test
+    public void testOrderCpus_unknownLayout() {
+        List<Integer> cpus = ThreadAffinity.orderCpus(ThreadAffinity.SPREAD, layout, bitSet(3, 9));
+
+        assertEquals(asList(3, 9), cpus);
+    }
+
+    @Test
+    public void testUnreservedCpus() {
+        BitSet available = ThreadAffinity.availableCpus();
+        assertEquals(available, ThreadAffinity.unreservedCpus());
+
+        // reserving all CPUs falls back to all available CPUs
+        List<Integer> all = toList(available);
+        ThreadAffinity.reserve(all);
+        assertEquals(available, ThreadAffinity.unreservedCpus());
+    }
+
+    @Test
+    public void testIsolation() {
+        ThreadAffinity.Isolation isolation = new ThreadAffinity.Isolation();
+        isolation.update();
+        assertFalse(isolation.update());
+
+        List<Integer> reserved = toList(ThreadAffinity.availableCpus()).subList(0, 1);
+        ThreadAffinity.reserve(reserved);
+        assertTrue(isolation.update());
+        assertFalse(isolation.update());
+
+        ThreadAffinity.release(reserved);
+        assertTrue(isolation.update());
+    }
+
+    @Test
+    public void testReserve_empty() {
+        ThreadAffinity.Isolation isolation = new ThreadAffinity.Isolation();
+        isolation.update();
+
+        ThreadAffinity.reserve(Collections.<Integer>emptyList());
+        assertFalse(isolation.update());
+    }
+
+    @Test
+    public void testPinCurrentThread() throws Exception {
+        final int cpu = ThreadAffinity.availableCpus().nextSetBit(0);
+        // pinning is done on a separate thread, so the test thread isn't affected
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                ThreadAffinity.pinCurrentThread(cpu);
+            }
+        };
+        thread.start();
+        thread.join();
+    }
+
+    private static BitSet allCpus() {
+        BitSet cpus = new BitSet();
+        cpus.set(0, 8);
+        return cpus;
+    }
+
+    private static BitSet bitSet(int... cpus) {
+        BitSet bitSet = new BitSet();
+        for (int cpu : cpus) {
+            bitSet.set(cpu);
+        }
+        return bitSet;
+    }
+
+    private static List<Integer> toList(BitSet bitSet) {
+        Integer[] cpus = new Integer[bitSet.cardinality()];
+        int i = 0;
+        for (int cpu = bitSet.nextSetBit(0); cpu >= 0; cpu = bitSet.nextSetBit(cpu + 1)) {
+            cpus[i++] = cpu;
+        }
+        return Arrays.asList(cpus);
+    }
+
+    private static final class FakeCpuLayout implements CpuLayout {
+
+        @Override
+        public int cpus() {
+            return 8;
+        }
+
+        @Override
+        public int sockets() {
+            return 2;
+        }
+
+        @Override
+        public int coresPerSocket() {
+            return 2;
+        }
+
+        @Override
+        public int threadsPerCore() {
+            return 2;
+        }
+
+        @Override
+        public int socketId(int cpu) {
+            return cpu % 2;
+        }
+
+        @Override
+        public int coreId(int cpu) {
+            return (cpu / 2) % 2;
+        }
+
+        @Override
+        public int threadId(int cpu) {
+            return cpu / 4;
+        }
+    }
+}
@@ -12,9 +12,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
 import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepSeconds;
+import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.TestUtils.assertEqualsStringFormat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
 public class ThreadSpawnerTest {
 
@@ -132,4 +136,66 @@ public class ThreadSpawnerTest {
         spawner.spawn(sleepInfiniteRunnable);
         spawner.awaitCompletion();
     }
+
+    @Test
+    public void testSpawnVirtual() {
+        assumeTrue(VirtualThreads.isSupported());
+        final AtomicInteger counter = new AtomicInteger(0);
+
+        ThreadSpawner spawner = new ThreadSpawner("AnyTestCaseId");
+        for (int i = 0; i < 1000; i++) {
+            spawner.spawnVirtual("NamePrefix", new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            });
+        }
+        spawner.awaitCompletion();
+
+        assertEqualsStringFormat("Expected counter to be %d, but as %d", 1000, counter.get());
+    }
+
+    @Test
+    public void testSpawnVirtual_reportException() {
+        assumeTrue(VirtualThreads.isSupported());
+        File exceptionFile = new File(getUserDir(), "1.exception");
+
+        ThreadSpawner spawner = new ThreadSpawner("AnyTestCaseId");
+        spawner.spawnVirtual("NamePrefix", new Runnable() {
+            @Override
+            public void run() {
+                throw new CommandLineExitException("Expected exception");
+            }
+        });
+        spawner.awaitCompletion();
+
+        assertTrue(exceptionFile.exists());
+    }
+
+    @Test
+    public void testSpawnVirtual_throwException() {
+        assumeTrue(VirtualThreads.isSupported());
+
+        ThreadSpawner spawner = new ThreadSpawner("AnyTestCaseId", true);
+        spawner.spawnVirtual("NamePrefix", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Expected exception");
+            }
+        });
+        try {
+            spawner.awaitCompletion();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            ignore(expected);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSpawnVirtual_notSupported() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        new ThreadSpawner("AnyTestCaseId").spawnVirtual("NamePrefix", sleepInfiniteRunnable);
+    }
 }
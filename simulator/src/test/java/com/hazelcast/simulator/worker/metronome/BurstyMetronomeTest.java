@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import org.junit.Test;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BurstyMetronomeTest {
+
+    private static final long ON_NANOS = MILLISECONDS.toNanos(20);
+    private static final long OFF_NANOS = MILLISECONDS.toNanos(30);
+
+    @Test(expected = IllegalTestException.class)
+    public void testConstructor_whenOnPeriodZero() {
+        new BurstyMetronome(MICROSECONDS.toNanos(100), 0, OFF_NANOS, true);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testConstructor_whenOffPeriodNegative() {
+        new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, -1, true);
+    }
+
+    @Test
+    public void testOnInterval() {
+        BurstyMetronome metronome = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+
+        // only 40% of the time is on, so the interval during the on period needs to be 40% of the configured interval
+        assertEquals(MICROSECONDS.toNanos(40), metronome.getOnIntervalNanos());
+    }
+
+    @Test
+    public void testToRealNanos() {
+        BurstyMetronome metronome = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+        long epochNanos = metronome.toRealNanos(0);
+
+        assertEquals(epochNanos + ON_NANOS - 1, metronome.toRealNanos(ON_NANOS - 1));
+        assertEquals(epochNanos + ON_NANOS + OFF_NANOS, metronome.toRealNanos(ON_NANOS));
+        assertEquals(epochNanos + 2 * (ON_NANOS + OFF_NANOS) + 5, metronome.toRealNanos(2 * ON_NANOS + 5));
+    }
+
+    @Test
+    public void testToOnTimeNanos() {
+        BurstyMetronome metronome = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+
+        assertEquals(0, metronome.toOnTimeNanos(0));
+        assertEquals(ON_NANOS - 1, metronome.toOnTimeNanos(ON_NANOS - 1));
+        // the off period maps to the end of the on period
+        assertEquals(ON_NANOS, metronome.toOnTimeNanos(ON_NANOS + OFF_NANOS - 1));
+        assertEquals(2 * ON_NANOS + 5, metronome.toOnTimeNanos(2 * (ON_NANOS + OFF_NANOS) + 5));
+    }
+
+    @Test
+    public void testWaitForNext_onlyDuringOnPeriod() {
+        BurstyMetronome master = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+        BurstyMetronome metronome = new BurstyMetronome(master);
+
+        long lastExpectedStartNanos = 0;
+        for (int i = 0; i < 500; i++) {
+            long expectedStartNanos = metronome.waitForNext();
+            long epochNanos = metronome.toRealNanos(0);
+            assertTrue(expectedStartNanos >= lastExpectedStartNanos);
+            assertTrue(expectedStartNanos <= nanoTime());
+
+            long offsetInCycle = (expectedStartNanos - epochNanos) % (ON_NANOS + OFF_NANOS);
+            assertTrue("request was scheduled in the off period", offsetInCycle < ON_NANOS);
+            lastExpectedStartNanos = expectedStartNanos;
+        }
+    }
+
+    @Test
+    public void testWaitForNext_scheduleStartsOnFirstCall() throws Exception {
+        BurstyMetronome master = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+        BurstyMetronome metronome = new BurstyMetronome(master);
+
+        // the time between creating the metronome and running the test must not be replayed as a catch-up burst
+        MILLISECONDS.sleep(200);
+        long startNanos = nanoTime();
+
+        long expectedStartNanos = metronome.waitForNext();
+
+        assertTrue("first request was scheduled in the past", expectedStartNanos >= startNanos);
+        assertTrue(master.toRealNanos(0) >= startNanos);
+    }
+
+    @Test
+    public void testWaitForNext_whenThreadStartsLater_thenNoCatchUpBurst() throws Exception {
+        BurstyMetronome master = new BurstyMetronome(MICROSECONDS.toNanos(100), ON_NANOS, OFF_NANOS, true);
+        BurstyMetronome firstThread = new BurstyMetronome(master);
+        BurstyMetronome secondThread = new BurstyMetronome(master);
+
+        firstThread.waitForNext();
+        // the second thread starts a few cycles later, like with a rampup
+        MILLISECONDS.sleep(200);
+        long startNanos = nanoTime();
+
+        long expectedStartNanos = secondThread.waitForNext();
+
+        assertTrue("first request was scheduled in the past", expectedStartNanos >= startNanos);
+        long offsetInCycle = (expectedStartNanos - master.toRealNanos(0)) % (ON_NANOS + OFF_NANOS);
+        assertTrue("request was scheduled in the off period", offsetInCycle < ON_NANOS);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.hazelcast.simulator.worker.metronome.PoissonMetronome.nextExponential;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PoissonMetronomeTest {
+
+    @Test
+    public void testNextExponential() {
+        assertEquals(0, nextExponential(1000, 0));
+        assertEquals(693, nextExponential(1000, 0.5));
+    }
+
+    @Test
+    public void testNextExponential_mean() {
+        Random random = new Random(1);
+        long meanNanos = MILLISECONDS.toNanos(1);
+        int samples = 100000;
+
+        long sum = 0;
+        for (int i = 0; i < samples; i++) {
+            sum += nextExponential(meanNanos, random.nextDouble());
+        }
+
+        assertEquals(meanNanos, sum / samples, meanNanos * 0.02);
+    }
+
+    @Test
+    public void testWaitForNext() {
+        long intervalNanos = MICROSECONDS.toNanos(100);
+        PoissonMetronome master = new PoissonMetronome(intervalNanos, true);
+        PoissonMetronome metronome = new PoissonMetronome(master);
+        assertEquals(intervalNanos, metronome.getIntervalNanos());
+
+        long startNanos = nanoTime();
+        long lastExpectedStartNanos = startNanos;
+        int iterations = 1000;
+        for (int i = 0; i < iterations; i++) {
+            long expectedStartNanos = metronome.waitForNext();
+            assertTrue(expectedStartNanos >= lastExpectedStartNanos);
+            assertTrue(expectedStartNanos <= nanoTime());
+            lastExpectedStartNanos = expectedStartNanos;
+        }
+
+        // the expected start times are not influenced by the time the calls took, so the mean interval should be close
+        // to the configured interval
+        long meanIntervalNanos = (lastExpectedStartNanos - startNanos) / iterations;
+        assertTrue("meanIntervalNanos was " + meanIntervalNanos,
+                meanIntervalNanos > intervalNanos / 2 && meanIntervalNanos < intervalNanos * 2);
+    }
+
+    @Test
+    public void testWaitForNext_whenNotAccountForCoordinatedOmission() {
+        PoissonMetronome metronome = new PoissonMetronome(MICROSECONDS.toNanos(100), false);
+
+        long beforeNanos = nanoTime();
+        long startNanos = metronome.waitForNext();
+
+        assertTrue(startNanos >= beforeNanos);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateProfileMetronomeTest {
+
+    @Test
+    public void testGetIntervalNanos() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "step:1000..2000/1s");
+        RateProfileMetronome metronome = new RateProfileMetronome(profile, 2, true);
+
+        assertEquals(MILLISECONDS.toNanos(2), metronome.getIntervalNanos(0));
+        assertEquals(MILLISECONDS.toNanos(1), metronome.getIntervalNanos(SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testGetTargetRatePerSecond() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "step:1000..2000/1h");
+        RateProfileMetronome master = new RateProfileMetronome(profile, 1, true);
+        RateProfileMetronome metronome = new RateProfileMetronome(master);
+
+        // before the profile starts, the initial rate is returned
+        assertEquals(1000, master.getTargetRatePerSecond(), 0.1);
+
+        metronome.waitForNext();
+        assertEquals(1000, master.getTargetRatePerSecond(), 0.1);
+    }
+
+    @Test
+    public void testWaitForNext() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "ramp:10000..20000/10s");
+        RateProfileMetronome metronome = new RateProfileMetronome(new RateProfileMetronome(profile, 1, true));
+
+        long firstNanos = metronome.waitForNext();
+        long lastNanos = firstNanos;
+        for (int i = 0; i < 100; i++) {
+            long expectedStartNanos = metronome.waitForNext();
+            assertTrue(expectedStartNanos <= nanoTime());
+
+            long intervalNanos = expectedStartNanos - lastNanos;
+            assertTrue("interval was " + intervalNanos, intervalNanos <= MICROSECONDS.toNanos(100));
+            assertTrue("interval was " + intervalNanos, intervalNanos >= MICROSECONDS.toNanos(50));
+            lastNanos = expectedStartNanos;
+        }
+    }
+
+    @Test
+    public void testSetTargetRatePerSecond_discardsBacklogOfPreviousRate() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "live:1000");
+        RateProfileMetronome master = new RateProfileMetronome(profile, 1, true);
+        RateProfileMetronome metronome = new RateProfileMetronome(master);
+
+        // an overloaded rate: the thread falls behind its schedule of one call per millisecond
+        metronome.waitForNext();
+        sleepMillis(200);
+        assertTrue(metronome.waitForNext() < nanoTime() - MILLISECONDS.toNanos(100));
+
+        // a sustainable rate starts with a fresh schedule instead of catching up with the backlog
+        long rateChangeNanos = nanoTime();
+        master.setTargetRatePerSecond(100);
+        long firstExpectedStartNanos = metronome.waitForNext();
+        assertTrue(firstExpectedStartNanos >= rateChangeNanos);
+
+        long secondExpectedStartNanos = metronome.waitForNext();
+        assertEquals(MILLISECONDS.toNanos(10), secondExpectedStartNanos - firstExpectedStartNanos);
+        assertTrue(nanoTime() >= secondExpectedStartNanos);
+    }
+}
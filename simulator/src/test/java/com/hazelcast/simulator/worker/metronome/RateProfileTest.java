@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static com.hazelcast.simulator.worker.metronome.RateProfile.isRateProfile;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateProfileTest {
+
+    private static final double DELTA = 0.001;
+
+    private final File scheduleFile = new File("rateprofile-schedule.csv").getAbsoluteFile();
+
+    @After
+    public void after() {
+        deleteQuiet(scheduleFile);
+    }
+
+    @Test
+    public void testIsRateProfile() {
+        assertTrue(isRateProfile("ramp:1..10/1s"));
+        assertFalse(isRateProfile("1000"));
+        assertFalse(isRateProfile(null));
+    }
+
+    @Test
+    public void testRamp() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "ramp:1000..2000/10s");
+
+        assertEquals(1000, profile.getRatePerSecond(0), DELTA);
+        assertEquals(1500, profile.getRatePerSecond(SECONDS.toNanos(5)), DELTA);
+        assertEquals(2000, profile.getRatePerSecond(SECONDS.toNanos(10)), DELTA);
+        assertEquals(2000, profile.getRatePerSecond(SECONDS.toNanos(100)), DELTA);
+    }
+
+    @Test
+    public void testStep() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "step:10000..35000/30s");
+
+        assertEquals(10000, profile.getRatePerSecond(0), DELTA);
+        assertEquals(10000, profile.getRatePerSecond(SECONDS.toNanos(29)), DELTA);
+        assertEquals(20000, profile.getRatePerSecond(SECONDS.toNanos(30)), DELTA);
+        assertEquals(30000, profile.getRatePerSecond(SECONDS.toNanos(60)), DELTA);
+        assertEquals(35000, profile.getRatePerSecond(SECONDS.toNanos(90)), DELTA);
+    }
+
+    @Test
+    public void testStep_withIncrement() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "step:1000..2000+250/1s");
+
+        assertEquals(1000, profile.getRatePerSecond(0), DELTA);
+        assertEquals(1250, profile.getRatePerSecond(SECONDS.toNanos(1)), DELTA);
+        assertEquals(2000, profile.getRatePerSecond(SECONDS.toNanos(10)), DELTA);
+    }
+
+    @Test
+    public void testStep_descending() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "step:3000..1000/1s");
+
+        assertEquals(3000, profile.getRatePerSecond(0), DELTA);
+        assertEquals(2000, profile.getRatePerSecond(SECONDS.toNanos(1)), DELTA);
+        assertEquals(1000, profile.getRatePerSecond(SECONDS.toNanos(10)), DELTA);
+    }
+
+    @Test
+    public void testSine() {
+        RateProfile profile = RateProfile.parse("ratePerSecond", "sine:1000..3000/60s");
+
+        assertEquals(1000, profile.getRatePerSecond(0), DELTA);
+        assertEquals(2000, profile.getRatePerSecond(SECONDS.toNanos(15)), DELTA);
+        assertEquals(3000, profile.getRatePerSecond(SECONDS.toNanos(30)), DELTA);
+        assertEquals(1000, profile.getRatePerSecond(SECONDS.toNanos(60)), DELTA);
+    }
+
+    @Test
+    public void testSchedule() {
+        writeText("# offset-seconds,rate\n0,100\n10,500\n20.5,50\n", scheduleFile);
+        RateProfile profile = RateProfile.parse("ratePerSecond", "csv:" + scheduleFile.getPath());
+
+        assertEquals(100, profile.getRatePerSecond(0), DELTA);
+        assertEquals(500, profile.getRatePerSecond(SECONDS.toNanos(10)), DELTA);
+        assertEquals(500, profile.getRatePerSecond(SECONDS.toNanos(20)), DELTA);
+        assertEquals(50, profile.getRatePerSecond(SECONDS.toNanos(21)), DELTA);
+    }
+
+    @Test
+    public void testLive() {
+        RateProfile.Live profile = (RateProfile.Live) RateProfile.parse("ratePerSecond", "live:1000");
+        assertEquals(1000, profile.getRatePerSecond(0), DELTA);
+
+        profile.setRatePerSecond(5000);
+
+        assertEquals(5000, profile.getRatePerSecond(SECONDS.toNanos(10)), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLive_setZeroRate() {
+        RateProfile.Live profile = (RateProfile.Live) RateProfile.parse("ratePerSecond", "live:1000");
+
+        profile.setRatePerSecond(0);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testSchedule_notIncreasing() {
+        writeText("10,100\n5,500\n", scheduleFile);
+        RateProfile.parse("ratePerSecond", "csv:" + scheduleFile.getPath());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testSchedule_fileNotFound() {
+        RateProfile.parse("ratePerSecond", "csv:" + scheduleFile.getPath());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testUnknownType() {
+        RateProfile.parse("ratePerSecond", "foo:1000..2000/1s");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testMissingDuration() {
+        RateProfile.parse("ratePerSecond", "ramp:1000..2000");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testZeroRate() {
+        RateProfile.parse("ratePerSecond", "ramp:0..2000/1s");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testInvalidRate() {
+        RateProfile.parse("ratePerSecond", "ramp:foo..2000/1s");
+    }
+
+    @Test
+    public void testLoad() {
+        PropertyBinding binding = new PropertyBinding(new TestCase("foo").setProperty("producerRatePerSecond", "ramp:1..2/1s"));
+
+        RateProfile profile = RateProfile.load(binding, "producer");
+
+        assertEquals(1, profile.getRatePerSecond(0), DELTA);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testLoad_whenNotRateProfile() {
+        PropertyBinding binding = new PropertyBinding(new TestCase("foo").setProperty("ratePerSecond", "1000"));
+
+        RateProfile.load(binding, "");
+    }
+}
@@ -0,0 +1,59 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.TestUtils.createTmpDirectory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ExecutionGroupLogWriterTest {
+
+    private File directory;
+    private File file;
+    private ExecutionGroupLogWriter writer;
+
+    @Before
+    public void before() {
+        directory = createTmpDirectory();
+        file = new File(directory, "allocation.csv");
+        writer = new ExecutionGroupLogWriter(file, "allocated-bytes");
+    }
+
+    @After
+    public void after() {
+        writer.close();
+        deleteQuiet(directory);
+    }
+
+    @Test
+    public void testWrite() {
+        Map<String, Long> allocatedBytes = new HashMap<>();
+        allocatedBytes.put("put", 3000L);
+        allocatedBytes.put("get", 1000L);
+        Map<String, Long> operations = new HashMap<>();
+        operations.put("put", 4L);
+        operations.put("get", 0L);
+
+        writer.write(1500, "timestamp", allocatedBytes, operations);
+
+        assertEquals("epoch,timestamp,execution-group,allocated-bytes,operations,allocated-bytes/operation\n"
+                + "1.5,timestamp,get,1000,0,\n"
+                + "1.5,timestamp,put,3000,4,750\n", fileAsText(file));
+    }
+
+    @Test
+    public void testWrite_nothingAllocated() {
+        writer.write(1500, "timestamp", Collections.<String, Long>emptyMap(), Collections.<String, Long>emptyMap());
+
+        assertFalse(file.exists());
+    }
+}
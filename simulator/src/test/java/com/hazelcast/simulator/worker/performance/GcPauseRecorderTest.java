@@ -0,0 +1,77 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GcPauseRecorderTest {
+
+    private final GcPauseRecorder recorder = new GcPauseRecorder();
+
+    @After
+    public void after() {
+        recorder.close();
+    }
+
+    @Test
+    public void testRecordPause() {
+        recorder.recordPause(0);
+        recorder.recordPause(20);
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        assertEquals(2, histogram.getTotalCount());
+        assertTrue(histogram.valuesAreEquivalent(MICROSECONDS.toNanos(1), histogram.getMinValue()));
+        assertEquals(MILLISECONDS.toNanos(20), histogram.getMaxValue(), MILLISECONDS.toNanos(20) / 100);
+
+        assertEquals(0, recorder.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testRecordGc_whenStopTheWorld_thenRecorded() {
+        recorder.recordGc("G1 Young Generation", "end of minor GC", 10);
+        recorder.recordGc("G1 Old Generation", "end of major GC", 10);
+        recorder.recordGc("ZGC Pauses", "end of GC pause", 10);
+        recorder.recordGc("Shenandoah Pauses", "end of GC pause", 10);
+
+        assertEquals(4, recorder.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testRecordGc_whenConcurrentCycle_thenNotRecorded() {
+        recorder.recordGc("ConcurrentMarkSweep", "end of major GC", 1000);
+        recorder.recordGc("G1 Concurrent GC", "end of concurrent GC pause", 1000);
+        recorder.recordGc("ZGC Cycles", "end of GC cycle", 1000);
+        recorder.recordGc("ZGC Major Cycles", "end of GC cycle", 1000);
+        recorder.recordGc("Shenandoah Cycles", "end of GC cycle", 1000);
+
+        assertEquals(0, recorder.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testGcNotification() {
+        recorder.start();
+
+        AtomicLong count = new AtomicLong();
+        assertTrueEventually(() -> {
+            System.gc();
+            count.addAndGet(recorder.getIntervalHistogram().getTotalCount());
+            assertTrue(count.get() > 0);
+        });
+    }
+
+    @Test
+    public void testClose_twice() {
+        recorder.start();
+
+        recorder.close();
+        recorder.close();
+    }
+}
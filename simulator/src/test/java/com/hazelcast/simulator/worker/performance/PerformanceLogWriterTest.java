@@ -0,0 +1,120 @@
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.utils.TestUtils;
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PerformanceLogWriterTest {
+
+    private File dir;
+    private File csvFile;
+    private PerformanceLogWriter writer;
+
+    @Before
+    public void before() {
+        dir = TestUtils.createTmpDirectory();
+        csvFile = new File(dir, "performance.csv");
+    }
+
+    @After
+    public void after() {
+        if (writer != null) {
+            writer.close();
+        }
+        deleteQuiet(dir);
+    }
+
+    @Test
+    public void testWrite() {
+        writer = new PerformanceLogWriter(csvFile);
+
+        writer.write(1500000000123L, "timestamp1", 100, 100, 100, 0, null);
+        // every write is flushed
+        assertEquals(2, lines().length);
+
+        writer.write(1500000001123L, "timestamp2", 300, 200, 200.5, 250, histogram());
+
+        String[] lines = lines();
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("epoch,timestamp,operations"));
+        assertEquals("1500000000.123,timestamp1,100,100,100,,,,,", lines[1]);
+        assertEquals("1500000001.123,timestamp2,300,200,200.5,250,100,200,200,200", lines[2]);
+        assertFalse(BinaryPerformanceLog.getBinaryFile(csvFile).exists());
+    }
+
+    @Test
+    public void testClose_withoutWrite() {
+        writer = new PerformanceLogWriter(csvFile, true);
+        writer.close();
+
+        assertFalse(csvFile.exists());
+        assertFalse(BinaryPerformanceLog.getBinaryFile(csvFile).exists());
+    }
+
+    @Test
+    public void testWrite_withBinaryLog() {
+        writer = new PerformanceLogWriter(csvFile, true);
+
+        writer.write(1500000000123L, "timestamp1", 100, 100, 100, 0, null);
+        writer.write(1500000001123L, "timestamp2", 300, 200, 200.5, 250, histogram());
+
+        File binaryFile = new File(dir, "performance.bin");
+        assertEquals(5 + 2 * BinaryPerformanceLog.RECORD_SIZE, binaryFile.length());
+
+        List<BinaryPerformanceLog.Record> records = BinaryPerformanceLog.read(binaryFile);
+        assertEquals(2, records.size());
+
+        BinaryPerformanceLog.Record first = records.get(0);
+        assertEquals(1500000000123L, first.timeMillis);
+        assertEquals(100, first.operationsTotal);
+        assertEquals(0, first.targetOperationsPerSecond, 0);
+        assertEquals(-1, first.latencyP50Micros);
+        assertEquals(-1, first.latencyMaxMicros);
+
+        BinaryPerformanceLog.Record second = records.get(1);
+        assertEquals(1500000001123L, second.timeMillis);
+        assertEquals(300, second.operationsTotal);
+        assertEquals(200, second.operationsDelta);
+        assertEquals(200.5, second.operationsPerSecond, 0);
+        assertEquals(250, second.targetOperationsPerSecond, 0);
+        assertEquals(100, second.latencyP50Micros);
+        assertEquals(200, second.latencyP99Micros);
+        assertEquals(200, second.latencyP999Micros);
+        assertEquals(200, second.latencyMaxMicros);
+    }
+
+    @Test
+    public void testWrite_appendsToExistingBinaryLog() {
+        writer = new PerformanceLogWriter(csvFile, true);
+        writer.write(1500000000123L, "timestamp1", 100, 100, 100, 0, null);
+        writer.close();
+
+        writer = new PerformanceLogWriter(csvFile, true);
+        writer.write(1500000001123L, "timestamp2", 300, 200, 200, 0, null);
+
+        assertEquals(2, BinaryPerformanceLog.read(new File(dir, "performance.bin")).size());
+    }
+
+    private String[] lines() {
+        return fileAsText(csvFile).split("\n");
+    }
+
+    private static Histogram histogram() {
+        Histogram histogram = new Histogram(MICROSECONDS.toNanos(1), MICROSECONDS.toNanos(10000), 3);
+        histogram.recordValue(MICROSECONDS.toNanos(100));
+        histogram.recordValue(MICROSECONDS.toNanos(200));
+        return histogram;
+    }
+}
@@ -1,9 +1,15 @@
 package com.hazelcast.simulator.worker.performance;
 
+import com.hazelcast.simulator.protocol.operation.OperationCodec;
+import com.hazelcast.simulator.worker.operations.PerformanceStatsOperation;
+import org.HdrHistogram.Histogram;
 import org.junit.Test;
 
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class PerformanceStatsTest {
@@ -101,4 +107,100 @@ public class PerformanceStatsTest {
     public void testToString() {
         assertNotNull(new PerformanceStats().toString());
     }
+
+    @Test
+    public void testAdd_withHistograms() {
+        // the first worker is fast, the second worker has a slow tail
+        Histogram histogram1 = newHistogram();
+        histogram1.recordValueWithCount(MICROSECONDS.toNanos(100), 1000);
+
+        Histogram histogram2 = newHistogram();
+        histogram2.recordValueWithCount(MICROSECONDS.toNanos(100), 980);
+        histogram2.recordValueWithCount(MICROSECONDS.toNanos(5000), 20);
+
+        PerformanceStats addState = new PerformanceStats(1000, 5.0, 10.0, histogram1);
+        PerformanceStats other = new PerformanceStats(1000, 6.0, 12.0, histogram2);
+        assertEquals(MICROSECONDS.toNanos(5000), other.getLatencyPercentileNanos(99), 10000);
+
+        addState.add(other);
+
+        // the max() of the p99 values would be 5000us, but only 1% of all operations were slow
+        Histogram merged = addState.getLatencyHistogram();
+        assertEquals(2000, merged.getTotalCount());
+        assertEquals(2000, addState.getOperationCount());
+        assertEquals(MICROSECONDS.toNanos(100), addState.getLatencyPercentileNanos(99), 1000);
+        assertEquals(MICROSECONDS.toNanos(5000), addState.getIntervalLatency999PercentileNanos(), 10000);
+        assertEquals(merged.getMean(), addState.getIntervalLatencyAvgNanos(), 0.00001);
+        assertEquals(merged.getMaxValue(), addState.getIntervalLatencyMaxNanos());
+
+        // the added instance is not modified
+        assertEquals(1000, other.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testAdd_withHistograms_toEmptyState() {
+        Histogram histogram = newHistogram();
+        histogram.recordValue(MICROSECONDS.toNanos(100));
+        PerformanceStats other = new PerformanceStats(100, 5.0, 10.0, histogram);
+
+        PerformanceStats addState = new PerformanceStats();
+        addState.add(other);
+        addState.add(other);
+
+        assertEquals(2, addState.getLatencyHistogram().getTotalCount());
+        assertEquals(1, other.getLatencyHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testGetLatencyPercentileNanos_withoutHistogram() {
+        PerformanceStats performanceStats = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+
+        assertNull(performanceStats.getLatencyHistogram());
+        assertEquals(-1, performanceStats.getLatencyPercentileNanos(50));
+    }
+
+    @Test
+    public void testHistogram_survivesSerialization() {
+        Histogram histogram = newHistogram();
+        histogram.recordValueWithCount(MICROSECONDS.toNanos(100), 50);
+        histogram.recordValueWithCount(MICROSECONDS.toNanos(300), 50);
+
+        PerformanceStatsOperation operation = new PerformanceStatsOperation();
+        operation.addPerformanceStats("test", new PerformanceStats(100, 5.0, 10.0, histogram));
+
+        String json = OperationCodec.toJson(operation);
+        PerformanceStatsOperation read = (PerformanceStatsOperation) OperationCodec.fromJson(json, PerformanceStatsOperation.class);
+
+        PerformanceStats performanceStats = read.getPerformanceStats().get("test");
+        assertEquals(histogram, performanceStats.getLatencyHistogram());
+        assertEquals(histogram.getValueAtPercentile(99.9), performanceStats.getIntervalLatency999PercentileNanos());
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(MICROSECONDS.toNanos(1), HOURS.toNanos(1), 3);
+    }
+
+    @Test
+    public void testCpuTime_notMeasured() {
+        PerformanceStats stats = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+
+        assertEquals(-1, stats.getCpuTimeNanosPerOperation(), 0);
+    }
+
+    @Test
+    public void testAdd_cpuTime() {
+        PerformanceStats stats = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        stats.setCpuTime(1000, 10);
+        PerformanceStats other = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        other.setCpuTime(5000, 10);
+
+        PerformanceStats result = new PerformanceStats();
+        result.add(stats);
+        result.add(other, false);
+
+        assertEquals(6000, result.getCpuTimeNanos());
+        assertEquals(20, result.getCpuTimeOperationCount());
+        assertEquals(300, result.getCpuTimeNanosPerOperation(), 0);
+        assertEquals(300, new PerformanceStats(result).getCpuTimeNanosPerOperation(), 0);
+    }
 }
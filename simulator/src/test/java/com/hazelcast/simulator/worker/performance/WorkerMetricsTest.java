@@ -0,0 +1,106 @@
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.metrics.PrometheusWriter;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.tests.DummyTest;
+import com.hazelcast.simulator.worker.testcontainer.TestContainer;
+import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
+import com.hazelcast.simulator.worker.testcontainer.TestManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
+import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
+import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
+import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WorkerMetricsTest {
+
+    private static final String TEST_ID = "WorkerMetricsTest";
+
+    private TestContextImpl testContext;
+    private TestContainer testContainer;
+    private WorkerMetrics workerMetrics;
+
+    @Before
+    public void before() {
+        setupFakeUserDir();
+
+        TestCase testCase = new TestCase(TEST_ID);
+        testCase.setProperty("threadCount", 1);
+        testCase.setProperty("measureCpuTime", true);
+        testContext = new TestContextImpl(TEST_ID, "localhost", mock(Server.class));
+        testContainer = new TestContainer(testContext, new DummyTest(), testCase);
+
+        TestManager testManager = mock(TestManager.class);
+        when(testManager.getContainers()).thenReturn(Collections.singletonList(testContainer));
+        workerMetrics = new WorkerMetrics(testManager);
+    }
+
+    @After
+    public void after() {
+        teardownFakeUserDir();
+    }
+
+    @Test
+    public void testCollect_notRunning() {
+        String metrics = collect();
+
+        assertTrue(metrics.contains("simulator_test_operations_total{test=\"WorkerMetricsTest\"} 0\n"));
+        assertFalse(metrics.contains("simulator_probe_latency_seconds{"));
+        assertFalse(metrics.contains("simulator_execution_group_iterations_total{"));
+    }
+
+    @Test
+    public void testCollect_running() {
+        Thread runThread = new Thread(() -> {
+            try {
+                testContainer.invoke(TestPhase.RUN);
+            } catch (Exception e) {
+                ignore(e);
+            }
+        });
+        runThread.start();
+
+        TestPerformanceTracker tracker = testContainer.getTestPerformanceTracker();
+        try {
+            assertTrueEventually(() -> assertTrue(testContainer.iteration() > 0));
+            tracker.update(1, System.currentTimeMillis());
+            assertTrueEventually(() -> {
+                assertTrue(tracker.update(1, System.currentTimeMillis() + 1));
+                assertTrue(tracker.totalOperationCount() > 0);
+                assertTrue(tracker.intervalAllocatedBytesPerOperation().containsKey(""));
+                assertTrue(tracker.intervalCpuTimeNanosPerOperation().containsKey(""));
+            });
+        } finally {
+            testContext.stop();
+            joinThread(runThread);
+        }
+
+        String metrics = collect();
+        assertTrue(metrics.contains("simulator_execution_group_iterations_total{test=\"WorkerMetricsTest\",group=\"\"} "));
+        assertTrue(metrics.contains("simulator_probe_count{test=\"WorkerMetricsTest\",probe=\"timestep\"} "));
+        assertTrue(metrics.contains("simulator_probe_latency_seconds{test=\"WorkerMetricsTest\",probe=\"timestep\",quantile=\"0.99\"} 0.1"));
+        assertTrue(metrics.contains("simulator_probe_latency_seconds{test=\"WorkerMetricsTest\",probe=\"timestep\",quantile=\"1.0\"} 0.1"));
+        assertTrue(metrics.contains("simulator_execution_group_allocated_bytes_per_operation{test=\"WorkerMetricsTest\",group=\"\"} "));
+        assertTrue(metrics.contains("simulator_probe_count{test=\"WorkerMetricsTest\",probe=\"gcPause\"} "));
+        assertTrue(metrics.contains("simulator_execution_group_cpu_seconds_per_operation{test=\"WorkerMetricsTest\",group=\"\"} "));
+        assertTrue(tracker.createPerformanceStats().getCpuTimeNanosPerOperation() > 0);
+    }
+
+    private String collect() {
+        PrometheusWriter writer = new PrometheusWriter();
+        workerMetrics.collect(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.utils.FastRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AliasTableTest {
+
+    private static final int SAMPLES = 1000000;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_noWeights() {
+        new AliasTable();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_negativeWeight() {
+        new AliasTable(0.5, -0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_allWeightsZero() {
+        new AliasTable(0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nanWeight() {
+        new AliasTable(0.5, Double.NaN);
+    }
+
+    @Test
+    public void test_singleWeight() {
+        AliasTable table = new AliasTable(0.3);
+
+        assertEquals(1, table.size());
+        assertEquals(0, table.select(Long.MIN_VALUE));
+        assertEquals(0, table.select(Long.MAX_VALUE));
+        assertEquals(0, table.select(-1));
+    }
+
+    @Test
+    public void test_probabilities() {
+        assertProbabilities(0.5, 0.5);
+        assertProbabilities(0.1, 0.9);
+        assertProbabilities(0.1, 0.2, 0.1, 0.29, 0.21, 0.1);
+        assertProbabilities(0.000001, 0.999999);
+        assertProbabilities(0.0000001, 0.3333333, 0.6666666);
+        assertProbabilities(0, 0.25, 0, 0.75);
+    }
+
+    @Test
+    public void test_probabilities_whenWeightsDontAddUpToOne() {
+        AliasTable table = new AliasTable(1, 3);
+
+        assertEquals(0.25, table.probability(0), 1e-9);
+        assertEquals(0.75, table.probability(1), 1e-9);
+    }
+
+    @Test
+    public void test_select() {
+        double[] weights = {0.1, 0.2, 0.3, 0.4};
+        AliasTable table = new AliasTable(weights);
+        FastRandom random = new FastRandom(1);
+        int[] counts = new int[weights.length];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[table.select(random.nextLong())]++;
+        }
+
+        for (int index = 0; index < weights.length; index++) {
+            assertEquals(weights[index], counts[index] / (double) SAMPLES, 0.005);
+        }
+    }
+
+    @Test
+    public void test_select_zeroWeightNeverSelected() {
+        AliasTable table = new AliasTable(0.5, 0, 0.5);
+        FastRandom random = new FastRandom(1);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            if (table.select(random.nextLong()) == 1) {
+                throw new AssertionError("index with weight 0 was selected");
+            }
+        }
+    }
+
+    private static void assertProbabilities(double... weights) {
+        AliasTable table = new AliasTable(weights);
+
+        assertEquals(weights.length, table.size());
+        for (int index = 0; index < weights.length; index++) {
+            assertEquals(weights[index], table.probability(index), 1e-9);
+        }
+    }
+}
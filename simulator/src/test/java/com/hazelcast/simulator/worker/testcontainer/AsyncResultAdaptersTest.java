@@ -0,0 +1,103 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.test.AsyncResultAdapter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AsyncResultAdaptersTest {
+
+    private final FutureAdapter adapter = new FutureAdapter();
+
+    @After
+    public void after() {
+        AsyncResultAdapters.unregister(adapter);
+    }
+
+    @Test
+    public void testFind_completionStage() {
+        assertNotNull(AsyncResultAdapters.find(CompletionStage.class));
+        assertNotNull(AsyncResultAdapters.find(CompletableFuture.class));
+    }
+
+    @Test
+    public void testFind_notAsync() {
+        assertNull(AsyncResultAdapters.find(String.class));
+        assertNull(AsyncResultAdapters.find(Future.class));
+        assertNull(AsyncResultAdapters.find(void.class));
+    }
+
+    @Test
+    public void testFind_registered() {
+        AsyncResultAdapters.register(adapter);
+
+        assertSame(adapter, AsyncResultAdapters.find(Future.class));
+        // registered adapters take precedence over the built-in adapters
+        assertSame(adapter, AsyncResultAdapters.find(CompletableFuture.class));
+        assertNull(AsyncResultAdapters.find(String.class));
+    }
+
+    @Test
+    public void testUnregister() {
+        AsyncResultAdapters.register(adapter);
+        AsyncResultAdapters.unregister(adapter);
+
+        assertNull(AsyncResultAdapters.find(Future.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCompletionStage_onComplete() {
+        AsyncResultAdapter completionStageAdapter = AsyncResultAdapters.find(CompletableFuture.class);
+        AtomicReference<Object> value = new AtomicReference<>();
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        completionStageAdapter.onComplete(future, (BiConsumer<Object, Throwable>) (v, t) -> {
+            value.set(v);
+            throwable.set(t);
+        });
+        assertNull(value.get());
+
+        future.complete("foo");
+        assertEquals("foo", value.get());
+        assertNull(throwable.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCompletionStage_onComplete_exceptionally() {
+        AsyncResultAdapter completionStageAdapter = AsyncResultAdapters.find(CompletableFuture.class);
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        completionStageAdapter.onComplete(future, (BiConsumer<Object, Throwable>) (v, t) -> throwable.set(t));
+
+        IllegalStateException cause = new IllegalStateException();
+        future.completeExceptionally(cause);
+        assertSame(cause, throwable.get());
+    }
+
+    private static final class FutureAdapter implements AsyncResultAdapter<Future> {
+
+        @Override
+        public Class<Future> resultType() {
+            return Future.class;
+        }
+
+        @Override
+        public void onComplete(Future result, BiConsumer<Object, Throwable> callback) {
+            callback.accept(null, null);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.metronome.BurstyMetronome;
 import com.hazelcast.simulator.worker.metronome.BusySpinningMetronome;
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.PoissonMetronome;
+import com.hazelcast.simulator.worker.metronome.RateProfileMetronome;
 import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
 import org.junit.Test;
 
@@ -15,6 +18,8 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class MetronomeSupplierTest {
 
@@ -85,6 +90,94 @@ public class MetronomeSupplierTest {
         assertEquals(10, metronome.getIntervalNanos());
     }
 
+    @Test
+    public void withPoissonMetronome() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("ratePerSecond", 1000)
+                        .setProperty("metronomeClass", PoissonMetronome.class));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 2);
+
+        Metronome m = supplier.get();
+        assertEquals(PoissonMetronome.class, m.getClass());
+        PoissonMetronome metronome = (PoissonMetronome) m;
+
+        assertEquals(MILLISECONDS.toNanos(2), metronome.getIntervalNanos());
+    }
+
+    @Test
+    public void withBurstyMetronome() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("producerRatePerSecond", 1000)
+                        .setProperty("producerMetronomeClass", BurstyMetronome.class)
+                        .setProperty("producerBurstOnMs", 100)
+                        .setProperty("producerBurstOffMs", 300));
+        MetronomeSupplier supplier = new MetronomeSupplier("producer", propertyBinding, 1);
+        propertyBinding.ensureNoUnusedProperties();
+
+        Metronome m = supplier.get();
+        assertEquals(BurstyMetronome.class, m.getClass());
+    }
+
+    @Test
+    public void withRateProfile() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo").setProperty("ratePerSecond", "step:1000..2000/1m"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 2);
+        propertyBinding.ensureNoUnusedProperties();
+
+        Metronome m = supplier.get();
+        assertEquals(RateProfileMetronome.class, m.getClass());
+        assertEquals(MILLISECONDS.toNanos(1), supplier.getIntervalNanos());
+        assertEquals(1000, supplier.getTargetRatePerSecond(), 0.1);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void withRateProfile_andOtherMetronome() {
+        PropertyBinding propertyBinding = new PropertyBinding(
+                new TestCase("foo")
+                        .setProperty("ratePerSecond", "step:1000..2000/1m")
+                        .setProperty("metronomeClass", BusySpinningMetronome.class));
+        new MetronomeSupplier("", propertyBinding, 1);
+    }
+
+    @Test
+    public void withLiveRateProfile() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("ratePerSecond", "live:1000"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 2);
+        assertTrue(supplier.hasLiveRate());
+
+        supplier.setTargetRatePerSecond(4000);
+
+        assertEquals(4000, supplier.getTargetRatePerSecond(), 0.1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setTargetRatePerSecond_withoutLiveRateProfile() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("ratePerSecond", "1000"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 2);
+        assertFalse(supplier.hasLiveRate());
+
+        supplier.setTargetRatePerSecond(4000);
+    }
+
+    @Test
+    public void testTargetRatePerSecond() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("interval", "1ms"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 4);
+
+        assertEquals(1000, supplier.getTargetRatePerSecond(), 0.1);
+    }
+
+    @Test
+    public void testTargetRatePerSecond_whenZeroInterval() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo"));
+        MetronomeSupplier supplier = new MetronomeSupplier("", propertyBinding, 4);
+
+        assertEquals(0, supplier.getTargetRatePerSecond(), 0.1);
+    }
+
     @Test
     public void whenZeroInterval() {
         PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo"));
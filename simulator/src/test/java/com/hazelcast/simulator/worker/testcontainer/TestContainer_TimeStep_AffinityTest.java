@@ -0,0 +1,67 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_AffinityTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test_cpuList() throws Exception {
+        assertRun("0");
+    }
+
+    @Test
+    public void test_spread() throws Exception {
+        assertRun("spread");
+    }
+
+    @Test
+    public void test_compact() throws Exception {
+        assertRun("compact");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_invalidAffinity() {
+        TestCase testCase = new TestCase("affinity")
+                .setProperty("affinity", "foo")
+                .setProperty("class", AffinityTest.class);
+
+        new TestContainer(testContext, new AffinityTest(), testCase);
+    }
+
+    private void assertRun(String affinity) throws Exception {
+        AffinityTest testInstance = new AffinityTest();
+        TestCase testCase = new TestCase("affinity")
+                .setProperty("iterations", 100)
+                .setProperty("threadCount", 2)
+                .setProperty("affinity", affinity)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        assertEquals(200, testInstance.count.get());
+    }
+
+    public static class AffinityTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep
+        public void timeStep() {
+            count.incrementAndGet();
+        }
+    }
+}
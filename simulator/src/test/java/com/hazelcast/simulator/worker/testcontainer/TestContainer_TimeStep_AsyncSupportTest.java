@@ -1,25 +1,36 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
 import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.AsyncResultAdapter;
 import com.hazelcast.simulator.test.annotations.TimeStep;
 import com.hazelcast.simulator.utils.AssertTask;
+import org.HdrHistogram.Histogram;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import static com.hazelcast.simulator.TestSupport.spawn;
 import static com.hazelcast.simulator.common.TestPhase.RUN;
 import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static com.hazelcast.simulator.utils.TestUtils.assertCompletesEventually;
 import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
 import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -48,6 +59,144 @@ public class TestContainer_TimeStep_AsyncSupportTest extends TestContainer_Abstr
         assertTrueEventually(() -> assertEquals(100, testInstance.asyncCount));
     }
 
+    @Test
+    public void test_serviceTimeAndResponseTime() throws Exception {
+        BackPressureTest testInstance = new BackPressureTest();
+        TestCase testCase = new TestCase("backPressure")
+                .setProperty("iterations", 50)
+                .setProperty("threadCount", 1)
+                .setProperty("interval", "1ms")
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        HdrProbe responseTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep");
+        HdrProbe serviceTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep_serviceTime");
+        assertFalse(serviceTimeProbe.isPartOfTotalLatency());
+
+        Histogram responseTime = responseTimeProbe.getRecorder().getIntervalHistogram();
+        Histogram serviceTime = serviceTimeProbe.getRecorder().getIntervalHistogram();
+        assertEquals(50, responseTime.getTotalCount());
+        assertEquals(50, serviceTime.getTotalCount());
+        // every call takes 5ms while the schedule is 1ms, so the thread falls further behind with every call
+        assertTrue(responseTime.getMaxValue() > serviceTime.getMaxValue());
+        assertTrue(responseTime.getMaxValue() >= MILLISECONDS.toNanos(100));
+
+        // benchmark-report.py names the series of a '<testId>-<probe>.hdr' file after the part following the first dash
+        Set<String> seriesNames = new HashSet<>();
+        for (String probe : container.getProbeMap().keySet()) {
+            String series = (testCase.getId() + '-' + probe).split("-", 2)[1];
+            assertTrue("duplicate series " + series, seriesNames.add(series));
+        }
+        assertTrue(seriesNames.contains("asyncTimeStep_serviceTime"));
+    }
+
+    @Test
+    public void test_noServiceTimeWithoutMetronome() throws Exception {
+        BackPressureTest testInstance = new BackPressureTest();
+        TestCase testCase = new TestCase("backPressure")
+                .setProperty("iterations", 10)
+                .setProperty("threadCount", 1)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        assertFalse(container.getProbeMap().containsKey("asyncTimeStep_serviceTime"));
+    }
+
+    @Test
+    public void test_registeredAdapter() throws Exception {
+        CallAdapter adapter = new CallAdapter();
+        AsyncResultAdapters.register(adapter);
+        try {
+            CallTest testInstance = new CallTest();
+            TestCase testCase = new TestCase("call")
+                    .setProperty("iterations", 20)
+                    .setProperty("threadCount", 1)
+                    .setProperty("maxInFlight", 2)
+                    .setProperty("class", testInstance.getClass());
+
+            TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+            TestContainer container = new TestContainer(testContext, testInstance, testCase);
+            container.invoke(SETUP);
+            container.invoke(RUN);
+
+            assertNoExceptions();
+            // the run only completes when all outstanding calls have completed
+            assertEquals(20, testInstance.completed.get());
+            HdrProbe probe = (HdrProbe) container.getProbeMap().get("call");
+            Histogram histogram = probe.getRecorder().getIntervalHistogram();
+            assertEquals(20, histogram.getTotalCount());
+            // the latency is recorded on completion of the call, not on return of the timestep method
+            assertTrue(histogram.getMinValue() >= MILLISECONDS.toNanos(4));
+        } finally {
+            AsyncResultAdapters.unregister(adapter);
+        }
+    }
+
+    /**
+     * An asynchronous result of a client library which isn't a CompletionStage.
+     */
+    public static class Call {
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        public void addListener(Runnable listener) {
+            new Thread(() -> {
+                try {
+                    completed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                listener.run();
+            }).start();
+        }
+    }
+
+    public static class CallAdapter implements AsyncResultAdapter<Call> {
+
+        @Override
+        public Class<Call> resultType() {
+            return Call.class;
+        }
+
+        @Override
+        public void onComplete(Call result, BiConsumer<Object, Throwable> callback) {
+            result.addListener(() -> callback.accept(null, null));
+        }
+    }
+
+    public static class CallTest {
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger completed = new AtomicInteger();
+
+        @TimeStep
+        public Call call() {
+            Call call = new Call();
+            scheduler.schedule(() -> {
+                completed.incrementAndGet();
+                call.completed.countDown();
+            }, 5, MILLISECONDS);
+            return call;
+        }
+    }
+
+    public static class BackPressureTest {
+
+        @TimeStep
+        public CompletableFuture<Object> asyncTimeStep() {
+            // the call blocks the caller, e.g. because the client applies back pressure
+            sleepMillis(5);
+            return CompletableFuture.completedFuture("1");
+        }
+    }
 
     public static class AsyncTest {
         public ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -0,0 +1,209 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_MaxInFlightTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("maxInFlight")
+                .setProperty("iterations", 200)
+                .setProperty("threadCount", 2)
+                .setProperty("maxInFlight", 5)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        // all outstanding calls have completed when the run completes
+        assertEquals(400, testInstance.completed.get());
+        assertEquals(0, testInstance.inFlight.get());
+        assertTrue(testInstance.maxObservedInFlight.get() <= 10);
+
+        assertTrue(container.getProbeMap().get("asyncTimeStep") instanceof HdrProbe);
+        HdrProbe queueTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep_queueTime");
+        HdrProbe serviceTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep_serviceTime");
+        assertFalse(queueTimeProbe.isPartOfTotalLatency());
+        assertFalse(serviceTimeProbe.isPartOfTotalLatency());
+        assertEquals(400, queueTimeProbe.getRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(400, serviceTimeProbe.getRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void test_multipleTimeSteps() throws Exception {
+        MultipleAsyncTest testInstance = new MultipleAsyncTest();
+        TestCase testCase = new TestCase("maxInFlight")
+                .setProperty("iterations", 200)
+                .setProperty("threadCount", 1)
+                .setProperty("maxInFlight", 5)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        assertEquals(200, testInstance.completed.get() + testInstance.syncCount.get());
+        assertEquals(0, testInstance.inFlight.get());
+        assertTrue(container.getProbeMap().containsKey("asyncTimeStep_queueTime"));
+        assertFalse(container.getProbeMap().containsKey("syncTimeStep_queueTime"));
+        // the synchronous calls are recorded by the thread probe of the runner
+        HdrProbe syncProbe = (HdrProbe) container.getProbeMap().get("syncTimeStep");
+        assertEquals(testInstance.syncCount.get(), syncProbe.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void test_stopException() throws Exception {
+        test_stopException("generated");
+    }
+
+    @Test
+    public void test_stopException_methodHandleRunner() throws Exception {
+        test_stopException("methodHandle");
+    }
+
+    private void test_stopException(String runnerType) throws Exception {
+        StoppingAsyncTest testInstance = new StoppingAsyncTest();
+        TestCase testCase = new TestCase("maxInFlight")
+                .setProperty("threadCount", 1)
+                .setProperty("maxInFlight", 5)
+                .setProperty("runnerType", runnerType)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        long startMillis = currentTimeMillis();
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        // the call throwing the StopException returns its permit, so the run doesn't wait for the completion timeout
+        assertTrue(currentTimeMillis() - startMillis < SECONDS.toMillis(10));
+        // the outstanding calls have completed and are recorded when the run completes, although it was stopped
+        assertEquals(StoppingAsyncTest.STOP_AFTER, testInstance.completed.get());
+        assertEquals(0, testInstance.inFlight.get());
+        HdrProbe probe = (HdrProbe) container.getProbeMap().get("asyncTimeStep");
+        assertEquals(StoppingAsyncTest.STOP_AFTER, probe.getRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_negativeMaxInFlight() {
+        TestCase testCase = new TestCase("maxInFlight")
+                .setProperty("maxInFlight", -1)
+                .setProperty("class", AsyncTest.class);
+
+        new TestContainer(testContext, new AsyncTest(), testCase);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_noAsyncTimeStep() {
+        TestCase testCase = new TestCase("maxInFlight")
+                .setProperty("maxInFlight", 10)
+                .setProperty("class", SyncTest.class);
+
+        new TestContainer(testContext, new SyncTest(), testCase);
+    }
+
+    public static class AsyncTest {
+        private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObservedInFlight = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+
+        @TimeStep
+        public CompletableFuture<Object> asyncTimeStep() {
+            int current = inFlight.incrementAndGet();
+            maxObservedInFlight.accumulateAndGet(current, Math::max);
+
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                future.complete("1");
+            }, 1, MILLISECONDS);
+            return future;
+        }
+    }
+
+    public static class MultipleAsyncTest {
+        private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger syncCount = new AtomicInteger();
+
+        @TimeStep(prob = 0.5)
+        public CompletableFuture<Object> asyncTimeStep() {
+            inFlight.incrementAndGet();
+
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                future.complete("1");
+            }, 1, MILLISECONDS);
+            return future;
+        }
+
+        @TimeStep(prob = -1)
+        public void syncTimeStep() {
+            syncCount.incrementAndGet();
+        }
+    }
+
+    public static class StoppingAsyncTest {
+        static final int STOP_AFTER = 20;
+
+        private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        private int calls;
+
+        @TimeStep
+        public CompletableFuture<Object> asyncTimeStep() {
+            if (calls++ == STOP_AFTER) {
+                throw new StopException();
+            }
+            inFlight.incrementAndGet();
+
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                future.complete("1");
+            }, 50, MILLISECONDS);
+            return future;
+        }
+    }
+
+    public static class SyncTest {
+        @TimeStep
+        public void timeStep() {
+        }
+    }
+}
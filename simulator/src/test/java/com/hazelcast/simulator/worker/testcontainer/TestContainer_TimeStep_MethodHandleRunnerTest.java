@@ -0,0 +1,129 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.StartNanos;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_MethodHandleRunnerTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test_sync() throws Exception {
+        SyncTest testInstance = new SyncTest();
+        TestCase testCase = new TestCase("methodHandle")
+                .setProperty("iterations", 1000)
+                .setProperty("threadCount", 2)
+                .setProperty("runnerType", "methodHandle")
+                .setProperty("recordedProb", 0.5)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = run(testInstance, testCase);
+
+        assertEquals(2000, testInstance.threadStateCount.get() + testInstance.recordedCount.get());
+        assertTrue(testInstance.threadStateCount.get() > 0);
+        assertTrue(testInstance.recordedCount.get() > 0);
+        assertFalse(testInstance.invalidStartNanos);
+
+        // the latency of the timestep method without a probe parameter is recorded by the runner
+        HdrProbe probe = (HdrProbe) container.getProbeMap().get("threadState");
+        assertEquals(testInstance.threadStateCount.get(), probe.getIntervalHistogram().getTotalCount());
+        assertEquals(2000, container.iteration());
+    }
+
+    @Test
+    public void test_async() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("methodHandle")
+                .setProperty("iterations", 100)
+                .setProperty("threadCount", 1)
+                .setProperty("maxInFlight", 4)
+                .setProperty("runnerType", "methodHandle")
+                .setProperty("class", testInstance.getClass());
+
+        try {
+            TestContainer container = run(testInstance, testCase);
+
+            assertEquals(100, testInstance.completed.get());
+            HdrProbe probe = (HdrProbe) container.getProbeMap().get("asyncTimeStep");
+            HdrProbe queueTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep_queueTime");
+            HdrProbe serviceTimeProbe = (HdrProbe) container.getProbeMap().get("asyncTimeStep_serviceTime");
+            assertEquals(100, probe.getRecorder().getIntervalHistogram().getTotalCount());
+            assertEquals(100, queueTimeProbe.getRecorder().getIntervalHistogram().getTotalCount());
+            assertEquals(100, serviceTimeProbe.getRecorder().getIntervalHistogram().getTotalCount());
+        } finally {
+            testInstance.executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_invalidRunnerType() {
+        TestCase testCase = new TestCase("methodHandle")
+                .setProperty("runnerType", "interpreted")
+                .setProperty("class", SyncTest.class);
+
+        new TestContainer(testContext, new SyncTest(), testCase);
+    }
+
+    private TestContainer run(Object testInstance, TestCase testCase) throws Exception {
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+        assertNoExceptions();
+        return container;
+    }
+
+    public static class SyncTest {
+
+        private final AtomicLong threadStateCount = new AtomicLong();
+        private final AtomicLong recordedCount = new AtomicLong();
+        private volatile boolean invalidStartNanos;
+
+        @TimeStep(prob = -1)
+        public long threadState(ThreadState threadState) {
+            threadState.count++;
+            return threadStateCount.incrementAndGet();
+        }
+
+        @TimeStep(prob = 0.5)
+        public void recorded(Probe probe, @StartNanos long startNanos, ThreadState threadState) {
+            if (startNanos <= 0 || startNanos > System.nanoTime()) {
+                invalidStartNanos = true;
+            }
+            recordedCount.incrementAndGet();
+            probe.recordValue(System.nanoTime() - startNanos);
+        }
+
+        public class ThreadState extends BaseThreadState {
+            private long count;
+        }
+    }
+
+    public static class AsyncTest {
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(2);
+        private final AtomicLong completed = new AtomicLong();
+
+        @TimeStep
+        public CompletableFuture<Void> asyncTimeStep() {
+            return CompletableFuture.runAsync(completed::incrementAndGet, executor);
+        }
+    }
+}
@@ -53,6 +53,20 @@ public class TestContainer_TimeStep_MultipleExecutionGroupsTest extends TestCont
         assertTrue(disjoint(testInstance.group1Threads, testInstance.group2Threads));
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void testSetTargetRatePerSecond_whenGroupWithoutLiveRate() {
+        MultipleExecutionGroupsTest testInstance = new MultipleExecutionGroupsTest();
+        TestCase testCase = new TestCase("multipleExecutionGroupsTest")
+                .setProperty("group1RatePerSecond", "live:100")
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+
+        container.setTargetRatePerSecond(200);
+    }
+
     public static class MultipleExecutionGroupsTest {
         private final AtomicLong group1Counter = new AtomicLong(1000);
         private final AtomicLong group2Counter = new AtomicLong(2000);
@@ -0,0 +1,108 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.protocol.Server;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.utils.VirtualThreads;
+import com.hazelcast.simulator.worker.metronome.BusySpinningMetronome;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class TestContainer_TimeStep_ThreadModelTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test_platform() throws Exception {
+        ThreadModelTest testInstance = run("platform");
+
+        assertEquals(0, testInstance.virtualThreads.size());
+    }
+
+    @Test
+    public void test_virtual() throws Exception {
+        ThreadModelTest testInstance = run("virtual");
+
+        // falls back to platform threads if the JVM doesn't support virtual threads
+        assertEquals(VirtualThreads.isSupported() ? 200 : 0, testInstance.virtualThreads.size());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_invalidThreadModel() {
+        TestCase testCase = new TestCase("threadModel")
+                .setProperty("threadModel", "green")
+                .setProperty("class", ThreadModelTest.class);
+
+        new TestContainer(testContext, new ThreadModelTest(), testCase);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_virtual_withAffinity() {
+        TestCase testCase = new TestCase("threadModel")
+                .setProperty("threadModel", "virtual")
+                .setProperty("affinity", "0")
+                .setProperty("class", ThreadModelTest.class);
+
+        new TestContainer(testContext, new ThreadModelTest(), testCase);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_virtual_withMeasureCpuTime() {
+        TestCase testCase = new TestCase("threadModel")
+                .setProperty("threadModel", "virtual")
+                .setProperty("measureCpuTime", "true")
+                .setProperty("class", ThreadModelTest.class);
+
+        new TestContainer(testContext, new ThreadModelTest(), testCase);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void test_virtual_withBusySpinningMetronome() {
+        TestCase testCase = new TestCase("threadModel")
+                .setProperty("threadModel", "virtual")
+                .setProperty("interval", "10us")
+                .setProperty("metronomeClass", BusySpinningMetronome.class)
+                .setProperty("class", ThreadModelTest.class);
+
+        new TestContainer(testContext, new ThreadModelTest(), testCase);
+    }
+
+    private ThreadModelTest run(String threadModel) throws Exception {
+        ThreadModelTest testInstance = new ThreadModelTest();
+        TestCase testCase = new TestCase("threadModel")
+                .setProperty("iterations", 10)
+                .setProperty("threadCount", 200)
+                .setProperty("interval", "1ms")
+                .setProperty("threadModel", threadModel)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(testCase.getId(), "localhost", mock(Server.class));
+        TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+        container.invoke(RUN);
+
+        assertNoExceptions();
+        assertEquals(2000, testInstance.count.get());
+        return testInstance;
+    }
+
+    public static class ThreadModelTest {
+        private final AtomicLong count = new AtomicLong();
+        private final Set<Thread> virtualThreads = ConcurrentHashMap.newKeySet();
+
+        @TimeStep
+        public void timeStep() {
+            count.incrementAndGet();
+            if (Thread.currentThread().getClass().getSimpleName().equals("VirtualThread")) {
+                virtualThreads.add(Thread.currentThread());
+            }
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.utils.compiler.InMemoryJavaCompiler;
 import org.junit.Test;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -39,13 +41,24 @@ public class TimeStepModel_probabilityTest {
                 + "}\n", probs);
 
         assertProbability(model, "timeStep1", 1.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepAliasTable(""));
     }
 
     private void assertProbability(TimeStepModel model, String method, double value) {
         assertEquals(value, model.getProbability("", method).getValue(), 0.001);
     }
 
+    private void assertSelectionProbability(TimeStepModel model, String method, double value) {
+        List<Method> activeMethods = model.getActiveTimeStepMethods("");
+        for (int index = 0; index < activeMethods.size(); index++) {
+            if (activeMethods.get(index).getName().equals(method)) {
+                assertEquals(value, model.getTimeStepAliasTable("").probability(index), 1e-9);
+                return;
+            }
+        }
+        fail("Method " + method + " is not active");
+    }
+
     private void assertProbability(TimeStepModel model, String group, String method, double value) {
         assertEquals(value, model.getProbability(group, method).getValue(), 0.001);
     }
@@ -107,7 +120,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 1.0);
         assertProbability(model, "timeStep2", 0.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -127,8 +140,8 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "b", "b1", 0.20);
         assertProbability(model, "b", "b2", 0.80);
 
-        assertNotNull(model.getTimeStepProbabilityArray("a"));
-        assertNotNull(model.getTimeStepProbabilityArray("b"));
+        assertNotNull(model.getTimeStepAliasTable("a"));
+        assertNotNull(model.getTimeStepAliasTable("b"));
     }
 
     @Test
@@ -151,8 +164,8 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "b", "b1", 0.03);
         assertProbability(model, "b", "b2", 0.97);
 
-        assertNotNull(model.getTimeStepProbabilityArray("a"));
-        assertNotNull(model.getTimeStepProbabilityArray("b"));
+        assertNotNull(model.getTimeStepAliasTable("a"));
+        assertNotNull(model.getTimeStepAliasTable("b"));
     }
 
     @Test
@@ -169,7 +182,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.001);
         assertProbability(model, "b", 0.999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -184,7 +197,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.0001);
         assertProbability(model, "b", 0.9999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -199,7 +212,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.00001);
         assertProbability(model, "b", 0.99999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -214,7 +227,9 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.000001);
         assertProbability(model, "b", 0.999999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
+        assertSelectionProbability(model, "a", 0.000001);
+        assertSelectionProbability(model, "b", 0.999999);
     }
 
     @Test
@@ -228,7 +243,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 1.0);
         assertProbability(model, "timeStep2", 0.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepAliasTable(""));
     }
 
 
@@ -243,7 +258,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.5);
         assertProbability(model, "timeStep2", 0.5);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -257,7 +272,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.2);
         assertProbability(model, "timeStep2", 0.8);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     @Test
@@ -273,7 +288,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.3);
         assertProbability(model, "timeStep2", 0.7);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepAliasTable(""));
     }
 
     private TimeStepModel loadModel(String code, Map<String, Double> probs) {
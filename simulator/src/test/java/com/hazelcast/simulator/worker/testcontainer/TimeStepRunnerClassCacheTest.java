@@ -0,0 +1,99 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
+import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.TestUtils.createTmpDirectory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimeStepRunnerClassCacheTest {
+
+    private File directory;
+    private TimeStepModel timeStepModel;
+
+    @Before
+    public void before() {
+        directory = createTmpDirectory();
+        TimeStepRunnerClassCache.setDirectory(directory);
+
+        TestCase testCase = new TestCase("cache").setProperty("class", CacheTest.class);
+        timeStepModel = new TimeStepModel(CacheTest.class, new PropertyBinding(testCase));
+    }
+
+    @After
+    public void after() {
+        TimeStepRunnerClassCache.clear();
+        deleteQuiet(directory);
+    }
+
+    @Test
+    public void testClassName() {
+        String className = TimeStepRunnerClassCache.className("Runner", "source");
+
+        assertEquals(className, TimeStepRunnerClassCache.className("Runner", "source"));
+        assertNotEquals(className, TimeStepRunnerClassCache.className("Runner", "other source"));
+        assertTrue(className.matches("Runner_[0-9a-f]{16}"));
+    }
+
+    @Test
+    public void testGet_whenNotCompiled() {
+        assertNull(TimeStepRunnerClassCache.get("Runner_0000000000000000"));
+    }
+
+    @Test
+    public void testCompile_whenIdentical_thenCompiledOnce() {
+        Class runnerClass = compile(EmptyMetronome.class);
+
+        assertSame(runnerClass, compile(EmptyMetronome.class));
+        assertEquals(1, directory.list((dir, name) -> name.endsWith(".class")).length);
+    }
+
+    @Test
+    public void testCompile_whenDifferent_thenCompiledSeparately() {
+        Class runnerClass = compile(EmptyMetronome.class);
+
+        assertNotEquals(runnerClass, compile(SleepingMetronome.class));
+        assertEquals(2, directory.list((dir, name) -> name.endsWith(".class")).length);
+    }
+
+    @Test
+    public void testCompile_whenCompiledByOtherWorker_thenLoadedFromDirectory() {
+        Class runnerClass = compile(EmptyMetronome.class);
+        long lastModified = new File(directory, runnerClass.getName() + ".class").lastModified();
+
+        // a new worker starts with an empty memory cache
+        TimeStepRunnerClassCache.clear();
+        TimeStepRunnerClassCache.setDirectory(directory);
+        Class loadedClass = compile(EmptyMetronome.class);
+
+        assertNotEquals(runnerClass, loadedClass);
+        assertEquals(runnerClass.getName(), loadedClass.getName());
+        assertEquals(lastModified, new File(directory, runnerClass.getName() + ".class").lastModified());
+        assertSame(loadedClass, TimeStepRunnerClassCache.get(runnerClass.getName()));
+    }
+
+    private Class compile(Class metronomeClass) {
+        return new TimeStepRunnerCodeGenerator()
+                .compile("", timeStepModel, metronomeClass, HdrProbe.class, 0, 0, false, false);
+    }
+
+    public static class CacheTest {
+
+        @TimeStep
+        public void timeStep() {
+        }
+    }
+}